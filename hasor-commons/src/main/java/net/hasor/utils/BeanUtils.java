@@ -15,6 +15,8 @@
  */
 package net.hasor.utils;
 import net.hasor.utils.convert.ConverterUtils;
+import net.hasor.utils.reflect.BeanAccessor;
+import net.hasor.utils.reflect.BeanAccessor.Property;
 
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
@@ -203,17 +205,7 @@ public class BeanUtils {
         if (fieldName == null || type == null) {
             return null;
         }
-        for (Field f : type.getFields()) {
-            if (f.getName().equals(fieldName)) {
-                return f;
-            }
-        }
-        for (Field f : type.getDeclaredFields()) {
-            if (f.getName().equals(fieldName)) {
-                return f;
-            }
-        }
-        return null;
+        return BeanAccessor.of(type).findField(fieldName);
     }
 
     /**查找一个可操作的方法。*/
@@ -244,25 +236,7 @@ public class BeanUtils {
 
     /**获取属性名集合，被包含的属性可能有些只是只读属性，有些是只写属性。也有读写属性。*/
     public static List<String> getPropertys(final Class<?> target) {
-        List<String> mnames = new ArrayList<>();
-        List<Method> ms = BeanUtils.getMethods(target);
-        for (Method m : ms) {
-            String name = m.getName();
-            if (name.startsWith("get") || name.startsWith("set")) {
-                name = name.substring(3);
-            } else if (name.startsWith("is")) {
-                name = name.substring(2);
-            } else {
-                continue;
-            }
-            if (!name.equals("")) {
-                name = StringUtils.firstCharToLowerCase(name);
-                if (!mnames.contains(name)) {
-                    mnames.add(name);
-                }
-            }
-        }
-        return mnames;
+        return new ArrayList<>(BeanAccessor.of(target).getPropertyNames());
     }
 
     /**获取属性名集合，被包含的属性可能有些只是只读属性，有些是只写属性。也有读写属性。*/
@@ -283,25 +257,7 @@ public class BeanUtils {
         if (property == null || target == null) {
             return null;
         }
-        String methodName_1 = "get" + StringUtils.firstCharToUpperCase(property);
-        String methodName_2 = "is" + StringUtils.firstCharToUpperCase(property);
-        //
-        for (Method m : target.getMethods()) {
-            if (m.getParameterTypes().length == 0) {
-                String methodName = m.getName();
-                if (methodName.equals(methodName_1)) {
-                    return m;
-                }
-                /*是否是布尔*/
-                if (methodName.equals(methodName_2)) {
-                    Class<?> t = m.getReturnType();
-                    if (t == Boolean.class || t == boolean.class) {
-                        return m;
-                    }
-                }
-            }
-        }
-        return null;
+        return BeanAccessor.of(target).findReadMethod(property);
     }
 
     /**获取一个属性的写入方法。*/
@@ -309,15 +265,7 @@ public class BeanUtils {
         if (property == null || target == null) {
             return null;
         }
-        String methodName = "set" + StringUtils.firstCharToUpperCase(property);
-        for (Method m : target.getMethods()) {
-            if (m.getName().equals(methodName)) {
-                if (m.getParameterTypes().length == 1) {
-                    return m;
-                }
-            }
-        }
-        return null;
+        return BeanAccessor.of(target).findWriteMethod(property);
     }
 
     /**测试是否具有propertyName所表示的属性，无论是读或写方法只要存在一个就表示存在该属性。*/
@@ -383,17 +331,20 @@ public class BeanUtils {
             return false;
         }
         //1.查找方法
-        Class<?> defineType = object.getClass();
-        Method writeMethod = BeanUtils.getWriteMethod(attName, defineType);
-        if (writeMethod == null) {
+        Property property = BeanAccessor.of(object.getClass()).findProperty(attName);
+        if (property == null || !property.canWrite()) {
             return false;
         }
+        return writeProperty(object, property, value);
+    }
+
+    private static boolean writeProperty(final Object object, final Property property, final Object value) {
         //2.执行属性转换
-        Class<?> toType = writeMethod.getParameterTypes()[0];
+        Class<?> toType = property.getWriteMethod().getParameterTypes()[0];
         Object attValueObject = ConverterUtils.convert(toType, value);
         //3.执行属性注入
         try {
-            writeMethod.invoke(object, attValueObject);
+            property.write(object, attValueObject);
             return true;
         } catch (Exception e) {
             return false;
@@ -427,8 +378,9 @@ public class BeanUtils {
     /**执行注入，该方法首先会试图执行属性方法注入。如果失败则执行字段注入。注意：该方法会根据属性类型进行尝试类型转换。*/
     public static boolean writePropertyOrField(final Object object, final String attName, final Object value) {
         Class<?> defineType = object.getClass();
-        if (BeanUtils.canWriteProperty(attName, defineType)) {
-            return BeanUtils.writeProperty(object, attName, value);//支持方法写入
+        Property property = BeanAccessor.of(defineType).findProperty(attName);
+        if (property != null && property.canWrite()) {
+            return BeanUtils.writeProperty(object, property, value);//支持方法写入
         }
         if (BeanUtils.hasField(attName, defineType)) {
             return BeanUtils.writeField(object, attName, value);//支持字段写入
@@ -442,14 +394,17 @@ public class BeanUtils {
             return false;
         }
         //1.查找方法
-        Class<?> defineType = object.getClass();
-        Method readMethod = BeanUtils.getReadMethod(attName, defineType);
-        if (readMethod == null) {
+        Property property = BeanAccessor.of(object.getClass()).findProperty(attName);
+        if (property == null || !property.canRead()) {
             return null;
         }
+        return readProperty(object, property);
+    }
+
+    private static Object readProperty(final Object object, final Property property) {
         //2.执行属性读取
         try {
-            return readMethod.invoke(object);
+            return property.read(object);
         } catch (Exception e) {
             return null;
         }
@@ -478,8 +433,9 @@ public class BeanUtils {
     /**执行注入，该方法首先会试图执行属性方法注入。如果失败则执行字段注入。注意：该方法会根据属性类型进行尝试类型转换。*/
     public static Object readPropertyOrField(final Object object, final String attName) {
         Class<?> defineType = object.getClass();
-        if (BeanUtils.canReadProperty(attName, defineType)) {
-            return BeanUtils.readProperty(object, attName);//支持方法读取
+        Property property = BeanAccessor.of(defineType).findProperty(attName);
+        if (property != null && property.canRead()) {
+            return BeanUtils.readProperty(object, property);//支持方法读取
         }
         if (BeanUtils.hasField(attName, defineType)) {
             return BeanUtils.readField(object, attName);//支持字段读取
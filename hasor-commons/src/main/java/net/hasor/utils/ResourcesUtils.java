@@ -19,6 +19,7 @@ import net.hasor.utils.io.AutoCloseInputStream;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
@@ -340,6 +341,19 @@ public abstract class ResourcesUtils {
      * @param item 当找到资源时执行回调的接口。
      */
     public static void scan(final String wild, final Scanner item) throws IOException, URISyntaxException {
+        scan(wild, item, url -> true, false);
+    }
+
+    /**
+     * 扫描classpath目录中的资源，和 {@link #scan(String, Scanner)} 相同。
+     * 不同的是可以通过 rootFilter 排除某些 classpath 条目，并且可以并行扫描各个条目（目录或 jar 包）。
+     * 并行扫描时 {@link Scanner} 会在多个线程中被回调，因此需要是线程安全的。
+     * @param wild 扫描期间要排除资源的通配符。
+     * @param item 当找到资源时执行回调的接口。
+     * @param rootFilter 返回 false 的 classpath 条目不会被扫描。
+     * @param parallel 是否并行扫描。
+     */
+    public static void scan(final String wild, final Scanner item, final Predicate<URL> rootFilter, final boolean parallel) throws IOException, URISyntaxException {
         if (wild == null || wild.equals("")) {
             return;
         }
@@ -358,19 +372,45 @@ public abstract class ResourcesUtils {
         if (_wild.charAt(_wild.length() - 1) == '/') {
             _wild = _wild.substring(0, _wild.length() - 1);
         }
-        Enumeration<URL> urls = findAllClassPath(_wild);
+        List<URL> urls = Collections.list(findAllClassPath(_wild));
         List<URL> dirs = rootDir();
         //
-        while (urls.hasMoreElements()) {
-            URL url = urls.nextElement();
-            String protocol = url.getProtocol();
-            if (protocol.equals("file")) {
-                File f = new File(url.toURI());
-                scanDir(f, wild, item, new File(has(dirs, url).toURI()));
-            } else if (protocol.equals("jar")) {
-                JarURLConnection urlc = (JarURLConnection) url.openConnection();
-                scanJar(urlc.getJarFile(), wild, item);
+        if (!parallel || urls.size() <= 1) {
+            for (URL url : urls) {
+                if (rootFilter.test(url)) {
+                    scan(url, wild, item, dirs);
+                }
             }
+            return;
+        }
+        try {
+            urls.parallelStream().filter(rootFilter).forEach(url -> {
+                try {
+                    scan(url, wild, item, dirs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (URISyntaxException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalArgumentException e) {
+            if (e.getCause() instanceof URISyntaxException) {
+                throw (URISyntaxException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void scan(final URL url, final String wild, final Scanner item, final List<URL> dirs) throws IOException, URISyntaxException {
+        String protocol = url.getProtocol();
+        if (protocol.equals("file")) {
+            File f = new File(url.toURI());
+            scanDir(f, wild, item, new File(has(dirs, url).toURI()));
+        } else if (protocol.equals("jar")) {
+            JarURLConnection urlc = (JarURLConnection) url.openConnection();
+            scanJar(urlc.getJarFile(), wild, item);
         }
     }
 
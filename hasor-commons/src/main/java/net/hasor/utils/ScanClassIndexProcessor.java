@@ -0,0 +1,142 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.utils;
+import net.hasor.utils.ScanClassPath.ClassInfo;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.*;
+
+/**
+ * 在编译期为 {@link ScanClassPath} 生成类索引（{@link ScanClassPath#CLASS_INDEX}），索引中记录了每个类可转换的类型和标记的注解。
+ * 运行期 {@link ScanClassPath} 遇到带有索引的 classpath 条目时不再扫描和解析字节码。
+ * <p>需要显式的启用，例如 maven-compiler-plugin 的 annotationProcessors 配置中加入 net.hasor.utils.ScanClassIndexProcessor。
+ * 增量编译时已有索引中的类只要依然存在就会被保留；匿名类和局部类不会出现在索引中。
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+@SupportedAnnotationTypes("*")
+public class ScanClassIndexProcessor extends AbstractProcessor {
+    private final Map<String, ClassInfo> classInfoMap = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            this.writeClassIndex();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                this.collectType((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void collectType(TypeElement typeElement) {
+        Elements elements = this.processingEnv.getElementUtils();
+        ClassInfo info = new ClassInfo();
+        info.className = elements.getBinaryName(typeElement).toString();
+        //
+        // .可转换的类型（自身、所有父类和接口）
+        Set<String> castTypes = new TreeSet<>();
+        this.collectCastType(typeElement.asType(), castTypes);
+        info.castType = castTypes.toArray(new String[0]);
+        //
+        // .标记的注解（SOURCE 级别的注解不会出现在字节码中）
+        List<String> annos = new ArrayList<>();
+        for (AnnotationMirror mirror : typeElement.getAnnotationMirrors()) {
+            TypeElement annoElement = (TypeElement) mirror.getAnnotationType().asElement();
+            Retention retention = annoElement.getAnnotation(Retention.class);
+            if (retention != null && retention.value() == RetentionPolicy.SOURCE) {
+                continue;
+            }
+            annos.add(elements.getBinaryName(annoElement).toString());
+        }
+        info.annos = annos.toArray(new String[0]);
+        this.classInfoMap.put(info.className, info);
+        //
+        // .内部类
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                this.collectType((TypeElement) enclosed);
+            }
+        }
+    }
+
+    private void collectCastType(TypeMirror typeMirror, Set<String> castTypes) {
+        if (typeMirror.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        TypeElement typeElement = (TypeElement) ((DeclaredType) typeMirror).asElement();
+        String typeName = this.processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        if (!castTypes.add(typeName)) {
+            return;
+        }
+        Types types = this.processingEnv.getTypeUtils();
+        for (TypeMirror superType : types.directSupertypes(typeMirror)) {
+            this.collectCastType(types.erasure(superType), castTypes);
+        }
+    }
+
+    private void writeClassIndex() {
+        Filer filer = this.processingEnv.getFiler();
+        Elements elements = this.processingEnv.getElementUtils();
+        //
+        // .增量编译时保留已有索引中依然存在的类
+        try {
+            FileObject oldIndex = filer.getResource(StandardLocation.CLASS_OUTPUT, "", ScanClassPath.CLASS_INDEX);
+            try (InputStream inStream = oldIndex.openInputStream()) {
+                for (ClassInfo info : ScanClassPath.readClassIndex(inStream)) {
+                    if (!this.classInfoMap.containsKey(info.className) && elements.getTypeElement(info.className.replace('$', '.')) != null) {
+                        this.classInfoMap.put(info.className, info);
+                    }
+                }
+            }
+        } catch (Exception e) { /* 没有已存在的索引 */ }
+        //
+        try {
+            FileObject newIndex = filer.createResource(StandardLocation.CLASS_OUTPUT, "", ScanClassPath.CLASS_INDEX);
+            try (OutputStream outStream = newIndex.openOutputStream()) {
+                ScanClassPath.writeClassIndex(this.classInfoMap.values(), outStream);
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "write " + ScanClassPath.CLASS_INDEX + " failed, " + e.getMessage());
+        }
+    }
+}
@@ -19,20 +19,26 @@ import net.hasor.utils.asm.ClassReader;
 import net.hasor.utils.asm.ClassVisitor;
 import net.hasor.utils.asm.Opcodes;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- *
+ * 扫描 classpath 查找具有某个特征（继承的类、标记的注解）的类。
+ * <p>classpath 条目中如果存在 {@link #CLASS_INDEX} 索引文件（通过 {@link ScanClassIndexProcessor} 在编译期生成），
+ * 那么这个条目将直接使用索引不再解析字节码。其它条目会并行扫描。每个 ScanClassPath 只会扫描一次，扫描结果和查找结果都会被缓存。
  * @version : 2013-8-13
  * @author 赵永春 (zyc@hasor.net)
  */
 public class ScanClassPath {
-    private ClassLoader                  classLoader  = null;
-    private String[]                     scanPackages = null;
-    private Map<Class<?>, Set<Class<?>>> cacheMap     = new WeakHashMap<>();
+    /** 编译期生成的类索引文件，每一行的格式为：类名;可转换的类型（逗号分割）;标记的注解（逗号分割） */
+    public static final String                       CLASS_INDEX  = "META-INF/hasor-class.index";
+    private             ClassLoader                  classLoader  = null;
+    private             String[]                     scanPackages = null;
+    private             Map<Class<?>, Set<Class<?>>> cacheMap     = new ConcurrentHashMap<>();
+    private volatile    Collection<ClassInfo>        scanResult   = null;
 
     private ScanClassPath(final String[] scanPackages) {
         this(scanPackages, null);
@@ -74,7 +80,7 @@ public class ScanClassPath {
     }
 
     /**
-     * 扫描jar包中凡是匹配compareType参数的类均被返回。（对执行结果不缓存）
+     * 扫描jar包中凡是匹配compareType参数的类均被返回。（扫描结果和查找结果都会被缓存）
      * @param compareType 要查找的特征。
      * @return 返回扫描结果。
      */
@@ -82,58 +88,132 @@ public class ScanClassPath {
         //0.尝试从缓存中获取
         Set<Class<?>> returnData = this.cacheMap.get(compareType);
         if (returnData != null) {
-            return Collections.unmodifiableSet(returnData);
+            return returnData;
         }
-        //1.准备参数
+        //1.测试目标类是否匹配
         final String compareTypeStr = compareType.getName();//要匹配的类型
-        final Set<String> classStrSet = new HashSet<>();//符合条件的Class
-        //2.扫描
-        for (String tiem : this.scanPackages) {
-            if (StringUtils.isBlank(tiem)) {
-                continue;
+        final Set<String> classStrSet = new TreeSet<>();//符合条件的Class
+        for (ClassInfo info : this.scanClassInfo()) {
+            if (ArrayUtils.contains(info.castType, compareTypeStr) || ArrayUtils.contains(info.annos, compareTypeStr)) {
+                classStrSet.add(info.className);
             }
+        }
+        //2.装载类
+        returnData = new LinkedHashSet<>();
+        for (String atClass : classStrSet) {
             try {
-                ResourcesUtils.scan(tiem.replace(".", "/") + "*.class", (event, isInJar) -> {
-                    String name = event.getName();
-                    if (!name.endsWith(".class")) {
-                        return;
-                    }
-                    //1.取得类名
-                    name = name.substring(0, name.length() - ".class".length());
-                    name = name.replace("/", ".");
-                    //2.装载类
-                    ClassInfo info = null;
-                    try (InputStream inStream = event.getStream()) {
-                        info = ScanClassPath.this.loadClassInfo(name, inStream, ScanClassPath.this.classLoader);
-                    }
-                    //3.测试目标类是否匹配
-                    for (String castType : info.castType) {
-                        if (castType.equals(compareTypeStr)) {
-                            classStrSet.add(name);
-                            return;
+                Class<?> clazz = Class.forName(atClass, false, this.classLoader);
+                returnData.add(clazz);
+            } catch (Throwable e) { /**/}
+        }
+        //3.缓存
+        returnData = Collections.unmodifiableSet(returnData);
+        Set<Class<?>> oldData = this.cacheMap.putIfAbsent(compareType, returnData);
+        return (oldData != null) ? oldData : returnData;
+    }
+
+    /** 扫描所有包中的类（只扫描一次）。存在索引的 classpath 条目使用索引，其它条目并行扫描。 */
+    private Collection<ClassInfo> scanClassInfo() {
+        if (this.scanResult != null) {
+            return this.scanResult;
+        }
+        synchronized (this) {
+            if (this.scanResult != null) {
+                return this.scanResult;
+            }
+            Map<String, List<ClassInfo>> classIndex = this.loadClassIndex();
+            Map<String, ClassInfo> classInfos = new ConcurrentHashMap<>();
+            for (String tiem : this.scanPackages) {
+                if (StringUtils.isBlank(tiem)) {
+                    continue;
+                }
+                String wild = tiem.replace(".", "/") + "*.class";
+                //1.使用索引
+                for (List<ClassInfo> indexInfos : classIndex.values()) {
+                    for (ClassInfo info : indexInfos) {
+                        if (MatchUtils.matchWild(wild, info.className.replace(".", "/") + ".class")) {
+                            classInfos.put(info.className, info);
                         }
                     }
-                    for (String face : info.annos) {
-                        if (face.equals(compareTypeStr)) {
-                            classStrSet.add(name);
+                }
+                //2.扫描没有索引的 classpath 条目
+                try {
+                    ResourcesUtils.scan(wild, (event, isInJar) -> {
+                        String name = event.getName();
+                        if (!name.endsWith(".class")) {
                             return;
                         }
-                    }
-                });
-            } catch (Throwable e) {
-                e.printStackTrace();
+                        //1.取得类名
+                        name = name.substring(0, name.length() - ".class".length());
+                        name = name.replace("/", ".");
+                        //2.分析字节码
+                        try (InputStream inStream = event.getStream()) {
+                            classInfos.put(name, ScanClassPath.this.loadClassInfo(name, inStream, ScanClassPath.this.classLoader));
+                        }
+                    }, url -> {
+                        String urlString = url.toString();
+                        return classIndex.keySet().stream().noneMatch(urlString::startsWith);
+                    }, true);
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
             }
+            this.scanResult = classInfos.values();
+            return this.scanResult;
         }
-        //3.缓存
-        returnData = new HashSet<>();
-        for (String atClass : classStrSet) {
-            try {
-                Class<?> clazz = Class.forName(atClass, false, this.classLoader);
-                returnData.add(clazz);
-            } catch (Throwable e) { /**/}
+    }
+
+    /** 加载 classpath 中所有的类索引，返回值的 Key 是索引所在 classpath 条目的 URL */
+    private Map<String, List<ClassInfo>> loadClassIndex() {
+        Map<String, List<ClassInfo>> classIndex = new HashMap<>();
+        try {
+            Enumeration<URL> indexUrls = this.classLoader.getResources(CLASS_INDEX);
+            while (indexUrls.hasMoreElements()) {
+                URL indexUrl = indexUrls.nextElement();
+                String indexString = indexUrl.toString();
+                String rootString = indexString.substring(0, indexString.length() - CLASS_INDEX.length());
+                try (InputStream inStream = indexUrl.openStream()) {
+                    classIndex.put(rootString, readClassIndex(inStream));
+                }
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+        return classIndex;
+    }
+
+    /** 读取类索引 */
+    public static List<ClassInfo> readClassIndex(InputStream inStream) throws IOException {
+        List<ClassInfo> classInfos = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inStream, StandardCharsets.UTF_8));
+        String line = null;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] lineParts = line.split(";", -1);
+            ClassInfo info = new ClassInfo();
+            info.className = lineParts[0];
+            info.castType = (lineParts.length > 1 && !lineParts[1].isEmpty()) ? lineParts[1].split(",") : new String[0];
+            info.annos = (lineParts.length > 2 && !lineParts[2].isEmpty()) ? lineParts[2].split(",") : new String[0];
+            classInfos.add(info);
+        }
+        return classInfos;
+    }
+
+    /** 写入类索引 */
+    public static void writeClassIndex(Collection<ClassInfo> classInfos, OutputStream outStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8));
+        for (ClassInfo info : classInfos) {
+            writer.write(info.className);
+            writer.write(";");
+            writer.write(StringUtils.join(info.castType, ","));
+            writer.write(";");
+            writer.write(StringUtils.join(info.annos, ","));
+            writer.write("\n");
         }
-        this.cacheMap.put(compareType, returnData);
-        return returnData;
+        writer.flush();
     }
 
     private final Map<String, ClassInfo> classInfoMap = new ConcurrentHashMap<>();
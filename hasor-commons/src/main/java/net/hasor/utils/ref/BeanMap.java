@@ -15,12 +15,9 @@
  * limitations under the License.
  */
 package net.hasor.utils.ref;
-import net.hasor.utils.BeanUtils;
+import net.hasor.utils.reflect.BeanAccessor;
+import net.hasor.utils.reflect.BeanAccessor.Property;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -40,9 +37,9 @@ import java.util.*;
  */
 public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
     private transient    Object                     bean;
-    private transient    Map<String, Method>        readMethods      = new LinkedHashMap<>();
-    private transient    Map<String, Method>        writeMethods     = new LinkedHashMap<>();
-    private transient    Map<String, Class<?>>      types            = new LinkedHashMap<>();
+    /** 属性表取自 BeanAccessor，同一个类型的 BeanMap 共享（不可修改） */
+    private transient    Map<String, Property>      properties       = Collections.emptyMap();
+    private transient    Map<String, Property>      readProperties   = Collections.emptyMap();
     /** An empty array.  Used to invoke accessors via reflection. */
     public static final  Object[]                   NULL_ARGUMENTS   = {};
     /**
@@ -137,7 +134,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
             // copy only properties that are readable and writable.  If its
             // not readable, we can't get the value from the old map.  If
             // its not writable, we can't write a value into the new map.
-            Iterator<String> readableKeys = readMethods.keySet().iterator();
+            Iterator<String> readableKeys = readProperties.keySet().iterator();
             while (readableKeys.hasNext()) {
                 String key = readableKeys.next();
                 if (getWriteMethod(key) != null) {
@@ -156,7 +153,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @param map  the BeanMap whose properties to put
      */
     public void putAllWriteable(BeanMap map) {
-        Iterator<String> readableKeys = map.readMethods.keySet().iterator();
+        Iterator<String> readableKeys = map.readProperties.keySet().iterator();
         while (readableKeys.hasNext()) {
             String key = readableKeys.next();
             if (getWriteMethod(key) != null) {
@@ -225,10 +222,10 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      */
     public Object get(Object name) {
         if (bean != null) {
-            Method method = getReadMethod(name);
-            if (method != null) {
+            Property property = readProperties.get(name);
+            if (property != null) {
                 try {
-                    return method.invoke(bean, NULL_ARGUMENTS);
+                    return property.read(bean);
                 } catch (IllegalAccessException e) {
                     logWarn(e);
                 } catch (IllegalArgumentException e) {
@@ -256,13 +253,13 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
     public Object put(String name, Object value) throws IllegalArgumentException, ClassCastException {
         if (bean != null) {
             Object oldValue = get(name);
-            Method method = getWriteMethod(name);
-            if (method == null) {
+            Property property = properties.get(name);
+            if (property == null || !property.canWrite()) {
                 throw new IllegalArgumentException("The bean of type: " + bean.getClass().getName() + " has no property called: " + name);
             }
             try {
-                Object[] arguments = createWriteMethodArguments(method, value);
-                method.invoke(bean, arguments);
+                Object[] arguments = createWriteMethodArguments(property.getWriteMethod(), value);
+                property.write(bean, arguments[0]);
                 Object newValue = get(name);
                 firePropertyChange(name, oldValue, newValue);
             } catch (InvocationTargetException e) {
@@ -282,7 +279,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return the number of properties defined by the bean
      */
     public int size() {
-        return readMethods.size();
+        return readProperties.size();
     }
 
     /**
@@ -292,7 +289,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return BeanMap keys.  The Set returned by this method is not modifiable.
      */
     public Set<String> keySet() {
-        return Collections.unmodifiableSet(readMethods.keySet());
+        return Collections.unmodifiableSet(readProperties.keySet());
     }
 
     /**
@@ -307,7 +304,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
             }
 
             public int size() {
-                return BeanMap.this.readMethods.size();
+                return BeanMap.this.readProperties.size();
             }
         });
     }
@@ -317,7 +314,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return values for the BeanMap. The returned collection is not modifiable.
      */
     public Collection<Object> values() {
-        ArrayList<Object> answer = new ArrayList<>(readMethods.size());
+        ArrayList<Object> answer = new ArrayList<>(readProperties.size());
         for (Iterator<Object> iter = valueIterator(); iter.hasNext(); ) {
             answer.add(iter.next());
         }
@@ -332,7 +329,8 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return the type of the property, or <code>null</code> if no such property exists
      */
     public Class<?> getType(String name) {
-        return types.get(name);
+        Property property = properties.get(name);
+        return (property == null) ? null : property.getPropertyType();
     }
 
     /**
@@ -341,7 +339,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return an iterator over the keys
      */
     public Iterator<String> keyIterator() {
-        return readMethods.keySet().iterator();
+        return readProperties.keySet().iterator();
     }
 
     /**
@@ -414,7 +412,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return the accessor method for the property, or null
      */
     public Method getReadMethod(String name) {
-        return readMethods.get(name);
+        return getReadMethod((Object) name);
     }
 
     /**
@@ -423,7 +421,7 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      * @return the mutator method for the property, or null
      */
     public Method getWriteMethod(String name) {
-        return writeMethods.get(name);
+        return getWriteMethod((Object) name);
     }
     // Implementation methods
     //-------------------------------------------------------------------------
@@ -435,7 +433,8 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      *      null if no such property exists; or the accessor method for that property
      */
     protected Method getReadMethod(Object name) {
-        return readMethods.get(name);
+        Property property = readProperties.get(name);
+        return (property == null) ? null : property.getReadMethod();
     }
 
     /**
@@ -445,53 +444,25 @@ public class BeanMap extends AbstractMap<String, Object> implements Cloneable {
      *      null if no such property exists; null if the property is read-only; or the mutator method for that property
      */
     protected Method getWriteMethod(Object name) {
-        return writeMethods.get(name);
+        Property property = properties.get(name);
+        return (property == null) ? null : property.getWriteMethod();
     }
 
     /** Reinitializes this bean.  Called during {@link #setBean(Object)}. Does introspection to find properties. */
     protected void reinitialise() {
-        readMethods.clear();
-        writeMethods.clear();
-        types.clear();
+        properties = Collections.emptyMap();
+        readProperties = Collections.emptyMap();
         initialise();
     }
 
+    /** 属性表由 BeanAccessor 按类型缓存，构造 BeanMap 时不再重复分析类型 */
     private void initialise() {
         if (getBean() == null) {
             return;
         }
-        Class<?> beanClass = getBean().getClass();
-        try {
-            Map<String, PropertyDescriptor> pd = new LinkedHashMap<>();
-            // 为了有序
-            BeanInfo beanInfo = Introspector.getBeanInfo(beanClass);
-            PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
-            BeanUtils.getPropertys(beanClass).forEach(s -> pd.put(s, null));
-            if (propertyDescriptors != null) {
-                for (int i = 0; i < propertyDescriptors.length; i++) {
-                    PropertyDescriptor propertyDescriptor = propertyDescriptors[i];
-                    pd.put(propertyDescriptor.getName(), propertyDescriptor);
-                }
-            }
-            // 为了有序
-            pd.forEach((name, propertyDescriptor) -> {
-                if (propertyDescriptor == null) {
-                    return;
-                }
-                Method readMethod = propertyDescriptor.getReadMethod();
-                Method writeMethod = propertyDescriptor.getWriteMethod();
-                Class<?> aType = propertyDescriptor.getPropertyType();
-                if (readMethod != null) {
-                    readMethods.put(name, readMethod);
-                }
-                if (writeMethod != null) {
-                    writeMethods.put(name, writeMethod);
-                }
-                types.put(name, aType);
-            });
-        } catch (IntrospectionException e) {
-            logWarn(e);
-        }
+        BeanAccessor accessor = BeanAccessor.of(getBean().getClass());
+        properties = accessor.getDescriptorProperties();
+        readProperties = accessor.getReadableDescriptorProperties();
     }
 
     /**
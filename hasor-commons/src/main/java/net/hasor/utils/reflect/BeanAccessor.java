@@ -0,0 +1,353 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.utils.reflect;
+import net.hasor.utils.ClassUtils;
+import net.hasor.utils.StringUtils;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型的属性访问表，每个类型只在第一次使用时分析一次（getMethods 的结果会被缓存，不会在每次读写属性时重新扫描）。
+ *  - 属性按照 getMethods 的顺序排列（同 BeanUtils.getPropertys），可以通过下标访问。
+ *  - 属性的读写使用 MethodHandle 执行，无法访问的方法（例如：非 public 类型上的方法）退化为反射调用。
+ *    对象或参数的类型不匹配时同样交给反射调用，从而抛出和 Method.invoke 相同的 NullPointerException、IllegalArgumentException。
+ *  - 读写方法的查找规则和 BeanUtils 原有的逻辑保持一致，多个候选方法时使用 getMethods 中的第一个。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public final class BeanAccessor {
+    private static final ClassValue<BeanAccessor>       ACCESSOR_CACHE = new ClassValue<BeanAccessor>() {
+        @Override
+        protected BeanAccessor computeValue(Class<?> beanType) {
+            return new BeanAccessor(beanType);
+        }
+    };
+    private final        Class<?>                       beanType;
+    private final        Property[]                     properties;
+    private final        List<String>                   propertyNames;
+    private final        Map<String, Integer>           propertyIndex;  // Key 为首字母大写的属性名
+    private final        Map<String, Method>            readMethods;    // Key 为 get/is 之后的部分
+    private final        Map<String, Method>            writeMethods;   // Key 为 set 之后的部分
+    private final        Map<String, Field>             fieldMap;
+    private final        Map<String, Field[]>           hierarchyFields = new ConcurrentHashMap<>();
+    private volatile     Map<String, Property>          descriptorProperties;
+    private volatile     Map<String, Property>          readableDescriptorProperties;
+
+    private BeanAccessor(Class<?> beanType) {
+        this.beanType = beanType;
+        Map<String, Method> readMethods = new HashMap<>();
+        Map<String, Method> writeMethods = new HashMap<>();
+        List<String> propertyNames = new ArrayList<>();
+        for (Method method : beanType.getMethods()) {
+            String methodName = method.getName();
+            int paramCount = method.getParameterCount();
+            String suffix;
+            if (methodName.startsWith("get") || methodName.startsWith("set")) {
+                suffix = methodName.substring(3);
+                if (paramCount == 0 && methodName.startsWith("get")) {
+                    readMethods.putIfAbsent(suffix, method);
+                } else if (paramCount == 1 && methodName.startsWith("set")) {
+                    writeMethods.putIfAbsent(suffix, method);
+                }
+            } else if (methodName.startsWith("is")) {
+                suffix = methodName.substring(2);
+                Class<?> returnType = method.getReturnType();
+                if (paramCount == 0 && (returnType == Boolean.class || returnType == boolean.class)) {
+                    readMethods.putIfAbsent(suffix, method);
+                }
+            } else {
+                continue;
+            }
+            if (!suffix.equals("")) {
+                String propertyName = StringUtils.firstCharToLowerCase(suffix);
+                if (!propertyNames.contains(propertyName)) {
+                    propertyNames.add(propertyName);
+                }
+            }
+        }
+        this.readMethods = readMethods;
+        this.writeMethods = writeMethods;
+        //
+        this.properties = new Property[propertyNames.size()];
+        this.propertyIndex = new HashMap<>();
+        for (int i = 0; i < this.properties.length; i++) {
+            String propertyName = propertyNames.get(i);
+            String suffix = StringUtils.firstCharToUpperCase(propertyName);
+            Method readMethod = readMethods.get(suffix);
+            Method writeMethod = writeMethods.get(suffix);
+            this.properties[i] = new Property(propertyName, readMethod, writeMethod);
+            this.propertyIndex.putIfAbsent(suffix, i);
+        }
+        this.propertyNames = Collections.unmodifiableList(propertyNames);
+        //
+        Map<String, Field> fieldMap = new HashMap<>();
+        for (Field field : beanType.getFields()) {
+            fieldMap.putIfAbsent(field.getName(), field);
+        }
+        for (Field field : beanType.getDeclaredFields()) {
+            fieldMap.putIfAbsent(field.getName(), field);
+        }
+        this.fieldMap = fieldMap;
+    }
+
+    /** 获取类型的属性访问表 */
+    public static BeanAccessor of(Class<?> beanType) {
+        return ACCESSOR_CACHE.get(beanType);
+    }
+
+    public Class<?> getBeanType() {
+        return this.beanType;
+    }
+
+    /** 属性个数 */
+    public int size() {
+        return this.properties.length;
+    }
+
+    /** 属性名集合，同 BeanUtils.getPropertys（不可修改） */
+    public List<String> getPropertyNames() {
+        return this.propertyNames;
+    }
+
+    /** 属性的下标，属性不存在时返回 -1 */
+    public int indexOf(String propertyName) {
+        if (propertyName == null) {
+            return -1;
+        }
+        Integer index = this.propertyIndex.get(StringUtils.firstCharToUpperCase(propertyName));
+        return (index == null) ? -1 : index;
+    }
+
+    /** 按照下标获取属性 */
+    public Property getProperty(int index) {
+        return this.properties[index];
+    }
+
+    /** 按照名字获取属性，属性不存在时返回 null */
+    public Property findProperty(String propertyName) {
+        int index = this.indexOf(propertyName);
+        return (index < 0) ? null : this.properties[index];
+    }
+
+    /** 属性的读取方法（get 或 is 开头，没有参数），同 BeanUtils.getReadMethod */
+    public Method findReadMethod(String propertyName) {
+        return (propertyName == null) ? null : this.readMethods.get(StringUtils.firstCharToUpperCase(propertyName));
+    }
+
+    /** 属性的写入方法（set 开头，一个参数），同 BeanUtils.getWriteMethod */
+    public Method findWriteMethod(String propertyName) {
+        return (propertyName == null) ? null : this.writeMethods.get(StringUtils.firstCharToUpperCase(propertyName));
+    }
+
+    /** 查找字段，先查找 public 字段（包含父类的）然后是类型自身声明的字段，同 BeanUtils.getField */
+    public Field findField(String fieldName) {
+        return (fieldName == null) ? null : this.fieldMap.get(fieldName);
+    }
+
+    /** 沿着父类依次查找各个类型自身声明的同名字段（供 FieldUtils 使用） */
+    Field[] findHierarchyFields(String fieldName) {
+        return this.hierarchyFields.computeIfAbsent(fieldName, name -> {
+            List<Field> fieldList = new ArrayList<>();
+            for (Class<?> atClass = this.beanType; atClass != null; atClass = atClass.getSuperclass()) {
+                try {
+                    fieldList.add(atClass.getDeclaredField(name));
+                } catch (NoSuchFieldException e) {
+                    // ignore
+                }
+            }
+            return fieldList.toArray(new Field[0]);
+        });
+    }
+
+    /**
+     * 通过 java.beans.Introspector 分析得到的属性（供 BeanMap 使用），按照 BeanUtils.getPropertys 的顺序排列，
+     * 之后是 Introspector 中额外的属性，属性名、读写方法均以 Introspector 的结果为准。
+     */
+    public Map<String, Property> getDescriptorProperties() {
+        if (this.descriptorProperties == null) {
+            this.initDescriptorProperties();
+        }
+        return this.descriptorProperties;
+    }
+
+    /** getDescriptorProperties 中可以读取的属性 */
+    public Map<String, Property> getReadableDescriptorProperties() {
+        if (this.descriptorProperties == null) {
+            this.initDescriptorProperties();
+        }
+        return this.readableDescriptorProperties;
+    }
+
+    private void initDescriptorProperties() {
+        Map<String, PropertyDescriptor> pd = new LinkedHashMap<>();
+        this.propertyNames.forEach(s -> pd.put(s, null));
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(this.beanType);
+            PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
+            if (propertyDescriptors != null) {
+                for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+                    pd.put(propertyDescriptor.getName(), propertyDescriptor);
+                }
+            }
+        } catch (IntrospectionException e) {
+            // 分析失败时没有属性（同 BeanMap 原有的逻辑）
+            pd.clear();
+        }
+        Map<String, Property> propertyMap = new LinkedHashMap<>();
+        Map<String, Property> readableMap = new LinkedHashMap<>();
+        pd.forEach((name, propertyDescriptor) -> {
+            if (propertyDescriptor != null) {
+                Method readMethod = propertyDescriptor.getReadMethod();
+                Method writeMethod = propertyDescriptor.getWriteMethod();
+                Property property = new Property(name, readMethod, writeMethod, propertyDescriptor.getPropertyType());
+                propertyMap.put(name, property);
+                if (readMethod != null) {
+                    readableMap.put(name, property);
+                }
+            }
+        });
+        // .先发布 readable，descriptorProperties 不为空时两者都已经可用
+        this.readableDescriptorProperties = Collections.unmodifiableMap(readableMap);
+        this.descriptorProperties = Collections.unmodifiableMap(propertyMap);
+    }
+
+    /** 一个属性的读写器 */
+    public static final class Property {
+        private final String       name;
+        private final Class<?>     propertyType;
+        private final Method       readMethod;
+        private final Method       writeMethod;
+        private final MethodHandle readHandle;  // (Object)Object，无法访问时为 null
+        private final MethodHandle writeHandle; // (Object,Object)void，无法访问时为 null
+        private final Class<?>     writeType;   // 写入方法的参数类型，基本类型为对应的包装类型
+
+        private Property(String name, Method readMethod, Method writeMethod) {
+            this(name, readMethod, writeMethod, (readMethod != null) ? readMethod.getReturnType() : //
+                    ((writeMethod != null) ? writeMethod.getParameterTypes()[0] : null));
+        }
+
+        private Property(String name, Method readMethod, Method writeMethod, Class<?> propertyType) {
+            this.name = name;
+            this.propertyType = propertyType;
+            this.readMethod = readMethod;
+            this.writeMethod = writeMethod;
+            this.readHandle = unreflect(readMethod, MethodType.methodType(Object.class, Object.class));
+            this.writeHandle = unreflect(writeMethod, MethodType.methodType(void.class, Object.class, Object.class));
+            this.writeType = (writeMethod == null) ? null : ClassUtils.primitiveToWrapper(writeMethod.getParameterTypes()[0]);
+        }
+
+        private static MethodHandle unreflect(Method method, MethodType methodType) {
+            if (method == null) {
+                return null;
+            }
+            try {
+                return MethodHandles.publicLookup().unreflect(method).asType(methodType);
+            } catch (IllegalAccessException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /** 属性类型，以读取方法的返回值类型为准 */
+        public Class<?> getPropertyType() {
+            return this.propertyType;
+        }
+
+        public Method getReadMethod() {
+            return this.readMethod;
+        }
+
+        public Method getWriteMethod() {
+            return this.writeMethod;
+        }
+
+        public boolean canRead() {
+            return this.readMethod != null;
+        }
+
+        public boolean canWrite() {
+            return this.writeMethod != null;
+        }
+
+        /**
+         * 读取属性，异常规则同 Method.invoke：target 为 null 时抛出 NullPointerException，类型不匹配时抛出 IllegalArgumentException，
+         * 读取方法抛出的异常包装为 InvocationTargetException（Error 除外，直接抛出）。
+         */
+        public Object read(Object target) throws IllegalAccessException, InvocationTargetException {
+            if (this.readHandle == null || !this.readMethod.getDeclaringClass().isInstance(target)) {
+                return invoke(this.readMethod, target);
+            }
+            try {
+                return this.readHandle.invokeExact(target);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * 写入属性（不做类型转换），异常规则同 Method.invoke：target 为 null 时抛出 NullPointerException，
+         * target 或 value 的类型不匹配时抛出 IllegalArgumentException，写入方法抛出的异常包装为 InvocationTargetException（Error 除外，直接抛出）。
+         */
+        public void write(Object target, Object value) throws IllegalAccessException, InvocationTargetException {
+            if (this.writeHandle == null || !this.writeMethod.getDeclaringClass().isInstance(target) || !this.isWriteValue(value)) {
+                invoke(this.writeMethod, target, value);
+                return;
+            }
+            try {
+                this.writeHandle.invokeExact(target, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /** value 可以直接交给 writeHandle（基本类型的参数只接受对应的包装类型，其它情况例如：数值的拓宽转换由反射处理） */
+        private boolean isWriteValue(Object value) {
+            if (value == null) {
+                return !this.writeMethod.getParameterTypes()[0].isPrimitive();
+            }
+            return this.writeType.isInstance(value);
+        }
+
+        private static Object invoke(Method method, Object target, Object... args) throws IllegalAccessException, InvocationTargetException {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
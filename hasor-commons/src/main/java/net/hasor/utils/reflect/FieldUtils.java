@@ -91,22 +91,18 @@ public class FieldUtils {
         //  private/different package blocks access to further superclasses
         // implementedinterface public
         // check up the superclass hierarchy
-        for (Class<?> acls = cls; acls != null; acls = acls.getSuperclass()) {
-            try {
-                Field field = acls.getDeclaredField(fieldName);
-                // getDeclaredField checks for non-public scopes as well
-                // and it returns accurate results
-                if (!Modifier.isPublic(field.getModifiers())) {
-                    if (forceAccess) {
-                        field.setAccessible(true);
-                    } else {
-                        continue;
-                    }
+        // the declared fields along the superclass hierarchy are cached by BeanAccessor
+        for (Field field : BeanAccessor.of(cls).findHierarchyFields(fieldName)) {
+            // getDeclaredField checks for non-public scopes as well
+            // and it returns accurate results
+            if (!Modifier.isPublic(field.getModifiers())) {
+                if (forceAccess) {
+                    field.setAccessible(true);
+                } else {
+                    continue;
                 }
-                return field;
-            } catch (NoSuchFieldException ex) {
-                // ignore
             }
+            return field;
         }
         // check the public interface case. This must be manually searched for
         // incase there is a public supersuperclass field hidden by a private/package
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.utils;
+import net.hasor.utils.ScanClassPath.ClassInfo;
+import net.hasor.utils.convert.Converter;
+import net.hasor.utils.convert.convert.IntegerConverter;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ *
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class ScanClassPathTest {
+    @Test
+    public void scanTest1() {
+        ScanClassPath scanClassPath = ScanClassPath.newInstance("net.hasor.utils.convert.*");
+        Set<Class<?>> classSet = scanClassPath.getClassSet(Converter.class);
+        assert classSet.contains(IntegerConverter.class);
+        assert !classSet.contains(ScanClassPath.class);
+        // 查找结果被缓存
+        assert scanClassPath.getClassSet(Converter.class) == classSet;
+        assert ScanClassPath.getClassSet("net.hasor.utils.*", Converter.class).contains(IntegerConverter.class);
+    }
+
+    @Test
+    public void indexTest1() throws Exception {
+        // 存在索引的 classpath 条目直接使用索引，不再解析字节码
+        File outDir = Files.createTempDirectory("scan_index").toFile();
+        compile(outDir, "foo.Bar", "package foo; public class Bar implements Runnable { public void run() {} }");
+        Map<String, ClassInfo> index = readIndex(outDir);
+        index.get("foo.Bar").annos = new String[] { FunctionalInterface.class.getName() };
+        try (OutputStream outStream = new FileOutputStream(new File(outDir, ScanClassPath.CLASS_INDEX))) {
+            ScanClassPath.writeClassIndex(index.values(), outStream);
+        }
+        //
+        ClassLoader oldLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { outDir.toURI().toURL() }, oldLoader)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            ScanClassPath scanClassPath = ScanClassPath.newInstance("foo.*");
+            Set<Class<?>> classSet = scanClassPath.getClassSet(FunctionalInterface.class);
+            assert classSet.size() == 1 && classSet.iterator().next().getName().equals("foo.Bar");
+            assert scanClassPath.getClassSet(Runnable.class).size() == 1;
+            assert ScanClassPath.getClassSet("other.*", Runnable.class).isEmpty();
+        } finally {
+            Thread.currentThread().setContextClassLoader(oldLoader);
+        }
+    }
+
+    @Test
+    public void processorTest1() throws Exception {
+        File outDir = Files.createTempDirectory("scan_processor").toFile();
+        String source1 = "package foo; @Deprecated public class Bar extends java.util.ArrayList<String> implements Runnable {" //
+                + " public void run() {} public static class Inner {} }";
+        compile(outDir, "foo.Bar", source1);
+        //
+        Map<String, ClassInfo> index = readIndex(outDir);
+        ClassInfo bar = index.get("foo.Bar");
+        assert bar != null && index.containsKey("foo.Bar$Inner");
+        List<String> castType = Arrays.asList(bar.castType);
+        assert castType.contains("foo.Bar") && castType.contains("java.util.ArrayList") && castType.contains("java.util.List");
+        assert castType.contains("java.lang.Runnable") && castType.contains("java.lang.Object");
+        assert Arrays.asList(bar.annos).contains("java.lang.Deprecated");
+        //
+        // 增量编译时保留已有索引中依然存在的类
+        compile(outDir, "foo.Baz", "package foo; public class Baz {}");
+        index = readIndex(outDir);
+        assert index.containsKey("foo.Bar") && index.containsKey("foo.Baz");
+    }
+
+    private static void compile(File outDir, String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = Arrays.asList("-d", outDir.getAbsolutePath(), "-classpath", outDir.getAbsolutePath());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, options, null, Collections.singletonList(fileObject));
+        task.setProcessors(Collections.singletonList(new ScanClassIndexProcessor()));
+        assert task.call();
+    }
+
+    private static Map<String, ClassInfo> readIndex(File outDir) throws Exception {
+        Map<String, ClassInfo> index = new HashMap<>();
+        try (InputStream inStream = new FileInputStream(new File(outDir, ScanClassPath.CLASS_INDEX))) {
+            for (ClassInfo info : ScanClassPath.readClassIndex(inStream)) {
+                index.put(info.className, info);
+            }
+        }
+        return index;
+    }
+}
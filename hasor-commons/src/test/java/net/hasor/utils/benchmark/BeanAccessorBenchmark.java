@@ -0,0 +1,155 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.utils.benchmark;
+import net.hasor.utils.BeanUtils;
+import net.hasor.utils.StringUtils;
+import net.hasor.utils.ref.BeanMap;
+import net.hasor.utils.reflect.BeanAccessor;
+import net.hasor.utils.reflect.BeanAccessor.Property;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 属性读写：BeanAccessor 和原有的反射方式（每次调用扫描 getMethods 后使用 Method.invoke）对比。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanAccessorBenchmark {
+    public static class DataBean {
+        private long   id;
+        private String name;
+        private String address;
+        private int    status;
+
+        public long getId() {
+            return this.id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getAddress() {
+            return this.address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public int getStatus() {
+            return this.status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+    }
+
+    private DataBean dataBean;
+    private Property nameProperty;
+
+    @Setup
+    public void setup() {
+        this.dataBean = new DataBean();
+        this.dataBean.setName("abc");
+        this.nameProperty = BeanAccessor.of(DataBean.class).findProperty("name");
+    }
+
+    /** 原有的读取方式 */
+    private static Object reflectRead(Object target, String property) throws Exception {
+        String methodName = "get" + StringUtils.firstCharToUpperCase(property);
+        for (Method m : target.getClass().getMethods()) {
+            if (m.getParameterTypes().length == 0 && m.getName().equals(methodName)) {
+                return m.invoke(target);
+            }
+        }
+        return null;
+    }
+
+    /** 原有的写入方式（canWriteProperty 和 writeProperty 各扫描一次） */
+    private static boolean reflectWrite(Object target, String property, Object value) throws Exception {
+        String methodName = "set" + StringUtils.firstCharToUpperCase(property);
+        Method writeMethod = null;
+        for (int i = 0; i < 2; i++) {
+            for (Method m : target.getClass().getMethods()) {
+                if (m.getName().equals(methodName) && m.getParameterTypes().length == 1) {
+                    writeMethod = m;
+                    break;
+                }
+            }
+        }
+        if (writeMethod == null) {
+            return false;
+        }
+        writeMethod.invoke(target, value);
+        return true;
+    }
+
+    @Benchmark
+    public Object readByReflect() throws Exception {
+        return reflectRead(this.dataBean, "name");
+    }
+
+    @Benchmark
+    public Object readByBeanUtils() {
+        return BeanUtils.readPropertyOrField(this.dataBean, "name");
+    }
+
+    @Benchmark
+    public Object readByIndex() throws Exception {
+        return this.nameProperty.read(this.dataBean);
+    }
+
+    @Benchmark
+    public boolean writeByReflect() throws Exception {
+        return reflectWrite(this.dataBean, "address", "xyz");
+    }
+
+    @Benchmark
+    public boolean writeByBeanUtils() {
+        return BeanUtils.writePropertyOrField(this.dataBean, "address", "xyz");
+    }
+
+    @Benchmark
+    public Object beanMap() {
+        return new BeanMap(this.dataBean).get("status");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()//
+                .include(BeanAccessorBenchmark.class.getSimpleName())//
+                .build()).run();
+    }
+}
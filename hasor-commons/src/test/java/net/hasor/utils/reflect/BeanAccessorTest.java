@@ -0,0 +1,222 @@
+package net.hasor.utils.reflect;
+import net.hasor.utils.BeanUtils;
+import net.hasor.utils.ref.BeanMap;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+public class BeanAccessorTest {
+    public static class UserBean {
+        public  String  publicField;
+        private String  name;
+        private int     age;
+        private boolean enable;
+        private String  secret;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return this.age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public boolean isEnable() {
+            return this.enable;
+        }
+
+        public void setEnable(boolean enable) {
+            this.enable = enable;
+        }
+
+        public String getError() {
+            throw new IllegalStateException("error");
+        }
+    }
+
+    public static class AdminBean extends UserBean {
+        private String role;
+    }
+
+    public static class CountBean {
+        private long count;
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public void setCount(long count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("count < 0");
+            }
+            this.count = count;
+        }
+
+        public String getFatal() {
+            throw new InternalError("fatal");
+        }
+
+        public void setFatal(String fatal) {
+            throw new InternalError(fatal);
+        }
+    }
+
+    /** 非 public 类型上的方法无法通过 MethodHandle 访问，使用反射调用 */
+    private static class PrivateBean {
+        public String getFatal() {
+            throw new InternalError("fatal");
+        }
+    }
+
+    @Test
+    public void property_test() {
+        BeanAccessor accessor = BeanAccessor.of(UserBean.class);
+        assert accessor == BeanAccessor.of(UserBean.class);
+        assert accessor.getPropertyNames().containsAll(Arrays.asList("name", "age", "enable", "error", "class"));
+        assert BeanUtils.getPropertys(UserBean.class).equals(accessor.getPropertyNames());
+        //
+        int nameIndex = accessor.indexOf("name");
+        assert accessor.getProperty(nameIndex).getName().equals("name");
+        assert accessor.getProperty(nameIndex).canRead() && accessor.getProperty(nameIndex).canWrite();
+        assert accessor.findProperty("error").canRead() && !accessor.findProperty("error").canWrite();
+        assert accessor.findProperty("enable").getPropertyType() == boolean.class;
+        assert accessor.indexOf("none") == -1;
+        assert accessor.findReadMethod("Name").getName().equals("getName");
+        assert accessor.findReadMethod("enable").getName().equals("isEnable");
+        assert accessor.findWriteMethod("age").getName().equals("setAge");
+    }
+
+    @Test
+    public void read_write_test() {
+        UserBean userBean = new UserBean();
+        assert BeanUtils.writePropertyOrField(userBean, "name", "abc");
+        assert BeanUtils.writePropertyOrField(userBean, "age", "12");  // 类型转换
+        assert BeanUtils.writePropertyOrField(userBean, "enable", true);
+        assert BeanUtils.writePropertyOrField(userBean, "secret", "s");
+        assert !BeanUtils.writePropertyOrField(userBean, "none", "s");
+        assert !BeanUtils.writeProperty(userBean, "error", "s");
+        //
+        assert BeanUtils.readPropertyOrField(userBean, "name").equals("abc");
+        assert BeanUtils.readPropertyOrField(userBean, "age").equals(12);
+        assert BeanUtils.readPropertyOrField(userBean, "enable").equals(true);
+        assert BeanUtils.readPropertyOrField(userBean, "secret").equals("s");
+        assert BeanUtils.readProperty(userBean, "error") == null; // 读取方法抛出异常时返回 null
+        //
+        BeanMap beanMap = new BeanMap(userBean);
+        assert beanMap.get("name").equals("abc");
+        beanMap.put("age", "20");
+        assert userBean.getAge() == 20;
+        assert beanMap.getType("enable") == boolean.class;
+        assert beanMap.containsKey("error") && beanMap.getWriteMethod("error") == null;
+    }
+
+    @Test
+    public void read_exception_test() throws Exception {
+        BeanAccessor.Property nameProperty = BeanAccessor.of(UserBean.class).findProperty("name");
+        // .异常规则同 Method.invoke
+        try {
+            nameProperty.read(null);
+            assert false;
+        } catch (NullPointerException e) {
+            assert true;
+        }
+        try {
+            nameProperty.read("abc");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("not an instance of declaring class");
+        }
+        try {
+            BeanAccessor.of(UserBean.class).findProperty("error").read(new AdminBean());
+            assert false;
+        } catch (InvocationTargetException e) {
+            assert e.getCause() instanceof IllegalStateException;
+        }
+        // .Error 不做包装
+        try {
+            BeanAccessor.of(CountBean.class).findProperty("fatal").read(new CountBean());
+            assert false;
+        } catch (InternalError e) {
+            assert e.getMessage().equals("fatal");
+        }
+        try {
+            BeanAccessor.of(PrivateBean.class).findProperty("fatal").read(new PrivateBean());
+            assert false;
+        } catch (InternalError e) {
+            assert e.getMessage().equals("fatal");
+        }
+    }
+
+    @Test
+    public void write_exception_test() throws Exception {
+        BeanAccessor.Property countProperty = BeanAccessor.of(CountBean.class).findProperty("count");
+        CountBean countBean = new CountBean();
+        try {
+            countProperty.write(null, 1L);
+            assert false;
+        } catch (NullPointerException e) {
+            assert true;
+        }
+        try {
+            countProperty.write(new UserBean(), 1L);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("not an instance of declaring class");
+        }
+        try {
+            countProperty.write(countBean, "1");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("argument type mismatch");
+        }
+        try {
+            countProperty.write(countBean, null);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert true;
+        }
+        try {
+            countProperty.write(countBean, -1L);
+            assert false;
+        } catch (InvocationTargetException e) {
+            assert e.getCause().getMessage().equals("count < 0");
+        }
+        try {
+            BeanAccessor.of(CountBean.class).findProperty("fatal").write(countBean, "fatal");
+            assert false;
+        } catch (InternalError e) {
+            assert e.getMessage().equals("fatal");
+        }
+        // .同 Method.invoke 支持基本类型的拓宽转换
+        countProperty.write(countBean, 12);
+        assert countBean.getCount() == 12;
+        countProperty.write(countBean, 13L);
+        assert countProperty.read(countBean).equals(13L);
+        BeanAccessor.of(UserBean.class).findProperty("name").write(new UserBean(), null);
+    }
+
+    @Test
+    public void field_test() throws IllegalAccessException {
+        Field secretField = BeanUtils.getField("secret", UserBean.class);
+        assert secretField != null && secretField.getName().equals("secret");
+        assert BeanUtils.getField("publicField", AdminBean.class) != null;
+        assert BeanUtils.getField("secret", AdminBean.class) == null; // 父类的私有字段
+        //
+        AdminBean adminBean = new AdminBean();
+        assert FieldUtils.getField(AdminBean.class, "secret", false) == null;
+        assert FieldUtils.getField(AdminBean.class, "secret", true).getDeclaringClass() == UserBean.class;
+        FieldUtils.writeField(adminBean, "secret", "abc", true);
+        assert FieldUtils.readField(adminBean, "secret", true).equals("abc");
+        assert FieldUtils.getField(AdminBean.class, "publicField", false) != null;
+    }
+}
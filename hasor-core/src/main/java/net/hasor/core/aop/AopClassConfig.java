@@ -242,7 +242,8 @@ public class AopClassConfig {
         //
         ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
         classWriter.visit(V1_6, ACC_PUBLIC + ACC_SUPER, thisClassName, null, superClassName, new String[] {//
-                AsmTools.replaceClassName(DynamicClass.class)//
+                AsmTools.replaceClassName(DynamicClass.class),//
+                AsmTools.replaceClassName(InnerAopInvoker.class)//
         });
         // .构造方法
         Constructor<?>[] constructorArray = this.getSuperClass().getConstructors();
@@ -287,7 +288,7 @@ public class AopClassConfig {
             mv.visitEnd();
         }
         {//.静态代码块 static
-            FieldVisitor fv1 = classWriter.visitField(ACC_PRIVATE + ACC_STATIC, "proxyMethod", AsmTools.toAsmType(Method[].class), null, null);
+            FieldVisitor fv1 = classWriter.visitField(ACC_PRIVATE + ACC_STATIC, "aopInterceptors", AsmTools.toAsmType(MethodInterceptor[][].class), null, null);
             fv1.visitEnd();
             FieldVisitor fv2 = classWriter.visitField(ACC_PRIVATE + ACC_STATIC, "targetMethod", AsmTools.toAsmType(Method[].class), null, null);
             fv2.visitEnd();
@@ -315,11 +316,12 @@ public class AopClassConfig {
             mv.visitTypeInsn(ANEWARRAY, AsmTools.replaceClassName(Method.class));
             mv.visitFieldInsn(PUTSTATIC, thisClassName, "targetMethod", AsmTools.toAsmType(Method[].class));
             mv.visitIntInsn(BIPUSH, this.interceptorMethod.size());
-            mv.visitTypeInsn(ANEWARRAY, AsmTools.replaceClassName(Method.class));
-            mv.visitFieldInsn(PUTSTATIC, thisClassName, "proxyMethod", AsmTools.toAsmType(Method[].class));
+            mv.visitTypeInsn(ANEWARRAY, AsmTools.toAsmType(MethodInterceptor[].class));
+            mv.visitFieldInsn(PUTSTATIC, thisClassName, "aopInterceptors", AsmTools.toAsmType(MethodInterceptor[][].class));
             //
             int i = -1;
             String getMethodDesc = AsmTools.toAsmDesc(Class.class.getMethod("getMethod", String.class, Class[].class));
+            String findInterceptorsDesc = AsmTools.toAsmDesc(InnerAopInvocation.class.getMethod("findInterceptors", Class.class, String.class));
             for (Map.Entry<String, Method> ent : this.interceptorMethod.entrySet()) {
                 Method aopMethod = ent.getValue();
                 Class<?>[] parameterTypes = aopMethod.getParameterTypes();
@@ -341,21 +343,13 @@ public class AopClassConfig {
                 mv.visitInsn(ICONST_1);
                 mv.visitMethodInsn(INVOKEVIRTUAL, AsmTools.replaceClassName(Method.class), "setAccessible", "(Z)V", false);
                 //
-                // propxyMethod[n] = superClass.getMethod("aop$" + "xxxx",new Class[] { xxx,xxx});
-                mv.visitFieldInsn(GETSTATIC, thisClassName, "proxyMethod", AsmTools.toAsmType(Method[].class));
+                // aopInterceptors[n] = InnerAopInvocation.findInterceptors(thisClass, "xxxx");
+                mv.visitFieldInsn(GETSTATIC, thisClassName, "aopInterceptors", AsmTools.toAsmType(MethodInterceptor[][].class));
                 mv.visitIntInsn(BIPUSH, i);
-                mv.visitVarInsn(ALOAD, thisClassIndex); // superClass
-                mv.visitLdcInsn(aopMethodSuffix + interceptorMethod.get(ent.getKey()).getName());
-                AsmTools.codeBuilder_2(mv, AsmTools.splitAsmType(AsmTools.toAsmType(parameterTypes)));
-                mv.visitMethodInsn(INVOKEVIRTUAL, AsmTools.replaceClassName(Class.class), "getDeclaredMethod", getMethodDesc, false);
+                mv.visitVarInsn(ALOAD, thisClassIndex); // thisClass
+                mv.visitLdcInsn(ent.getKey());
+                mv.visitMethodInsn(INVOKESTATIC, AsmTools.replaceClassName(InnerAopInvocation.class), "findInterceptors", findInterceptorsDesc, false);
                 mv.visitInsn(AASTORE);
-                //
-                // targetMethod[n].setAccessible(true);
-                mv.visitFieldInsn(GETSTATIC, thisClassName, "proxyMethod", AsmTools.toAsmType(Method[].class));
-                mv.visitIntInsn(BIPUSH, i);
-                mv.visitInsn(AALOAD);
-                mv.visitInsn(ICONST_1);
-                mv.visitMethodInsn(INVOKEVIRTUAL, AsmTools.replaceClassName(Method.class), "setAccessible", "(Z)V", false);
             }
             //
             mv.visitLabel(tryCacheLabel);
@@ -429,19 +423,20 @@ public class AopClassConfig {
             mv.visitVarInsn(ASTORE, paramIndexMap.get("paramObjects"));
             mv.visitLabel(paramObjectsLabel);
             //
-            // Object obj = new InnerAopInvocation("checkBaseType1", targetMethod[0], this, pObjects).proceed();
+            // Object obj = new InnerAopInvocation(targetMethod[0], aopInterceptors[0], 0, this, pObjects).proceed();
+            int methodIndex = indexMap.get(AsmTools.toAsmFullDesc(aopMethod));
             mv.visitTypeInsn(NEW, AsmTools.replaceClassName(InnerAopInvocation.class));
             mv.visitInsn(DUP);
-            mv.visitLdcInsn(ent.getKey());
             mv.visitFieldInsn(GETSTATIC, thisClassName, "targetMethod", AsmTools.toAsmType(Method[].class));
-            mv.visitIntInsn(BIPUSH, indexMap.get(AsmTools.toAsmFullDesc(aopMethod)));
+            mv.visitIntInsn(BIPUSH, methodIndex);
             mv.visitInsn(AALOAD);
-            mv.visitFieldInsn(GETSTATIC, thisClassName, "proxyMethod", AsmTools.toAsmType(Method[].class));
-            mv.visitIntInsn(BIPUSH, indexMap.get(AsmTools.toAsmFullDesc(aopMethod)));
+            mv.visitFieldInsn(GETSTATIC, thisClassName, "aopInterceptors", AsmTools.toAsmType(MethodInterceptor[][].class));
+            mv.visitIntInsn(BIPUSH, methodIndex);
             mv.visitInsn(AALOAD);
+            mv.visitIntInsn(BIPUSH, methodIndex);
             mv.visitVarInsn(ALOAD, paramIndexMap.get("this"));
             mv.visitVarInsn(ALOAD, paramIndexMap.get("paramObjects"));
-            String initDesc = AsmTools.toAsmType(InnerAopInvocation.class.getConstructor(String.class, Method.class, Method.class, Object.class, Object[].class).getParameterTypes());
+            String initDesc = AsmTools.toAsmType(InnerAopInvocation.class.getConstructor(Method.class, MethodInterceptor[].class, int.class, Object.class, Object[].class).getParameterTypes());
             mv.visitMethodInsn(INVOKESPECIAL, AsmTools.replaceClassName(InnerAopInvocation.class), "<init>", "(" + initDesc + ")V", false);
             mv.visitMethodInsn(INVOKEVIRTUAL, AsmTools.replaceClassName(InnerAopInvocation.class), "proceed", "()Ljava/lang/Object;", false);
             mv.visitVarInsn(ASTORE, paramIndexMap.get("returnData"));
@@ -502,6 +497,57 @@ public class AopClassConfig {
             mv.visitMaxs(-1, -1);
             mv.visitEnd();
         }
+        {// .aop$$dispatch$ 方法，按照序号直接调用 aop$ 方法（也就是父类的原始方法），用来代替反射调用
+            Method invokeMethod = InnerAopInvoker.class.getMethod("aop$$dispatch$", int.class, Object[].class);
+            Map<Integer, Method> invokeMethodMap = new TreeMap<>();
+            for (Map.Entry<String, Method> ent : this.interceptorMethod.entrySet()) {
+                invokeMethodMap.put(indexMap.get(ent.getKey()), ent.getValue());
+            }
+            Label defaultLabel = new Label();
+            Label[] caseLabels = new Label[invokeMethodMap.size()];
+            for (int i = 0; i < caseLabels.length; i++) {
+                caseLabels[i] = new Label();
+            }
+            //
+            MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, invokeMethod.getName(), AsmTools.toAsmDesc(invokeMethod), null, new String[] { "java/lang/Throwable" });
+            mv.visitCode();
+            mv.visitVarInsn(ILOAD, 1);
+            if (caseLabels.length > 0) {
+                mv.visitTableSwitchInsn(0, caseLabels.length - 1, defaultLabel, caseLabels);
+            } else {
+                mv.visitInsn(POP);
+            }
+            for (Map.Entry<Integer, Method> ent : invokeMethodMap.entrySet()) {
+                Method aopMethod = ent.getValue();
+                String[] asmParams = AsmTools.splitAsmType(AsmTools.toAsmType(aopMethod.getParameterTypes()));
+                String asmReturn = AsmTools.toAsmType(aopMethod.getReturnType());
+                //
+                // return this.aop$xxxx((Type) params[0], (Type) params[1] ...);
+                mv.visitLabel(caseLabels[ent.getKey()]);
+                mv.visitVarInsn(ALOAD, 0);
+                for (int i = 0; i < asmParams.length; i++) {
+                    mv.visitVarInsn(ALOAD, 2);
+                    mv.visitIntInsn(BIPUSH, i);
+                    mv.visitInsn(AALOAD);
+                    AsmTools.codeBuilder_Cast(mv, asmParams[i], null);
+                }
+                mv.visitMethodInsn(INVOKESPECIAL, thisClassName, aopMethodSuffix + aopMethod.getName(), AsmTools.toAsmDesc(aopMethod), false);
+                if ("V".equals(asmReturn)) {
+                    mv.visitInsn(ACONST_NULL);
+                } else {
+                    AsmTools.codeBuilder_valueOf(mv, asmReturn);
+                }
+                mv.visitInsn(ARETURN);
+            }
+            // throw new IllegalArgumentException();
+            mv.visitLabel(defaultLabel);
+            mv.visitTypeInsn(NEW, AsmTools.replaceClassName(IllegalArgumentException.class));
+            mv.visitInsn(DUP);
+            mv.visitMethodInsn(INVOKESPECIAL, AsmTools.replaceClassName(IllegalArgumentException.class), "<init>", "()V", false);
+            mv.visitInsn(ATHROW);
+            mv.visitMaxs(-1, -1);
+            mv.visitEnd();
+        }
         // .代理属性
         for (Map.Entry<String, DelegateInfo> ent : this.delegatePropertyMap.entrySet()) {
             String propertyName = ent.getKey();
@@ -25,30 +25,39 @@ import java.lang.reflect.Method;
  * @author 赵永春 (zyc@hasor.net)
  */
 public class InnerAopInvocation implements MethodInvocation {
-    private MethodInterceptor[] interceptorDefinitions;
-    private MethodInvocation    proceedingChain;
-    private int                 index = -1;
+    private static final MethodInterceptor[] EMPTY_INTERCEPTORS = new MethodInterceptor[0];
+    private final        Method              targetMethod;
+    private final        MethodInterceptor[] interceptorDefinitions;
+    private final        int                 methodIndex;
+    private final        Object              targetObject;
+    private final        Object[]            paramObjects;
+    private              int                 index              = -1;
 
-    public InnerAopInvocation(String targetMethodDesc, final Method targetMethod, final Method proxyMethod, final Object targetObject, Object[] methodParams) {
-        Class<?> targetClass = targetObject.getClass();
-        ClassLoader loader = targetClass.getClassLoader();
+    public InnerAopInvocation(Method targetMethod, MethodInterceptor[] interceptorDefinitions, int methodIndex, Object targetObject, Object[] paramObjects) {
+        this.targetMethod = targetMethod;
+        this.interceptorDefinitions = (interceptorDefinitions == null) ? EMPTY_INTERCEPTORS : interceptorDefinitions;
+        this.methodIndex = methodIndex;
+        this.targetObject = targetObject;
+        this.paramObjects = paramObjects;
+    }
+
+    /** 生成的 Aop 类在类初始化时通过这个方法查找每个方法的拦截器，之后的调用不再需要查找。 */
+    public static MethodInterceptor[] findInterceptors(Class<?> aopClass, String targetMethodDesc) {
+        MethodInterceptor[] interceptors = null;
+        ClassLoader loader = aopClass.getClassLoader();
         if (loader instanceof AopClassLoader) {
-            AopClassConfig cc = ((AopClassLoader) loader).findClassConfig(targetClass.getName());
-            this.interceptorDefinitions = cc.findInterceptor(targetMethodDesc);
-        }
-        if (this.interceptorDefinitions == null) {
-            this.interceptorDefinitions = new MethodInterceptor[0];
+            AopClassConfig cc = ((AopClassLoader) loader).findClassConfig(aopClass.getName());
+            interceptors = (cc == null) ? null : cc.findInterceptor(targetMethodDesc);
         }
-        //
-        this.proceedingChain = new InnerChainMethodInvocation(proxyMethod, targetMethod, targetObject, methodParams);
+        return (interceptors == null) ? EMPTY_INTERCEPTORS : interceptors;
     }
 
     public Method getMethod() {
-        return this.proceedingChain.getMethod();
+        return this.targetMethod;
     }
 
     public Object[] getArguments() {
-        return this.proceedingChain.getArguments();
+        return this.paramObjects;
     }
 
     public Object proceed() throws Throwable {
@@ -56,11 +65,11 @@ public class InnerAopInvocation implements MethodInvocation {
         if (this.index < this.interceptorDefinitions.length) {
             return this.interceptorDefinitions[this.index].invoke(this);
         } else {
-            return this.proceedingChain.proceed();
+            return ((InnerAopInvoker) this.targetObject).aop$$dispatch$(this.methodIndex, this.paramObjects);
         }
     }
 
     public Object getThis() {
-        return this.proceedingChain.getThis();
+        return this.targetObject;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.core.aop;
+/**
+ * 生成的 Aop 类都会实现这个接口，通过方法序号直接调用父类中被拦截的原始方法，用来代替反射调用。
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+public interface InnerAopInvoker {
+    /**
+     * 调用被拦截的原始方法（被拦截方法的副本命名为 aop$ + 方法名，调度方法的名字不会和它们冲突）
+     * @param methodIndex 方法序号（生成 Aop 类时确定）
+     * @param params 方法参数
+     */
+    public Object aop$$dispatch$(int methodIndex, Object[] params) throws Throwable;
+}
@@ -34,6 +34,7 @@ import java.lang.reflect.*;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -51,6 +52,11 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
     private BindInfoContainer                           bindInfoContainer  = null;
     private ScopeContainer                              scopeContainer     = null;
     private ConcurrentHashMap<Class<?>, AopClassConfig> classEngineMap     = null;
+    private ConcurrentHashMap<Object, CreatePlan<?>>    createPlanMap      = null;
+    private ConcurrentHashMap<Class<?>, InjectPoint[]>  injectPointMap     = null;
+    private List<BeanTimeline>                          startupTimeline    = null;
+    private ThreadLocal<BeanTimeline>                   currentTimeline    = null;
+    private volatile boolean                            startupRecording   = false;
 
     public BeanContainer(Environment environment) {
         this.environment = Objects.requireNonNull(environment, "need Environment.");
@@ -58,6 +64,10 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         this.bindInfoContainer = new BindInfoContainer(spiCallerContainer);
         this.scopeContainer = new ScopeContainer(spiCallerContainer);
         this.classEngineMap = new ConcurrentHashMap<>();
+        this.createPlanMap = new ConcurrentHashMap<>();
+        this.injectPointMap = new ConcurrentHashMap<>();
+        this.startupTimeline = new CopyOnWriteArrayList<>();
+        this.currentTimeline = new ThreadLocal<>();
     }
 
     @Override
@@ -80,6 +90,11 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         return this.scopeContainer;
     }
 
+    /** 容器启动时各个单例 Bean 的启动时间线，按照完成启动的先后排序 */
+    public List<BeanTimeline> getStartupTimeline() {
+        return Collections.unmodifiableList(this.startupTimeline);
+    }
+
     /*-------------------------------------------------------------------------------------------*/
 
     /**
@@ -95,6 +110,10 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         //
         // .（构造方法）确定创建 implClass 类型对象时使用的构造方法，使用 Supplier 封装。
         Supplier<Executable> constructorSupplier = Provider.of((Callable<Executable>) () -> {
+            Constructor<?> planConstructor = findPlanConstructor(implClass);
+            if (planConstructor != null) {
+                return planConstructor;
+            }
             Constructor<?>[] constructors = Arrays.stream(implClass.getConstructors()).filter(constructor -> {
                 return constructor.getParameterCount() == 0 || isInjectConstructor(constructor);
             }).sorted(Comparator.comparingInt(Constructor::getParameterCount)).toArray(Constructor[]::new);
@@ -113,7 +132,7 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         Supplier<Object[]> parameterSupplier = parameterSupplier(constructorSupplier, appContext, params, true);
         //
         // .创建对象
-        return (Supplier<T>) () -> createObject(implClass, constructorSupplier, parameterSupplier, null, appContext);
+        return (Supplier<T>) () -> createObject(implClass, implClass, constructorSupplier, parameterSupplier, null, appContext);
     }
 
     /**
@@ -130,7 +149,7 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         Supplier<Object[]> parameterSupplier = parameterSupplier(constructorSupplier, appContext, params, true);
         //
         // .创建对象
-        return (Supplier<T>) () -> createObject(targetConstructor.getDeclaringClass(), constructorSupplier, parameterSupplier, null, appContext);
+        return (Supplier<T>) () -> createObject(targetConstructor, targetConstructor.getDeclaringClass(), constructorSupplier, parameterSupplier, null, appContext);
     }
 
     /** 通过 BindInfo 类型创建Bean */
@@ -148,6 +167,10 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         //
         // .（构造方法）确定创建 BindInfo 使用的构造方法，使用 Supplier 封装。
         Supplier<Executable> constructorSupplier = Provider.of((Callable<Executable>) () -> {
+            Constructor<?> planConstructor = findPlanConstructor(bindInfo);
+            if (planConstructor != null) {
+                return planConstructor;
+            }
             //
             // .targetType也许只是一个被标记了 ImplBy 注解的类型。因此需要找到真正需要创建的那个类型。
             Class<T> implClass = findImplClass(targetType);
@@ -164,7 +187,7 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         };
         //
         // .创建对象
-        return (Supplier<T>) () -> createObject(targetType, constructorSupplier, parameterSupplier, bindInfo, appContext);
+        return (Supplier<T>) () -> createObject(bindInfo, targetType, constructorSupplier, parameterSupplier, bindInfo, appContext);
     }
 
     /** 仅通过 Annotation 来创建Bean。targetType 作为参考类型。 */
@@ -183,22 +206,7 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
             return () -> appContext.getInstance(((ID) anno).value());
         }
         if (anno instanceof javax.inject.Named) {
-            String nameWith = ((Named) anno).value();
-            BindInfo<T> bindInfo = null;
-            if (StringUtils.isBlank(nameWith)) {
-                if (StringUtils.isNotBlank(contextName)) {
-                    bindInfo = getBindInfoContainer().findBindInfo(contextName);
-                }
-                if (bindInfo == null) {
-                    bindInfo = getBindInfoContainer().findBindInfo(contextName, targetType);
-                }
-            } else {
-                bindInfo = getBindInfoContainer().findBindInfo(nameWith);
-            }
-            if (bindInfo == null) {
-                bindInfo = getBindInfoContainer().findBindInfo(nameWith, targetType);
-            }
-            //
+            BindInfo<T> bindInfo = findNamedBindInfo(contextName, targetType, (Named) anno);
             if (bindInfo != null) {
                 return providerOnlyBindInfo(bindInfo, appContext);
             } else {
@@ -208,6 +216,26 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         throw new UnsupportedOperationException(anno.annotationType() + " Annotation is not support.");
     }
 
+    /** 查找 Named 注解对应的 BindInfo */
+    private <T> BindInfo<T> findNamedBindInfo(String contextName, Class<T> targetType, Named anno) {
+        String nameWith = anno.value();
+        BindInfo<T> bindInfo = null;
+        if (StringUtils.isBlank(nameWith)) {
+            if (StringUtils.isNotBlank(contextName)) {
+                bindInfo = getBindInfoContainer().findBindInfo(contextName);
+            }
+            if (bindInfo == null) {
+                bindInfo = getBindInfoContainer().findBindInfo(contextName, targetType);
+            }
+        } else {
+            bindInfo = getBindInfoContainer().findBindInfo(nameWith);
+        }
+        if (bindInfo == null) {
+            bindInfo = getBindInfoContainer().findBindInfo(nameWith, targetType);
+        }
+        return bindInfo;
+    }
+
     /** 创建一个构造方法对应的参数Supplier */
     private Supplier<Object[]> parameterSupplier(Supplier<Executable> executableSupplier, AppContext appContext, Object[] params, boolean alwaysInject) {
         return Provider.ofc(() -> {
@@ -246,13 +274,14 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
 
     /**
      * 创建Bean {@link BindInfo}创建Bean。
+     * @param planKey              创建计划的缓存 Key（BindInfo、构造方法或者类型）
      * @param targetType           表示目标类型
      * @param referConstructor     表示使用的构造方法
      * @param constructorParameter 构造方法所使用的参数
      * @param bindInfo             可能为空，表示参考的 BindInfo
      * @param appContext           容器
      */
-    private <T> T createObject(Class<T> targetType, Supplier<Executable> referConstructor, Supplier<Object[]> constructorParameter, BindInfo<T> bindInfo, AppContext appContext) {
+    private <T> T createObject(Object planKey, Class<T> targetType, Supplier<Executable> referConstructor, Supplier<Object[]> constructorParameter, BindInfo<T> bindInfo, AppContext appContext) {
         // .check基本类型
         if (targetType.isPrimitive()) {
             return (T) BeanUtils.getDefaultValue(targetType);
@@ -267,21 +296,20 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         if (Modifier.isAbstract(targetType.getModifiers())) {
             return null;// Integer.TYPE 判断结果为 true & targetType.isArray() 情况下也为 true，因此要放在后面
         }
-        // .作用域
-        Supplier<Scope>[] scopeProvider = null;
-        if (bindInfo != null) {
-            scopeProvider = this.scopeContainer.collectScope(bindInfo);
-        }
-        if (ArrayUtils.isEmpty(scopeProvider)) {
-            scopeProvider = this.scopeContainer.collectScope(targetType);
+        CreatePlan<T> plan = findCreatePlan(planKey, targetType, bindInfo);
+        //
+        // .作用域（CollectScopeChainSpi 可以随时注册，因此不能缓存它的结果）
+        Supplier<Scope>[] scopeProvider = plan.scopeProvider;
+        if (this.spiCallerContainer.hasSpi(CollectScopeChainSpi.class)) {
+            Supplier<Scope>[] lastResult = (scopeProvider == null) ? null : scopeProvider.clone();
+            scopeProvider = this.spiCallerContainer.chainSpi(CollectScopeChainSpi.class, (listener, lastScope) -> {
+                if (bindInfo != null) {
+                    return listener.collectScope(bindInfo, appContext, lastScope);
+                } else {
+                    return listener.collectScope(targetType, appContext, lastScope);
+                }
+            }, lastResult);
         }
-        scopeProvider = this.spiCallerContainer.chainSpi(CollectScopeChainSpi.class, (listener, lastResult) -> {
-            if (bindInfo != null) {
-                return listener.collectScope(bindInfo, appContext, lastResult);
-            } else {
-                return listener.collectScope(targetType, appContext, lastResult);
-            }
-        }, scopeProvider);
         //
         Scope[] scope = null;
         if (ArrayUtils.isNotEmpty(scopeProvider)) {
@@ -295,23 +323,18 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         if (targetSupplier == null) {
             targetSupplier = () -> {
                 //
-                // .Aop 代理
-                Class<T> proxyType = proxyType(targetType, appContext, defBinder);
+                // .Aop 代理、重定向构造方法、生命周期方法
+                InstancePlan<T> instancePlan = findInstancePlan(plan, referConstructor, appContext);
+                BeanTimeline timeline = findTimeline(bindInfo);
+                long createBegin = (timeline != null) ? System.nanoTime() : 0;
                 //
-                // .重定向构造方法
-                Constructor<T> tConstructor = (Constructor<T>) referConstructor.get();
-                try {
-                    tConstructor = proxyType.getConstructor(tConstructor.getParameterTypes());
-                } catch (NoSuchMethodException e) {
-                    throw new IllegalStateException(e);
-                }
                 // .创建对象
                 T targetObject = null;
                 try {
-                    if (tConstructor.getParameterCount() > 0) {
-                        targetObject = tConstructor.newInstance(constructorParameter.get());
+                    if (instancePlan.constructor.getParameterCount() > 0) {
+                        targetObject = instancePlan.constructor.newInstance(constructorParameter.get());
                     } else {
-                        targetObject = tConstructor.newInstance(ArrayUtils.EMPTY_OBJECT_ARRAY);
+                        targetObject = instancePlan.constructor.newInstance(ArrayUtils.EMPTY_OBJECT_ARRAY);
                     }
                 } catch (InvocationTargetException e) {
                     throw ExceptionUtils.toRuntimeException(e.getTargetException(), IllegalStateException::new);
@@ -320,10 +343,15 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
                 }
                 //
                 // .执行依赖注入
+                long injectBegin = (timeline != null) ? System.nanoTime() : 0;
                 justInject(targetObject, targetType, bindInfo, appContext);
                 //
                 // .执行生命周期
-                doLife(targetObject, bindInfo, appContext);
+                long initBegin = (timeline != null) ? System.nanoTime() : 0;
+                doLife(targetObject, instancePlan, appContext);
+                if (timeline != null) {
+                    timeline.created(injectBegin - createBegin, initBegin - injectBegin, System.nanoTime() - initBegin);
+                }
                 //
                 T finalTargetObject = targetObject;
                 spiCallerContainer.notifySpiWithoutResult(CreatorProvisionListener.class, listener -> {
@@ -337,9 +365,98 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         if (ArrayUtils.isEmpty(scope)) {
             return targetSupplier.get();
         } else {
-            String key = (bindInfo != null) ? ("BIND-" + bindInfo.getBindID()) : ("TYPE-" + targetType.getName());
-            return PrototypeScope.SINGLETON.chainScope(key, scope, targetSupplier).get();
+            return PrototypeScope.SINGLETON.chainScope(plan.scopeKey, scope, targetSupplier).get();
+        }
+    }
+
+    /** 只有在容器启动阶段初始化单例时，才会记录这个单例的时间线 */
+    private BeanTimeline findTimeline(BindInfo<?> bindInfo) {
+        if (!this.startupRecording || bindInfo == null) {
+            return null;
+        }
+        BeanTimeline timeline = this.currentTimeline.get();
+        return (timeline != null && timeline.getBindInfo() == bindInfo) ? timeline : null;
+    }
+
+    /** 查找已经缓存的创建计划中确定的构造方法，没有缓存时返回空 */
+    private Constructor<?> findPlanConstructor(Object planKey) {
+        CreatePlan<?> plan = this.createPlanMap.get(planKey);
+        InstancePlan<?> instancePlan = (plan != null) ? plan.instancePlan : null;
+        return (instancePlan != null) ? instancePlan.referConstructor : null;
+    }
+
+    /**
+     * 查找创建计划。容器启动之后 Bind 和 Scope 都不会再变化，此时创建计划会按照 planKey 缓存起来，
+     * 之后再创建对象时不再重新收集作用域、生成代理类型、查找构造方法和生命周期方法。
+     * planKey 与 targetType/bindInfo 一一对应，因此取出的计划一定是 CreatePlan&lt;T&gt;。
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CreatePlan<T> findCreatePlan(Object planKey, Class<T> targetType, BindInfo<T> bindInfo) {
+        CreatePlan<T> plan = (CreatePlan<T>) this.createPlanMap.get(planKey);
+        if (plan != null) {
+            return plan;
+        }
+        //
+        Supplier<Scope>[] scopeProvider = null;
+        if (bindInfo != null) {
+            scopeProvider = this.scopeContainer.collectScope(bindInfo);
+        }
+        if (ArrayUtils.isEmpty(scopeProvider)) {
+            scopeProvider = this.scopeContainer.collectScope(targetType);
+        }
+        String scopeKey = (bindInfo != null) ? ("BIND-" + bindInfo.getBindID()) : ("TYPE-" + targetType.getName());
+        plan = new CreatePlan<>(targetType, bindInfo, scopeProvider, scopeKey);
+        //
+        if (this.isInit()) {
+            CreatePlan<T> oldPlan = (CreatePlan<T>) this.createPlanMap.putIfAbsent(planKey, plan);
+            if (oldPlan != null) {
+                plan = oldPlan;
+            }
+        }
+        return plan;
+    }
+
+    /** 确定创建对象时使用的代理类型、构造方法以及生命周期方法 */
+    private <T> InstancePlan<T> findInstancePlan(CreatePlan<T> plan, Supplier<Executable> referConstructor, AppContext appContext) {
+        InstancePlan<T> instancePlan = plan.instancePlan;
+        if (instancePlan != null && instancePlan.appContext == appContext) {
+            return instancePlan;
+        }
+        //
+        // .Aop 代理
+        DefaultBindInfoProviderAdapter<?> defBinder = (DefaultBindInfoProviderAdapter<?>) plan.bindInfo;
+        Constructor<T> tConstructor = (Constructor<T>) referConstructor.get();
+        Class<T> proxyType = proxyType(plan.targetType, appContext, defBinder);
+        //
+        // .重定向构造方法
+        Constructor<T> proxyConstructor = null;
+        try {
+            proxyConstructor = proxyType.getConstructor(tConstructor.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        //
+        // .生命周期（只有单例的对象才会注册销毁事件）
+        Method initMethod = findInitMethod(proxyType, plan.bindInfo);
+        if (initMethod != null && !Modifier.isPublic(initMethod.getModifiers())) {
+            initMethod = null;
+        }
+        Method destroyMethod = findDestroyMethod(proxyType, plan.bindInfo);
+        if (destroyMethod != null && Modifier.isPublic(destroyMethod.getModifiers())) {
+            boolean single = false;
+            if (plan.bindInfo != null) {
+                single = getScopeContainer().isSingleton(plan.bindInfo);
+            } else {
+                single = getScopeContainer().isSingleton(proxyType);
+            }
+            destroyMethod = single ? destroyMethod : null;
+        } else {
+            destroyMethod = null;
         }
+        //
+        instancePlan = new InstancePlan<>(appContext, tConstructor, proxyConstructor, initMethod, destroyMethod);
+        plan.instancePlan = instancePlan;
+        return instancePlan;
     }
 
     /** 生成动态代理类型 */
@@ -472,7 +589,43 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
                 injectFileds.add(propertyName);
             }
         }
-        // b.注解注入
+        // b.注解注入、c.方法注入
+        for (InjectPoint injectPoint : findInjectPoints(targetType)) {
+            if (injectPoint.field != null) {
+                Field field = injectPoint.field;
+                String name = field.getName();
+                boolean hasInjected = injectFileds.contains(name);
+                if (hasInjected) {
+                    if (isOverwriteAnnotation) {
+                        continue;//如果强制覆盖注解配置启用了，那么这里遇到冲突的时候自动忽略即可。
+                    }
+                    throw new IllegalStateException("doInject , " + targetType + " , property '" + name + "' duplicate.");
+                }
+                //
+                invokeField(field, targetBean, injectSupplier(injectPoint, appContext).get());
+                injectFileds.add(name);
+                continue;
+            }
+            //
+            Supplier<Object[]> parameterSupplier = parameterSupplier(injectPoint.executable, appContext, ArrayUtils.EMPTY_OBJECT_ARRAY, true);
+            try {
+                injectPoint.method.invoke(targetBean, parameterSupplier.get());
+            } catch (InvocationTargetException e2) {
+                throw ExceptionUtils.toRuntimeException(e2.getTargetException());
+            } catch (Exception e) {
+                throw ExceptionUtils.toRuntimeException(e);
+            }
+        }
+    }
+
+    /** 查找类型上所有的注入点（字段在前方法在后），结果按类型缓存。 */
+    private InjectPoint[] findInjectPoints(Class<?> targetType) {
+        InjectPoint[] injectPoints = this.injectPointMap.get(targetType);
+        if (injectPoints != null) {
+            return injectPoints;
+        }
+        //
+        List<InjectPoint> pointList = new ArrayList<>();
         List<Field> fieldList = BeanUtils.findALLFields(targetType);
         fieldList = fieldList == null ? new ArrayList<>(0) : fieldList;
         for (Field field : fieldList) {
@@ -483,23 +636,11 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
             if (injectInfo == null) {
                 continue;
             }
-            //
-            String name = field.getName();
-            boolean hasInjected = injectFileds.contains(name);
-            if (hasInjected) {
-                if (isOverwriteAnnotation) {
-                    continue;//如果强制覆盖注解配置启用了，那么这里遇到冲突的时候自动忽略即可。
-                }
-                throw new IllegalStateException("doInject , " + targetType + " , property '" + name + "' duplicate.");
-            }
-            //
             if (!field.isAccessible()) {
                 field.setAccessible(true);
             }
-            invokeField(field, targetBean, providerOnlyAnnotation(field.getName(), field.getType(), injectInfo, appContext).get());
-            injectFileds.add(field.getName());
+            pointList.add(new InjectPoint(field, null, injectInfo));
         }
-        // c.方法注入
         List<Method> methodList = BeanUtils.findALLMethods(targetType);
         methodList = methodList == null ? new ArrayList<>(0) : methodList;
         for (Method method : methodList) {
@@ -507,46 +648,141 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
             if (injectInfo == null) {
                 continue;
             }
-            //
             if (!method.isAccessible()) {
                 method.setAccessible(true);
             }
-            //
-            Supplier<Object[]> parameterSupplier = parameterSupplier(Provider.of(method), appContext, ArrayUtils.EMPTY_OBJECT_ARRAY, true);
-            try {
-                method.invoke(targetBean, parameterSupplier.get());
-            } catch (InvocationTargetException e2) {
-                throw ExceptionUtils.toRuntimeException(e2.getTargetException());
-            } catch (Exception e) {
-                throw ExceptionUtils.toRuntimeException(e);
+            pointList.add(new InjectPoint(null, method, injectInfo));
+        }
+        //
+        injectPoints = pointList.toArray(new InjectPoint[0]);
+        InjectPoint[] oldPoints = this.injectPointMap.putIfAbsent(targetType, injectPoints);
+        return (oldPoints != null) ? oldPoints : injectPoints;
+    }
+
+    /**
+     * 字段注入点的数据来源。容器启动之后 Bind 不会再变化，此时会把查找到的 Supplier 缓存在注入点上。
+     * 没有找到 Bind 的 Named 注入每次都需要创建新的对象，因此缓存的是一个每次调用 providerOnlyType 的 Supplier。
+     */
+    private Supplier<?> injectSupplier(InjectPoint injectPoint, AppContext appContext) {
+        Field field = injectPoint.field;
+        if (!this.isInit()) {
+            return providerOnlyAnnotation(field.getName(), field.getType(), injectPoint.injectInfo, appContext);
+        }
+        InjectSupplier injectSupplier = injectPoint.injectSupplier;
+        if (injectSupplier != null && injectSupplier.appContext == appContext) {
+            return injectSupplier.supplier;
+        }
+        //
+        Supplier<?> supplier = null;
+        if (injectPoint.injectInfo instanceof javax.inject.Named) {
+            BindInfo<?> bindInfo = findNamedBindInfo(field.getName(), field.getType(), (Named) injectPoint.injectInfo);
+            if (bindInfo != null) {
+                supplier = providerOnlyBindInfo(bindInfo, appContext);
+            } else {
+                supplier = () -> providerOnlyType(field.getType(), appContext, null).get();
+            }
+        } else {
+            supplier = providerOnlyAnnotation(field.getName(), field.getType(), injectPoint.injectInfo, appContext);
+        }
+        injectPoint.injectSupplier = new InjectSupplier(appContext, supplier);
+        return supplier;
+    }
+
+    /**
+     * 查找 BindInfo 或者类型在创建时直接依赖的 BindInfo 或类型（构造参数、属性注入、注解注入），返回的元素为 BindInfo 或者 Class。
+     * 依赖关系是按照创建对象时的规则静态分析出来的，通过 Supplier、InjectMembers 或者代码中调用 getInstance 获取的依赖不在其中。
+     */
+    List<Object> findDependencies(Object beanKey) {
+        List<Object> dependencies = new ArrayList<>();
+        Class<?> targetType = null;
+        if (beanKey instanceof BindInfo) {
+            DefaultBindInfoProviderAdapter<?> adapter = (DefaultBindInfoProviderAdapter<?>) beanKey;
+            if (adapter.getCustomerProvider() != null) {
+                return dependencies;
+            }
+            dependencies.addAll(adapter.getReferBindInfo());
+            targetType = adapter.getSourceType() != null ? adapter.getSourceType() : adapter.getBindType();
+        } else {
+            targetType = findImplClass((Class<?>) beanKey);
+            if (!isBeanType(targetType)) {
+                return dependencies;
+            }
+            Arrays.stream(targetType.getConstructors()).filter(constructor -> {
+                return constructor.getParameterCount() == 0 || isInjectConstructor(constructor);
+            }).min(Comparator.comparingInt(Constructor::getParameterCount)).ifPresent(constructor -> {
+                findParamDependencies(constructor, dependencies);
+            });
+        }
+        if (!isBeanType(targetType) || InjectMembers.class.isAssignableFrom(findImplClass(targetType))) {
+            return dependencies;
+        }
+        //
+        for (InjectPoint injectPoint : findInjectPoints(targetType)) {
+            if (injectPoint.field != null) {
+                Field field = injectPoint.field;
+                findInjectDependency(field.getName(), field.getType(), injectPoint.injectInfo, dependencies);
+            } else {
+                findParamDependencies(injectPoint.method, dependencies);
+            }
+        }
+        return dependencies;
+    }
+
+    private static boolean isBeanType(Class<?> targetType) {
+        if (targetType.isPrimitive() || targetType.isArray() || targetType.isInterface() || targetType.isEnum()) {
+            return false;
+        }
+        return !Modifier.isAbstract(targetType.getModifiers()) && !targetType.getName().startsWith("java.");
+    }
+
+    private void findParamDependencies(Executable executable, List<Object> dependencies) {
+        Class<?>[] parameterTypes = executable.getParameterTypes();
+        Annotation[][] parameterAnnos = executable.getParameterAnnotations();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Annotation injectInfo = findInject(false, parameterAnnos[i]);
+            if (injectInfo != null) {
+                findInjectDependency(null, parameterTypes[i], injectInfo, dependencies);
+                continue;
             }
+            BindInfo<?> bindInfo = getBindInfoContainer().findBindInfo("", parameterTypes[i]);
+            if (bindInfo != null) {
+                dependencies.add(bindInfo);
+            } else if (ClassUtils.wrapperToPrimitive(parameterTypes[i]) == null && !parameterTypes[i].isPrimitive()) {
+                dependencies.add(parameterTypes[i]);
+            }
+        }
+    }
+
+    private void findInjectDependency(String contextName, Class<?> targetType, Annotation injectInfo, List<Object> dependencies) {
+        BindInfo<?> bindInfo = null;
+        if (injectInfo instanceof ID) {
+            bindInfo = getBindInfoContainer().findBindInfo(((ID) injectInfo).value());
+        } else if (injectInfo instanceof javax.inject.Named) {
+            bindInfo = findNamedBindInfo(contextName, targetType, (Named) injectInfo);
+            if (bindInfo == null) {
+                dependencies.add(targetType);
+            }
+        }
+        if (bindInfo != null) {
+            dependencies.add(bindInfo);
         }
     }
 
     /*-------------------------------------------------------------------------------------------*/
 
-    private <T> void doLife(T targetObject, BindInfo<T> bindInfo, AppContext appContext) {
+    private <T> void doLife(T targetObject, InstancePlan<T> instancePlan, AppContext appContext) {
         //
         // .Init初始化方法。
-        Method initMethod = findInitMethod(targetObject.getClass(), bindInfo);
-        if (initMethod != null && Modifier.isPublic(initMethod.getModifiers())) {
-            invokeMethod(targetObject, initMethod);
+        if (instancePlan.initMethod != null) {
+            invokeMethod(targetObject, instancePlan.initMethod);
         }
         //
-        // .注册销毁事件
-        Method destroyMethod = findDestroyMethod(targetObject.getClass(), bindInfo);
-        if (destroyMethod != null && Modifier.isPublic(destroyMethod.getModifiers())) {
-            boolean single = false;
-            if (bindInfo != null) {
-                single = getScopeContainer().isSingleton(bindInfo);
-            } else {
-                single = getScopeContainer().isSingleton(targetObject.getClass());
-            }
-            if (single) {
-                HasorUtils.pushShutdownListener(appContext.getEnvironment(), (EventListener<AppContext>) (event, eventData) -> {
-                    invokeMethod(targetObject, destroyMethod);
-                });
-            }
+        // .注册销毁事件（只有单例才会注册）
+        Method destroyMethod = instancePlan.destroyMethod;
+        if (destroyMethod != null) {
+            HasorUtils.pushShutdownListener(appContext.getEnvironment(), (EventListener<AppContext>) (event, eventData) -> {
+                invokeMethod(targetObject, destroyMethod);
+            });
         }
     }
 
@@ -560,22 +796,61 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
         preInitialize();
         tryInit(this.bindInfoContainer);
         //
+        List<BindInfo<?>> singletonList = new ArrayList<>();
         this.bindInfoContainer.forEach(bindInfo -> {
             DefaultBindInfoProviderAdapter<?> infoAdapter = (DefaultBindInfoProviderAdapter<?>) bindInfo;
             Method initMethod = findInitMethod(infoAdapter.getBindType(), infoAdapter); // 配置了init方法
             boolean singleton = scopeContainer.isSingleton(bindInfo);                    // 配置了单例（只有单例的才会在容器启动时调用）
             if (initMethod != null && singleton) {
-                // 当前为 doInitialize 阶段，需要在 doStart 阶段开始调用 Bean 的 init。执行 init 只需要 get 它们。
-                HasorUtils.pushStartListener(this.environment, (EventListener<AppContext>) (event, eventData) -> {
-                    eventData.getInstance(infoAdapter);//执行init
-                });
+                singletonList.add(bindInfo);
             }
         });
+        if (singletonList.isEmpty()) {
+            return;
+        }
+        //
+        // 当前为 doInitialize 阶段，需要在 doStart 阶段开始调用 Bean 的 init。执行 init 只需要 get 它们。
+        // 开启 hasor.singletonInit.parallel 之后，会按照依赖关系使用线程池并行的 get 它们。
+        boolean parallel = this.environment.getSettings().getBoolean("hasor.singletonInit.parallel", false);
+        int threads = this.environment.getSettings().getInteger("hasor.singletonInit.threads", 0);
+        SingletonStartup singletonStartup = new SingletonStartup(this, singletonList);
+        HasorUtils.pushStartListener(this.environment, (EventListener<AppContext>) (event, eventData) -> {
+            this.startupRecording = true;
+            try {
+                if (parallel && singletonList.size() > 1) {
+                    singletonStartup.startParallel(eventData, threads);
+                } else {
+                    singletonStartup.startSequential(eventData);
+                }
+            } finally {
+                this.startupRecording = false;
+            }
+        });
+    }
+
+    /** 容器启动时初始化一个单例 Bean（执行它的 init 方法），记录它的时间线并通知 BeanStartupListener */
+    void startSingleton(BindInfo<?> bindInfo, AppContext appContext, long startupBegin) {
+        long begin = System.nanoTime();
+        BeanTimeline timeline = new BeanTimeline(bindInfo, Thread.currentThread().getName(), begin - startupBegin);
+        this.currentTimeline.set(timeline);
+        try {
+            appContext.getInstance(bindInfo);//执行init
+        } finally {
+            this.currentTimeline.remove();
+        }
+        timeline.finish(System.nanoTime() - begin);
+        this.startupTimeline.add(timeline);
+        this.spiCallerContainer.notifySpiWithoutResult(BeanStartupListener.class, listener -> {
+            listener.beanStarted(bindInfo, timeline);
+        });
     }
 
     @Override
     protected void doClose() {
         this.classEngineMap.clear();
+        this.createPlanMap.clear();
+        this.injectPointMap.clear();
+        this.startupTimeline.clear();
         tryClose(this.bindInfoContainer);
         tryClose(this.scopeContainer);
         tryClose(this.spiCallerContainer);
@@ -592,4 +867,63 @@ public class BeanContainer extends AbstractContainer implements BindInfoBuilderF
             container.close();
         }
     }
-}
\ No newline at end of file
+
+    /** 对象的创建计划：作用域以及创建对象所需的代理类型、构造方法和生命周期方法 */
+    private static class CreatePlan<T> {
+        private final    Class<T>          targetType;
+        private final    BindInfo<T>       bindInfo;
+        private final    Supplier<Scope>[] scopeProvider;
+        private final    String            scopeKey;
+        private volatile InstancePlan<T>   instancePlan;
+
+        public CreatePlan(Class<T> targetType, BindInfo<T> bindInfo, Supplier<Scope>[] scopeProvider, String scopeKey) {
+            this.targetType = targetType;
+            this.bindInfo = bindInfo;
+            this.scopeProvider = scopeProvider;
+            this.scopeKey = scopeKey;
+        }
+    }
+
+    /** 创建对象时使用的构造方法（已经重定向到代理类型上）以及生命周期方法 */
+    private static class InstancePlan<T> {
+        private final AppContext     appContext;
+        private final Constructor<?> referConstructor;
+        private final Constructor<T> constructor;
+        private final Method         initMethod;
+        private final Method         destroyMethod;
+
+        public InstancePlan(AppContext appContext, Constructor<?> referConstructor, Constructor<T> constructor, Method initMethod, Method destroyMethod) {
+            this.appContext = appContext;
+            this.referConstructor = referConstructor;
+            this.constructor = constructor;
+            this.initMethod = initMethod;
+            this.destroyMethod = destroyMethod;
+        }
+    }
+
+    /** 类型上的一个注入点，field 和 method 二者只有一个不为空 */
+    private static class InjectPoint {
+        private final    Field                field;
+        private final    Method               method;
+        private final    Supplier<Executable> executable;
+        private final    Annotation           injectInfo;
+        private volatile InjectSupplier       injectSupplier;
+
+        public InjectPoint(Field field, Method method, Annotation injectInfo) {
+            this.field = field;
+            this.method = method;
+            this.executable = (method != null) ? Provider.of(method) : null;
+            this.injectInfo = injectInfo;
+        }
+    }
+
+    private static class InjectSupplier {
+        private final AppContext  appContext;
+        private final Supplier<?> supplier;
+
+        public InjectSupplier(AppContext appContext, Supplier<?> supplier) {
+            this.appContext = appContext;
+            this.supplier = supplier;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.core.container;
+import net.hasor.core.BindInfo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容器启动时一个单例 Bean 的启动时间线。所有时间都以纳秒为单位，startOffset 是相对于单例初始化阶段开始时的偏移量。
+ * 如果 Bean 在初始化阶段之前就已经被创建（例如被某个模块的 onStart 提前获取），那么 isCreated 为 false，并且没有各阶段的耗时。
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+public class BeanTimeline {
+    private final BindInfo<?> bindInfo;
+    private final String      threadName;
+    private final long        startOffset;
+    private       boolean     created;
+    private       long        createTime;
+    private       long        injectTime;
+    private       long        initTime;
+    private       long        totalTime;
+
+    BeanTimeline(BindInfo<?> bindInfo, String threadName, long startOffset) {
+        this.bindInfo = bindInfo;
+        this.threadName = threadName;
+        this.startOffset = startOffset;
+    }
+
+    void created(long createTime, long injectTime, long initTime) {
+        this.created = true;
+        this.createTime = createTime;
+        this.injectTime = injectTime;
+        this.initTime = initTime;
+    }
+
+    void finish(long totalTime) {
+        this.totalTime = totalTime;
+    }
+
+    /** 启动的 Bean */
+    public BindInfo<?> getBindInfo() {
+        return this.bindInfo;
+    }
+
+    /** 执行启动的线程 */
+    public String getThreadName() {
+        return this.threadName;
+    }
+
+    /** 本次启动是否创建了 Bean，为 false 表示 Bean 在此之前已经被创建 */
+    public boolean isCreated() {
+        return this.created;
+    }
+
+    /** 开始启动的时间（相对于单例初始化阶段开始的时间） */
+    public long getStartOffset() {
+        return this.startOffset;
+    }
+
+    /** 调用构造方法创建对象的耗时 */
+    public long getCreateTime() {
+        return this.createTime;
+    }
+
+    /** 依赖注入的耗时 */
+    public long getInjectTime() {
+        return this.injectTime;
+    }
+
+    /** 执行 init 方法的耗时 */
+    public long getInitTime() {
+        return this.initTime;
+    }
+
+    /** 启动的总耗时（包含创建依赖的 Bean、Aop 代理生成以及作用域处理） */
+    public long getTotalTime() {
+        return this.totalTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> start=%.3fms, create=%.3fms, inject=%.3fms, init=%.3fms, total=%.3fms, thread=%s",//
+                this.bindInfo.getBindID(), toMillis(this.startOffset), toMillis(this.createTime), toMillis(this.injectTime),//
+                toMillis(this.initTime), toMillis(this.totalTime), this.threadName);
+    }
+
+    /** 纳秒转换为毫秒 */
+    public static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
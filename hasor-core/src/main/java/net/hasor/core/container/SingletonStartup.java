@@ -0,0 +1,145 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.core.container;
+import net.hasor.core.AppContext;
+import net.hasor.core.BindInfo;
+import net.hasor.utils.NameThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 容器启动时初始化单例 Bean（配置了 init 方法的单例）。
+ * 并行模式下先通过构造参数、属性注入和注解注入分析出单例之间的依赖关系，被依赖的单例总是先于依赖它的单例完成初始化，
+ * 相互之间没有依赖的单例在一个固定大小的线程池中并行初始化。依赖关系中存在环或者分析失败时退回到按顺序初始化。
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+class SingletonStartup {
+    protected static Logger            logger = LoggerFactory.getLogger(SingletonStartup.class);
+    private final    BeanContainer     beanContainer;
+    private final    List<BindInfo<?>> singletonList;
+
+    public SingletonStartup(BeanContainer beanContainer, List<BindInfo<?>> singletonList) {
+        this.beanContainer = beanContainer;
+        this.singletonList = singletonList;
+    }
+
+    /** 按照注册顺序依次初始化 */
+    public void startSequential(AppContext appContext) {
+        long startupBegin = System.nanoTime();
+        for (BindInfo<?> bindInfo : this.singletonList) {
+            this.beanContainer.startSingleton(bindInfo, appContext, startupBegin);
+        }
+    }
+
+    /** 按照依赖关系并行初始化，threads 小于等于 0 时使用 CPU 核数 */
+    public void startParallel(AppContext appContext, int threads) throws Throwable {
+        List<BindInfo<?>> sortedList = null;
+        Map<BindInfo<?>, Set<BindInfo<?>>> dependMap = null;
+        try {
+            dependMap = this.findDependMap();
+            sortedList = sortByDepend(this.singletonList, dependMap);
+        } catch (Throwable e) {
+            logger.warn("singleton startup -> analyze dependencies failed, fallback to sequential. " + e.getMessage(), e);
+        }
+        if (sortedList == null) {
+            if (dependMap != null) {
+                logger.warn("singleton startup -> circular dependencies found, fallback to sequential.");
+            }
+            this.startSequential(appContext);
+            return;
+        }
+        //
+        threads = (threads <= 0) ? Runtime.getRuntime().availableProcessors() : threads;
+        threads = Math.max(1, Math.min(threads, sortedList.size()));
+        logger.info("singleton startup -> start {} singletons in parallel, threads = {}.", sortedList.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NameThreadFactory("Hasor-Startup-%s", appContext.getClassLoader()));
+        try {
+            long startupBegin = System.nanoTime();
+            Map<BindInfo<?>, CompletableFuture<Void>> futureMap = new HashMap<>();
+            for (BindInfo<?> bindInfo : sortedList) {
+                CompletableFuture<?>[] dependFutures = dependMap.get(bindInfo).stream().map(futureMap::get).toArray(size -> new CompletableFuture<?>[size]);
+                CompletableFuture<Void> future = CompletableFuture.allOf(dependFutures).thenRunAsync(() -> {
+                    this.beanContainer.startSingleton(bindInfo, appContext, startupBegin);
+                }, executor);
+                futureMap.put(bindInfo, future);
+            }
+            CompletableFuture.allOf(futureMap.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw (e.getCause() != null) ? e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 查找每个单例依赖的其它单例。依赖关系会穿过非单例的 Bean 继续查找，例如：单例 A 注入了原型 B，原型 B 又注入了单例 C，那么 A 依赖 C。
+     * 通过 Supplier、InjectMembers 或者在代码中调用 getInstance 获取的依赖无法被分析出来。
+     */
+    private Map<BindInfo<?>, Set<BindInfo<?>>> findDependMap() {
+        Set<BindInfo<?>> singletonSet = new HashSet<>(this.singletonList);
+        Map<Object, List<Object>> dependCache = new HashMap<>();
+        Map<BindInfo<?>, Set<BindInfo<?>>> dependMap = new LinkedHashMap<>();
+        for (BindInfo<?> bindInfo : this.singletonList) {
+            Set<BindInfo<?>> dependSet = new LinkedHashSet<>();
+            Set<Object> visited = new HashSet<>();
+            Deque<Object> stack = new ArrayDeque<>(this.findDependencies(bindInfo, dependCache));
+            while (!stack.isEmpty()) {
+                Object beanKey = stack.pop();
+                if (beanKey == bindInfo || !visited.add(beanKey)) {
+                    continue;
+                }
+                if (singletonSet.contains(beanKey)) {
+                    dependSet.add((BindInfo<?>) beanKey); // 单例自己的依赖由它自己的顺序保证，不再继续查找
+                    continue;
+                }
+                stack.addAll(this.findDependencies(beanKey, dependCache));
+            }
+            dependMap.put(bindInfo, dependSet);
+        }
+        return dependMap;
+    }
+
+    private List<Object> findDependencies(Object beanKey, Map<Object, List<Object>> dependCache) {
+        return dependCache.computeIfAbsent(beanKey, this.beanContainer::findDependencies);
+    }
+
+    /** 拓扑排序，被依赖的排在前面。存在环时返回空 */
+    private static List<BindInfo<?>> sortByDepend(List<BindInfo<?>> singletonList, Map<BindInfo<?>, Set<BindInfo<?>>> dependMap) {
+        List<BindInfo<?>> sortedList = new ArrayList<>(singletonList.size());
+        Set<BindInfo<?>> finished = new HashSet<>();
+        while (sortedList.size() < singletonList.size()) {
+            boolean progress = false;
+            for (BindInfo<?> bindInfo : singletonList) {
+                if (!finished.contains(bindInfo) && finished.containsAll(dependMap.get(bindInfo))) {
+                    sortedList.add(bindInfo);
+                    finished.add(bindInfo);
+                    progress = true;
+                }
+            }
+            if (!progress) {
+                return null;
+            }
+        }
+        return sortedList;
+    }
+}
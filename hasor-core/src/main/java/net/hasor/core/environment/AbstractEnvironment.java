@@ -35,14 +35,14 @@ import java.util.regex.Pattern;
  * @author 赵永春 (zyc@hasor.net)
  */
 public abstract class AbstractEnvironment implements Environment {
-    protected static Logger              logger       = LoggerFactory.getLogger(AbstractEnvironment.class);
-    private          String[]            spanPackage  = null;
-    private          ScanClassPath       scanUtils    = null;
-    private          AbstractSettings    settings     = null;
-    private          Object              context      = null;
-    private          ClassLoader         rootLoader   = null;
-    private          EventContext        eventManager = null;
-    private          Map<String, String> envMap       = null;
+    protected static Logger                     logger       = LoggerFactory.getLogger(AbstractEnvironment.class);
+    private          String[]                   spanPackage  = null;
+    private          Map<String, ScanClassPath> scanUtils    = new ConcurrentHashMap<>();
+    private          AbstractSettings           settings     = null;
+    private          Object                     context      = null;
+    private          ClassLoader                rootLoader   = null;
+    private          EventContext               eventManager = null;
+    private          Map<String, String>        envMap       = null;
 
     /* --------------------------------------------------------------------------------- get/set */
     public AbstractEnvironment(Object context, AbstractSettings settings) {
@@ -114,10 +114,11 @@ public abstract class AbstractEnvironment implements Environment {
         if (loadPackages == null || loadPackages.length == 0) {
             return null;
         }
-        if (this.scanUtils == null) {
-            this.scanUtils = ScanClassPath.newInstance(loadPackages);
-        }
-        return this.scanUtils.getClassSet(featureType);
+        // .相同的扫描范围共用一个 ScanClassPath，扫描结果在 Environment 的生命周期内都会被缓存（返回副本，调用者可以修改它）
+        String[] scanPackages = Arrays.stream(loadPackages).filter(StringUtils::isNotBlank).sorted().toArray(String[]::new);
+        String scanKey = StringUtils.join(scanPackages, ",");
+        ScanClassPath scanClassPath = this.scanUtils.computeIfAbsent(scanKey, key -> ScanClassPath.newInstance(scanPackages));
+        return new LinkedHashSet<>(scanClassPath.getClassSet(featureType));
     }
 
     /** 在框架扫描包的范围内查找具有特征类集合。（特征可以是继承的类、标记某个注解的类） */
@@ -156,6 +156,22 @@ public class DefaultBindInfoProviderAdapter<T> extends AbstractBindInfoProviderA
         return PropertyMap;
     }
 
+    /**获得构造方法和属性注入中引用的其它 BindInfo（不包含以 Supplier 形式提供的值）*/
+    public List<BindInfo<?>> getReferBindInfo() {
+        List<BindInfo<?>> referList = new ArrayList<>();
+        for (ParamInfo paramInfo : this.constructorParams.values()) {
+            if (paramInfo != null && !paramInfo.useProvider && paramInfo.valueInfo != null) {
+                referList.add(paramInfo.valueInfo);
+            }
+        }
+        for (ParamInfo paramInfo : this.injectProperty.values()) {
+            if (paramInfo != null && !paramInfo.useProvider && paramInfo.valueInfo != null) {
+                referList.add(paramInfo.valueInfo);
+            }
+        }
+        return referList;
+    }
+
     public Map<String, DelegateBindInfoAdapter> getPropertyDelegate() {
         return this.propertyDelegate;
     }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.core.spi;
+import net.hasor.core.BindInfo;
+import net.hasor.core.container.BeanTimeline;
+
+/**
+ * 容器启动时，单例 Bean 完成初始化（创建、依赖注入、init 方法）之后调用，可以用来收集每个 Bean 的启动耗时。
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+public interface BeanStartupListener extends java.util.EventListener {
+    /**
+     * 单例 Bean 完成了启动。
+     * @param bindInfo 完成启动的 Bean。
+     * @param timeline Bean 启动过程中各个阶段的耗时。
+     */
+    public void beanStarted(BindInfo<?> bindInfo, BeanTimeline timeline) throws Throwable;
+}
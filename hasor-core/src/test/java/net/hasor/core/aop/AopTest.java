@@ -16,6 +16,7 @@
 package net.hasor.core.aop;
 import net.hasor.test.core.aop.AopBeanInterceptor;
 import net.hasor.test.core.aop.GenericsMethodAopBean;
+import net.hasor.test.core.aop.InvokeAopBean;
 import net.hasor.test.core.aop.ThrowAopBean;
 import net.hasor.test.core.basic.inject.constructor.ConstructorBean;
 import net.hasor.test.core.basic.inject.property.PropertyBean;
@@ -32,6 +33,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class AopTest {
     @Test
@@ -364,4 +366,56 @@ public class AopTest {
         assert aopInterceptor.getCallInfo().get("fooCall3").contains("BEFORE");
         assert aopInterceptor.getCallInfo().get("fooCall3").contains("AFTER");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void aopTest8() throws Throwable {
+        // 拦截器链按照添加顺序执行，最终通过 aop$$dispatch$ 调用父类方法（不经过反射）
+        List<String> callOrder = new ArrayList<>();
+        AopClassConfig classConfig = new AopClassConfig(GenericsMethodAopBean.class);
+        classConfig.addAopInterceptor(invocation -> {
+            callOrder.add("first");
+            invocation.getArguments()[0] = "first_" + invocation.getArguments()[0];
+            return invocation.proceed();
+        });
+        classConfig.addAopInterceptor(invocation -> {
+            callOrder.add("second");
+            assert invocation.getMethod().getDeclaringClass() == GenericsMethodAopBean.class;
+            assert invocation.getArguments()[0].equals("first_abc1");
+            return invocation.proceed();
+        });
+        //
+        Class<?> buildClass = classConfig.buildClass();
+        GenericsMethodAopBean instance = (GenericsMethodAopBean) buildClass.newInstance();
+        assert instance instanceof InnerAopInvoker;
+        //
+        String result = instance.fooCall1("abc1", "abc2", "abc3");
+        assert callOrder.size() == 2 && callOrder.get(0).equals("first") && callOrder.get(1).equals("second");
+        assert result.equals("abc");
+        //
+        callOrder.clear();
+        instance.fooCall1("abc1", "abc2", "abc3");
+        assert callOrder.size() == 2;
+        //
+        try {
+            ((InnerAopInvoker) instance).aop$$dispatch$(Integer.MAX_VALUE, new Object[0]);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert true;
+        }
+    }
+
+    @Test
+    public void aopTest9() throws Throwable {
+        // 被拦截的方法和调度方法同参数时，方法的副本（aop$invoke）不会和调度方法冲突
+        AopBeanInterceptor aopInterceptor = new AopBeanInterceptor();
+        AopClassConfig classConfig = new AopClassConfig(InvokeAopBean.class);
+        classConfig.addAopInterceptor(aopInterceptor);
+        Class<?> buildClass = classConfig.buildClass();
+        InvokeAopBean instance = (InvokeAopBean) buildClass.newInstance();
+        //
+        assert instance.invoke(1, new Object[2]).equals("invoke_1_2");
+        assert instance.dispatch(3, new Object[4]).equals("dispatch_3_4");
+        assert aopInterceptor.getCallInfo().get("invoke").size() == 2;
+        assert aopInterceptor.getCallInfo().get("dispatch").size() == 2;
+    }
+}
@@ -342,7 +342,8 @@ public class BinderDataTest extends AbstractBinderDataTest {
         assert binder.findClass(null) == null;
         assert !binder.findClass(ApiBinder.class).isEmpty();
         assert binder.findClass(null, (String) null) == null;
-        assert !binder.findClass(ApiBinder.class, new String[] { "test.net.hasor.core._07_binder" }).isEmpty();
+        assert binder.findClass(ApiBinder.class, new String[] { "test.net.hasor.core._07_binder" }).isEmpty();
+        assert !binder.findClass(ApiBinder.class, new String[] { "net.hasor.core.*" }).isEmpty();
         assert binder.getEnvironment() != null;
     }
 
@@ -331,4 +331,24 @@ public class InjectBeanContainerTest {
             assert e.getMessage().endsWith(" property 'pojoBean' duplicate.");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void injectTest8() {
+        // 容器启动之后创建计划被缓存，原型对象以及它们注入的对象每次都是新的
+        PropertyPojoBeanRef ref1 = beanContainer.providerOnlyType(PropertyPojoBeanRef.class, appContext, null).get();
+        PropertyPojoBeanRef ref2 = beanContainer.providerOnlyType(PropertyPojoBeanRef.class, appContext, null).get();
+        assert ref1 != ref2;
+        assert ref1.getPojoBean() != null && ref2.getPojoBean() != null;
+        assert ref1.getPojoBean() != ref2.getPojoBean();
+        //
+        Jsr330MethodRef bean1 = beanContainer.providerOnlyType(Jsr330MethodRef.class, appContext, null).get();
+        Jsr330MethodRef bean2 = beanContainer.providerOnlyType(Jsr330MethodRef.class, appContext, null).get();
+        assert bean1.getPojoBean() != null && bean2.getPojoBean() != null;
+        assert bean1.getPojoBean() != bean2.getPojoBean();
+        //
+        Jsr330ConstructorRef bean3 = beanContainer.providerOnlyType(Jsr330ConstructorRef.class, appContext, null).get();
+        Jsr330ConstructorRef bean4 = beanContainer.providerOnlyType(Jsr330ConstructorRef.class, appContext, null).get();
+        assert bean3.getPojoBean() != null && bean4.getPojoBean() != null;
+        assert bean3.getPojoBean() != bean4.getPojoBean();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.core.container;
+import net.hasor.core.AppContext;
+import net.hasor.core.BindInfo;
+import net.hasor.core.Hasor;
+import net.hasor.core.spi.BeanStartupListener;
+import net.hasor.test.core.basic.startup.DependInitBean;
+import net.hasor.test.core.basic.startup.SlowInitBeanA;
+import net.hasor.test.core.basic.startup.SlowInitBeanB;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StartupBeanContainerTest {
+    private Map<Class<?>, BeanTimeline> startup(boolean parallel) {
+        Map<Class<?>, BeanTimeline> timelineMap = new ConcurrentHashMap<>();
+        AppContext appContext = Hasor.create()//
+                .addVariable("HASOR_SINGLETON_PARALLEL", String.valueOf(parallel))//
+                .addVariable("HASOR_SINGLETON_THREADS", "4")//
+                .build(apiBinder -> {
+                    apiBinder.bindType(DependInitBean.class);
+                    apiBinder.bindType(SlowInitBeanA.class);
+                    apiBinder.bindType(SlowInitBeanB.class);
+                    apiBinder.bindSpiListener(BeanStartupListener.class, (BindInfo<?> bindInfo, BeanTimeline timeline) -> {
+                        timelineMap.put(bindInfo.getBindType(), timeline);
+                    });
+                });
+        //
+        assert timelineMap.size() == 3;
+        assert appContext.getInstance(SlowInitBeanA.class).isInit();
+        assert appContext.getInstance(SlowInitBeanB.class).isInit();
+        assert appContext.getInstance(DependInitBean.class).isDependReady();
+        appContext.shutdown();
+        return timelineMap;
+    }
+
+    @Test
+    public void sequentialTest1() {
+        Map<Class<?>, BeanTimeline> timelineMap = startup(false);
+        //
+        // .按顺序启动时 DependInitBean 最先启动，它依赖的 Bean 在注入时被创建，因此 A、B 的时间线上没有创建过程
+        BeanTimeline dependTimeline = timelineMap.get(DependInitBean.class);
+        assert dependTimeline.isCreated();
+        assert dependTimeline.getInjectTime() >= 300_000_000L * 2;
+        assert !timelineMap.get(SlowInitBeanA.class).isCreated();
+        assert !timelineMap.get(SlowInitBeanB.class).isCreated();
+        assert timelineMap.values().stream().map(BeanTimeline::getThreadName).distinct().count() == 1;
+    }
+
+    @Test
+    public void parallelTest1() {
+        Map<Class<?>, BeanTimeline> timelineMap = startup(true);
+        BeanTimeline timelineA = timelineMap.get(SlowInitBeanA.class);
+        BeanTimeline timelineB = timelineMap.get(SlowInitBeanB.class);
+        BeanTimeline dependTimeline = timelineMap.get(DependInitBean.class);
+        //
+        // .A 和 B 相互独立在不同的线程上同时启动，DependInitBean 直接依赖 A 并通过原型 Bean 依赖 B，因此在它们之后启动
+        assert timelineA.isCreated() && timelineB.isCreated() && dependTimeline.isCreated();
+        assert timelineA.getInitTime() >= 300_000_000L;
+        assert timelineB.getInitTime() >= 300_000_000L;
+        assert !timelineA.getThreadName().equals(timelineB.getThreadName());
+        assert timelineA.getStartOffset() < timelineB.getStartOffset() + timelineB.getTotalTime();
+        assert timelineB.getStartOffset() < timelineA.getStartOffset() + timelineA.getTotalTime();
+        assert dependTimeline.getStartOffset() >= timelineA.getStartOffset() + timelineA.getTotalTime();
+        assert dependTimeline.getStartOffset() >= timelineB.getStartOffset() + timelineB.getTotalTime();
+        assert dependTimeline.getInjectTime() < 300_000_000L;
+    }
+}
@@ -159,7 +159,8 @@ public class EnvTest {
         //
         assert env.findClass(null) == null;
         assert !env.findClass(ApiBinder.class).isEmpty();
-        assert !env.findClass(ApiBinder.class, "").isEmpty();
+        assert env.findClass(ApiBinder.class, "").isEmpty();
+        assert !env.findClass(ApiBinder.class, "net.hasor.core.*").isEmpty();
         assert env.findClass(null, new String[0]) == null;
     }
 
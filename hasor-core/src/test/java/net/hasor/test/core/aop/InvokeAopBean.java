@@ -0,0 +1,15 @@
+package net.hasor.test.core.aop;
+/**
+ * 和 InnerAopInvoker 的调度方法同参数的方法
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+public class InvokeAopBean {
+    public Object invoke(int methodIndex, Object[] params) {
+        return "invoke_" + methodIndex + "_" + params.length;
+    }
+
+    public Object dispatch(int methodIndex, Object[] params) {
+        return "dispatch_" + methodIndex + "_" + params.length;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.test.core.basic.startup;
+import net.hasor.core.Init;
+import net.hasor.core.Singleton;
+
+/**
+ * 一个 init 方法较慢的单例 Bean
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+@Singleton
+public class SlowInitBeanA {
+    private volatile boolean init = false;
+
+    public boolean isInit() {
+        return init;
+    }
+
+    @Init()
+    public void init() throws InterruptedException {
+        Thread.sleep(300);
+        this.init = true;
+    }
+}
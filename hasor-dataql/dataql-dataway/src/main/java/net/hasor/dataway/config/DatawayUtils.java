@@ -14,11 +14,11 @@
  * limitations under the License.
  */
 package net.hasor.dataway.config;
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
-import com.alibaba.fastjson.serializer.SerializerFeature;
 import net.hasor.core.spi.SpiTrigger;
 import net.hasor.dataql.QueryResult;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.compiler.qil.QILCodec;
 import net.hasor.dataql.domain.DataModel;
 import net.hasor.dataql.runtime.ThrowRuntimeException;
 import net.hasor.dataway.dal.ApiStatusEnum;
@@ -27,6 +27,7 @@ import net.hasor.dataway.dal.QueryCondition;
 import net.hasor.dataway.spi.ApiInfo;
 import net.hasor.dataway.spi.SerializationChainSpi;
 import net.hasor.dataway.spi.SerializationChainSpi.SerializationInfo;
+import net.hasor.utils.CommonCodeUtils;
 import net.hasor.utils.StringUtils;
 import net.hasor.utils.io.IOUtils;
 import net.hasor.web.Invoker;
@@ -38,10 +39,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Random;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 import java.util.function.Supplier;
 
 /**
@@ -119,8 +120,13 @@ public class DatawayUtils {
     }
 
     public static Result<Object> queryResultToResultWithSpecialValue(Map<String, Object> optionMap, QueryResult queryResult, Object specialValue) {
+        return queryResultToResultWithSpecialValue(optionMap, queryResult, specialValue, true);
+    }
+
+    /** unwrapValue 为 false 时结果中保留 DataModel，由 responseData 直接输出（见 JsonResponseWriter） */
+    public static Result<Object> queryResultToResultWithSpecialValue(Map<String, Object> optionMap, QueryResult queryResult, Object specialValue, boolean unwrapValue) {
         Object resultValue;
-        if (specialValue instanceof DataModel) {
+        if (unwrapValue && specialValue instanceof DataModel) {
             resultValue = ((DataModel) specialValue).unwrap();
         } else {
             resultValue = specialValue;
@@ -222,12 +228,22 @@ public class DatawayUtils {
     }
 
     public static Object responseData(SpiTrigger spiTrigger, ApiInfo apiInfo, String contentType, Invoker invoker, Object objectMap) throws IOException {
+        writeResponseData(spiTrigger, apiInfo, contentType, invoker, objectMap);
+        return objectMap;
+    }
+
+    /** 和 responseData 相同，返回输出的字节数（字符串结果或者响应已经提交时返回 -1） */
+    public static long writeResponseData(SpiTrigger spiTrigger, ApiInfo apiInfo, String contentType, Invoker invoker, Object objectMap) throws IOException {
         HttpServletRequest httpRequest = invoker.getHttpRequest();
         HttpServletResponse httpResponse = invoker.getHttpResponse();
         if (!httpResponse.isCommitted()) {
-            Object resultData = spiTrigger.chainSpi(SerializationChainSpi.class, (listener, lastResult) -> {
-                return listener.doSerialization(apiInfo, invoker, lastResult);
-            }, objectMap);
+            Object resultData = objectMap;
+            if (spiTrigger.hasSpi(SerializationChainSpi.class)) {
+                // .SPI 收到的始终是 unwrap 之后的数据
+                resultData = spiTrigger.chainSpi(SerializationChainSpi.class, (listener, lastResult) -> {
+                    return listener.doSerialization(apiInfo, invoker, lastResult);
+                }, unwrapDataModel(objectMap));
+            }
             //
             String contentDisposition = null;// 仅在 Bytes 下有效
             long contentLength = -1;         // 仅在 Bytes 下有效
@@ -247,20 +263,19 @@ public class DatawayUtils {
                 //
                 setUIContextType(httpRequest, httpResponse, "bytes");
                 byte[] bodyByte = (byte[]) resultData;
-                responseBytes(httpResponse, contentType, contentDisposition, bodyByte.length, new ByteArrayInputStream(bodyByte));
+                return responseBytes(httpResponse, contentType, contentDisposition, bodyByte.length, new ByteArrayInputStream(bodyByte));
             } else if (resultData instanceof InputStream) {
                 //
                 setUIContextType(httpRequest, httpResponse, "bytes");
-                responseBytes(httpResponse, contentType, contentDisposition, contentLength, (InputStream) resultData);
+                return responseBytes(httpResponse, contentType, contentDisposition, contentLength, (InputStream) resultData);
             } else {
                 //
                 setUIContextType(httpRequest, httpResponse, "json");
                 String characterEncoding = httpResponse.getCharacterEncoding();
-                String body = JSON.toJSONString(resultData, SerializerFeature.WriteMapNullValue);
-                responseString(httpResponse, contentType, characterEncoding, body);
+                return responseJson(httpResponse, contentType, characterEncoding, resultData);
             }
         }
-        return objectMap;
+        return -1;
     }
 
     private static void setUIContextType(HttpServletRequest httpRequest, HttpServletResponse httpResponse, String responseContextType) {
@@ -269,7 +284,7 @@ public class DatawayUtils {
         }
     }
 
-    private static void responseBytes(HttpServletResponse httpResponse, String contentType, String contentDisposition, long contentLength, InputStream bodyInputStream) throws IOException {
+    private static long responseBytes(HttpServletResponse httpResponse, String contentType, String contentDisposition, long contentLength, InputStream bodyInputStream) throws IOException {
         httpResponse.setContentType(contentType);
         if (StringUtils.isNotBlank(contentDisposition)) {
             httpResponse.setHeader("Content-Disposition", contentDisposition);
@@ -282,8 +297,9 @@ public class DatawayUtils {
             }
         }
         try (ServletOutputStream output = httpResponse.getOutputStream()) {
-            IOUtils.copy(bodyInputStream, output);
+            long copyBytes = IOUtils.copyLarge(bodyInputStream, output);
             output.flush();
+            return copyBytes;
         }
     }
 
@@ -300,6 +316,35 @@ public class DatawayUtils {
         }
     }
 
+    /** 结果（或者结果结构中的值）是 DataModel 时，返回 unwrap 之后的数据 */
+    private static Object unwrapDataModel(Object resultData) {
+        if (resultData instanceof DataModel) {
+            return ((DataModel) resultData).unwrap();
+        }
+        if (resultData instanceof Map && ((Map<?, ?>) resultData).values().stream().anyMatch(value -> value instanceof DataModel)) {
+            Map<Object, Object> unwrapData = new LinkedHashMap<>();
+            ((Map<?, ?>) resultData).forEach((key, value) -> {
+                unwrapData.put(key, (value instanceof DataModel) ? ((DataModel) value).unwrap() : value);
+            });
+            return unwrapData;
+        }
+        return resultData;
+    }
+
+    /** 以 JSON 格式边序列化边输出，不生成完整的字符串（DataModel 和 DataStream 都直接输出） */
+    private static long responseJson(HttpServletResponse httpResponse, String contentType, String characterEncoding, Object resultData) throws IOException {
+        if (StringUtils.isNotBlank(characterEncoding)) {
+            contentType = contentType + ";charset=" + characterEncoding;
+        }
+        if (StringUtils.isNotBlank(contentType)) {
+            httpResponse.setContentType(contentType);
+        }
+        Charset charset = StringUtils.isNotBlank(characterEncoding) ? Charset.forName(characterEncoding) : StandardCharsets.ISO_8859_1;
+        try (ServletOutputStream output = httpResponse.getOutputStream()) {
+            return JsonResponseWriter.write(output, charset, resultData);
+        }
+    }
+
     public static String generateID() {
         long timeMillis = System.currentTimeMillis();
         int nextInt = new Random(timeMillis).nextInt();
@@ -344,6 +389,33 @@ public class DatawayUtils {
         }};
     };
 
+    /** 把发布时编译好的 QIL 编码为字符串，格式为：脚本MD5:Base64(QIL) */
+    public static String encodeCompiled(String scriptBody, QIL qil) throws IOException, NoSuchAlgorithmException {
+        return scriptDigest(scriptBody) + ":" + Base64.getEncoder().encodeToString(QILCodec.encode(qil));
+    }
+
+    /** 解码发布时编译好的 QIL，当脚本或者共享变量发生变化（或格式版本不兼容）时返回 null，需要重新编译 */
+    public static QIL decodeCompiled(String compiledData, String scriptBody, Set<String> shareVarKeys) {
+        if (StringUtils.isBlank(compiledData) || scriptBody == null) {
+            return null;
+        }
+        try {
+            int index = compiledData.indexOf(':');
+            if (index <= 0 || !compiledData.substring(0, index).equals(scriptDigest(scriptBody))) {
+                return null;
+            }
+            QIL qil = QILCodec.decode(Base64.getDecoder().decode(compiledData.substring(index + 1)));
+            return qil.getCompilerVar().keySet().equals(shareVarKeys) ? qil : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** 脚本的 MD5 摘要，用来确认预编译的 QIL 确实由当前脚本编译而来 */
+    private static String scriptDigest(String scriptBody) throws NoSuchAlgorithmException {
+        return CommonCodeUtils.MD5.getMD5(scriptBody.getBytes(StandardCharsets.UTF_8));
+    }
+
     public static Map<QueryCondition, Object> conditionByApiId(String apiId) {
         return new HashMap<QueryCondition, Object>() {{
             put(QueryCondition.ApiId, apiId);
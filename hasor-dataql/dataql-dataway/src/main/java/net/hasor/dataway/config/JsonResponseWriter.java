@@ -0,0 +1,231 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataway.config;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import net.hasor.dataql.DataStream;
+import net.hasor.dataql.domain.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 把结果以 JSON 格式直接写入输出流，输出内容和 JSON.toJSONString(data, WriteMapNullValue) 相同。
+ *  - 和 fastjson 的区别：Map 的 key 总是作为字符串输出；同一个对象出现多次时重复输出，不使用 $ref 引用。
+ *  - DataModel 不做 unwrap，而是直接遍历；DataStream 边读取边输出，输出之后关闭。
+ *  - 字符先写入 char 缓冲区，编码到 byte 缓冲区写满之后写入输出流。缓冲区按线程复用，内存占用和响应的大小无关。
+ *  - 字符串、布尔值和整数直接输出，其它类型（Bean、日期、浮点数等）交给 fastjson 序列化。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+final class JsonResponseWriter {
+    private static final int                             CHAR_BUFFER_SIZE = 4 * 1024;
+    private static final int                             BYTE_BUFFER_SIZE = 16 * 1024;
+    private static final char[]                          HEX_DIGITS       = "0123456789ABCDEF".toCharArray();
+    private static final ThreadLocal<JsonResponseWriter> LOCAL_WRITER     = new ThreadLocal<>();
+    private final        CharBuffer                      charBuffer       = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final        ByteBuffer                      byteBuffer       = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    private              CharsetEncoder                  encoder;
+    private              OutputStream                    output;
+    private              long                            writeBytes;
+
+    /** 把 data 写入到输出流，输出流不会被关闭，返回写入的字节数 */
+    public static long write(OutputStream output, Charset charset, Object data) throws IOException {
+        // .同一个线程中嵌套输出时，正在使用中的缓冲区不能复用
+        JsonResponseWriter writer = LOCAL_WRITER.get();
+        if (writer == null || writer.output != null) {
+            writer = new JsonResponseWriter();
+            if (LOCAL_WRITER.get() == null) {
+                LOCAL_WRITER.set(writer);
+            }
+        }
+        writer.encoder = charset.newEncoder()//
+                .onMalformedInput(CodingErrorAction.REPLACE)//
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        writer.output = output;
+        writer.writeBytes = 0;
+        try {
+            writer.writeValue(data);
+            writer.flushChars(true);
+            while (writer.encoder.flush(writer.byteBuffer).isOverflow()) {
+                writer.flushBytes();
+            }
+            writer.flushBytes();
+            output.flush();
+            return writer.writeBytes;
+        } finally {
+            writer.charBuffer.clear();
+            writer.byteBuffer.clear();
+            writer.encoder = null;
+            writer.output = null;
+        }
+    }
+
+    private void writeValue(Object data) throws IOException {
+        if (data == null) {
+            this.writeRaw("null");
+        } else if (data instanceof String) {
+            this.writeString((String) data);
+        } else if (data instanceof Boolean || data instanceof Integer || data instanceof Long || data instanceof Short || data instanceof Byte) {
+            this.writeRaw(data.toString());
+        } else if (data instanceof DataModel) {
+            this.writeDataModel((DataModel) data);
+        } else if (data instanceof Map) {
+            this.writeChar('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) data).entrySet()) {
+                if (!first) {
+                    this.writeChar(',');
+                }
+                first = false;
+                this.writeString(String.valueOf(entry.getKey()));
+                this.writeChar(':');
+                this.writeValue(entry.getValue());
+            }
+            this.writeChar('}');
+        } else if (data instanceof DataStream) {
+            try (DataStream<?> dataStream = (DataStream<?>) data) {
+                this.writeArray(dataStream);
+            }
+        } else if (data instanceof Collection) {
+            this.writeArray((Collection<?>) data);
+        } else if (data instanceof Object[]) {
+            this.writeChar('[');
+            Object[] arrays = (Object[]) data;
+            for (int i = 0; i < arrays.length; i++) {
+                if (i > 0) {
+                    this.writeChar(',');
+                }
+                this.writeValue(arrays[i]);
+            }
+            this.writeChar(']');
+        } else {
+            this.writeRaw(JSON.toJSONString(data, SerializerFeature.WriteMapNullValue));
+        }
+    }
+
+    private void writeDataModel(DataModel dataModel) throws IOException {
+        if (dataModel instanceof ValueModel || dataModel instanceof UdfModel) {
+            this.writeValue(dataModel.unwrap());
+            return;
+        }
+        // .未被修改过的延迟转换数据直接输出原始数据，避免逐个字段转换为 DataModel
+        Object untouchedSource = DomainHelper.untouchedSource(dataModel);
+        if (untouchedSource != null) {
+            this.writeValue(untouchedSource);
+        } else {
+            this.writeValue(dataModel.asOri());
+        }
+    }
+
+    private void writeArray(Iterable<?> iterable) throws IOException {
+        this.writeChar('[');
+        boolean first = true;
+        for (Object item : iterable) {
+            if (!first) {
+                this.writeChar(',');
+            }
+            first = false;
+            this.writeValue(item);
+        }
+        this.writeChar(']');
+    }
+
+    private void writeString(String string) throws IOException {
+        this.writeChar('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                this.writeChar('\\');
+                this.writeChar(c);
+            } else if (c < 0x20 || (c >= 0x7F && c <= 0x9F) || c == '\u2028' || c == '\u2029') {
+                this.writeEscape(c);
+            } else {
+                this.writeChar(c);
+            }
+        }
+        this.writeChar('"');
+    }
+
+    private void writeEscape(char c) throws IOException {
+        this.writeChar('\\');
+        switch (c) {
+            case '\b':
+                this.writeChar('b');
+                return;
+            case '\t':
+                this.writeChar('t');
+                return;
+            case '\n':
+                this.writeChar('n');
+                return;
+            case '\f':
+                this.writeChar('f');
+                return;
+            case '\r':
+                this.writeChar('r');
+                return;
+            default:
+                this.writeChar('u');
+                this.writeChar(HEX_DIGITS[(c >> 12) & 0xF]);
+                this.writeChar(HEX_DIGITS[(c >> 8) & 0xF]);
+                this.writeChar(HEX_DIGITS[(c >> 4) & 0xF]);
+                this.writeChar(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    private void writeRaw(String string) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            this.writeChar(string.charAt(i));
+        }
+    }
+
+    private void writeChar(char c) throws IOException {
+        if (!this.charBuffer.hasRemaining()) {
+            this.flushChars(false);
+        }
+        this.charBuffer.put(c);
+    }
+
+    /** 把 char 缓冲区中的字符编码到 byte 缓冲区，末尾不完整的代理对留到下一次编码 */
+    private void flushChars(boolean endOfInput) throws IOException {
+        this.charBuffer.flip();
+        while (true) {
+            CoderResult coderResult = this.encoder.encode(this.charBuffer, this.byteBuffer, endOfInput);
+            if (!coderResult.isOverflow()) {
+                break;
+            }
+            this.flushBytes();
+        }
+        this.charBuffer.compact();
+    }
+
+    private void flushBytes() throws IOException {
+        if (this.byteBuffer.position() > 0) {
+            this.output.write(this.byteBuffer.array(), 0, this.byteBuffer.position());
+            this.writeBytes += this.byteBuffer.position();
+            this.byteBuffer.clear();
+        }
+    }
+}
@@ -46,4 +46,5 @@ public enum FieldDef {
     API_ID,             //
     SCRIPT_ORI,         //
     RELEASE_TIME,       //
+    COMPILED_QIL,       // 发布时编译好的 QIL（格式：脚本hash:Base64）
 }
\ No newline at end of file
@@ -44,6 +44,7 @@ public abstract class AbstractDal {
         add("pub_sample");
         add("pub_option");
         add("pub_release_time");
+        add("pub_compiled");
     }};
     protected final        JdbcTemplate jdbcTemplate;
     private final          String       dbType;
@@ -20,9 +20,11 @@ import net.hasor.core.Singleton;
 import net.hasor.dataway.dal.ApiStatusEnum;
 import net.hasor.dataway.dal.FieldDef;
 import net.hasor.dataway.dal.QueryCondition;
+import net.hasor.db.jdbc.ResultSetExtractor;
 import net.hasor.db.jdbc.core.JdbcTemplate;
 import net.hasor.utils.StringUtils;
 
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -40,6 +42,8 @@ import static net.hasor.dataway.dal.FieldDef.*;
 @Singleton
 public class InterfaceReleaseDal extends AbstractDal {
     private final          String                releaseTableName;
+    /** 老版本的表中没有 pub_compiled 列，首次写入时检测一次 */
+    private volatile       Boolean               hasCompiledColumn;
     /** INFO 表中的唯一索引列 */
     protected static final Map<FieldDef, String> pubIndexColumn = new HashMap<FieldDef, String>() {{
         put(ID, "pub_id");
@@ -120,6 +124,10 @@ public class InterfaceReleaseDal extends AbstractDal {
         dataMap.put(OPTION, apiOption != null ? apiOption.toString() : "{}");
         dataMap.put(RELEASE_TIME, entMap.get("pub_release_time").toString());
         //
+        Object pubCompiled = entMap.get("pub_compiled");
+        if (pubCompiled != null) {
+            dataMap.put(COMPILED_QIL, pubCompiled.toString());
+        }
         return dataMap;
     }
 
@@ -159,6 +167,7 @@ public class InterfaceReleaseDal extends AbstractDal {
         //
         dataMap.computeIfAbsent("pub_option", s -> entMap.get(OPTION));
         dataMap.computeIfAbsent("pub_release_time", s -> entMap.get(RELEASE_TIME));
+        dataMap.computeIfAbsent("pub_compiled", s -> entMap.get(COMPILED_QIL));
         return dataMap;
     }
 
@@ -241,7 +250,11 @@ public class InterfaceReleaseDal extends AbstractDal {
         List<Object> insertData = new ArrayList<>();
         StringBuffer insertColumnBuffer = new StringBuffer();
         StringBuffer insertParamsBuffer = new StringBuffer();
-        defToMap(newData).forEach((key, value) -> {
+        Map<String, Object> dataMap = defToMap(newData);
+        if (dataMap.containsKey("pub_compiled") && !this.hasCompiledColumn()) {
+            dataMap.remove("pub_compiled");
+        }
+        dataMap.forEach((key, value) -> {
             insertColumnBuffer.append("," + key);
             insertParamsBuffer.append(",?");
             insertData.add(fixString(key, value.toString()));
@@ -257,4 +270,20 @@ public class InterfaceReleaseDal extends AbstractDal {
                 ")";
         return this.jdbcTemplate.executeUpdate(sqlQuery, insertData.toArray()) > 0;
     }
+
+    private boolean hasCompiledColumn() throws SQLException {
+        if (this.hasCompiledColumn == null) {
+            String sqlQuery = "select * from " + this.releaseTableName + " where 1 = 2";
+            this.hasCompiledColumn = this.jdbcTemplate.query(sqlQuery, (ResultSetExtractor<Boolean>) rs -> {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    if ("pub_compiled".equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+        return this.hasCompiledColumn;
+    }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import net.hasor.core.Init;
 import net.hasor.core.InjectSettings;
 import net.hasor.core.Singleton;
 import net.hasor.dataway.dal.*;
+import net.hasor.dataway.service.ApiReleaseCache;
 import net.hasor.utils.ExceptionUtils;
 import net.hasor.utils.NameThreadFactory;
 import net.hasor.utils.StringUtils;
@@ -58,6 +59,8 @@ public class NacosApiDataAccessLayer implements ApiDataAccessLayer {
     private              ScheduledExecutorService executorService;
     @Inject
     private              AppContext               appContext;
+    @Inject
+    private              ApiReleaseCache          releaseCache;
     // data
     @InjectSettings(value = "hasor.dataway.settings.dal_nacos_api_max_size", defaultValue = "4000")
     private              int                      apiMaxSize;
@@ -380,6 +383,7 @@ public class NacosApiDataAccessLayer implements ApiDataAccessLayer {
         toRemove.forEach(ent -> {
             dataCache.remove(ent.getId());
             releaseMapping.remove(ent.getPath());
+            releaseCache.invalidate(ent.getPath());
         });
         //
         // 本地需要更新或者追加的数据
@@ -413,6 +417,7 @@ public class NacosApiDataAccessLayer implements ApiDataAccessLayer {
                 if (dataMap == null || ApiStatusEnum.Delete == ApiStatusEnum.typeOf(dataMap.get(FieldDef.STATUS))) {
                     this.dataCache.remove(apiJson.getId());
                     this.releaseMapping.remove(apiJson.getPath());
+                    this.releaseCache.invalidate(apiJson.getPath());
                     logger.info(String.format("nacosDal loadData '%s' is delete, ignore.", apiJson.getId()));
                     continue;
                 }
@@ -425,6 +430,7 @@ public class NacosApiDataAccessLayer implements ApiDataAccessLayer {
                 this.dataCache.put(apiId, ent);
                 if (apiId.startsWith("r_")) {
                     this.releaseMapping.put(ent.getPath(), ent.getId());
+                    this.releaseCache.invalidate(ent.getPath());
                 }
                 logger.info(String.format("nacosDal loadData '%s' done.", apiId));
                 //
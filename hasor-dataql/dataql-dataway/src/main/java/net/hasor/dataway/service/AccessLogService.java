@@ -0,0 +1,330 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataway.service;
+import net.hasor.core.Destroy;
+import net.hasor.core.Init;
+import net.hasor.core.InjectSettings;
+import net.hasor.core.spi.SpiTrigger;
+import net.hasor.dataway.spi.AccessLogRecord;
+import net.hasor.dataway.spi.AccessLogSpiListener;
+import net.hasor.dataway.spi.ApiInfo;
+import net.hasor.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * API 调用的访问日志。
+ *  - 请求线程只负责填写固定结构的 AccessLogRecord，然后复制到一个无锁的环形缓冲区中，不做任何字符串拼接和 JSON 序列化。
+ *  - 后台线程批量取出记录，依次交给 AccessLogSpiListener、日志文件（access_log_file）或者 ApiCallService 的 logger 输出。
+ *    失败的请求由 ApiCallService 在请求线程上立刻输出带异常堆栈的 error 日志，所以 logger 输出时只输出成功的记录。
+ *  - 缓冲区满时直接丢弃记录并计数，不会阻塞请求线程。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@Singleton
+public class AccessLogService {
+    protected static     Logger                   logger          = LoggerFactory.getLogger(AccessLogService.class);
+    private static final Logger                   accessLogger    = LoggerFactory.getLogger(ApiCallService.class);
+    private static final long                     IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final AccessLogRecord          EMPTY_RECORD    = new AccessLogRecord();
+    private static final ThreadLocal<LocalRecord> localRecord     = ThreadLocal.withInitial(LocalRecord::new);
+    @Inject
+    private              SpiTrigger               spiTrigger;
+    @InjectSettings(value = "hasor.dataway.settings.access_log_buffer_size", defaultValue = "4096")
+    private              int                      bufferSize      = 4096;
+    @InjectSettings(value = "hasor.dataway.settings.access_log_batch_size", defaultValue = "256")
+    private              int                      batchSize       = 256;
+    @InjectSettings(value = "hasor.dataway.settings.access_log_file", defaultValue = "")
+    private              String                   logFile;
+    //
+    private              AccessLogRecord[]        ringBuffer;
+    private              AtomicLongArray          ringSequence;
+    private              int                      ringMask;
+    private final        AtomicLong               producerIndex   = new AtomicLong();
+    private              long                     consumerIndex;
+    private final        AtomicLong               droppedCount    = new AtomicLong();
+    private final        AtomicLong               writtenCount    = new AtomicLong();
+    private volatile     boolean                  running;
+    private              Thread                   writerThread;
+    private              Writer                   fileWriter;
+    private final        StringBuilder            lineBuilder     = new StringBuilder(256);
+
+    @Init
+    public synchronized void init() throws IOException {
+        if (this.bufferSize <= 0) {
+            logger.info("accessLog is disable.");
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(this.bufferSize - 1, 1)) << 1;
+        this.ringBuffer = new AccessLogRecord[capacity];
+        this.ringSequence = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.ringBuffer[i] = new AccessLogRecord();
+            this.ringSequence.set(i, i);
+        }
+        this.ringMask = capacity - 1;
+        this.batchSize = Math.max(1, Math.min(this.batchSize, capacity));
+        if (StringUtils.isNotBlank(this.logFile)) {
+            this.fileWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.logFile, true), StandardCharsets.UTF_8));
+            logger.info("accessLog write to file " + this.logFile);
+        }
+        //
+        this.running = true;
+        this.writerThread = new Thread(this::writeLoop, "dataway-access-log");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Destroy
+    public synchronized void destroy() throws InterruptedException {
+        if (this.writerThread == null) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.writerThread);
+        this.writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        this.writerThread = null;
+    }
+
+    /** 开始记录当前线程的一次调用，返回的记录属于当前线程，在 finish 之前可以一直填写（嵌套调用会使用新的记录） */
+    public AccessLogRecord begin(ApiInfo apiInfo) {
+        LocalRecord record = localRecord.get();
+        if (record.pending) {
+            LocalRecord nestedRecord = new LocalRecord();
+            nestedRecord.parent = record;
+            localRecord.set(nestedRecord);
+            record = nestedRecord;
+        } else {
+            record.reset();
+        }
+        record.startNanos = System.nanoTime();
+        record.pending = true;
+        record.setTimestamp(System.currentTimeMillis());
+        record.setCallSource(apiInfo.getCallSource());
+        record.setApiID(apiInfo.getApiID());
+        record.setReleaseID(apiInfo.getReleaseID());
+        record.setMethod(apiInfo.getMethod());
+        record.setApiPath(apiInfo.getApiPath());
+        return record;
+    }
+
+    /** 结束当前线程正在记录的调用并提交到缓冲区，responseBytes 为 -1 表示未知 */
+    public void finish(long responseBytes) {
+        LocalRecord record = localRecord.get();
+        if (!record.pending) {
+            return;
+        }
+        record.pending = false;
+        record.setLifeCycleNanos(System.nanoTime() - record.startNanos);
+        record.setResponseBytes(responseBytes);
+        this.offer(record);
+        if (record.parent != null) {
+            localRecord.set(record.parent);
+        }
+    }
+
+    /** 缓冲区已满而被丢弃的记录数 */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /** 已经输出的记录数 */
+    public long getWrittenCount() {
+        return this.writtenCount.get();
+    }
+
+    /** 多生产者写入环形缓冲区，每个槽位上的 sequence 表示该槽位当前可以被哪个位置的生产者（或消费者）使用 */
+    private boolean offer(AccessLogRecord record) {
+        if (this.ringBuffer == null) {
+            return false;
+        }
+        long index = this.producerIndex.get();
+        int slot;
+        while (true) {
+            slot = (int) (index & this.ringMask);
+            long diff = this.ringSequence.get(slot) - index;
+            if (diff == 0) {
+                if (this.producerIndex.compareAndSet(index, index + 1)) {
+                    break;
+                }
+                index = this.producerIndex.get();
+            } else if (diff < 0) {
+                this.droppedCount.incrementAndGet();
+                return false;
+            } else {
+                index = this.producerIndex.get();
+            }
+        }
+        copyRecord(record, this.ringBuffer[slot]);
+        this.ringSequence.lazySet(slot, index + 1);
+        return true;
+    }
+
+    /** 单消费者，把缓冲区中的记录复制到 batch 中，返回复制的条数 */
+    private int drainTo(AccessLogRecord[] batch) {
+        int count = 0;
+        while (count < batch.length) {
+            int slot = (int) (this.consumerIndex & this.ringMask);
+            if (this.ringSequence.get(slot) != this.consumerIndex + 1) {
+                break;
+            }
+            copyRecord(this.ringBuffer[slot], batch[count++]);
+            this.ringSequence.lazySet(slot, this.consumerIndex + this.ringMask + 1);
+            this.consumerIndex++;
+        }
+        return count;
+    }
+
+    private void writeLoop() {
+        AccessLogRecord[] batch = new AccessLogRecord[this.batchSize];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new AccessLogRecord();
+        }
+        List<AccessLogRecord> batchList = new ArrayList<>(this.batchSize);
+        while (true) {
+            int count = this.drainTo(batch);
+            if (count == 0) {
+                if (!this.running) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                batchList.add(batch[i]);
+            }
+            try {
+                this.writeBatch(batchList);
+            } catch (Throwable e) {
+                logger.error("accessLog write failed, " + e.getMessage(), e);
+            } finally {
+                this.writtenCount.addAndGet(count);
+                batchList.clear();
+            }
+        }
+        //
+        if (this.fileWriter != null) {
+            try {
+                this.fileWriter.close();
+            } catch (IOException e) {
+                logger.error("accessLog close failed, " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void writeBatch(List<AccessLogRecord> batchList) throws IOException {
+        if (this.spiTrigger.hasSpi(AccessLogSpiListener.class)) {
+            this.spiTrigger.notifySpiWithoutResult(AccessLogSpiListener.class, listener -> {
+                listener.writeAccessLog(batchList);
+            });
+            return;
+        }
+        if (this.fileWriter != null) {
+            for (AccessLogRecord record : batchList) {
+                this.fileWriter.append(this.formatRecord(record)).append('\n');
+            }
+            this.fileWriter.flush();
+            return;
+        }
+        if (!accessLogger.isInfoEnabled()) {
+            return;
+        }
+        for (AccessLogRecord record : batchList) {
+            if (record.isSuccess()) {
+                accessLogger.info("requestSuccess - " + this.formatRecord(record));
+            }
+        }
+    }
+
+    /** 格式化为一行 JSON，只在后台线程中使用所以可以复用 lineBuilder */
+    private CharSequence formatRecord(AccessLogRecord record) {
+        StringBuilder builder = this.lineBuilder;
+        builder.setLength(0);
+        builder.append("{\"timestamp\":").append(record.getTimestamp());
+        appendString(builder.append(",\"callSource\":"), record.getCallSource() == null ? null : record.getCallSource().name());
+        appendString(builder.append(",\"apiID\":"), record.getApiID());
+        appendString(builder.append(",\"releaseID\":"), record.getReleaseID());
+        appendString(builder.append(",\"apiMethod\":"), record.getMethod());
+        appendString(builder.append(",\"apiPath\":"), record.getApiPath());
+        builder.append(",\"compilerNanos\":").append(record.getCompilerNanos());
+        builder.append(",\"executionNanos\":").append(record.getExecutionNanos());
+        builder.append(",\"lifeCycleNanos\":").append(record.getLifeCycleNanos());
+        builder.append(",\"success\":").append(record.isSuccess());
+        builder.append(",\"code\":").append(record.getCode());
+        builder.append(",\"responseBytes\":").append(record.getResponseBytes());
+        if (!record.isSuccess()) {
+            appendString(builder.append(",\"exceptionMsg\":"), record.getErrorMessage());
+        }
+        return builder.append('}');
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+    private static void copyRecord(AccessLogRecord src, AccessLogRecord dest) {
+        dest.setTimestamp(src.getTimestamp());
+        dest.setCallSource(src.getCallSource());
+        dest.setApiID(src.getApiID());
+        dest.setReleaseID(src.getReleaseID());
+        dest.setMethod(src.getMethod());
+        dest.setApiPath(src.getApiPath());
+        dest.setCompilerNanos(src.getCompilerNanos());
+        dest.setExecutionNanos(src.getExecutionNanos());
+        dest.setLifeCycleNanos(src.getLifeCycleNanos());
+        dest.setSuccess(src.isSuccess());
+        dest.setCode(src.getCode());
+        dest.setErrorMessage(src.getErrorMessage());
+        dest.setResponseBytes(src.getResponseBytes());
+    }
+
+    /** 请求线程上正在填写的记录 */
+    private static class LocalRecord extends AccessLogRecord {
+        private long        startNanos;
+        private boolean     pending;
+        private LocalRecord parent;
+
+        private void reset() {
+            copyRecord(EMPTY_RECORD, this);
+        }
+    }
+}
@@ -24,7 +24,6 @@ import net.hasor.dataql.domain.DomainHelper;
 import net.hasor.dataql.runtime.ThrowRuntimeException;
 import net.hasor.dataway.authorization.AuthorizationType;
 import net.hasor.dataway.config.DatawayUtils;
-import net.hasor.dataway.config.LoggerUtils;
 import net.hasor.dataway.spi.*;
 import net.hasor.utils.StringUtils;
 import net.hasor.utils.future.BasicFuture;
@@ -44,30 +43,50 @@ import java.util.concurrent.ExecutionException;
  */
 @Singleton
 public class ApiCallService {
-    protected static Logger     logger = LoggerFactory.getLogger(ApiCallService.class);
+    protected static Logger           logger = LoggerFactory.getLogger(ApiCallService.class);
     @Inject
-    private          SpiTrigger spiTrigger;
+    private          SpiTrigger       spiTrigger;
     @Inject
-    private          DataQL     executeDataQL;
+    private          DataQL           executeDataQL;
+    @Inject
+    private          ApiReleaseCache  releaseCache;
+    @Inject
+    private          AccessLogService accessLogService;
 
     public Object doCallWithoutError(ApiInfo apiInfo, QueryScriptBuild scriptBuild) throws Throwable {
-        return this._doCall(apiInfo, scriptBuild, false);
+        return this._doCall(apiInfo, scriptBuild, false, true);
+    }
+
+    /**
+     * 和 doCallWithoutError 相同，但结果中保留 DataModel，只能交给 DatawayUtils.responseData 输出。
+     * 访问日志要等到输出完成之后由调用者通过 AccessLogService.finish 提交。
+     */
+    public Object doCallForResponse(ApiInfo apiInfo, QueryScriptBuild scriptBuild) throws Throwable {
+        return this._doCall(apiInfo, scriptBuild, false, false);
     }
 
     public Object doCall(ApiInfo apiInfo, QueryScriptBuild scriptBuild) throws Throwable {
-        return this._doCall(apiInfo, scriptBuild, true);
+        return this._doCall(apiInfo, scriptBuild, true, true);
     }
 
-    private Object _doCall(ApiInfo apiInfo, QueryScriptBuild scriptBuild, boolean needThrow) throws Throwable {
-        LoggerUtils loggerUtils = LoggerUtils.create();
-        loggerUtils.addLog("apiMethod", apiInfo.getMethod());
-        loggerUtils.addLog("apiPath", apiInfo.getApiPath());
-        Map<String, Object> parameterMap = apiInfo.getParameterMap();
-        if (parameterMap != null) {
-            loggerUtils.addLog("paramRootKeys", parameterMap.keySet());
-        } else {
-            loggerUtils.addLog("paramRootKeys", "empty.");
+    private Object _doCall(ApiInfo apiInfo, QueryScriptBuild scriptBuild, boolean needThrow, boolean unwrapValue) throws Throwable {
+        AccessLogRecord accessLog = this.accessLogService.begin(apiInfo);
+        Object result;
+        try {
+            result = this._doCall(apiInfo, scriptBuild, needThrow, unwrapValue, accessLog);
+        } catch (Throwable e) {
+            this.accessLogService.finish(-1);
+            throw e;
+        }
+        // .直接输出响应时，等输出完成之后由调用者提交访问日志
+        if (unwrapValue) {
+            this.accessLogService.finish(-1);
         }
+        return result;
+    }
+
+    private Object _doCall(ApiInfo apiInfo, QueryScriptBuild scriptBuild, boolean needThrow, boolean unwrapValue, AccessLogRecord accessLog) throws Throwable {
+        Map<String, Object> parameterMap = apiInfo.getParameterMap();
         // .执行查询
         //  - 0.权限检查
         //  - 1.首先将 API 调用封装为 单例的 Supplier
@@ -117,15 +136,26 @@ public class ApiCallService {
                 }
                 // .编译DataQL查询，并执行查询
                 final String scriptBody = scriptBuild.buildScript(parameterMap);
-                QIL compiler = this.spiTrigger.notifySpi(CompilerSpiListener.class, (listener, lastResult) -> {
-                    return listener.compiler(apiInfo, scriptBody, executeDataQL);
-                }, null);
-                if (compiler == null) {
-                    compiler = CompilerSpiListener.DEFAULT.compiler(apiInfo, scriptBody, executeDataQL);
-                }
+                long compilerStart = System.nanoTime();
+                QIL compiler = this.releaseCache.getCompiled(apiInfo.getApiPath(), apiInfo.getReleaseID(), scriptBody, () -> {
+                    // .没有自定义编译器时优先使用发布时编译好的 QIL
+                    if (!this.spiTrigger.hasSpi(CompilerSpiListener.class)) {
+                        String compiledData = this.releaseCache.getCompiledData(apiInfo.getApiPath(), apiInfo.getReleaseID());
+                        QIL qil = DatawayUtils.decodeCompiled(compiledData, scriptBody, this.executeDataQL.getShareVarMap().keySet());
+                        if (qil != null) {
+                            return qil;
+                        }
+                    }
+                    QIL qil = this.spiTrigger.notifySpi(CompilerSpiListener.class, (listener, lastResult) -> {
+                        return listener.compiler(apiInfo, scriptBody, executeDataQL);
+                    }, null);
+                    if (qil == null) {
+                        qil = CompilerSpiListener.DEFAULT.compiler(apiInfo, scriptBody, executeDataQL);
+                    }
+                    return qil;
+                });
                 //
-                loggerUtils.addLog("compilerTime", DatawayUtils.currentLostTime());
-                loggerUtils.addLog("prepareHint", apiInfo.getPrepareHint());
+                accessLog.setCompilerNanos(System.nanoTime() - compilerStart);
                 Query query = this.executeDataQL.createQuery(compiler);
                 if (apiInfo.getPrepareHint() != null) {
                     apiInfo.getPrepareHint().forEach((hint, value) -> {
@@ -140,15 +170,14 @@ public class ApiCallService {
                         }
                     });
                 }
+                long executionStart = System.nanoTime();
                 execute = query.execute(parameterMap);
+                accessLog.setExecutionNanos(System.nanoTime() - executionStart);
             }
-            loggerUtils.addLog("executionTime", execute.executionTime());
-            loggerUtils.addLog("lifeCycleTime", DatawayUtils.currentLostTime());
-            loggerUtils.addLog("code", execute.getCode());
-            logger.info("requestSuccess - " + loggerUtils.toJson());
+            accessLog.setSuccess(true);
+            accessLog.setCode(execute.getCode());
         } catch (Throwable e) {
-            logger.error("requestFailed - " + loggerUtils.logException(e).toJson());
-            return doError(needThrow, newResult.isDone(), e, apiInfo, loggerUtils);
+            return doError(needThrow, newResult.isDone(), e, apiInfo, accessLog);
         }
         //
         // .返回值
@@ -162,14 +191,13 @@ public class ApiCallService {
                     return listener.callAfter(newResult.isDone(), apiInfo, lastResult);
                 }, resultData);
             }
-            return DatawayUtils.queryResultToResultWithSpecialValue(apiInfo.getOptionMap(), execute, resultData).getResult();
+            return DatawayUtils.queryResultToResultWithSpecialValue(apiInfo.getOptionMap(), execute, resultData, unwrapValue).getResult();
         } catch (Throwable e) {
-            logger.error("requestFailed - " + loggerUtils.logException(e).toJson());
-            return doError(needThrow, newResult.isDone(), e, apiInfo, loggerUtils);
+            return doError(needThrow, newResult.isDone(), e, apiInfo, accessLog);
         }
     }
 
-    private Object doError(boolean needThrow, boolean isFormPre, Throwable e, ApiInfo apiInfo, LoggerUtils loggerUtils) throws Throwable {
+    private Object doError(boolean needThrow, boolean isFormPre, Throwable e, ApiInfo apiInfo, AccessLogRecord accessLog) throws Throwable {
         Object value = null;
         if (e instanceof ExecutionException) {
             e = e.getCause();
@@ -179,7 +207,12 @@ public class ApiCallService {
         } else {
             value = e.getMessage();
         }
-        logger.error("requestFailed - " + loggerUtils.logException(e).toJson());
+        accessLog.setSuccess(false);
+        accessLog.setCode((e instanceof ThrowRuntimeException) ? ((ThrowRuntimeException) e).getThrowCode() : 500);
+        accessLog.setErrorMessage(e.getMessage());
+        // .失败的请求立刻输出带异常堆栈的日志，访问日志缓冲区可能被关闭或丢弃记录，只用于访问记录
+        logger.error("requestFailed - {\"apiMethod\":\"" + apiInfo.getMethod() + "\",\"apiPath\":\"" + apiInfo.getApiPath() + //
+                "\",\"code\":" + accessLog.getCode() + "} " + e.getMessage(), e);
         //
         // .如果注册了 SPI 那么就执行 callError
         if (this.spiTrigger.hasSpi(ResultProcessChainSpi.class)) {
@@ -192,8 +225,6 @@ public class ApiCallService {
                 logger.error(ee.getMessage(), ee);
                 e = ee;
             }
-        } else {
-            logger.error(e.getMessage(), e);
         }
         //
         if (needThrow) {
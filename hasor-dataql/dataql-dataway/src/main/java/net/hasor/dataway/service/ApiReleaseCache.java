@@ -0,0 +1,263 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataway.service;
+import net.hasor.core.InjectSettings;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataway.dal.FieldDef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 已发布 API 的缓存，以 API 路径为 Key 缓存 Release 信息和编译好的 QIL。
+ *  - QIL 的有效性通过 releaseID 和脚本 hash 共同确认，Release 发生变化之后 QIL 会重新编译。
+ *  - 发布、禁用、删除 API 以及 Nacos 配置变更时都会使对应的缓存失效。在事务中修改 Release 时使用 invalidateOnCommit，
+ *    它会在事务提交之后（endDeferred）再次失效，加载期间发生过失效的结果不会被缓存。
+ *  - 条目最多存活 release_cache_ttl 秒，其它节点（例如：共享同一个数据库的集群）上的变更最迟在 TTL 之后生效。
+ *  - 容量超出时按 CLOCK（二次机会）算法淘汰，读取只设置访问标记不加锁，淘汰时按写入顺序跳过最近被访问过的条目。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@Singleton
+public class ApiReleaseCache {
+    protected static Logger                    logger        = LoggerFactory.getLogger(ApiReleaseCache.class);
+    @InjectSettings(value = "hasor.dataway.settings.release_cache_size", defaultValue = "1000")
+    private          int                       maxSize       = 1000;
+    @InjectSettings(value = "hasor.dataway.settings.release_cache_ttl", defaultValue = "60")
+    private          int                       ttlSeconds    = 60;
+    private final    Map<String, ReleaseEntry> releaseCache  = new ConcurrentHashMap<>();
+    private final    Queue<ReleaseEntry>       clockQueue    = new ConcurrentLinkedQueue<>();
+    private final    AtomicInteger             clockSize     = new AtomicInteger();
+    private final    ThreadLocal<Set<String>>  deferredPaths = new ThreadLocal<>();
+    private final    AtomicLong                version       = new AtomicLong();
+    private final    AtomicLong                releaseHit    = new AtomicLong();
+    private final    AtomicLong                releaseMiss   = new AtomicLong();
+    private final    AtomicLong                compiledHit   = new AtomicLong();
+    private final    AtomicLong                compiledMiss  = new AtomicLong();
+    private final    AtomicLong                evictionCount = new AtomicLong();
+
+    /** 根据 API 路径获取 Release 信息，缓存未命中时通过 loader 加载（loader 返回 null 的结果不会被缓存）。 */
+    public Map<FieldDef, String> getRelease(String apiPath, Function<String, Map<FieldDef, String>> loader) {
+        ReleaseEntry entry = this.findEntry(apiPath);
+        if (entry != null) {
+            this.releaseHit.incrementAndGet();
+            if (!entry.accessed) {
+                entry.accessed = true;
+            }
+            return entry.releaseObject;
+        }
+        this.releaseMiss.incrementAndGet();
+        long loadVersion = this.version.get();
+        Map<FieldDef, String> releaseObject = loader.apply(apiPath);
+        if (releaseObject == null || this.maxSize <= 0) {
+            return releaseObject;
+        }
+        releaseObject = Collections.unmodifiableMap(releaseObject);
+        entry = new ReleaseEntry(apiPath, releaseObject, this.ttlSeconds);
+        this.releaseCache.put(apiPath, entry);
+        this.clockQueue.offer(entry);
+        this.clockSize.incrementAndGet();
+        if (this.version.get() != loadVersion) {
+            this.releaseCache.remove(apiPath, entry);// 加载期间发生过失效，加载到的可能是旧数据
+            return releaseObject;
+        }
+        this.evictIfNecessary();
+        return releaseObject;
+    }
+
+    /**
+     * 获取 Release 对应的 QIL，只有当 releaseID 和脚本 hash 都相同时才会命中缓存，否则通过 compiler 重新编译并缓存。
+     * 当 API 路径在缓存中不存在时（例如：尚未发布的 API 调试执行），直接编译不做缓存。
+     */
+    public QIL getCompiled(String apiPath, String releaseID, String scriptBody, Callable<QIL> compiler) throws Exception {
+        ReleaseEntry entry = (apiPath == null || releaseID == null) ? null : this.findEntry(apiPath);
+        if (entry == null || !releaseID.equals(entry.releaseObject.get(FieldDef.ID))) {
+            return compiler.call();
+        }
+        CompiledQuery compiled = entry.compiled;
+        int scriptHash = scriptBody.hashCode();
+        if (compiled != null && compiled.scriptHash == scriptHash && compiled.scriptBody.equals(scriptBody)) {
+            this.compiledHit.incrementAndGet();
+            return compiled.qil;
+        }
+        this.compiledMiss.incrementAndGet();
+        QIL qil = compiler.call();
+        if (qil != null) {
+            entry.compiled = new CompiledQuery(scriptHash, scriptBody, qil);
+        }
+        return qil;
+    }
+
+    /** 获取 Release 在发布时编译好的 QIL 数据（见 {@link FieldDef#COMPILED_QIL}），缓存中不存在时返回 null */
+    public String getCompiledData(String apiPath, String releaseID) {
+        ReleaseEntry entry = (apiPath == null || releaseID == null) ? null : this.findEntry(apiPath);
+        if (entry == null || !releaseID.equals(entry.releaseObject.get(FieldDef.ID))) {
+            return null;
+        }
+        return entry.releaseObject.get(FieldDef.COMPILED_QIL);
+    }
+
+    /** 查找未过期的条目，过期的条目会被删除 */
+    private ReleaseEntry findEntry(String apiPath) {
+        ReleaseEntry entry = this.releaseCache.get(apiPath);
+        if (entry != null && entry.expireTime > 0 && entry.expireTime < System.currentTimeMillis()) {
+            this.releaseCache.remove(apiPath, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /** 使某个 API 路径的缓存失效 */
+    public void invalidate(String apiPath) {
+        this.version.incrementAndGet();
+        if (apiPath != null && this.releaseCache.remove(apiPath) != null) {
+            logger.info("releaseCache invalidate '" + apiPath + "'.");
+        }
+    }
+
+    /**
+     * 在事务中修改 Release 时使用：立即使缓存失效，如果当前线程开启了延迟失效（beginDeferred）那么在 endDeferred 时会再次失效。
+     * 这样事务提交之前被其它请求重新加载的旧数据不会留在缓存中。没有开启延迟失效时，旧数据最多存活一个 TTL。
+     */
+    public void invalidateOnCommit(String apiPath) {
+        this.invalidate(apiPath);
+        Set<String> paths = this.deferredPaths.get();
+        if (paths != null && apiPath != null) {
+            paths.add(apiPath);
+        }
+    }
+
+    /** 开启当前线程的延迟失效，返回 false 表示外层已经开启过（此时由外层负责调用 endDeferred） */
+    public boolean beginDeferred() {
+        if (this.deferredPaths.get() != null) {
+            return false;
+        }
+        this.deferredPaths.set(new LinkedHashSet<>());
+        return true;
+    }
+
+    /** 结束当前线程的延迟失效，并再次失效期间登记的路径（必须在事务结束之后调用） */
+    public void endDeferred() {
+        Set<String> paths = this.deferredPaths.get();
+        this.deferredPaths.remove();
+        if (paths != null) {
+            paths.forEach(this::invalidate);
+        }
+    }
+
+    /** 清空全部缓存 */
+    public void invalidateAll() {
+        this.version.incrementAndGet();
+        this.releaseCache.clear();
+        this.clockQueue.clear();
+        this.clockSize.set(0);
+        logger.info("releaseCache invalidate all.");
+    }
+
+    /** 当前缓存的条目数 */
+    public int size() {
+        return this.releaseCache.size();
+    }
+
+    /** Release 信息的命中次数 */
+    public long getReleaseHitCount() {
+        return this.releaseHit.get();
+    }
+
+    /** Release 信息的未命中次数 */
+    public long getReleaseMissCount() {
+        return this.releaseMiss.get();
+    }
+
+    /** QIL 的命中次数 */
+    public long getCompiledHitCount() {
+        return this.compiledHit.get();
+    }
+
+    /** QIL 的未命中次数（只统计 Release 已缓存但 QIL 需要重新编译的情况） */
+    public long getCompiledMissCount() {
+        return this.compiledMiss.get();
+    }
+
+    /** 因为容量超出而被淘汰的次数 */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * 容量超出时按写入顺序淘汰条目，最近被访问过的条目会清除访问标记后重新排队（CLOCK 近似 LRU，仅在写入时发生）。
+     * 已经失效或被替换的条目只会留在队列中，队列明显大于容量时顺带清理掉它们。
+     */
+    private void evictIfNecessary() {
+        int budget = this.clockSize.get() * 2;
+        while (budget-- > 0 && (this.releaseCache.size() > this.maxSize || this.clockSize.get() > this.maxSize * 2)) {
+            ReleaseEntry entry = this.clockQueue.poll();
+            if (entry == null) {
+                return;
+            }
+            this.clockSize.decrementAndGet();
+            if (this.releaseCache.get(entry.apiPath) != entry) {
+                continue; // 已经失效或被替换
+            }
+            boolean overflow = this.releaseCache.size() > this.maxSize;
+            if (overflow && !entry.accessed) {
+                if (this.releaseCache.remove(entry.apiPath, entry)) {
+                    this.evictionCount.incrementAndGet();
+                }
+                continue;
+            }
+            if (overflow) {
+                entry.accessed = false; // 给一次机会
+            }
+            this.clockQueue.offer(entry);
+            this.clockSize.incrementAndGet();
+        }
+    }
+
+    private static class ReleaseEntry {
+        private final    String                apiPath;
+        private final    Map<FieldDef, String> releaseObject;
+        private final    long                  expireTime;
+        private volatile boolean               accessed;
+        private volatile CompiledQuery         compiled;
+
+        public ReleaseEntry(String apiPath, Map<FieldDef, String> releaseObject, int ttlSeconds) {
+            this.apiPath = apiPath;
+            this.releaseObject = Objects.requireNonNull(releaseObject);
+            this.expireTime = (ttlSeconds > 0) ? (System.currentTimeMillis() + ttlSeconds * 1000L) : 0;
+        }
+    }
+
+    private static class CompiledQuery {
+        private final int    scriptHash;
+        private final String scriptBody;
+        private final QIL    qil;
+
+        public CompiledQuery(int scriptHash, String scriptBody, QIL qil) {
+            this.scriptHash = scriptHash;
+            this.scriptBody = scriptBody;
+            this.qil = qil;
+        }
+    }
+}
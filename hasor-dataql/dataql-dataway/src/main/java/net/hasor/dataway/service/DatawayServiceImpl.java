@@ -45,10 +45,14 @@ public class DatawayServiceImpl implements DatawayService {
     private ApiDataAccessLayer dataAccessLayer;
     @Inject
     private SpiTrigger         spiTrigger;
+    @Inject
+    private ApiReleaseCache    releaseCache;
 
     @Override
     public Object invokeApi(String apiPath, Map<String, Object> jsonParam) throws Throwable {
-        Map<FieldDef, String> object = this.dataAccessLayer.getObjectBy(EntityDef.RELEASE, FieldDef.PATH, apiPath);
+        Map<FieldDef, String> object = this.releaseCache.getRelease(apiPath, path -> {
+            return this.dataAccessLayer.getObjectBy(EntityDef.RELEASE, FieldDef.PATH, path);
+        });
         ApiInfo apiInfo = new ApiInfo();
         apiInfo.setCallSource(CallSource.Internal);
         apiInfo.setReleaseID(object.get(FieldDef.ID));
@@ -95,6 +99,7 @@ public class DatawayServiceImpl implements DatawayService {
         }).forEach(apiRelease -> {
             // 更新状态为 Disable
             String releaseId = apiRelease.get(FieldDef.ID);
+            this.releaseCache.invalidateOnCommit(apiRelease.get(FieldDef.PATH));
             apiRelease = this.dataAccessLayer.getObjectBy(EntityDef.RELEASE, FieldDef.ID, releaseId);
             apiRelease.putAll(DatawayUtils.STATUS_UPDATE_TO_DISABLE.get());
             this.dataAccessLayer.updateObject(//
@@ -138,6 +143,7 @@ public class DatawayServiceImpl implements DatawayService {
         }).forEach(apiRelease -> {
             // 更新状态为 Delete
             String releaseId = apiRelease.get(FieldDef.ID);
+            this.releaseCache.invalidateOnCommit(apiRelease.get(FieldDef.PATH));
             apiRelease.putAll(DatawayUtils.STATUS_UPDATE_TO_DELETE.get());
             this.dataAccessLayer.updateObject(//
                     EntityDef.RELEASE,  //
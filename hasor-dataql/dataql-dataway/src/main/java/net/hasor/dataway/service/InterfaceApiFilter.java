@@ -17,6 +17,7 @@ package net.hasor.dataway.service;
 import com.alibaba.fastjson.JSON;
 import net.hasor.core.Inject;
 import net.hasor.core.spi.SpiTrigger;
+import net.hasor.dataql.DataStreamScope;
 import net.hasor.dataway.config.DatawayUtils;
 import net.hasor.dataway.config.LoggerUtils;
 import net.hasor.dataway.dal.ApiDataAccessLayer;
@@ -54,6 +55,10 @@ public class InterfaceApiFilter implements InvokerFilter {
     private          ApiDataAccessLayer dataAccessLayer;
     @Inject
     private          CrossDomainService crossDomainService;
+    @Inject
+    private          ApiReleaseCache    releaseCache;
+    @Inject
+    private          AccessLogService   accessLogService;
     private final    String             apiBaseUri;
     private final    String             adminBaseUri;
 
@@ -92,7 +97,9 @@ public class InterfaceApiFilter implements InvokerFilter {
         apiInfo.setCallSource(CallSource.External);
         String script = null;
         try {
-            Map<FieldDef, String> object = this.dataAccessLayer.getObjectBy(EntityDef.RELEASE, FieldDef.PATH, requestURI);
+            Map<FieldDef, String> object = this.releaseCache.getRelease(requestURI, apiPath -> {
+                return this.dataAccessLayer.getObjectBy(EntityDef.RELEASE, FieldDef.PATH, apiPath);
+            });
             if (object == null) {
                 throw new IllegalStateException("API is not published.");
             }
@@ -145,9 +152,17 @@ public class InterfaceApiFilter implements InvokerFilter {
         // .配置跨域
         this.crossDomainService.configureCross(apiInfo, invoker);
         //
-        // .执行调用
+        // .执行调用（查询中产生的数据流在响应输出完毕之后关闭，无论是否被遍历）
         String finalScript = script;
-        Object objectMap = this.callService.doCallWithoutError(apiInfo, param -> finalScript);
-        return DatawayUtils.responseData(this.spiTrigger, apiInfo, mimeType, invoker, objectMap);
+        try (DataStreamScope streamScope = DataStreamScope.open()) {
+            Object objectMap = this.callService.doCallForResponse(apiInfo, param -> finalScript);
+            long responseBytes = -1;
+            try {
+                responseBytes = DatawayUtils.writeResponseData(this.spiTrigger, apiInfo, mimeType, invoker, objectMap);
+            } finally {
+                this.accessLogService.finish(responseBytes);
+            }
+            return objectMap;
+        }
     }
 }
\ No newline at end of file
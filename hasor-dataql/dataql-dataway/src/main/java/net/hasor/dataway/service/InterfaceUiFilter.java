@@ -15,6 +15,7 @@
  */
 package net.hasor.dataway.service;
 import com.alibaba.fastjson.JSON;
+import net.hasor.core.Inject;
 import net.hasor.dataway.config.DatawayUtils;
 import net.hasor.utils.ResourcesUtils;
 import net.hasor.utils.StringUtils;
@@ -23,6 +24,7 @@ import net.hasor.utils.io.IOUtils;
 import net.hasor.utils.io.output.ByteArrayOutputStream;
 import net.hasor.web.Invoker;
 import net.hasor.web.InvokerChain;
+import net.hasor.web.InvokerConfig;
 import net.hasor.web.InvokerFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +49,8 @@ public class InterfaceUiFilter implements InvokerFilter {
     private final       String               uiBaseUri;
     private final       String               uiAdminBaseUri;
     private final       Map<String, Integer> resourceSize;
+    @Inject
+    private             ApiReleaseCache      releaseCache;
 
     public InterfaceUiFilter(String uiBaseUri) {
         this.uiBaseUri = uiBaseUri;
@@ -55,6 +59,11 @@ public class InterfaceUiFilter implements InvokerFilter {
         this.resourceSize = new ConcurrentHashMap<>();
     }
 
+    @Override
+    public void init(InvokerConfig config) {
+        config.getAppContext().justInject(this);
+    }
+
     private static String fixUrl(String url) {
         return url.replaceAll("/+", "/");
     }
@@ -66,6 +75,7 @@ public class InterfaceUiFilter implements InvokerFilter {
         String requestURI = invoker.getRequestPath();
         setupInner(invoker);
         if (requestURI.startsWith(this.uiAdminBaseUri)) {
+            boolean deferred = this.releaseCache.beginDeferred();
             try {
                 DatawayUtils.resetLocalTime();
                 return chain.doNext(invoker);
@@ -76,6 +86,11 @@ public class InterfaceUiFilter implements InvokerFilter {
                 writer.write(JSON.toJSONString(objectMap));
                 writer.flush();
                 return objectMap;
+            } finally {
+                // 管理接口的事务在 chain.doNext 返回时已经结束，这里再次失效事务中修改过的 Release
+                if (deferred) {
+                    this.releaseCache.endDeferred();
+                }
             }
         }
         // 处理预请求OPTIONS
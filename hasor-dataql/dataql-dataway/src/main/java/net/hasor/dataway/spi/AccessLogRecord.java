@@ -0,0 +1,140 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataway.spi;
+/**
+ * 一次 API 调用的访问日志，字段固定，由后台线程批量输出（见 AccessLogSpiListener）。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class AccessLogRecord {
+    private long       timestamp;          // 调用开始的时间（毫秒）
+    private CallSource callSource;         // 调用来源
+    private String     apiID;              // API ID
+    private String     releaseID;          // 发布的版本ID
+    private String     method;             // Http Method
+    private String     apiPath;            // Path
+    private long       compilerNanos;      // 编译（或者获取编译结果）的耗时
+    private long       executionNanos;     // 执行查询的耗时
+    private long       lifeCycleNanos;     // 调用的总耗时，直接输出响应时包括序列化的耗时
+    private boolean    success;            // 是否成功
+    private int        code;               // 结果码，失败时为异常的状态码
+    private String     errorMessage;       // 失败时的异常信息
+    private long       responseBytes = -1; // 响应的字节数，-1 表示未知
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public CallSource getCallSource() {
+        return callSource;
+    }
+
+    public void setCallSource(CallSource callSource) {
+        this.callSource = callSource;
+    }
+
+    public String getApiID() {
+        return apiID;
+    }
+
+    public void setApiID(String apiID) {
+        this.apiID = apiID;
+    }
+
+    public String getReleaseID() {
+        return releaseID;
+    }
+
+    public void setReleaseID(String releaseID) {
+        this.releaseID = releaseID;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getApiPath() {
+        return apiPath;
+    }
+
+    public void setApiPath(String apiPath) {
+        this.apiPath = apiPath;
+    }
+
+    public long getCompilerNanos() {
+        return compilerNanos;
+    }
+
+    public void setCompilerNanos(long compilerNanos) {
+        this.compilerNanos = compilerNanos;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    public void setExecutionNanos(long executionNanos) {
+        this.executionNanos = executionNanos;
+    }
+
+    public long getLifeCycleNanos() {
+        return lifeCycleNanos;
+    }
+
+    public void setLifeCycleNanos(long lifeCycleNanos) {
+        this.lifeCycleNanos = lifeCycleNanos;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public void setCode(int code) {
+        this.code = code;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public void setResponseBytes(long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
+}
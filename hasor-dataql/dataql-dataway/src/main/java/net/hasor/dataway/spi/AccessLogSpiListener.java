@@ -0,0 +1,28 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataway.spi;
+import java.util.EventListener;
+import java.util.List;
+
+/**
+ * 访问日志的输出，由后台线程批量调用。注册之后访问日志不再写入日志文件。（is notifySpi）
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public interface AccessLogSpiListener extends EventListener {
+    /** 输出一批访问日志，records 列表和其中的记录在调用结束之后都会被复用，不可保留它们的引用 */
+    public void writeAccessLog(List<AccessLogRecord> records);
+}
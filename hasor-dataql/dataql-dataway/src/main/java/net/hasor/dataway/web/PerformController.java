@@ -19,6 +19,7 @@ import net.hasor.dataway.authorization.AuthorizationType;
 import net.hasor.dataway.authorization.RefAuthorization;
 import net.hasor.dataway.config.DatawayUtils;
 import net.hasor.dataway.config.MappingToUrl;
+import net.hasor.dataway.service.AccessLogService;
 import net.hasor.dataway.service.ApiCallService;
 import net.hasor.dataway.spi.ApiInfo;
 import net.hasor.dataway.spi.CallSource;
@@ -40,7 +41,9 @@ import java.util.Map;
 @RefAuthorization(AuthorizationType.ApiEdit)
 public class PerformController extends BasicController {
     @Inject
-    private ApiCallService apiCallService;
+    private ApiCallService   apiCallService;
+    @Inject
+    private AccessLogService accessLogService;
 
     @Post
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -60,7 +63,7 @@ public class PerformController extends BasicController {
         apiInfo.setOptionMap((Map<String, Object>) requestBody.get("optionInfo"));
         //
         // .执行调用
-        Object objectMap = this.apiCallService.doCallWithoutError(apiInfo, jsonParam -> {
+        Object objectMap = this.apiCallService.doCallForResponse(apiInfo, jsonParam -> {
             String strCodeType = requestBody.get("codeType").toString();
             String strCodeValue = requestBody.get("codeValue").toString();
             if ("sql".equalsIgnoreCase(strCodeType)) {
@@ -72,8 +75,13 @@ public class PerformController extends BasicController {
             }
         });
         //
-        DatawayUtils.responseData(//
-                this.spiTrigger, apiInfo, invoker.getMimeType("json"), invoker, objectMap//
-        );
+        long responseBytes = -1;
+        try {
+            responseBytes = DatawayUtils.writeResponseData(//
+                    this.spiTrigger, apiInfo, invoker.getMimeType("json"), invoker, objectMap//
+            );
+        } finally {
+            this.accessLogService.finish(responseBytes);
+        }
     }
 }
\ No newline at end of file
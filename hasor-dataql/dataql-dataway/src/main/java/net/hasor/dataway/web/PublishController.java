@@ -14,6 +14,10 @@
  * limitations under the License.
  */
 package net.hasor.dataway.web;
+import net.hasor.core.Inject;
+import net.hasor.dataql.DataQL;
+import net.hasor.dataql.compiler.ast.inst.RootBlockSet;
+import net.hasor.dataql.runtime.QueryHelper;
 import net.hasor.dataway.authorization.AuthorizationType;
 import net.hasor.dataway.authorization.RefAuthorization;
 import net.hasor.dataway.config.DatawayUtils;
@@ -23,6 +27,7 @@ import net.hasor.dataway.dal.ApiStatusEnum;
 import net.hasor.dataway.dal.EntityDef;
 import net.hasor.dataway.dal.FieldDef;
 import net.hasor.dataway.dal.QueryCondition;
+import net.hasor.dataway.service.ApiReleaseCache;
 import net.hasor.db.Transactional;
 import net.hasor.db.transaction.Propagation;
 import net.hasor.utils.StringUtils;
@@ -31,6 +36,8 @@ import net.hasor.web.annotation.QueryParameter;
 import net.hasor.web.annotation.RequestBody;
 import net.hasor.web.objects.JsonRenderEngine;
 import net.hasor.web.render.RenderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -46,6 +53,12 @@ import java.util.Map;
 @RefAuthorization(AuthorizationType.ApiPublish)
 @RenderType(value = "json", engineType = JsonRenderEngine.class)
 public class PublishController extends BasicController {
+    protected static Logger          logger = LoggerFactory.getLogger(PublishController.class);
+    @Inject
+    private          ApiReleaseCache releaseCache;
+    @Inject
+    private          DataQL          dataQL;
+
     @Post
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Result<Object> doPublish(@QueryParameter("id") String apiId, @RequestBody() Map<String, Object> requestBody) {
@@ -71,6 +84,7 @@ public class PublishController extends BasicController {
         object.put(FieldDef.RELEASE_TIME, String.valueOf(System.currentTimeMillis()));
         object.put(FieldDef.CREATE_TIME, String.valueOf(System.currentTimeMillis()));
         object.put(FieldDef.GMT_TIME, String.valueOf(System.currentTimeMillis()));
+        object.put(FieldDef.COMPILED_QIL, this.compiledScript(object.get(FieldDef.SCRIPT)));
         boolean publishResult = this.dataAccessLayer.createObject(EntityDef.RELEASE, object);
         if (!publishResult) {
             throw new RuntimeException("release Published failed.");
@@ -89,6 +103,7 @@ public class PublishController extends BasicController {
         }).forEach(apiRelease -> {
             // 更新状态为 Disable
             String releaseId = apiRelease.get(FieldDef.ID);
+            this.releaseCache.invalidateOnCommit(apiRelease.get(FieldDef.PATH));
             apiRelease = this.dataAccessLayer.getObjectBy(EntityDef.RELEASE, FieldDef.ID, releaseId);
             apiRelease.putAll(DatawayUtils.STATUS_UPDATE_TO_DISABLE.get());
             this.dataAccessLayer.updateObject(    //
@@ -97,6 +112,24 @@ public class PublishController extends BasicController {
                     apiRelease          //
             );
         });
+        this.releaseCache.invalidateOnCommit(object.get(FieldDef.PATH));
         return Result.of(true);
     }
-}
\ No newline at end of file
+
+    /** 发布时预先编译脚本，调用时直接加载省去解析和编译（含有 import 的脚本依赖被导入资源的最新内容，不做预编译） */
+    private String compiledScript(String scriptBody) {
+        if (StringUtils.isBlank(scriptBody)) {
+            return null;
+        }
+        try {
+            RootBlockSet queryModel = (RootBlockSet) QueryHelper.queryParser(scriptBody);
+            if (!queryModel.getImportSet().isEmpty()) {
+                return null;
+            }
+            return DatawayUtils.encodeCompiled(scriptBody, this.dataQL.compilerQuery(queryModel));
+        } catch (Exception e) {
+            logger.warn("publish precompile failed, " + e.getMessage());
+            return null;
+        }
+    }
+}
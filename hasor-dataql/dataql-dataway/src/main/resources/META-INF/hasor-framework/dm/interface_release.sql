@@ -11,6 +11,7 @@ CREATE TABLE "INTERFACE_RELEASE" (
   "PUB_SCHEMA"     CLOB           NOT NULL,
   "PUB_SAMPLE"     CLOB           NOT NULL,
   "PUB_OPTION"     CLOB           NOT NULL,
+  "PUB_COMPILED"   CLOB,
   "PUB_RELEASE_TIME" VARCHAR2(32) NOT NULL,
   CONSTRAINT "PK_INTERFACE_RELEASE" NOT CLUSTER PRIMARY KEY("PUB_ID")
 ) STORAGE(ON "MAIN", CLUSTERBTR);
@@ -18,6 +19,7 @@ CREATE TABLE "INTERFACE_RELEASE" (
 COMMENT ON TABLE "INTERFACE_RELEASE" IS 'Dataway API 发布记录';
 COMMENT ON COLUMN "INTERFACE_RELEASE"."PUB_API_ID" IS '所属API ID';
 COMMENT ON COLUMN "INTERFACE_RELEASE"."PUB_COMMENT" IS '注释';
+COMMENT ON COLUMN "INTERFACE_RELEASE"."PUB_COMPILED" IS '编译好的查询（Base64 编码的 QIL）';
 COMMENT ON COLUMN "INTERFACE_RELEASE"."PUB_ID" IS 'Publish ID';
 COMMENT ON COLUMN "INTERFACE_RELEASE"."PUB_METHOD" IS 'HttpMethod：GET、PUT、POST';
 COMMENT ON COLUMN "INTERFACE_RELEASE"."PUB_OPTION" IS '扩展配置信息';
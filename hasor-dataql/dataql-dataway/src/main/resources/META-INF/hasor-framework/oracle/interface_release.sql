@@ -11,6 +11,7 @@ create table interface_release (
   pub_schema       clob           NOT NULL,
   pub_sample       clob           NOT NULL,
   pub_option       clob           NOT NULL,
+  pub_compiled     clob,
   pub_release_time varchar(32)    NOT NULL
 )
 /comment on table interface_release is 'Dataway API 发布记录'
@@ -26,6 +27,7 @@ create table interface_release (
 /comment on column interface_release.pub_schema is '接口的请求/响应数据结构'
 /comment on column interface_release.pub_sample is '请求/响应/请求头样本数据'
 /comment on column interface_release.pub_option is '扩展配置信息'
+/comment on column interface_release.pub_compiled is '编译好的查询（Base64 编码的 QIL）'
 /comment on column interface_release.pub_release_time is '发布时间（下线不更新）'
 /
 create index idx_interface_release_api on interface_release (pub_api_id)
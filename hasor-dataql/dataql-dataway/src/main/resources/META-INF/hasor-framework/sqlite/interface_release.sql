@@ -11,6 +11,7 @@ CREATE TABLE interface_release (              -- Dataway API 发布历史。
   pub_schema        TEXT NOT NULL,            -- 接口的请求/响应数据结构
   pub_sample        TEXT NOT NULL,            -- 请求/响应/请求头样本数据
   pub_option        TEXT NOT NULL,            -- 扩展配置信息
+  pub_compiled      TEXT,                     -- 编译好的查询（Base64 编码的 QIL）
   pub_release_time  TEXT NOT NULL             -- 发布时间（下线不更新）
 );
 
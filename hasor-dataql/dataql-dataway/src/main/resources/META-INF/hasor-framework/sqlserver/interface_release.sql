@@ -11,6 +11,7 @@ create table interface_release (
   pub_schema       text           not null,
   pub_sample       text           not null,
   pub_option       text           not null,
+  pub_compiled     text,
   pub_release_time varchar(32)    not null
 )
 go
@@ -27,6 +28,7 @@ exec sp_addextendedproperty 'MS_Description', '原始查询脚本，仅当类型
 exec sp_addextendedproperty 'MS_Description', '接口的请求/响应数据结构', 'SCHEMA', 'dbo', 'TABLE', 'interface_release', 'COLUMN', 'pub_schema'
 exec sp_addextendedproperty 'MS_Description', '请求/响应/请求头样本数据', 'SCHEMA', 'dbo', 'TABLE', 'interface_release', 'COLUMN', 'pub_sample'
 exec sp_addextendedproperty 'MS_Description', '扩展配置信息', 'SCHEMA', 'dbo', 'TABLE', 'interface_release', 'COLUMN', 'pub_option'
+exec sp_addextendedproperty 'MS_Description', '编译好的查询（Base64 编码的 QIL）', 'SCHEMA', 'dbo', 'TABLE', 'interface_release', 'COLUMN', 'pub_compiled'
 exec sp_addextendedproperty 'MS_Description', '发布时间（下线不更新）', 'SCHEMA', 'dbo', 'TABLE', 'interface_release', 'COLUMN', 'pub_release_time'
 go
 
@@ -0,0 +1,219 @@
+package net.hasor.dataway.config;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.QueryResult;
+import net.hasor.dataql.domain.DataModel;
+import net.hasor.dataql.domain.DomainHelper;
+import net.hasor.dataql.runtime.QueryHelper;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * JsonResponseWriter 的输出和 JSON.toJSONString(data, WriteMapNullValue) 逐字节对比
+ */
+public class JsonResponseWriterTest {
+    private static String write(Object data, Charset charset) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long writeBytes = JsonResponseWriter.write(output, charset, data);
+        assert writeBytes == output.size();
+        return new String(output.toByteArray(), charset);
+    }
+
+    private static byte[] writeBytes(Object data, Charset charset) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JsonResponseWriter.write(output, charset, data);
+        return output.toByteArray();
+    }
+
+    private static String fastjson(Object data) {
+        return JSON.toJSONString(data, SerializerFeature.WriteMapNullValue);
+    }
+
+    /** fastjson 不认识 DataModel，对比之前先把结果中的 DataModel 全部 unwrap */
+    private static Object unwrapAll(Object data) {
+        if (data instanceof DataModel) {
+            return ((DataModel) data).unwrap();
+        }
+        if (data instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) data).forEach((key, value) -> copy.put(key, unwrapAll(value)));
+            return copy;
+        }
+        if (data instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            ((List<?>) data).forEach(value -> copy.add(unwrapAll(value)));
+            return copy;
+        }
+        return data;
+    }
+
+    private static void assertSame(Object data) throws IOException {
+        String expect = fastjson(unwrapAll(data));
+        String actual = write(data, StandardCharsets.UTF_8);
+        assert expect.equals(actual) : "\nexpect: " + expect + "\nactual: " + actual;
+    }
+
+    public static class Bean {
+        private String name = "bean";
+        private Date   time = new Date(0);
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Date getTime() {
+            return this.time;
+        }
+    }
+
+    private static Map<String, Object> plainMap() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("string", "abc");
+        data.put("empty", "");
+        data.put("null", null);
+        data.put("int", 123);
+        data.put("long", Long.MAX_VALUE);
+        data.put("short", (short) -1);
+        data.put("byte", (byte) 7);
+        data.put("bool", true);
+        data.put("double", 1.5d);
+        data.put("float", 2.25f);
+        data.put("bigDecimal", new BigDecimal("12345678901234567890.123"));
+        data.put("bigInteger", new BigInteger("123456789012345678901234567890"));
+        data.put("list", Arrays.asList(1, "a", null, Collections.emptyList()));
+        data.put("array", new Object[] { "x", 1, null });
+        data.put("emptyMap", Collections.emptyMap());
+        data.put("bean", new Bean());
+        data.put("nested", Collections.singletonMap("inner", Collections.singletonMap("deep", Arrays.asList(true, false))));
+        return data;
+    }
+
+    @Test
+    public void plain_map_test() throws IOException {
+        assertSame(plainMap());
+        assertSame(Arrays.asList(plainMap(), plainMap()));
+        assertSame("abc");
+        assertSame(null);
+        assertSame(100);
+    }
+
+    @Test
+    public void data_model_test() throws Throwable {
+        String queryString = "" //
+                + "var list = [1, 2, { 'c' : null, 'd' : 'str' }];\n" //
+                + "return { 'a' : 1, 'b' : list, 'e' : 1.5, 'f' : true, 'g' : null, 'h' : { 'i' : [ [], {} ] } }";
+        QueryResult queryResult = QueryHelper.createQuery(queryString, Finder.DEFAULT).execute();
+        DataModel dataModel = queryResult.getData();
+        assert DomainHelper.untouchedSource(dataModel) == null;
+        assertSame(dataModel);
+        assert write(dataModel, StandardCharsets.UTF_8).equals(fastjson(dataModel.unwrap()));
+    }
+
+    private static Map<String, Object> row(int id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("name", "n\"" + id + "\"");
+        row.put("memo", null);
+        return row;
+    }
+
+    @Test
+    public void lazy_model_test() throws IOException {
+        List<Object> rows = Arrays.asList(row(1), row(2));
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("rows", rows);
+        source.put("total", 2L);
+        //
+        // .未被修改过的延迟转换数据直接输出原始数据
+        DataModel dataModel = DomainHelper.convertTo(source);
+        assert DomainHelper.untouchedSource(dataModel) == source;
+        assert write(dataModel, StandardCharsets.UTF_8).equals(fastjson(source));
+        DataModel listModel = DomainHelper.convertTo(rows);
+        assert DomainHelper.untouchedSource(listModel) == rows;
+        assert write(listModel, StandardCharsets.UTF_8).equals(fastjson(rows));
+    }
+
+    @Test
+    public void result_layout_test() throws Throwable {
+        QueryResult queryResult = QueryHelper.createQuery("return { 'a' : [1, 'x', null], 'b' : { 'c' : 2.5 } }", Finder.DEFAULT).execute();
+        //
+        // .默认的外层结构
+        Object result = DatawayUtils.queryResultToResultWithSpecialValue(null, queryResult, queryResult.getData(), false).getResult();
+        assertSame(result);
+        //
+        // .通过 responseFormat 自定义的结构
+        Map<String, Object> optionMap = new HashMap<>();
+        optionMap.put("responseFormat", "{'ok':'@resultStatus','msg':'@resultMessage','code':'@resultCode','data':'@resultData','time':'@timeExecution','empty':null,'const':'abc'}");
+        result = DatawayUtils.queryResultToResultWithSpecialValue(optionMap, queryResult, queryResult.getData(), false).getResult();
+        assertSame(result);
+        assert write(result, StandardCharsets.UTF_8).startsWith("{\"ok\":true,\"msg\":\"OK\",\"code\":0,\"data\":{\"a\":[1,\"x\",null],\"b\":{\"c\":2.5}},\"time\":");
+        //
+        // .不保留外层结构
+        optionMap.put("resultStructure", false);
+        result = DatawayUtils.queryResultToResultWithSpecialValue(optionMap, queryResult, queryResult.getData(), false).getResult();
+        assertSame(result);
+        //
+        // .异常结果
+        result = DatawayUtils.exceptionToResultWithSpecialValue(null, new IllegalStateException("err \"msg\"\n"), null).getResult();
+        assertSame(result);
+    }
+
+    @Test
+    public void escape_test() throws IOException {
+        // .控制字符、DEL、C1 控制字符、行分隔符以及需要转义的引号和反斜杠
+        StringBuilder builder = new StringBuilder();
+        for (char c = 0; c < 0xA0; c++) {
+            builder.append(c);
+        }
+        builder.append("\u2028\u2029/\"\\<>&'");
+        String string = builder.toString();
+        assertSame(string);
+        assertSame(Collections.singletonMap(string, string));
+        assertSame(Arrays.asList("\r\n\t\b\f", "\u0000\u001F\u007F", "中文😀"));
+    }
+
+    @Test
+    public void non_string_key_test() throws IOException {
+        // .Map 的 key 总是作为字符串输出，和 fastjson 不同（fastjson 输出 {1:"a"}，不是合法的 JSON）
+        Map<Object, Object> data = new LinkedHashMap<>();
+        data.put(1, "a");
+        data.put(true, "b");
+        data.put(null, "c");
+        assert write(data, StandardCharsets.UTF_8).equals("{\"1\":\"a\",\"true\":\"b\",\"null\":\"c\"}");
+        assert fastjson(Collections.singletonMap(1, "a")).equals("{1:\"a\"}");
+    }
+
+    @Test
+    public void same_reference_test() throws IOException {
+        // .同一个对象出现多次时重复输出，和 fastjson 不同（fastjson 输出 {"$ref":"$[0]"}）
+        Map<String, Object> row = row(1);
+        List<Object> data = Arrays.asList(row, row);
+        assert write(data, StandardCharsets.UTF_8).equals("[{\"id\":1,\"name\":\"n\\\"1\\\"\",\"memo\":null},{\"id\":1,\"name\":\"n\\\"1\\\"\",\"memo\":null}]");
+        assert fastjson(data).equals("[{\"id\":1,\"name\":\"n\\\"1\\\"\",\"memo\":null},{\"$ref\":\"$[0]\"}]");
+    }
+
+    @Test
+    public void charset_test() throws IOException {
+        // .超过缓冲区大小，并且让代理对跨越 char 缓冲区的边界
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            builder.append(i % 3 == 0 ? "中" : (i % 3 == 1 ? "😀" : "a"));
+        }
+        for (int offset = 0; offset < 3; offset++) {
+            List<Object> data = Arrays.asList(builder.substring(0, offset), builder.toString(), "é ü ß");
+            String expect = fastjson(data);
+            for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1)) {
+                // .ISO-8859-1 无法表示的字符输出为 '?'，和 String.getBytes 一致
+                assert Arrays.equals(writeBytes(data, charset), expect.getBytes(charset));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package net.hasor.dataway.service;
+import net.hasor.core.AppContext;
+import net.hasor.core.Hasor;
+import net.hasor.core.Module;
+import net.hasor.core.spi.SpiTrigger;
+import net.hasor.dataway.spi.AccessLogRecord;
+import net.hasor.dataway.spi.AccessLogSpiListener;
+import net.hasor.dataway.spi.ApiInfo;
+import net.hasor.dataway.spi.CallSource;
+import net.hasor.utils.BeanUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccessLogService 的缓冲区溢出、关闭以及 SPI/文件输出
+ */
+public class AccessLogServiceTest {
+    private static AccessLogService newService(AppContext appContext, int bufferSize, int batchSize, String logFile) throws Exception {
+        AccessLogService service = new AccessLogService();
+        BeanUtils.writeField(service, "spiTrigger", appContext.getInstance(SpiTrigger.class));
+        BeanUtils.writeField(service, "bufferSize", bufferSize);
+        BeanUtils.writeField(service, "batchSize", batchSize);
+        BeanUtils.writeField(service, "logFile", logFile);
+        service.init();
+        return service;
+    }
+
+    private static void access(AccessLogService service, String apiPath, boolean success) {
+        ApiInfo apiInfo = new ApiInfo();
+        apiInfo.setCallSource(CallSource.External);
+        apiInfo.setMethod("GET");
+        apiInfo.setApiPath(apiPath);
+        AccessLogRecord record = service.begin(apiInfo);
+        record.setSuccess(success);
+        record.setCode(success ? 0 : 500);
+        record.setErrorMessage(success ? null : "error \"" + apiPath + "\"");
+        service.finish(-1);
+    }
+
+    private static void waitWritten(AccessLogService service, long count) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (service.getWrittenCount() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assert service.getWrittenCount() == count;
+    }
+
+    @Test
+    public void overflow_test() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        AppContext appContext = Hasor.create().build((Module) apiBinder -> {
+            apiBinder.bindSpiListener(AccessLogSpiListener.class, (AccessLogSpiListener) records -> {
+                records.forEach(record -> written.add(record.getApiPath()));
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        });
+        AccessLogService service = newService(appContext, 4, 1, null);
+        try {
+            // .后台线程取走第一条之后阻塞在 SPI 中，缓冲区（容量 4）不再被消费
+            access(service, "/0", true);
+            assert entered.await(5, TimeUnit.SECONDS);
+            for (int i = 1; i <= 7; i++) {
+                access(service, "/" + i, true);
+            }
+            assert service.getDroppedCount() == 3;
+            //
+            release.countDown();
+            waitWritten(service, 5);
+            assert written.size() == 5;
+            for (int i = 0; i < 5; i++) {
+                assert written.get(i).equals("/" + i);
+            }
+            // .缓冲区腾出空间之后可以继续写入
+            access(service, "/8", false);
+            waitWritten(service, 6);
+            assert written.get(5).equals("/8");
+            assert service.getDroppedCount() == 3;
+        } finally {
+            release.countDown();
+            service.destroy();
+            appContext.shutdown();
+        }
+    }
+
+    @Test
+    public void disable_test() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AppContext appContext = Hasor.create().build((Module) apiBinder -> {
+            apiBinder.bindSpiListener(AccessLogSpiListener.class, (AccessLogSpiListener) records -> {
+                records.forEach(record -> written.add(record.getApiPath()));
+            });
+        });
+        AccessLogService service = newService(appContext, 0, 1, null);
+        try {
+            access(service, "/a", true);
+            access(service, "/b", false);
+            Thread.sleep(100);
+            assert written.isEmpty();
+            assert service.getWrittenCount() == 0;
+            assert service.getDroppedCount() == 0;
+        } finally {
+            service.destroy();
+            appContext.shutdown();
+        }
+    }
+
+    @Test
+    public void nested_record_test() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AppContext appContext = Hasor.create().build((Module) apiBinder -> {
+            apiBinder.bindSpiListener(AccessLogSpiListener.class, (AccessLogSpiListener) records -> {
+                records.forEach(record -> written.add(record.getApiPath() + ":" + record.isSuccess()));
+            });
+        });
+        AccessLogService service = newService(appContext, 16, 4, null);
+        try {
+            ApiInfo outer = new ApiInfo();
+            outer.setApiPath("/outer");
+            AccessLogRecord outerRecord = service.begin(outer);
+            access(service, "/inner", false);
+            outerRecord.setSuccess(true);
+            service.finish(-1);
+            service.finish(-1); // 没有正在记录的调用时忽略
+            waitWritten(service, 2);
+            assert written.get(0).equals("/inner:false");
+            assert written.get(1).equals("/outer:true");
+        } finally {
+            service.destroy();
+            appContext.shutdown();
+        }
+    }
+
+    @Test
+    public void file_flush_test() throws Exception {
+        File logFile = File.createTempFile("access", ".log");
+        logFile.deleteOnExit();
+        AppContext appContext = Hasor.create().build();
+        AccessLogService service = newService(appContext, 16, 4, logFile.getAbsolutePath());
+        try {
+            access(service, "/ok", true);
+            access(service, "/fail", false);
+            waitWritten(service, 2);
+        } finally {
+            service.destroy();
+            appContext.shutdown();
+        }
+        //
+        List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+        assert lines.size() == 2;
+        assert lines.get(0).contains("\"apiPath\":\"/ok\"");
+        assert lines.get(0).contains("\"success\":true");
+        assert !lines.get(0).contains("exceptionMsg");
+        assert lines.get(1).contains("\"apiPath\":\"/fail\"");
+        assert lines.get(1).contains("\"success\":false");
+        assert lines.get(1).contains("\"exceptionMsg\":\"error \\\"/fail\\\"\"");
+    }
+
+    @Test
+    public void spi_before_file_test() throws Exception {
+        File logFile = File.createTempFile("access", ".log");
+        logFile.deleteOnExit();
+        List<String> written = new CopyOnWriteArrayList<>();
+        AppContext appContext = Hasor.create().build((Module) apiBinder -> {
+            apiBinder.bindSpiListener(AccessLogSpiListener.class, (AccessLogSpiListener) records -> {
+                records.forEach(record -> written.add(record.getApiPath()));
+            });
+        });
+        AccessLogService service = newService(appContext, 16, 4, logFile.getAbsolutePath());
+        try {
+            access(service, "/a", true);
+            access(service, "/b", false);
+            waitWritten(service, 2);
+        } finally {
+            service.destroy();
+            appContext.shutdown();
+        }
+        // .注册了 SPI 之后不再写入文件
+        assert written.size() == 2;
+        assert written.contains("/a") && written.contains("/b");
+        assert logFile.length() == 0;
+    }
+}
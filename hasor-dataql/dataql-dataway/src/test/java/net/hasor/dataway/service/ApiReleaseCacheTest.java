@@ -0,0 +1,178 @@
+package net.hasor.dataway.service;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.QueryHelper;
+import net.hasor.dataway.dal.FieldDef;
+import net.hasor.utils.BeanUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * ApiReleaseCache 的淘汰顺序、TTL 过期、延迟失效和命中统计
+ */
+public class ApiReleaseCacheTest {
+    private static ApiReleaseCache newCache(int maxSize, int ttlSeconds) {
+        ApiReleaseCache cache = new ApiReleaseCache();
+        BeanUtils.writeField(cache, "maxSize", maxSize);
+        BeanUtils.writeField(cache, "ttlSeconds", ttlSeconds);
+        return cache;
+    }
+
+    private static Map<FieldDef, String> release(String releaseID) {
+        Map<FieldDef, String> releaseObject = new HashMap<>();
+        releaseObject.put(FieldDef.ID, releaseID);
+        return releaseObject;
+    }
+
+    /** 记录每次加载的路径，返回 releaseID 为 “路径#第几次加载” 的 Release */
+    private static class CountLoader implements Function<String, Map<FieldDef, String>> {
+        private final List<String> loaded = new ArrayList<>();
+
+        @Override
+        public Map<FieldDef, String> apply(String apiPath) {
+            this.loaded.add(apiPath);
+            return release(apiPath + "#" + this.loaded.size());
+        }
+    }
+
+    @Test
+    public void clock_eviction_test() {
+        ApiReleaseCache cache = newCache(3, 0);
+        CountLoader loader = new CountLoader();
+        cache.getRelease("/a", loader);
+        cache.getRelease("/b", loader);
+        cache.getRelease("/c", loader);
+        cache.getRelease("/a", loader); // a 被访问过
+        assert loader.loaded.size() == 3;
+        //
+        // .写入 d 时按写入顺序淘汰：a 有访问标记获得二次机会，b 被淘汰
+        cache.getRelease("/d", loader);
+        assert cache.size() == 3;
+        assert cache.getEvictionCount() == 1;
+        cache.getRelease("/a", loader);
+        cache.getRelease("/c", loader);
+        cache.getRelease("/d", loader);
+        assert loader.loaded.size() == 4;
+        cache.getRelease("/b", loader);
+        assert loader.loaded.size() == 5;
+        assert loader.loaded.get(4).equals("/b");
+        assert cache.size() == 3;
+        assert cache.getEvictionCount() == 2;
+    }
+
+    @Test
+    public void clock_eviction_order_test() {
+        ApiReleaseCache cache = newCache(2, 0);
+        CountLoader loader = new CountLoader();
+        cache.getRelease("/a", loader);
+        cache.getRelease("/b", loader);
+        // .都没有被访问过，淘汰最早写入的 a
+        cache.getRelease("/c", loader);
+        assert cache.size() == 2;
+        cache.getRelease("/b", loader);
+        cache.getRelease("/c", loader);
+        assert loader.loaded.size() == 3;
+        cache.getRelease("/a", loader);
+        assert loader.loaded.size() == 4;
+    }
+
+    @Test
+    public void ttl_expire_test() throws InterruptedException {
+        ApiReleaseCache cache = newCache(10, 1);
+        CountLoader loader = new CountLoader();
+        assert cache.getRelease("/a", loader).get(FieldDef.ID).equals("/a#1");
+        assert cache.getRelease("/a", loader).get(FieldDef.ID).equals("/a#1");
+        assert loader.loaded.size() == 1;
+        //
+        Thread.sleep(1100);
+        assert cache.getCompiledData("/a", "/a#1") == null; // 过期的条目被删除
+        assert cache.size() == 0;
+        assert cache.getRelease("/a", loader).get(FieldDef.ID).equals("/a#2");
+        assert loader.loaded.size() == 2;
+    }
+
+    @Test
+    public void deferred_invalidate_test() {
+        ApiReleaseCache cache = newCache(10, 0);
+        CountLoader loader = new CountLoader();
+        cache.getRelease("/a", loader);
+        //
+        assert cache.beginDeferred();
+        assert !cache.beginDeferred(); // 已经开启过
+        try {
+            cache.invalidateOnCommit("/a");
+            assert cache.size() == 0;
+            // .事务提交之前其它请求重新加载了旧数据
+            assert cache.getRelease("/a", loader).get(FieldDef.ID).equals("/a#2");
+            assert cache.size() == 1;
+        } finally {
+            cache.endDeferred();
+        }
+        // .提交之后再次失效，旧数据不会留在缓存中
+        assert cache.size() == 0;
+        assert cache.getRelease("/a", loader).get(FieldDef.ID).equals("/a#3");
+        assert cache.getRelease("/a", loader).get(FieldDef.ID).equals("/a#3");
+        //
+        // .没有开启延迟失效时只失效一次
+        cache.invalidateOnCommit("/a");
+        cache.getRelease("/a", loader);
+        cache.endDeferred();
+        assert cache.size() == 1;
+    }
+
+    @Test
+    public void invalidate_during_load_test() {
+        ApiReleaseCache cache = newCache(10, 0);
+        Map<FieldDef, String> loaded = cache.getRelease("/a", apiPath -> {
+            cache.invalidate(apiPath); // 加载期间发生了发布
+            return release("old");
+        });
+        assert loaded.get(FieldDef.ID).equals("old");
+        assert cache.size() == 0;
+        //
+        assert cache.getRelease("/b", apiPath -> null) == null;
+        assert cache.size() == 0;
+    }
+
+    @Test
+    public void stats_test() throws Exception {
+        ApiReleaseCache cache = newCache(10, 0);
+        CountLoader loader = new CountLoader();
+        QIL qil = QueryHelper.queryCompiler("return 1", Finder.DEFAULT);
+        //
+        cache.getRelease("/a", loader);
+        cache.getRelease("/a", loader);
+        cache.getRelease("/a", loader);
+        assert cache.getReleaseHitCount() == 2;
+        assert cache.getReleaseMissCount() == 1;
+        //
+        int[] compileCount = new int[1];
+        for (int i = 0; i < 4; i++) {
+            QIL compiled = cache.getCompiled("/a", "/a#1", "return 1", () -> {
+                compileCount[0]++;
+                return qil;
+            });
+            assert compiled == qil;
+        }
+        assert compileCount[0] == 1;
+        assert cache.getCompiledHitCount() == 3;
+        assert cache.getCompiledMissCount() == 1;
+        // .QIL 的统计不影响 Release 的统计
+        assert cache.getReleaseHitCount() == 2;
+        assert cache.getReleaseMissCount() == 1;
+        //
+        // .releaseID 不一致或者路径未缓存时直接编译，不计入统计
+        cache.getCompiled("/a", "other", "return 1", () -> qil);
+        cache.getCompiled("/none", "x", "return 1", () -> qil);
+        assert cache.getCompiledHitCount() == 3;
+        assert cache.getCompiledMissCount() == 1;
+        // .脚本变化时重新编译
+        cache.getCompiled("/a", "/a#1", "return 2", () -> qil);
+        assert cache.getCompiledMissCount() == 2;
+    }
+}
@@ -33,8 +33,38 @@ public enum FxHintNames {
      * <p>当设置偏移量之后，真实的 currentPage 值计算方式为：<code>yourCurrentPage - FRAGMENT_SQL_QUERY_BY_PAGE_NUMBER_OFFSET</code> 结果如果小于等于0，那么设置为 0</p>
      */
     FRAGMENT_SQL_QUERY_BY_PAGE_NUMBER_OFFSET("0"),
+    /**
+     * SqlFragment 分页查询时总记录数的缓存时间，单位毫秒（默认：0，不缓存）。
+     * <p>相同数据源、相同 count 语句和参数的总记录数在缓存时间内直接复用，此时 totalCount 是一个近似值</p>
+     */
+    FRAGMENT_SQL_QUERY_BY_PAGE_COUNT_CACHE_TTL("0"),
+    /**
+     * SqlFragment 分页查询使用 keyset（seek）方式翻页时的排序键，多个键使用逗号分隔，例如：<code>create_time desc, id desc</code>（默认：空，使用 OFFSET 翻页）。
+     * <p>查询结果会按照排序键排序，翻到下一页时使用上一页最后一行的排序键定位，而不是跳过前面的记录。排序键组合起来必须唯一</p>
+     */
+    FRAGMENT_SQL_QUERY_BY_PAGE_SEEK_KEYS(""),
+    /**
+     * SqlFragment 查询执行是否使用流模式，结果集以游标的方式逐行读取（默认：不使用，分页模式优先）。
+     * <p>只有当前线程开启了 DataStreamScope 时（例如：Dataway 直接输出响应的接口调用）才返回数据流，否则直接返回全部数据</p>
+     */
+    FRAGMENT_SQL_QUERY_BY_STREAM(FRAGMENT_SQL_QUERY_BY_STREAM_DISABLE),
+    /**
+     * SqlFragment 在流模式下每次从数据库抓取的行数（默认：1000）。
+     * <p>MySQL 驱动需要设置为 <code>-2147483648</code>（Integer.MIN_VALUE）或者在连接串上开启 useCursorFetch，否则仍然会一次读取全部结果</p>
+     */
+    FRAGMENT_SQL_QUERY_BY_STREAM_FETCH_SIZE("1000"),
     /** SqlFragment 分页查询在改写分页查询语句时使用的方言（默认：空，需要明确指定） */
     FRAGMENT_SQL_PAGE_DIALECT(""),
+    /**
+     * SqlFragment 查询结果的缓存时间，单位毫秒（默认：0，不缓存）。适用于字典、地区、配置这类变化很少的数据。
+     * <p>缓存以数据源、最终执行的 SQL 和参数为 Key，分页模式和流模式不会使用缓存。缓存可以通过 SqlResultCache 或者 tConsole 的 sqlcache 指令清除</p>
+     */
+    FRAGMENT_SQL_CACHE_TTL("0"),
+    /**
+     * SqlFragment 批量执行时每一批的最大条数，超出之后分成多次 executeBatch（默认：0，不分批）。
+     * <p>SQL 中含有 ${} 占位符时，会按照每一行参数最终的 SQL 分组，每组分别执行批量。返回的影响行数和参数的顺序一致</p>
+     */
+    FRAGMENT_SQL_BATCH_SIZE("0"),
     /** SqlFragment 数据源名字 */
     FRAGMENT_SQL_DATA_SOURCE(""),
     /** SqlFragment 当遇到多条 SQL 同时执行时，结果集的行为（默认：返回最后一个结果） */
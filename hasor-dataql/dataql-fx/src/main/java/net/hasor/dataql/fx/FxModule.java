@@ -19,7 +19,9 @@ import net.hasor.core.XmlNode;
 import net.hasor.dataql.FragmentProcess;
 import net.hasor.dataql.QueryApiBinder;
 import net.hasor.dataql.QueryModule;
+import net.hasor.dataql.fx.tconsole.SqlCacheInstruct;
 import net.hasor.dataql.fx.web.FxWebInterceptor;
+import net.hasor.tconsole.ConsoleApiBinder;
 import net.hasor.utils.ResourcesUtils;
 import net.hasor.web.WebApiBinder;
 import org.slf4j.Logger;
@@ -58,5 +60,13 @@ public class FxModule implements QueryModule {
                 webApiBinder.filter("/*").through(Integer.MAX_VALUE - 1, FxWebInterceptor.class);
             }
         }
+        //
+        // .如果引入了 tConsole 那么注册 sqlcache 指令。
+        if (ResourcesUtils.getResource("/net/hasor/tconsole/ConsoleApiBinder.class") != null) {
+            ConsoleApiBinder consoleApiBinder = apiBinder.tryCast(ConsoleApiBinder.class);
+            if (consoleApiBinder != null) {
+                consoleApiBinder.asHostWithEnv().addExecutor("sqlcache").to(SqlCacheInstruct.class);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import net.hasor.dataql.domain.DataModel;
 import net.hasor.dataql.domain.DomainHelper;
 import net.hasor.dataql.domain.ListModel;
 import net.hasor.dataql.domain.ObjectModel;
+import net.hasor.dataql.runtime.operator.OperatorUtils;
 import net.hasor.utils.ExceptionUtils;
 
 import javax.inject.Singleton;
@@ -251,23 +252,50 @@ public class CollectionUdfSource implements UdfSourceAssembly {
 
     private static Map<String, Object> list2map_string(List<Object> valueList, String key, Udf convert, Hints hints) throws Throwable {
         return list2map_udf(valueList, (readOnly, params) -> {
-            int rowNumber = (int) params[0];
-            if (params[1] == null) {
-                throw new NullPointerException("element " + rowNumber + " data is null");
+            return String.valueOf(extractKey((int) params[0], params[1], key, readOnly));
+        }, convert, hints);
+    }
+
+    /**
+     * 提取一行数据的 Key（不会整体转换行数据）
+     * @param key 字段名，或者 Key 提取函数（参数为行号、行数据）
+     * @return Key 的值，一定是基础类型
+     */
+    private static Object extractKey(int rowNumber, Object rowData, Object key, Hints hints) throws Throwable {
+        if (key instanceof Udf) {
+            DataModel keyData = DomainHelper.convertTo(((Udf) key).call(hints, rowNumber, DomainHelper.convertTo(rowData)));
+            if (!keyData.isValue()) {
+                throw new NullPointerException("element " + rowNumber + " key type must primary");
             }
-            DataModel rowData = DomainHelper.convertTo(params[1]);
-            if (!rowData.isObject()) {
+            return keyData.unwrap();
+        }
+        if (rowData == null) {
+            throw new NullPointerException("element " + rowNumber + " data is null");
+        }
+        DataModel keyValue = readField(rowData, key.toString());
+        if (keyValue == null) {
+            if (!isObjectRow(rowData)) {
                 throw new NullPointerException("element " + rowNumber + " type is not Object");
             }
-            DataModel keyValue = ((ObjectModel) rowData).get(key);
-            if (keyValue == null) {
-                throw new NullPointerException("element " + rowNumber + " key '" + key + "' is not exist");
-            }
-            if (!keyValue.isValue()) {
-                throw new NullPointerException("element " + rowNumber + " key '" + key + "' type must primary");
-            }
-            return String.valueOf(keyValue.unwrap());
-        }, convert, hints);
+            throw new NullPointerException("element " + rowNumber + " key '" + key + "' is not exist");
+        }
+        if (!keyValue.isValue()) {
+            throw new NullPointerException("element " + rowNumber + " key '" + key + "' type must primary");
+        }
+        return keyValue.unwrap();
+    }
+
+    /** 读取行数据的一个字段：Map 直接读取，Bean 和 ObjectModel 通过 DataModel 的延迟视图读取。字段不存在或者行数据不是对象时返回 null */
+    private static DataModel readField(Object rowData, String fieldName) {
+        if (rowData instanceof Map && ((Map) rowData).containsKey(fieldName)) {
+            return DomainHelper.convertTo(((Map) rowData).get(fieldName));
+        }
+        DataModel dataModel = DomainHelper.convertTo(rowData);
+        return dataModel.isObject() ? ((ObjectModel) dataModel).get(fieldName) : null;
+    }
+
+    private static boolean isObjectRow(Object rowData) {
+        return rowData instanceof Map || DomainHelper.convertTo(rowData).isObject();
     }
 
     private static Map<String, Object> list2map_udf(List<Object> valueList, Udf extractKey, Udf convert, Hints hints) throws Throwable {
@@ -295,78 +323,252 @@ public class CollectionUdfSource implements UdfSourceAssembly {
                 }
                 mapData.put(unwrapKey, valueData);
             } catch (Exception e) {
-                LinkedHashMap<String, Object> hashMap = new LinkedHashMap<>();
-                hashMap.put("errorMsg", e.getMessage());
-                hashMap.put("errorData", valueData);
-                errorData.put("idx_" + i, hashMap);
+                putRowError(errorData, i, valueData, e);
             }
         }
         //
-        if (!errorData.isEmpty()) {
-            int i = 0;
-            String mapKey = "errorData";
-            while (true) {
-                if (mapData.containsKey(mapKey)) {
-                    i++;
-                    mapKey = "errorData_" + i;
-                    continue;
-                }
-                mapData.put(mapKey, errorData);
-                break;
-            }
-        }
+        putErrorData(mapData, errorData);
         return mapData;
     }
+
+    /** 出错的行数据以 errorData 为名放入结果中（和已有的 Key 冲突时依次尝试 errorData_1、errorData_2 ...） */
+    private static void putErrorData(Map<String, Object> mapData, Map<String, Object> errorData) {
+        if (errorData.isEmpty()) {
+            return;
+        }
+        int i = 0;
+        String mapKey = "errorData";
+        while (mapData.containsKey(mapKey)) {
+            i++;
+            mapKey = "errorData_" + i;
+        }
+        mapData.put(mapKey, errorData);
+    }
+
+    private static void putRowError(Map<String, Object> errorData, int rowNumber, Object rowData, Exception e) {
+        LinkedHashMap<String, Object> hashMap = new LinkedHashMap<>();
+        hashMap.put("errorMsg", e.getMessage());
+        hashMap.put("errorData", DomainHelper.convertTo(rowData));
+        errorData.put("idx_" + rowNumber, hashMap);
+    }
     // -------------------------------------------------------------------------------------------------------------------------- List
 
+    /**
+     * 单次遍历对 List 进行分组，分组的顺序为 Key 第一次出现的顺序。
+     * 和 list2map 一样以 String.valueOf(Key) 作为分组依据（例如：数字 1 和字符串 "1" 属于同一组）。
+     * @param key 字段名，或者 Key 提取函数（参数为行号、行数据）
+     * @param errorData 提取 Key 出错的行
+     */
+    private static Map<String, List<Object>> groupRows(List<Object> valueList, Object key, Map<String, Object> errorData, Hints hints) throws Throwable {
+        if (key == null) {
+            throw new IllegalArgumentException("The key parameter cannot be null");
+        }
+        if (!(key instanceof String || key instanceof Udf)) {
+            throw new IllegalArgumentException("key arg must be Udf or String");
+        }
+        Map<String, List<Object>> groupMap = new LinkedHashMap<>();
+        if (valueList == null) {
+            return groupMap;
+        }
+        int rowNumber = 0;
+        for (Object rowData : valueList) {
+            try {
+                Object keyValue = extractKey(rowNumber, rowData, key, hints);
+                groupMap.computeIfAbsent(String.valueOf(keyValue), k -> new ArrayList<>()).add(rowData);
+            } catch (Exception e) {
+                putRowError(errorData, rowNumber, rowData, e);
+            }
+            rowNumber++;
+        }
+        return groupMap;
+    }
+
     /** 对 List 进行分组 */
     public static Map<String, Object> groupBy(final List<Object> valueList, final Object key, final Hints hints) throws Throwable {
-        return list2map(valueList, key, (readOnly1, params1) -> {
-            DataModel dataModel = DomainHelper.convertTo(params1[1]);
-            if (!dataModel.isObject()) {
-                throw new UnsupportedOperationException(params1[0] + " element require Object");
+        Map<String, Object> errorData = new LinkedHashMap<>();
+        Map<String, List<Object>> groupMap = groupRows(valueList, key, errorData, hints);
+        Map<String, Object> mapData = new LinkedHashMap<>();
+        groupMap.forEach((keyValue, groupList) -> {
+            mapData.put(keyValue, DomainHelper.convertTo(groupList));
+        });
+        putErrorData(mapData, errorData);
+        return mapData;
+    }
+
+    /** 对 List 进行去重，保留每个 Key 第一次出现的数据 */
+    public static Collection<Object> uniqueBy(final List<Object> valueList, final Object key, final Hints hints) throws Throwable {
+        Map<String, Object> errorData = new LinkedHashMap<>();
+        Map<String, List<Object>> groupMap = groupRows(valueList, key, errorData, hints);
+        Map<String, Object> mapData = new LinkedHashMap<>();
+        groupMap.forEach((keyValue, groupList) -> {
+            mapData.put(keyValue, DomainHelper.convertTo(groupList.get(0)));
+        });
+        putErrorData(mapData, errorData);
+        return mapData.values();
+    }
+
+    /**
+     * 按照 Key 对 List 排序（稳定排序，null 排在最前面，Key 类型不同时按照 数字、字符串、其它类型 的顺序）
+     * @param key 字段名，或者 Key 提取函数（参数为行号、行数据）
+     * @param order asc 或 desc，默认为 asc
+     */
+    public static List<Object> sortBy(List<Object> valueList, Object key, String order, Hints hints) throws Throwable {
+        if (valueList == null) {
+            return Collections.emptyList();
+        }
+        List<SortRow> sortRows = sortRows(valueList, key, hints);
+        sortRows.sort(sortComparator(order));
+        List<Object> finalList = new ArrayList<>(sortRows.size());
+        sortRows.forEach(sortRow -> finalList.add(sortRow.rowData));
+        return finalList;
+    }
+
+    /**
+     * 按照 Key 的顺序取前 N 条，使用容量为 N 的堆，不对整个 List 排序（结果和 sortBy 之后 limit 相同）
+     * @param key 字段名，或者 Key 提取函数（参数为行号、行数据）
+     * @param order asc 或 desc，默认为 asc
+     */
+    public static List<Object> topN(List<Object> valueList, Object key, int topN, String order, Hints hints) throws Throwable {
+        if (valueList == null || topN <= 0) {
+            return Collections.emptyList();
+        }
+        Comparator<SortRow> comparator = sortComparator(order);
+        PriorityQueue<SortRow> topHeap = new PriorityQueue<>(Math.min(topN, valueList.size()) + 1, comparator.reversed());
+        for (SortRow sortRow : sortRows(valueList, key, hints)) {
+            if (topHeap.size() < topN) {
+                topHeap.add(sortRow);
+            } else if (comparator.compare(sortRow, topHeap.peek()) < 0) {
+                topHeap.poll();
+                topHeap.add(sortRow);
             }
-            final Object parentKeyValue = ((ObjectModel) dataModel).getValue(key.toString()).unwrap();
-            return filter(valueList, (readOnly2, params2) -> {
-                if (params2 == null) {
-                    return false;
+        }
+        List<SortRow> sortRows = new ArrayList<>(topHeap);
+        sortRows.sort(comparator);
+        List<Object> finalList = new ArrayList<>(sortRows.size());
+        sortRows.forEach(sortRow -> finalList.add(sortRow.rowData));
+        return finalList;
+    }
+
+    private static class SortRow {
+        private final int    rowNumber;
+        private final Object sortKey;
+        private final Object rowData;
+
+        public SortRow(int rowNumber, Object sortKey, Object rowData) {
+            this.rowNumber = rowNumber;
+            this.sortKey = sortKey;
+            this.rowData = rowData;
+        }
+    }
+
+    /** 每行数据的排序 Key 只计算一次。行数据为空或者字段不存在时 Key 为 null */
+    private static List<SortRow> sortRows(List<Object> valueList, Object key, Hints hints) throws Throwable {
+        if (!(key instanceof String || key instanceof Udf)) {
+            throw new IllegalArgumentException("key arg must be Udf or String");
+        }
+        List<SortRow> sortRows = new ArrayList<>(valueList.size());
+        int rowNumber = 0;
+        for (Object rowData : valueList) {
+            Object sortKey;
+            if (key instanceof Udf) {
+                sortKey = extractKey(rowNumber, rowData, key, hints);
+            } else {
+                DataModel keyValue = (rowData == null) ? null : readField(rowData, (String) key);
+                if (keyValue != null && !keyValue.isValue()) {
+                    throw new IllegalArgumentException("element " + rowNumber + " key '" + key + "' type must primary");
                 }
-                DataModel dataModel1 = DomainHelper.convertTo(params2[0]);
-                Object targetKeyValue = ((ObjectModel) dataModel1).getValue(key.toString()).unwrap();
-                return Objects.deepEquals(parentKeyValue, targetKeyValue);
-            }, hints);
-        }, hints);
+                sortKey = (keyValue == null) ? null : keyValue.unwrap();
+            }
+            sortRows.add(new SortRow(rowNumber, sortKey, rowData));
+            rowNumber++;
+        }
+        return sortRows;
     }
 
-    /** 对 List 进行去重 */
-    public static Collection<Object> uniqueBy(final List<Object> valueList, final Object key, final Hints hints) throws Throwable {
-        return list2map(valueList, key, (readOnly1, params1) -> {
-            DataModel dataModel = DomainHelper.convertTo(params1[1]);
-            if (!dataModel.isObject()) {
-                throw new UnsupportedOperationException(params1[0] + " element require Object");
+    /** 按照 Key 排序，Key 相同时保持原有的顺序 */
+    private static Comparator<SortRow> sortComparator(String order) {
+        Comparator<SortRow> comparator = (row1, row2) -> compareKey(row1.sortKey, row2.sortKey);
+        if ("desc".equalsIgnoreCase(order)) {
+            comparator = comparator.reversed();
+        } else if (order != null && !"asc".equalsIgnoreCase(order)) {
+            throw new IllegalArgumentException("order must be asc or desc.");
+        }
+        return comparator.thenComparingInt(row -> row.rowNumber);
+    }
+
+    /**
+     * 先按照类型排序：null &lt; 数字 &lt; 字符串 &lt; 其它类型，类型相同时再比较值（保证比较是可传递的）。
+     *  - 数字按照数值比较，字符串按照字典序比较。
+     *  - 其它类型先按照类名排序，同为 Boolean 时 false &lt; true，其余按照字符串形式比较。
+     */
+    private static int compareKey(Object key1, Object key2) {
+        int rank1 = keyRank(key1);
+        int rank2 = keyRank(key2);
+        if (rank1 != rank2) {
+            return Integer.compare(rank1, rank2);
+        }
+        switch (rank1) {
+            case 0:
+                return 0;
+            case 1: {
+                Number number1 = (Number) key1;
+                Number number2 = (Number) key2;
+                if (isLongValue(number1) && isLongValue(number2)) {
+                    return Long.compare(number1.longValue(), number2.longValue());
+                }
+                return OperatorUtils.eq(number1, number2) ? 0 : (OperatorUtils.gt(number1, number2) ? 1 : -1);
             }
-            final Object parentKeyValue = ((ObjectModel) dataModel).getValue(key.toString()).unwrap();
-            return filter(valueList, (readOnly2, params2) -> {
-                if (params2 == null) {
-                    return false;
+            case 2:
+                return ((String) key1).compareTo((String) key2);
+            default: {
+                int compareType = key1.getClass().getName().compareTo(key2.getClass().getName());
+                if (compareType != 0) {
+                    return compareType;
+                }
+                if (key1 instanceof Boolean) {
+                    return Boolean.compare((Boolean) key1, (Boolean) key2);
                 }
-                DataModel dataModel1 = DomainHelper.convertTo(params2[0]);
-                Object targetKeyValue = ((ObjectModel) dataModel1).getValue(key.toString()).unwrap();
-                return Objects.deepEquals(parentKeyValue, targetKeyValue);
-            }, hints).get(0);
-        }, hints).values();
+                return String.valueOf(key1).compareTo(String.valueOf(key2));
+            }
+        }
+    }
+
+    private static int keyRank(Object key) {
+        if (key == null) {
+            return 0;
+        } else if (key instanceof Number) {
+            return 1;
+        } else if (key instanceof String) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+
+    private static boolean isLongValue(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
     }
 
     // -------------------------------------------------------------------------------------------------------------------------- Map
-    private static String evalJoinKey(Object data, String[] joinField) {
-        ObjectModel objectModel = (ObjectModel) DomainHelper.convertTo(data);
-        StringBuilder joinKey = new StringBuilder("");
-        Arrays.stream(joinField).forEach(s -> {
-            Object unwrap = objectModel.get(s).unwrap();
-            unwrap = (unwrap == null) ? "NULL" : ("s" + unwrap.toString());
-            joinKey.append(unwrap).append(",");
-        });
-        return joinKey.toString();
+    /** 关联字段的值作为 Key（只有一个关联字段时为字段值的字符串形式，多个时为它们的 List），和字段值的类型无关 */
+    private static Object evalJoinKey(Object data, String[] joinField) {
+        if (joinField.length == 1) {
+            return joinValue(data, joinField[0]);
+        }
+        Object[] joinKey = new Object[joinField.length];
+        for (int i = 0; i < joinField.length; i++) {
+            joinKey[i] = joinValue(data, joinField[i]);
+        }
+        return Arrays.asList(joinKey);
+    }
+
+    private static String joinValue(Object data, String joinField) {
+        DataModel fieldValue = readField(data, joinField);
+        if (fieldValue == null) {
+            throw new NullPointerException("join key '" + joinField + "' is not exist");
+        }
+        Object unwrap = fieldValue.unwrap();
+        return (unwrap == null) ? null : unwrap.toString();
     }
 
     /** 创建一个有状态的 Map 对象 */
@@ -385,18 +587,17 @@ public class CollectionUdfSource implements UdfSourceAssembly {
         String[] joinKey2 = linkedHashMap.values().toArray(new String[0]);
         //
         //
-        Map<String, Object> joinMap = new HashMap<>();
+        Map<Object, Object> joinMap = new HashMap<>();
         for (Object dat : data2) {
             joinMap.put(evalJoinKey(dat, joinKey2), dat);
         }
         //
-        List<Map<String, Object>> returnData = new ArrayList<>();
+        List<Map<String, Object>> returnData = new ArrayList<>(data1.size());
         for (Object dat1 : data1) {
-            String joinKey = evalJoinKey(dat1, joinKey1);
-            returnData.add(new HashMap<String, Object>() {{
-                put("data1", dat1);
-                put("data2", joinMap.get(joinKey));
-            }});
+            Map<String, Object> joinData = new HashMap<>(4);
+            joinData.put("data1", dat1);
+            joinData.put("data2", joinMap.get(evalJoinKey(dat1, joinKey1)));
+            returnData.add(joinData);
         }
         return returnData;
     }
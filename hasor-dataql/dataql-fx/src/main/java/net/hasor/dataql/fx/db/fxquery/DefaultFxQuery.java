@@ -15,29 +15,46 @@
  */
 package net.hasor.dataql.fx.db.fxquery;
 import net.hasor.utils.ExceptionUtils;
-import net.hasor.utils.StringUtils;
 import ognl.Ognl;
 import ognl.OgnlContext;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 /**
  * 本处理器，兼容 #{...}、${...} 两种写法。
+ *  - analysisSQL 的分析结果以 SQL 文本为 Key 缓存，每次返回的是分析结果的一个副本（attach 的数据不会在多次调用之间共享）。
+ *  - OGNL 表达式以表达式文本为 Key 缓存解析之后的语法树。
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2020-03-28
  */
 public class DefaultFxQuery extends HashMap<Class<?>, Object> implements Cloneable, FxQuery {
-    private final StringBuilder           queryStringOri  = new StringBuilder("");
-    private final List<Object>            queryStringPlan = new LinkedList<>();
-    private final List<String>            paramEl         = new LinkedList<>();
-    private       boolean                 havePlaceholder = false;
-    private final AtomicReference<Object> tempObject      = new AtomicReference<>();
-    private final Supplier<Object>        objectSupplier  = tempObject::get;
+    private static final ParseCache<DefaultFxQuery> PLAN_CACHE      = new ParseCache<>(1024);
+    private static final ParseCache<Object>         OGNL_CACHE      = new ParseCache<>(4096);
+    private static final DefaultMemberAccess        MEMBER_ACCESS   = new DefaultMemberAccess(true);
+    private final        StringBuilder              queryStringOri;
+    private final        List<Object>               queryStringPlan;
+    private final        List<String>               paramEl;
+    private              boolean                    havePlaceholder = false;
+
+    public DefaultFxQuery() {
+        this.queryStringOri = new StringBuilder("");
+        this.queryStringPlan = new LinkedList<>();
+        this.paramEl = new LinkedList<>();
+    }
+
+    /** 复制 source 的分析结果 */
+    private DefaultFxQuery(DefaultFxQuery source) {
+        this.queryStringOri = new StringBuilder(source.queryStringOri);
+        this.queryStringPlan = new LinkedList<>();
+        for (Object plan : source.queryStringPlan) {
+            this.queryStringPlan.add((plan instanceof StringBuilder) ? new StringBuilder((StringBuilder) plan) : plan);
+        }
+        this.paramEl = new LinkedList<>(source.paramEl);
+        this.havePlaceholder = source.havePlaceholder;
+    }
 
     /** 插入一个字符串 */
     public void insertString(String append) {
@@ -75,14 +92,14 @@ public class DefaultFxQuery extends HashMap<Class<?>, Object> implements Cloneab
     /** 插入一个动态字符串，动态字符串是指字符串本身内容需要经过表达式计算之后才知道。 */
     public void insertPlaceholderExpr(String exprString) {
         this.queryStringOri.insert(0, "${" + exprString + "}");
-        this.queryStringPlan.add(0, new EvalCharSequence(exprString, this.objectSupplier));
+        this.queryStringPlan.add(0, new EvalCharSequence(exprString));
         this.havePlaceholder = true;
     }
 
     /** 追加一个动态字符串，动态字符串是指字符串本身内容需要经过表达式计算之后才知道。 */
     public void appendPlaceholderExpr(String exprString) {
         this.queryStringOri.append("${" + exprString + "}");
-        this.queryStringPlan.add(new EvalCharSequence(exprString, this.objectSupplier));
+        this.queryStringPlan.add(new EvalCharSequence(exprString));
         this.havePlaceholder = true;
     }
 
@@ -96,18 +113,23 @@ public class DefaultFxQuery extends HashMap<Class<?>, Object> implements Cloneab
     }
 
     public String buildQueryString(Object context) {
-        try {
-            this.tempObject.set(context);
-            return StringUtils.join(this.queryStringPlan.toArray());
-        } finally {
-            this.tempObject.set(null);
+        StringBuilder queryString = new StringBuilder();
+        for (Object plan : this.queryStringPlan) {
+            if (plan instanceof EvalCharSequence) {
+                queryString.append(((EvalCharSequence) plan).eval(context));
+            } else {
+                queryString.append(plan);
+            }
         }
+        return queryString.toString();
     }
 
     public List<Object> buildParameterSource(Object context) {
-        return this.paramEl.stream().map(exprString -> {
-            return evalOgnl(exprString, context);
-        }).collect(Collectors.toList());
+        List<Object> parameterSource = new ArrayList<>(this.paramEl.size());
+        for (String exprString : this.paramEl) {
+            parameterSource.add(evalOgnl(exprString, context));
+        }
+        return parameterSource;
     }
 
     @Override
@@ -121,30 +143,41 @@ public class DefaultFxQuery extends HashMap<Class<?>, Object> implements Cloneab
     }
 
     private static class EvalCharSequence {
-        private final String           exprString;
-        private final Supplier<Object> exprContext;
+        private final String exprString;
 
-        public EvalCharSequence(String exprString, Supplier<Object> exprContext) {
+        public EvalCharSequence(String exprString) {
             this.exprString = exprString;
-            this.exprContext = exprContext;
+        }
+
+        public String eval(Object context) {
+            return String.valueOf(evalOgnl(this.exprString, context));
         }
 
         @Override
         public String toString() {
-            return String.valueOf(evalOgnl(this.exprString, this.exprContext.get()));
+            return "${" + this.exprString + "}";
         }
     }
 
     public static Object evalOgnl(String exprString, Object root) {
         try {
-            OgnlContext context = new OgnlContext(null, null, new DefaultMemberAccess(true));
-            return Ognl.getValue(exprString, context, root);
+            Object exprTree = OGNL_CACHE.get(exprString, Ognl::parseExpression);
+            OgnlContext context = new OgnlContext(null, null, MEMBER_ACCESS);
+            return Ognl.getValue(exprTree, context, root);
         } catch (Exception e) {
             throw ExceptionUtils.toRuntimeException(e);
         }
     }
 
     public static FxQuery analysisSQL(String fragmentString) {
+        try {
+            return new DefaultFxQuery(PLAN_CACHE.get(fragmentString, DefaultFxQuery::doAnalysisSQL));
+        } catch (Exception e) {
+            throw ExceptionUtils.toRuntimeException(e);
+        }
+    }
+
+    private static DefaultFxQuery doAnalysisSQL(String fragmentString) {
         final DefaultFxQuery fxSql = new DefaultFxQuery();
         final String result = new GenericTokenParser(new String[] { "#{", "${" }, "}", (builder, token, content) -> {
             fxSql.appendString(builder.toString());
@@ -163,6 +196,6 @@ public class DefaultFxQuery extends HashMap<Class<?>, Object> implements Cloneab
 
     @Override
     public FxQuery clone() {
-        return DefaultFxQuery.analysisSQL(this.queryStringOri.toString());
+        return new DefaultFxQuery(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.fx.db.fxquery;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 以原始文本为 Key 的解析结果缓存（SQL 片段、OGNL 表达式、Mybatis 片段），缓存的解析结果必须是线程安全的。
+ *  - 读取只访问 ConcurrentHashMap 并设置访问标记，不持有任何锁。
+ *  - 容量超出时按 CLOCK（二次机会）算法淘汰：按写入顺序跳过最近被访问过的条目，淘汰第一个未被访问的条目（近似 LRU，均摊 O(1)）。
+ *  - 解析过程不持有锁，同一个文本在并发下可能会被解析多次，以最后一次的结果为准。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class ParseCache<V> {
+    private final int                                 maxSize;
+    private final ConcurrentHashMap<String, Entry<V>> parseCache = new ConcurrentHashMap<>();
+    private final Queue<Entry<V>>                     clockQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger                       clockSize  = new AtomicInteger();
+
+    public interface Parser<V> {
+        public V parse(String text) throws Exception;
+    }
+
+    private static class Entry<V> {
+        private final    String  text;
+        private final    V       parsed;
+        private volatile boolean accessed;
+
+        public Entry(String text, V parsed) {
+            this.text = text;
+            this.parsed = parsed;
+        }
+    }
+
+    public ParseCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /** 获取 text 的解析结果，未命中时通过 parser 解析并放入缓存（解析结果为 null 时不缓存） */
+    public V get(String text, Parser<V> parser) throws Exception {
+        Entry<V> entry = this.parseCache.get(text);
+        if (entry != null) {
+            if (!entry.accessed) {
+                entry.accessed = true;
+            }
+            return entry.parsed;
+        }
+        V parsed = parser.parse(text);
+        if (parsed == null || this.maxSize <= 0) {
+            return parsed;
+        }
+        entry = new Entry<>(text, parsed);
+        this.parseCache.put(text, entry);
+        this.clockQueue.offer(entry);
+        this.clockSize.incrementAndGet();
+        this.evictIfNecessary();
+        return parsed;
+    }
+
+    /** 容量超出时淘汰条目，被替换掉的条目只会留在队列中，队列明显大于容量时顺带清理掉它们 */
+    private void evictIfNecessary() {
+        int budget = this.clockSize.get() * 2;
+        while (budget-- > 0 && (this.parseCache.size() > this.maxSize || this.clockSize.get() > this.maxSize * 2)) {
+            Entry<V> entry = this.clockQueue.poll();
+            if (entry == null) {
+                return;
+            }
+            this.clockSize.decrementAndGet();
+            if (this.parseCache.get(entry.text) != entry) {
+                continue; // 已经被替换或清空
+            }
+            boolean overflow = this.parseCache.size() > this.maxSize;
+            if (overflow && !entry.accessed) {
+                this.parseCache.remove(entry.text, entry);
+                continue;
+            }
+            if (overflow) {
+                entry.accessed = false; // 给一次机会
+            }
+            this.clockQueue.offer(entry);
+            this.clockSize.incrementAndGet();
+        }
+    }
+
+    public int size() {
+        return this.parseCache.size();
+    }
+
+    public void clear() {
+        this.parseCache.clear();
+        this.clockQueue.clear();
+        this.clockSize.set(0);
+    }
+}
@@ -16,7 +16,9 @@
 package net.hasor.dataql.fx.db.likemybatis;
 import net.hasor.dataql.Hints;
 import net.hasor.dataql.fx.db.fxquery.FxQuery;
+import net.hasor.dataql.fx.db.fxquery.ParseCache;
 import net.hasor.dataql.fx.db.runsql.SqlFragment;
+import net.hasor.utils.ExceptionUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -25,6 +27,7 @@ import org.w3c.dom.NodeList;
 import javax.inject.Singleton;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.ByteArrayInputStream;
 import java.util.Map;
 
@@ -37,10 +40,18 @@ import java.util.Map;
  */
 @Singleton
 public class MybatisFragment extends SqlFragment {
+    private static final ParseCache<SqlNode>          SQL_NODE_CACHE   = new ParseCache<>(1024);
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw ExceptionUtils.toRuntimeException(e);
+        }
+    });
+
     @Override
     public Object runFragment(Hints hint, Map<String, Object> paramMap, String fragmentString) throws Throwable {
-        SqlNode sqlNode = parseSqlNode(fragmentString.trim());
-        FxQuery fxSql = new MybatisSqlQuery(sqlNode);
+        FxQuery fxSql = analysisSQL(hint, fragmentString);
         if (usePage(hint)) {
             return this.usePageFragment(fxSql, hint, paramMap);
         } else {
@@ -48,13 +59,19 @@ public class MybatisFragment extends SqlFragment {
         }
     }
 
-    /**
-     * 枷锁防止多线程事件
-     * @param fragmentString
-     * @throws Exception
-     */
-    private synchronized SqlNode parseSqlNode(String fragmentString) throws Exception {
-        DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    /** 解析好的 SqlNode 树以片段文本为 Key 缓存，SqlNode 树在解析完成之后只读 */
+    @Override
+    protected FxQuery analysisSQL(Hints hint, String fragmentString) {
+        try {
+            return new MybatisSqlQuery(SQL_NODE_CACHE.get(fragmentString.trim(), this::parseSqlNode));
+        } catch (Exception e) {
+            throw ExceptionUtils.toRuntimeException(e);
+        }
+    }
+
+    private SqlNode parseSqlNode(String fragmentString) throws Exception {
+        DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+        documentBuilder.reset();
         Document document = documentBuilder.parse(new ByteArrayInputStream(fragmentString.getBytes()));
         Element root = document.getDocumentElement();
         String tagName = root.getTagName();
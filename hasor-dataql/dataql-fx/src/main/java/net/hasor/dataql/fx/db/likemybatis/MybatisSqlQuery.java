@@ -16,31 +16,59 @@
 package net.hasor.dataql.fx.db.likemybatis;
 import net.hasor.dataql.fx.db.fxquery.DefaultFxQuery;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * SqlNode 树是多线程共享的，生成的 SQL 和参数都是每次调用时单独生成的。
  * @author jmxd
  * @version : 2020-05-18
  */
 class MybatisSqlQuery extends DefaultFxQuery {
-    private SqlNode sqlNode;
+    private final SqlNode sqlNode;
+    private final boolean dynamicSql;
 
     public MybatisSqlQuery(SqlNode sqlNode) {
         this.sqlNode = sqlNode;
+        this.dynamicSql = isDynamic(sqlNode);
     }
 
+    /** 含有 if/foreach/trim/set/where 或者 ${} 的 SQL 每次生成的语句可能不一样，不能使用批量模式 */
+    @Override
+    public boolean isHavePlaceholder() {
+        return this.dynamicSql;
+    }
+
+    /** SQL 和参数都按照传入的 context 当时的内容生成，不做缓存（同一个 context 在两次调用之间可能会被修改） */
     @Override
     public String buildQueryString(Object context) {
-        if (context instanceof Map) {
-            return sqlNode.getSql((Map<String, Object>) context);
-        } else {
-            throw new IllegalArgumentException("context must be instance of Map");
-        }
+        return this.sqlNode.getSql(toContextMap(context), new ArrayList<>());
     }
 
     @Override
     public List<Object> buildParameterSource(Object context) {
-        return this.sqlNode.getParameters();
+        List<Object> parameters = new ArrayList<>();
+        this.sqlNode.getSql(toContextMap(context), parameters);
+        return parameters;
+    }
+
+    private static Map<String, Object> toContextMap(Object context) {
+        if (!(context instanceof Map)) {
+            throw new IllegalArgumentException("context must be instance of Map");
+        }
+        return (Map<String, Object>) context;
+    }
+
+    private static boolean isDynamic(SqlNode sqlNode) {
+        if (!(sqlNode instanceof TextSqlNode) || ((TextSqlNode) sqlNode).isHavePlaceholder()) {
+            return true;
+        }
+        for (SqlNode node : sqlNode.nodes) {
+            if (isDynamic(node)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
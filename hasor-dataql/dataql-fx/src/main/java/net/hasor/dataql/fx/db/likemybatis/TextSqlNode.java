@@ -17,41 +17,83 @@ package net.hasor.dataql.fx.db.likemybatis;
 import net.hasor.dataql.fx.db.fxquery.DefaultFxQuery;
 import net.hasor.utils.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * 普通SQL节点
+ * 普通SQL节点，#{}、${} 表达式在创建节点时预先拆分好。
  * @author jmxd
  * @version : 2020-05-18
  */
 public class TextSqlNode extends SqlNode {
+    /** 同时提取 #{}、${} 的正则 */
+    private static final Pattern      tokenRegx = Pattern.compile("([#$])\\{(.*?)\\}");
     /** SQL */
-    private String text;
+    private final        String       text;
+    /** 拆分之后的 SQL 片段：String 为普通文本，Token 为表达式 */
+    private final        List<Object> segments  = new ArrayList<>();
+    /** 是否含有 ${} 表达式 */
+    private              boolean      havePlaceholder;
+
+    private static class Token {
+        private final boolean placeholder;
+        private final String  expression;
+
+        public Token(boolean placeholder, String expression) {
+            this.placeholder = placeholder;
+            this.expression = expression;
+        }
+    }
 
     public TextSqlNode(String text) {
         this.text = text;
+        if (StringUtils.isNotBlank(text)) {
+            Matcher matcher = tokenRegx.matcher(text);
+            int lastEnd = 0;
+            while (matcher.find()) {
+                if (matcher.start() > lastEnd) {
+                    this.segments.add(text.substring(lastEnd, matcher.start()));
+                }
+                boolean placeholder = "$".equals(matcher.group(1));
+                this.segments.add(new Token(placeholder, matcher.group(2)));
+                this.havePlaceholder = this.havePlaceholder || placeholder;
+                lastEnd = matcher.end();
+            }
+            if (lastEnd < text.length()) {
+                this.segments.add(text.substring(lastEnd));
+            }
+        } else if (text != null) {
+            this.segments.add(text);
+        }
+    }
+
+    /** 是否含有 ${} 表达式 */
+    public boolean isHavePlaceholder() {
+        return this.havePlaceholder;
     }
 
     @Override
     public String getSql(Map<String, Object> paramMap, List<Object> parameters) {
-        String sql = text;
-        if (StringUtils.isNotBlank(text)) {
-            // 提取#{}表达式
-            List<String> expressions = extractParameter(expressionRegx, text);
-            for (String expression : expressions) {
-                // 执行表达式
-                Object val = DefaultFxQuery.evalOgnl(expression, paramMap);
-                parameters.add(val);
-                sql = sql.replaceFirst(expressionRegx.pattern(), "?");
+        StringBuilder sql = new StringBuilder();
+        for (Object segment : this.segments) {
+            if (!(segment instanceof Token)) {
+                sql.append(segment);
+                continue;
             }
-            expressions = extractParameter(replaceRegx, text);
-            for (String expression : expressions) {
-                Object val = DefaultFxQuery.evalOgnl(expression, paramMap);
-                sql = sql.replaceFirst(replaceRegx.pattern(), Objects.toString(val, ""));
+            // 执行表达式
+            Token token = (Token) segment;
+            Object val = DefaultFxQuery.evalOgnl(token.expression, paramMap);
+            if (token.placeholder) {
+                sql.append(Objects.toString(val, ""));
+            } else {
+                parameters.add(val);
+                sql.append("?");
             }
         }
-        return sql + executeChildren(paramMap, parameters).trim();
+        return sql.append(executeChildren(paramMap, parameters).trim()).toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.fx.db.runsql;
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分页查询总记录数的缓存，以实际使用的 DataSource、count 语句和参数为 Key，缓存项在 TTL 之后失效。
+ *  - 缓存的总记录数是一个近似值，缓存期间数据的增删不会反映到 totalCount 上。
+ *  - 容量超出时先清理已失效的条目，仍然超出时清空缓存。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+class PageCountCache {
+    private final int                       maxSize;
+    private final Map<CountKey, CountEntry> countCache = new ConcurrentHashMap<>();
+
+    PageCountCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /** 获取缓存的总记录数，不存在或者已经失效时返回 null */
+    public Integer get(DataSource dataSource, String countSql, Object[] params) {
+        CountKey countKey = new CountKey(dataSource, countSql, params);
+        CountEntry entry = this.countCache.get(countKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireTime < System.currentTimeMillis()) {
+            this.countCache.remove(countKey, entry);
+            return null;
+        }
+        return entry.totalCount;
+    }
+
+    /** 缓存总记录数，ttl 单位为毫秒 */
+    public void put(DataSource dataSource, String countSql, Object[] params, int totalCount, long ttl) {
+        if (ttl <= 0) {
+            return;
+        }
+        CountKey countKey = new CountKey(dataSource, countSql, params);
+        this.countCache.put(countKey, new CountEntry(totalCount, System.currentTimeMillis() + ttl));
+        if (this.countCache.size() > this.maxSize) {
+            this.evictExpired();
+        }
+    }
+
+    public int size() {
+        return this.countCache.size();
+    }
+
+    public void clear() {
+        this.countCache.clear();
+    }
+
+    private void evictExpired() {
+        long currentTime = System.currentTimeMillis();
+        this.countCache.values().removeIf(entry -> entry.expireTime < currentTime);
+        if (this.countCache.size() > this.maxSize) {
+            this.clear();
+        }
+    }
+
+    private static class CountEntry {
+        private final int  totalCount;
+        private final long expireTime;
+
+        public CountEntry(int totalCount, long expireTime) {
+            this.totalCount = totalCount;
+            this.expireTime = expireTime;
+        }
+    }
+
+    private static class CountKey {
+        private final DataSource dataSource;
+        private final String     countSql;
+        private final Object[]   params;
+        private final int        hashCode;
+
+        public CountKey(DataSource dataSource, String countSql, Object[] params) {
+            this.dataSource = dataSource;
+            this.countSql = countSql;
+            this.params = params;
+            this.hashCode = 31 * (31 * System.identityHashCode(dataSource) + countSql.hashCode()) + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CountKey)) {
+                return false;
+            }
+            CountKey countKey = (CountKey) o;
+            return this.hashCode == countKey.hashCode &&//
+                    this.dataSource == countKey.dataSource &&//
+                    this.countSql.equals(countKey.countSql) &&//
+                    Arrays.deepEquals(this.params, countKey.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
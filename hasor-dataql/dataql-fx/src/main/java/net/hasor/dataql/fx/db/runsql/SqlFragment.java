@@ -17,6 +17,7 @@ package net.hasor.dataql.fx.db.runsql;
 import net.hasor.core.AppContext;
 import net.hasor.core.BindInfo;
 import net.hasor.core.spi.SpiTrigger;
+import net.hasor.dataql.DataStreamScope;
 import net.hasor.dataql.FragmentProcess;
 import net.hasor.dataql.Hints;
 import net.hasor.dataql.fx.FxHintNames;
@@ -30,11 +31,15 @@ import net.hasor.dataql.fx.db.fxquery.DefaultFxQuery;
 import net.hasor.dataql.fx.db.fxquery.FxQuery;
 import net.hasor.dataql.fx.db.runsql.dialect.SqlPageDialect;
 import net.hasor.db.JdbcUtils;
+import net.hasor.db.datasource.DataSourceManager;
 import net.hasor.db.jdbc.*;
 import net.hasor.db.jdbc.core.ArgPreparedStatementSetter;
 import net.hasor.db.jdbc.core.JdbcTemplate;
 import net.hasor.db.jdbc.extractor.RowMapperResultSetExtractor;
 import net.hasor.db.jdbc.mapper.ColumnMapRowMapper;
+import net.hasor.db.transaction.Propagation;
+import net.hasor.db.transaction.TranManager;
+import net.hasor.db.transaction.TransactionCallback;
 import net.hasor.utils.StringUtils;
 import net.hasor.utils.io.IOUtils;
 
@@ -50,6 +55,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static net.hasor.dataql.fx.FxHintNames.*;
@@ -68,8 +74,14 @@ public class SqlFragment implements FragmentProcess {
     protected AppContext              appContext;
     @Inject
     protected SpiTrigger              spiTrigger;
+    @Inject
+    protected SqlResultCache          resultCache;
     private   DataSource              defaultDataSource;
     private   Map<String, DataSource> dataSourceMap;
+    /** 自动推断出来的方言，以 DataSource 为 Key 缓存，避免每次分页查询都要获取连接读取元信息 */
+    private   Map<DataSource, String> dialectCache   = Collections.synchronizedMap(new WeakHashMap<>());
+    /** 分页查询总记录数的缓存，仅在设置了 FRAGMENT_SQL_QUERY_BY_PAGE_COUNT_CACHE_TTL 时使用 */
+    private   PageCountCache          pageCountCache = new PageCountCache(1024);
 
     /** SqlMode 目前只会在 '批量' 和 '分页' 两个场景下才参与判断。 */
     public static enum SqlMode {
@@ -149,39 +161,75 @@ public class SqlFragment implements FragmentProcess {
         if (params.size() == 1) {
             return Collections.singletonList(this.runFragment(hint, params.get(0), fragmentString));
         }
-        // 有占位符 或者 Insert/Update/Delete 之外的
+        // 按照最终执行的 SQL 分组（含有占位符时每一行的 SQL 可能不一样），每一组各自执行批量
         FxQuery fxSql = analysisSQL(hint, fragmentString);
-        String tempFragmentString = fxSql.buildQueryString(params.get(0));
-        boolean useBatch = true;
-        if (fxSql.isHavePlaceholder()) {
-            // 分析SQL后如果含有占位符：退化为 非批量（占位符会导致每次执行的SQL语句可能不一样）
-            useBatch = false;
-        } else {
-            // Insert/Update/Delete 语句之外的：退化为 非批量
-            SqlMode sqlMode = evalSqlMode(tempFragmentString);
-            useBatch = (SqlMode.Insert == sqlMode || SqlMode.Update == sqlMode || SqlMode.Delete == sqlMode);
+        Map<String, List<Integer>> sqlGroups = new LinkedHashMap<>();
+        String firstQueryString = fxSql.buildQueryString(params.get(0));
+        for (int i = 0; i < params.size(); i++) {
+            String queryString = fxSql.isHavePlaceholder() ? fxSql.buildQueryString(params.get(i)) : firstQueryString;
+            sqlGroups.computeIfAbsent(queryString, key -> new ArrayList<>()).add(i);
         }
         //
-        // --- 非批量模式
-        if (!useBatch) {
-            List<Object> resultList = new ArrayList<>(params.size());
-            for (Map<String, Object> paramItem : params) {
-                if (usePage(hint)) {
-                    resultList.add(this.usePageFragment(fxSql, hint, paramItem));
-                } else {
-                    resultList.add(this.noPageFragment(fxSql, hint, paramItem));
+        String sourceName = hint.getOrDefault(FRAGMENT_SQL_DATA_SOURCE.name(), "").toString();
+        return this.executeInTransaction(sourceName, tranStatus -> {
+            return this.batchRunGroups(hint, params, fxSql, sqlGroups, sourceName);
+        });
+    }
+
+    /**
+     * 在同一个事务中执行批量的全部分组和分段，任何一次执行失败都会使整个批量回滚。
+     *  - 当前线程已经开启了该数据源的事务时加入这个事务（Propagation.REQUIRED），全部分组和分段都使用事务所在的连接。
+     *  - 通过 LookupConnectionListener 提供的连接由提供方负责事务，此时直接执行。
+     */
+    protected <T> T executeInTransaction(String sourceName, TransactionCallback<T> callback) throws Throwable {
+        JdbcTemplate jdbcTemplate = this.getJdbcTemplate(sourceName);
+        if (jdbcTemplate.getConnection() != null) {
+            return callback.doTransaction(null);
+        }
+        return TranManager.getTemplate(jdbcTemplate.getDataSource()).execute(callback, Propagation.REQUIRED);
+    }
+
+    /** 按照分组执行批量，每一组再按照 batchSize 分段执行，结果按照参数原有的顺序返回 */
+    private List<Object> batchRunGroups(Hints hint, List<Map<String, Object>> params, FxQuery fxSql, Map<String, List<Integer>> sqlGroups, String sourceName) throws Throwable {
+        int batchSize = useBatchSize(hint);
+        Object[] resultArrays = new Object[params.size()];
+        for (Map.Entry<String, List<Integer>> sqlGroup : sqlGroups.entrySet()) {
+            String queryString = sqlGroup.getKey();
+            List<Integer> rowIndexes = sqlGroup.getValue();
+            //
+            // --- 非批量模式：Insert/Update/Delete 语句之外的退化为逐条执行
+            SqlMode sqlMode = evalSqlMode(queryString);
+            if (!(SqlMode.Insert == sqlMode || SqlMode.Update == sqlMode || SqlMode.Delete == sqlMode)) {
+                for (int rowIndex : rowIndexes) {
+                    Map<String, Object> paramItem = params.get(rowIndex);
+                    if (usePage(hint)) {
+                        resultArrays[rowIndex] = this.usePageFragment(fxSql, hint, paramItem);
+                    } else {
+                        resultArrays[rowIndex] = this.noPageFragment(fxSql, hint, paramItem);
+                    }
+                }
+                continue;
+            }
+            //
+            // --- 批量模式：按照 batchSize 分段执行，结果按照参数原有的顺序放回
+            int chunkSize = batchSize > 0 ? batchSize : rowIndexes.size();
+            for (int from = 0; from < rowIndexes.size(); from += chunkSize) {
+                List<Integer> chunkIndexes = rowIndexes.subList(from, Math.min(from + chunkSize, rowIndexes.size()));
+                Object[] batchParam = chunkIndexes.stream().map(rowIndex -> {
+                    return fxSql.buildParameterSource(params.get(rowIndex)).toArray();
+                }).toArray();
+                List<Object> batchResult = this.executeBatch(sourceName, queryString, batchParam);
+                for (int i = 0; i < chunkIndexes.size(); i++) {
+                    resultArrays[chunkIndexes.get(i)] = batchResult.get(i);
                 }
             }
-            return resultList;
         }
-        //
-        // --- 批量模式
-        List<Object[]> batchParam = params.stream().map(preparedParams -> {
-            return fxSql.buildParameterSource(preparedParams).toArray();
-        }).collect(Collectors.toList());
-        String sourceName = hint.getOrDefault(FRAGMENT_SQL_DATA_SOURCE.name(), "").toString();
-        //
-        return this.executeSQL(true, sourceName, tempFragmentString, batchParam.toArray(), new SqlQuery<List<Object>>() {
+        return Arrays.asList(resultArrays);
+    }
+
+    /** 使用 JDBC 批量执行同一条 SQL，返回每一组参数的影响行数 */
+    protected List<Object> executeBatch(String sourceName, String queryString, Object[] batchParam) throws SQLException {
+        return this.executeSQL(true, sourceName, queryString, batchParam, new SqlQuery<List<Object>>() {
             public List<Object> doQuery(String querySQL, Object[] params, JdbcTemplate useJdbcTemplate) throws SQLException {
                 PreparedStatementSetter[] parameterArrays = Arrays.stream(params).map(o -> {
                     return new ArgPreparedStatementSetter((Object[]) o);
@@ -203,8 +251,16 @@ public class SqlFragment implements FragmentProcess {
     @Override
     public Object runFragment(Hints hint, Map<String, Object> paramMap, String fragmentString) throws Throwable {
         FxQuery fxSql = analysisSQL(hint, fragmentString);
-        if (usePage(hint) && evalSqlMode(fragmentString) == SqlMode.Query) {
-            return this.usePageFragment(fxSql, hint, paramMap);
+        boolean usePage = usePage(hint);
+        boolean useStream = !usePage && useStream(hint);
+        if ((usePage || useStream) && evalSqlMode(fragmentString) == SqlMode.Query) {
+            if (usePage) {
+                return this.usePageFragment(fxSql, hint, paramMap);
+            } else {
+                return this.streamFragment(fxSql, hint, paramMap);
+            }
+        } else if (useCache(hint) > 0 && evalSqlMode(fragmentString) == SqlMode.Query) {
+            return this.cacheFragment(fxSql, hint, paramMap, fragmentString);
         } else {
             return this.noPageFragment(fxSql, hint, paramMap);
         }
@@ -216,11 +272,7 @@ public class SqlFragment implements FragmentProcess {
         String sqlDialect = hints.getOrDefault(FRAGMENT_SQL_PAGE_DIALECT.name(), "").toString();
         if (StringUtils.isBlank(sqlDialect)) {
             String useDataSource = hints.getOrDefault(FRAGMENT_SQL_DATA_SOURCE.name(), "").toString();
-            sqlDialect = getJdbcTemplate(useDataSource).execute((ConnectionCallback<String>) con -> {
-                String jdbcUrl = con.getMetaData().getURL();
-                String jdbcDriverName = con.getMetaData().getDriverName();
-                return JdbcUtils.getDbType(jdbcUrl, jdbcDriverName);
-            });
+            sqlDialect = this.evalDialect(getJdbcTemplate(useDataSource));
             if (StringUtils.isBlank(sqlDialect)) {
                 throw new IllegalArgumentException("Query dialect missing.");
             }
@@ -235,6 +287,38 @@ public class SqlFragment implements FragmentProcess {
         return new SqlPageObject(hints, fxSql, paramMap, pageDialect, this);
     }
 
+    /**
+     * 查询实际使用的 DataSource，作为方言、总记录数和查询结果缓存的 Key。
+     * 同一个数据源名称可能被 SPI 路由到不同的数据库（例如：按租户），因此缓存不能以名称为 Key。
+     * 通过 LookupConnectionListener 提供的连接无法确定指向哪个数据库，此时返回 null 表示不做缓存。
+     */
+    static DataSource cacheDataSource(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.getConnection() == null ? jdbcTemplate.getDataSource() : null;
+    }
+
+    /** 通过连接的元信息推断方言，通过 DataSource 查询时推断结果会被缓存 */
+    protected String evalDialect(JdbcTemplate jdbcTemplate) throws SQLException {
+        DataSource dataSource = cacheDataSource(jdbcTemplate);
+        String sqlDialect = (dataSource == null) ? null : this.dialectCache.get(dataSource);
+        if (sqlDialect != null) {
+            return sqlDialect;
+        }
+        sqlDialect = jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            String jdbcUrl = con.getMetaData().getURL();
+            String jdbcDriverName = con.getMetaData().getDriverName();
+            return JdbcUtils.getDbType(jdbcUrl, jdbcDriverName);
+        });
+        if (dataSource != null && StringUtils.isNotBlank(sqlDialect)) {
+            this.dialectCache.put(dataSource, sqlDialect);
+        }
+        return sqlDialect;
+    }
+
+    /** 分页查询总记录数的缓存 */
+    PageCountCache getPageCountCache() {
+        return this.pageCountCache;
+    }
+
     /** 非分页模式 */
     protected Object noPageFragment(FxQuery fxSql, Hints hint, Map<String, Object> paramMap) throws Throwable {
         // 获取必要的参数
@@ -243,49 +327,112 @@ public class SqlFragment implements FragmentProcess {
         Object[] buildQueryParams = fxSql.buildParameterSource(paramMap).toArray();
         // 使用 preparedCallback 执行查询
         return this.executeSQL(useSourceName, buildQueryString, buildQueryParams, (queryString, queryParams, useJdbcTemplate) -> {
-            // 准备 preparedCallback
-            PreparedStatementCallback<Object> preparedCallback = ps -> {
-                // 接收返回结果使用
-                List<Object> resultDataSet = new ArrayList<>();
-                String keepType = hint.getOrDefault(FRAGMENT_SQL_MULTIPLE_QUERIES.name(), FRAGMENT_SQL_MULTIPLE_QUERIES_LAST).toString();
-                // 设置请求参数
-                new ArgPreparedStatementSetter(queryParams).setValues(ps);
-                //
-                // 执行多Sql执行，并处理第一个结果
-                if (ps.execute()) {
-                    // -- 第一个结果是个结果集
-                    ResultSet resultSet = ps.getResultSet();
-                    // -- 结果
-                    resultDataSet.add(dataExtractor(hint, resultSet));
-                } else {
-                    // -- 第一个结果是个影响行数
-                    resultDataSet.add(ps.getUpdateCount());
+            return this.doNoPageQuery(hint, queryString, queryParams, useJdbcTemplate);
+        });
+    }
+
+    /** 缓存模式，缓存以实际使用的 DataSource 和拦截之后最终执行的 SQL 为准（见 SqlResultCache），通过 SPI 提供的连接查询时不缓存 */
+    protected Object cacheFragment(FxQuery fxSql, Hints hint, Map<String, Object> paramMap, String fragmentString) throws Throwable {
+        String useSourceName = hint.getOrDefault(FRAGMENT_SQL_DATA_SOURCE.name(), "").toString();
+        String buildQueryString = fxSql.buildQueryString(paramMap);
+        Object[] buildQueryParams = fxSql.buildParameterSource(paramMap).toArray();
+        long cacheTtl = useCache(hint);
+        return this.executeSQL(useSourceName, buildQueryString, buildQueryParams, (queryString, queryParams, useJdbcTemplate) -> {
+            DataSource dataSource = cacheDataSource(useJdbcTemplate);
+            if (dataSource == null) {
+                return this.doNoPageQuery(hint, queryString, queryParams, useJdbcTemplate);
+            }
+            return this.resultCache.get(fragmentString, useSourceName, dataSource, queryString, queryParams, cacheTtl, () -> {
+                return this.doNoPageQuery(hint, queryString, queryParams, useJdbcTemplate);
+            });
+        });
+    }
+
+    /** 执行非分页查询，支持多条 SQL 同时执行 */
+    protected Object doNoPageQuery(Hints hint, String queryString, Object[] queryParams, JdbcTemplate useJdbcTemplate) throws SQLException {
+        // 准备 preparedCallback
+        PreparedStatementCallback<Object> preparedCallback = ps -> {
+            // 接收返回结果使用
+            List<Object> resultDataSet = new ArrayList<>();
+            String keepType = hint.getOrDefault(FRAGMENT_SQL_MULTIPLE_QUERIES.name(), FRAGMENT_SQL_MULTIPLE_QUERIES_LAST).toString();
+            // 设置请求参数
+            new ArgPreparedStatementSetter(queryParams).setValues(ps);
+            //
+            // 执行多Sql执行，并处理第一个结果
+            if (ps.execute()) {
+                // -- 第一个结果是个结果集
+                ResultSet resultSet = ps.getResultSet();
+                // -- 结果
+                resultDataSet.add(dataExtractor(hint, resultSet));
+            } else {
+                // -- 第一个结果是个影响行数
+                resultDataSet.add(ps.getUpdateCount());
+            }
+            //
+            // 接收其它结果
+            while (ps.getMoreResults()) {
+                ResultSet resultSet = ps.getResultSet();
+                if (FRAGMENT_SQL_MULTIPLE_QUERIES_FIRST.equalsIgnoreCase(keepType)) {
+                    continue;
                 }
-                //
-                // 接收其它结果
-                while (ps.getMoreResults()) {
-                    ResultSet resultSet = ps.getResultSet();
-                    if (FRAGMENT_SQL_MULTIPLE_QUERIES_FIRST.equalsIgnoreCase(keepType)) {
-                        continue;
-                    }
-                    if (FRAGMENT_SQL_MULTIPLE_QUERIES_LAST.equalsIgnoreCase(keepType)) {
-                        resultDataSet.set(0, dataExtractor(hint, resultSet));
-                        continue;
-                    }
-                    if (FRAGMENT_SQL_MULTIPLE_QUERIES_ALL.equalsIgnoreCase(keepType)) {
-                        resultDataSet.add(dataExtractor(hint, resultSet));
-                        continue;
-                    }
+                if (FRAGMENT_SQL_MULTIPLE_QUERIES_LAST.equalsIgnoreCase(keepType)) {
+                    resultDataSet.set(0, dataExtractor(hint, resultSet));
+                    continue;
                 }
-                // 返回结果
-                if (resultDataSet.size() <= 1) {
-                    return resultDataSet.get(0);
-                } else {
-                    return resultDataSet;
+                if (FRAGMENT_SQL_MULTIPLE_QUERIES_ALL.equalsIgnoreCase(keepType)) {
+                    resultDataSet.add(dataExtractor(hint, resultSet));
+                    continue;
                 }
-            };
-            // 执行查询
-            return useJdbcTemplate.execute(queryString, preparedCallback);
+            }
+            // 返回结果
+            if (resultDataSet.size() <= 1) {
+                return resultDataSet.get(0);
+            } else {
+                return resultDataSet;
+            }
+        };
+        // 执行查询
+        return useJdbcTemplate.execute(queryString, preparedCallback);
+    }
+
+    /**
+     * 流模式，返回只能遍历一次的数据流（{@link net.hasor.dataql.DataStream}），结果集在遍历时逐行读取。
+     *  - 数据流的生命周期超出了本次调用，因此通过 DataSource 查询时会使用一个独立的连接（看不到当前线程中未提交的事务数据），
+     *    数据读取完毕、数据流关闭或者所在的 {@link DataStreamScope} 关闭时释放（即使数据流从未被遍历）。
+     *  - 当前线程没有开启 DataStreamScope 时没有人负责逐条消费和关闭数据流，此时退化为非分页模式，直接返回全部数据。
+     *  - 通过 LookupConnectionListener 提供的连接由提供方负责释放。
+     */
+    protected Object streamFragment(FxQuery fxSql, Hints hint, Map<String, Object> paramMap) throws Throwable {
+        if (!DataStreamScope.isOpen()) {
+            return this.noPageFragment(fxSql, hint, paramMap);
+        }
+        // 获取必要的参数
+        String useSourceName = hint.getOrDefault(FRAGMENT_SQL_DATA_SOURCE.name(), "").toString();
+        String buildQueryString = fxSql.buildQueryString(paramMap);
+        Object[] buildQueryParams = fxSql.buildParameterSource(paramMap).toArray();
+        FxHintNames fetchSizeHint = FxHintNames.FRAGMENT_SQL_QUERY_BY_STREAM_FETCH_SIZE;
+        int fetchSize = Integer.parseInt(hint.getOrDefault(fetchSizeHint.name(), fetchSizeHint.getDefaultVal()).toString());
+        Function<Map<String, Object>, Map<String, Object>> caseConvert = columnCaseConvert(hint);
+        Function<Map<String, Object>, Map<String, Object>> rowConvert = (caseConvert == null) ? Function.identity() : caseConvert;
+        //
+        return this.executeSQL(useSourceName, buildQueryString, buildQueryParams, (queryString, queryParams, useJdbcTemplate) -> {
+            Connection connection = useJdbcTemplate.getConnection();
+            boolean releaseConnection = connection == null;
+            if (releaseConnection) {
+                connection = DataSourceManager.newConnection(useJdbcTemplate.getDataSource());
+            }
+            PreparedStatement statement = null;
+            ResultSet resultSet = null;
+            try {
+                statement = connection.prepareStatement(queryString, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                new ArgPreparedStatementSetter(queryParams).setValues(statement);
+                resultSet = statement.executeQuery();
+                return DataStreamScope.register(new SqlResultStream(connection, releaseConnection, statement, resultSet, rowConvert));
+            } catch (SQLException | RuntimeException e) {
+                SqlResultStream.closeQuietly(resultSet, statement, releaseConnection ? connection : null);
+                throw e;
+            }
         });
     }
 
@@ -328,26 +475,10 @@ public class SqlFragment implements FragmentProcess {
     /** 结果转换 */
     protected Object convertResult(Hints hint, List<Map<String, Object>> mapList) {
         String openPackage = hint.getOrDefault(FxHintNames.FRAGMENT_SQL_OPEN_PACKAGE.name(), FxHintNames.FRAGMENT_SQL_OPEN_PACKAGE.getDefaultVal()).toString();
-        String caseModule = hint.getOrDefault(FxHintNames.FRAGMENT_SQL_COLUMN_CASE.name(), FxHintNames.FRAGMENT_SQL_COLUMN_CASE.getDefaultVal()).toString();
-        if (!FRAGMENT_SQL_COLUMN_CASE_DEFAULT.equalsIgnoreCase(caseModule)) {
-            final boolean toUpper = FRAGMENT_SQL_COLUMN_CASE_UPPER.equalsIgnoreCase(caseModule);
-            final boolean toLower = FRAGMENT_SQL_COLUMN_CASE_LOWER.equalsIgnoreCase(caseModule);
-            final boolean toHump = FRAGMENT_SQL_COLUMN_CASE_HUMP.equalsIgnoreCase(caseModule);
-            //
+        Function<Map<String, Object>, Map<String, Object>> rowConvert = columnCaseConvert(hint);
+        if (rowConvert != null) {
             for (int i = 0; i < mapList.size(); i++) {
-                Map<String, Object> newMap = new LinkedHashMap<>();
-                mapList.get(i).forEach((key, value) -> {
-                    if (toUpper) {
-                        newMap.put(key.toUpperCase(), value);
-                    } else if (toLower) {
-                        newMap.put(key.toLowerCase(), value);
-                    } else if (toHump) {
-                        newMap.put(StringUdfSource.lineToHump(key.toLowerCase()), value);
-                    } else {
-                        newMap.put(key, value);
-                    }
-                });
-                mapList.set(i, newMap);
+                mapList.set(i, rowConvert.apply(mapList.get(i)));
             }
         }
         //
@@ -379,6 +510,32 @@ public class SqlFragment implements FragmentProcess {
         return rowObject;
     }
 
+    /** 列名的大小写转换，模式为 default 时返回 null */
+    protected Function<Map<String, Object>, Map<String, Object>> columnCaseConvert(Hints hint) {
+        String caseModule = hint.getOrDefault(FxHintNames.FRAGMENT_SQL_COLUMN_CASE.name(), FxHintNames.FRAGMENT_SQL_COLUMN_CASE.getDefaultVal()).toString();
+        if (FRAGMENT_SQL_COLUMN_CASE_DEFAULT.equalsIgnoreCase(caseModule)) {
+            return null;
+        }
+        final boolean toUpper = FRAGMENT_SQL_COLUMN_CASE_UPPER.equalsIgnoreCase(caseModule);
+        final boolean toLower = FRAGMENT_SQL_COLUMN_CASE_LOWER.equalsIgnoreCase(caseModule);
+        final boolean toHump = FRAGMENT_SQL_COLUMN_CASE_HUMP.equalsIgnoreCase(caseModule);
+        return rowData -> {
+            Map<String, Object> newMap = new LinkedHashMap<>();
+            rowData.forEach((key, value) -> {
+                if (toUpper) {
+                    newMap.put(key.toUpperCase(), value);
+                } else if (toLower) {
+                    newMap.put(key.toLowerCase(), value);
+                } else if (toHump) {
+                    newMap.put(StringUdfSource.lineToHump(key.toLowerCase()), value);
+                } else {
+                    newMap.put(key, value);
+                }
+            });
+            return newMap;
+        };
+    }
+
     /** 判断是否需要分页 */
     protected boolean usePage(Hints hint) {
         FxHintNames queryByPage = FxHintNames.FRAGMENT_SQL_QUERY_BY_PAGE;
@@ -386,10 +543,31 @@ public class SqlFragment implements FragmentProcess {
         return FRAGMENT_SQL_QUERY_BY_PAGE_ENABLE.equalsIgnoreCase(hintOrDefault.toString());
     }
 
+    /** 查询结果的缓存时间，返回 0 表示不使用缓存 */
+    protected long useCache(Hints hint) {
+        FxHintNames cacheTtl = FxHintNames.FRAGMENT_SQL_CACHE_TTL;
+        Object hintOrDefault = hint.getOrDefault(cacheTtl.name(), cacheTtl.getDefaultVal());
+        return Long.parseLong(hintOrDefault.toString());
+    }
+
+    /** 批量执行时每一批的最大条数，返回 0 表示不分批 */
+    protected int useBatchSize(Hints hint) {
+        FxHintNames batchSize = FxHintNames.FRAGMENT_SQL_BATCH_SIZE;
+        Object hintOrDefault = hint.getOrDefault(batchSize.name(), batchSize.getDefaultVal());
+        return Integer.parseInt(hintOrDefault.toString());
+    }
+
+    /** 判断是否使用流模式 */
+    protected boolean useStream(Hints hint) {
+        FxHintNames queryByStream = FxHintNames.FRAGMENT_SQL_QUERY_BY_STREAM;
+        Object hintOrDefault = hint.getOrDefault(queryByStream.name(), queryByStream.getDefaultVal());
+        return FRAGMENT_SQL_QUERY_BY_STREAM_ENABLE.equalsIgnoreCase(hintOrDefault.toString());
+    }
+
     /**
      * 尝试推断SQL语句类型（仅在分页、批量场景下有作用）
      *  - Query 可以执行分页，其它类型语句会退化。
-     *  - Insert/Update/Delete 语句之外的：退化为 非批量
+     *  - Insert/Update/Delete 语句之外的：退化为 非批量（含有占位符时以每一行最终的 SQL 来判断）
      * */
     private static SqlMode evalSqlMode(String fragmentString) throws IOException {
         List<String> readLines = IOUtils.readLines(new StringReader(fragmentString));
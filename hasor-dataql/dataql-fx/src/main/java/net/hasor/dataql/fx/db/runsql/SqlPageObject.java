@@ -19,15 +19,14 @@ import net.hasor.dataql.UdfSourceAssembly;
 import net.hasor.dataql.fx.db.fxquery.FxQuery;
 import net.hasor.dataql.fx.db.runsql.dialect.SqlPageDialect;
 import net.hasor.dataql.fx.db.runsql.dialect.SqlPageDialect.BoundSql;
+import net.hasor.dataql.fx.db.runsql.dialect.SqlPageDialect.SeekKey;
 import net.hasor.utils.convert.ConverterUtils;
 
+import javax.sql.DataSource;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
-import static net.hasor.dataql.fx.FxHintNames.FRAGMENT_SQL_DATA_SOURCE;
-import static net.hasor.dataql.fx.FxHintNames.FRAGMENT_SQL_QUERY_BY_PAGE_NUMBER_OFFSET;
+import static net.hasor.dataql.fx.FxHintNames.*;
 
 /**
  * 翻页数据，同时负责调用分页的SQL执行分页查询
@@ -44,6 +43,11 @@ class SqlPageObject implements UdfSourceAssembly {
     //
     private boolean             totalCountInited  = false;
     private int                 pageNumberOffset  = 0;
+    private long                countCacheTtl     = 0;
+    private List<SeekKey>       seekKeys          = null;
+    /**keyset 分页时，seekPage 页最后一行的排序键*/
+    private Object[]            seekValues        = null;
+    private int                 seekPage          = -1;
     private String              useDataSource     = null;
     private Hints               hints             = null;
     private FxQuery             fxQuery           = null;
@@ -62,6 +66,11 @@ class SqlPageObject implements UdfSourceAssembly {
                 FRAGMENT_SQL_QUERY_BY_PAGE_NUMBER_OFFSET.name(),//
                 FRAGMENT_SQL_QUERY_BY_PAGE_NUMBER_OFFSET.getDefaultVal())//
         ), Integer.TYPE);
+        this.countCacheTtl = (long) ConverterUtils.convert(String.valueOf(hints.getOrDefault(//
+                FRAGMENT_SQL_QUERY_BY_PAGE_COUNT_CACHE_TTL.name(),//
+                FRAGMENT_SQL_QUERY_BY_PAGE_COUNT_CACHE_TTL.getDefaultVal())//
+        ), Long.TYPE);
+        this.seekKeys = SeekKey.parse(hints.getOrDefault(FRAGMENT_SQL_QUERY_BY_PAGE_SEEK_KEYS.name(), "").toString());
         //
         this.useDataSource = hints.getOrDefault(FRAGMENT_SQL_DATA_SOURCE.name(), "").toString();
         this.hints = hints;
@@ -99,7 +108,18 @@ class SqlPageObject implements UdfSourceAssembly {
                     countParams,        //
                     (querySQL, params, useJdbcTemplate) -> {
                         // 不直接使用 countFxSql, paramArrays 的原因是 doQuery 被调用的时会执行 FxSqlInterceptorChainSpi 拦截器。
-                        return useJdbcTemplate.queryForInt(querySQL, params);
+                        // 缓存也以实际使用的 DataSource 和拦截之后的 SQL 为准，通过 SPI 提供的连接查询时不缓存。
+                        PageCountCache countCache = this.sourceSqlFragment.getPageCountCache();
+                        DataSource dataSource = (this.countCacheTtl > 0) ? SqlFragment.cacheDataSource(useJdbcTemplate) : null;
+                        Integer cachedCount = (dataSource != null) ? countCache.get(dataSource, querySQL, params) : null;
+                        if (cachedCount != null) {
+                            return cachedCount;
+                        }
+                        int totalCount = useJdbcTemplate.queryForInt(querySQL, params);
+                        if (dataSource != null) {
+                            countCache.put(dataSource, querySQL, params, totalCount, this.countCacheTtl);
+                        }
+                        return totalCount;
                     });
             this.totalCountInited = true;
         }
@@ -177,6 +197,9 @@ class SqlPageObject implements UdfSourceAssembly {
             put("totalPage", totalPage());
             put("currentPage", currentPage() + pageNumberOffset);
             put("recordPosition", firstRecordPosition());
+            if (!seekKeys.isEmpty()) {
+                put("seekValues", (seekValues == null) ? null : Arrays.asList(seekValues));
+            }
         }};
     }
     // ----------------------------------------------------------------------------------
@@ -194,6 +217,13 @@ class SqlPageObject implements UdfSourceAssembly {
         //FRAGMENT_SQL_QUERY_BY_PAGE_NUMBER_OFFSET
         currentPage(((Integer) ConverterUtils.convert(Integer.TYPE, currentPage) - this.pageNumberOffset));
         pageSize((Integer) ConverterUtils.convert(Integer.TYPE, pageSize));
+        //
+        // .keyset 分页时，seekValues 是上一页最后一行的排序键（来自上一次查询的 pageInfo）
+        Object seekValues = pageInfo.get("seekValues");
+        if (seekValues instanceof Collection && ((Collection<?>) seekValues).size() == this.seekKeys.size() && !this.seekKeys.isEmpty()) {
+            this.seekValues = ((Collection<?>) seekValues).toArray();
+            this.seekPage = currentPage() - 1;
+        }
         return true;
     }
 
@@ -206,11 +236,19 @@ class SqlPageObject implements UdfSourceAssembly {
             // 如果分页的页码小于0  -> 那么查询所有数据
             pageFxSql = this.fxQuery.buildQueryString(this.queryParamMap);
             pageParams = this.fxQuery.buildParameterSource(this.queryParamMap).toArray();
-        } else {
+        } else if (this.seekKeys.isEmpty()) {
             // 如果分页的页码不等于0  -> 那么执行分页查询
             BoundSql pageBoundSql = this.pageDialect.getPageSql(this.fxQuery, this.queryParamMap, firstRecordPosition(), pageSize());
             pageFxSql = pageBoundSql.getSqlString();
             pageParams = pageBoundSql.getParamMap();
+        } else {
+            // keyset 分页 -> 有上一页最后一行的排序键时直接定位，否则退化为 OFFSET
+            boolean useSeek = currentPage() > 0 && this.seekValues != null && this.seekPage == currentPage() - 1;
+            Object[] useSeekValues = useSeek ? this.seekValues : null;
+            int start = useSeek ? 0 : firstRecordPosition();
+            BoundSql pageBoundSql = this.pageDialect.getSeekPageSql(this.fxQuery, this.queryParamMap, this.seekKeys, useSeekValues, start, pageSize());
+            pageFxSql = pageBoundSql.getSqlString();
+            pageParams = pageBoundSql.getParamMap();
         }
         // 通过 doQuery 方法来执行SQL。
         return this.sourceSqlFragment.executeSQL(//
@@ -220,7 +258,29 @@ class SqlPageObject implements UdfSourceAssembly {
                 (querySQL, params, useJdbcTemplate) -> {
                     // 不直接使用 countFxSql, paramArrays 的原因是 doQuery 被调用的时会执行 FxSqlInterceptorChainSpi 拦截器。
                     List<Map<String, Object>> resultData = useJdbcTemplate.queryForList(querySQL, params);
+                    this.afterPageQuery(resultData);
                     return sourceSqlFragment.convertResult(hints, resultData);
                 });
     }
-}
\ No newline at end of file
+
+    /** 分页查询之后：记录 keyset 分页的排序键；最后一页不满时直接得出总记录数，省掉 count 查询 */
+    private void afterPageQuery(List<Map<String, Object>> resultData) {
+        int pgSize = pageSize();
+        if (pgSize < 0) {
+            return;
+        }
+        if (!this.seekKeys.isEmpty() && !resultData.isEmpty()) {
+            Map<String, Object> lastRow = resultData.get(resultData.size() - 1);
+            Object[] lastValues = new Object[this.seekKeys.size()];
+            for (int i = 0; i < lastValues.length; i++) {
+                lastValues[i] = lastRow.get(this.seekKeys.get(i).getLabel()); // 结果集的 Map 不区分列名大小写
+            }
+            this.seekValues = lastValues;
+            this.seekPage = currentPage();
+        }
+        if (!this.totalCountInited && resultData.size() < pgSize && (!resultData.isEmpty() || currentPage() == 0)) {
+            this.totalCount = firstRecordPosition() + resultData.size();
+            this.totalCountInited = true;
+        }
+    }
+}
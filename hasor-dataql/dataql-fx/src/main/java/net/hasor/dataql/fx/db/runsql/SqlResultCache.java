@@ -0,0 +1,343 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.fx.db.runsql;
+import net.hasor.core.InjectSettings;
+
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SqlFragment 查询结果的缓存（见 FRAGMENT_SQL_CACHE_TTL），以实际使用的 DataSource、最终执行的 SQL 和参数为 Key。
+ *  - 同一个 Key 并发未命中时只有一个线程执行查询，其它线程等待它的结果。
+ *  - 条目数或者权重（结果中值的个数）超出时按 CLOCK（二次机会）算法淘汰：按写入顺序清理已失效的条目，
+ *    跳过最近被访问过的条目，淘汰第一个未被访问的条目（近似 LRU，均摊 O(1)）。读取只设置访问标记不加锁。
+ *  - 缓存的结果会被多次调用共享，因此结果中的 List 和 Map 都是只读的。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@Singleton
+public class SqlResultCache {
+    @InjectSettings(value = "hasor.dataqlFx.sqlResultCache.maxSize", defaultValue = "10000")
+    private       int                             maxSize       = 10000;
+    @InjectSettings(value = "hasor.dataqlFx.sqlResultCache.maxWeight", defaultValue = "1000000")
+    private       long                            maxWeight     = 1000000;
+    private final Map<CacheKey, CacheEntry>       resultCache   = new ConcurrentHashMap<>();
+    private final Map<String, FragmentCacheStats> fragmentStats = new ConcurrentHashMap<>();
+    private final Queue<CacheEntry>               clockQueue    = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger                   clockSize     = new AtomicInteger();
+    private final AtomicLong                      totalWeight   = new AtomicLong();
+    private final AtomicLong                      evictionCount = new AtomicLong();
+    private final ReentrantLock                   evictLock     = new ReentrantLock();
+
+    public SqlResultCache() {
+    }
+
+    public SqlResultCache(int maxSize, long maxWeight) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+    }
+
+    public interface ResultLoader {
+        public Object load() throws SQLException;
+    }
+
+    /**
+     * 获取缓存的查询结果，未命中或者已经失效时通过 loader 执行查询并缓存 ttl 毫秒。
+     * @param fragmentString 查询所属的 SQL 片段，用于统计命中率
+     * @param sourceName 数据源名称，只用于按名称清除缓存（同一个名称可能对应多个 DataSource）
+     * @param dataSource 实际执行查询的 DataSource
+     */
+    public Object get(String fragmentString, String sourceName, DataSource dataSource, String sqlString, Object[] params, long ttl, ResultLoader loader) throws SQLException {
+        FragmentCacheStats stats = this.fragmentStats.computeIfAbsent(fragmentString, FragmentCacheStats::new);
+        CacheKey cacheKey = new CacheKey(dataSource, sqlString, params);
+        while (true) {
+            CacheEntry entry = this.resultCache.get(cacheKey);
+            if (entry != null && !entry.isExpired()) {
+                stats.hitCount.incrementAndGet();
+                if (!entry.accessed) {
+                    entry.accessed = true;
+                }
+                return entry.getResult();
+            }
+            // .抢到加载权的线程执行查询，没抢到的重新读取
+            CacheEntry newEntry = new CacheEntry(cacheKey, sourceName, ttl);
+            boolean isOwner = (entry == null) ? this.resultCache.putIfAbsent(cacheKey, newEntry) == null : this.resultCache.replace(cacheKey, entry, newEntry);
+            if (!isOwner) {
+                continue;
+            }
+            if (entry != null) {
+                this.removed(entry);
+            }
+            stats.missCount.incrementAndGet();
+            this.clockQueue.offer(newEntry);
+            this.clockSize.incrementAndGet();
+            Object result;
+            try {
+                result = readOnly(loader.load());
+            } catch (Throwable e) {
+                // 包括 Error 在内的任何失败都要结束 loading，否则等待这个条目的线程会一直阻塞
+                this.remove(cacheKey, newEntry);
+                newEntry.loading.completeExceptionally(e);
+                throw e;
+            }
+            long weight = weightOf(result);
+            synchronized (newEntry) {
+                newEntry.weight = weight;
+                if (!newEntry.removed) {
+                    this.totalWeight.addAndGet(weight);
+                }
+            }
+            newEntry.loading.complete(result);
+            if (weight > this.maxWeight) {
+                this.remove(cacheKey, newEntry); // 单个结果超出总权重，不缓存
+            } else {
+                this.evictIfNecessary();
+            }
+            return result;
+        }
+    }
+
+    /** 使全部缓存失效 */
+    public void invalidateAll() {
+        for (Map.Entry<CacheKey, CacheEntry> ent : this.resultCache.entrySet()) {
+            this.remove(ent.getKey(), ent.getValue());
+        }
+    }
+
+    /** 使某个数据源名称上的缓存失效（包括这个名称被路由到的全部 DataSource），默认数据源为空字符串 */
+    public void invalidate(String sourceName) {
+        for (Map.Entry<CacheKey, CacheEntry> ent : this.resultCache.entrySet()) {
+            if (ent.getValue().sourceName.equals(sourceName)) {
+                this.remove(ent.getKey(), ent.getValue());
+            }
+        }
+    }
+
+    /** 当前缓存的条目数 */
+    public int size() {
+        return this.resultCache.size();
+    }
+
+    /** 当前缓存结果的总权重 */
+    public long weight() {
+        return this.totalWeight.get();
+    }
+
+    /** 每个 SQL 片段的命中统计 */
+    public List<FragmentCacheStats> getFragmentStats() {
+        return new ArrayList<>(this.fragmentStats.values());
+    }
+
+    private void remove(CacheKey cacheKey, CacheEntry entry) {
+        if (this.resultCache.remove(cacheKey, entry)) {
+            this.removed(entry);
+        }
+    }
+
+    private void removed(CacheEntry entry) {
+        synchronized (entry) {
+            if (!entry.removed) {
+                entry.removed = true;
+                this.totalWeight.addAndGet(-entry.weight);
+            }
+        }
+    }
+
+    /**
+     * 容量超出时按写入顺序检查条目：已失效的直接清理，最近被访问过的清除访问标记后重新排队，淘汰第一个未被访问的条目。
+     * 正在加载的条目不会被淘汰。已经被删除或替换的条目只会留在队列中，队列明显大于容量时顺带清理掉它们。
+     * 仅在写入时发生，同一时间只有一个线程执行。
+     */
+    private void evictIfNecessary() {
+        if (!(this.isOverflow() || this.clockSize.get() > this.maxSize * 2) || !this.evictLock.tryLock()) {
+            return;
+        }
+        try {
+            int budget = this.clockSize.get() * 2;
+            while (budget-- > 0 && (this.isOverflow() || this.clockSize.get() > this.maxSize * 2)) {
+                CacheEntry entry = this.clockQueue.poll();
+                if (entry == null) {
+                    return;
+                }
+                this.clockSize.decrementAndGet();
+                if (this.resultCache.get(entry.cacheKey) != entry) {
+                    continue; // 已经被删除或替换
+                }
+                if (entry.isExpired() && entry.loading.isDone()) {
+                    this.remove(entry.cacheKey, entry);
+                    continue;
+                }
+                boolean overflow = this.isOverflow();
+                if (overflow && !entry.accessed && entry.loading.isDone()) {
+                    this.remove(entry.cacheKey, entry);
+                    this.evictionCount.incrementAndGet();
+                    continue;
+                }
+                if (overflow) {
+                    entry.accessed = false; // 给一次机会
+                }
+                this.clockQueue.offer(entry);
+                this.clockSize.incrementAndGet();
+            }
+        } finally {
+            this.evictLock.unlock();
+        }
+    }
+
+    private boolean isOverflow() {
+        return this.resultCache.size() > this.maxSize || this.totalWeight.get() > this.maxWeight;
+    }
+
+    /** 因为容量超出而被淘汰的次数 */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /** 结果中值的个数，作为缓存的权重 */
+    private static long weightOf(Object result) {
+        if (result instanceof Collection) {
+            long weight = 1;
+            for (Object item : (Collection<?>) result) {
+                weight += weightOf(item);
+            }
+            return weight;
+        }
+        if (result instanceof Map) {
+            return 1 + ((Map<?, ?>) result).size();
+        }
+        return 1;
+    }
+
+    /** 结果被多次调用共享，转换为只读结构 */
+    private static Object readOnly(Object result) {
+        if (result instanceof List) {
+            List<Object> readOnlyList = new ArrayList<>(((List<?>) result).size());
+            for (Object item : (List<?>) result) {
+                readOnlyList.add(readOnly(item));
+            }
+            return Collections.unmodifiableList(readOnlyList);
+        }
+        if (result instanceof Map) {
+            return Collections.unmodifiableMap((Map<?, ?>) result);
+        }
+        return result;
+    }
+
+    /** 一个 SQL 片段的缓存命中统计 */
+    public static class FragmentCacheStats {
+        private final String     fragmentString;
+        private final AtomicLong hitCount  = new AtomicLong();
+        private final AtomicLong missCount = new AtomicLong();
+
+        public FragmentCacheStats(String fragmentString) {
+            this.fragmentString = fragmentString;
+        }
+
+        public String getFragmentString() {
+            return this.fragmentString;
+        }
+
+        public long getHitCount() {
+            return this.hitCount.get();
+        }
+
+        public long getMissCount() {
+            return this.missCount.get();
+        }
+    }
+
+    private static class CacheEntry {
+        private final    CacheKey                  cacheKey;
+        private final    String                    sourceName;
+        private final    long                      expireTime;
+        private final    CompletableFuture<Object> loading = new CompletableFuture<>();
+        private volatile boolean                   accessed;
+        private          long                      weight;
+        private          boolean                   removed;
+
+        public CacheEntry(CacheKey cacheKey, String sourceName, long ttl) {
+            this.cacheKey = cacheKey;
+            this.sourceName = sourceName;
+            this.expireTime = System.currentTimeMillis() + ttl;
+        }
+
+        public boolean isExpired() {
+            return this.expireTime < System.currentTimeMillis();
+        }
+
+        /** 正在加载时等待加载完成，加载失败时抛出同样的异常 */
+        public Object getResult() throws SQLException {
+            try {
+                return this.loading.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("wait for the query result interrupted.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw (RuntimeException) cause;
+            }
+        }
+    }
+
+    private static class CacheKey {
+        private final DataSource dataSource;
+        private final String     sqlString;
+        private final Object[]   params;
+        private final int        hashCode;
+
+        public CacheKey(DataSource dataSource, String sqlString, Object[] params) {
+            this.dataSource = dataSource;
+            this.sqlString = sqlString;
+            this.params = params;
+            this.hashCode = 31 * (31 * System.identityHashCode(dataSource) + sqlString.hashCode()) + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return this.hashCode == cacheKey.hashCode &&//
+                    this.dataSource == cacheKey.dataSource &&//
+                    this.sqlString.equals(cacheKey.sqlString) &&//
+                    Arrays.deepEquals(this.params, cacheKey.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.fx.db.runsql;
+import net.hasor.dataql.DataStream;
+import net.hasor.db.jdbc.mapper.ColumnMapRowMapper;
+import net.hasor.utils.ExceptionUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * 流模式的查询结果，以游标的方式逐行读取 ResultSet。
+ *  - 只能遍历一次，数据读取完毕或者 close 时释放 ResultSet、Statement 以及持有的连接（多次 close 没有副作用）。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+class SqlResultStream implements DataStream<Map<String, Object>> {
+    private final Connection                                         connection;
+    private final boolean                                            releaseConnection; // 是否由数据流负责释放连接
+    private final PreparedStatement                                  statement;
+    private final ResultSet                                          resultSet;
+    private final Function<Map<String, Object>, Map<String, Object>> rowConvert;
+    private final ColumnMapRowMapper                                 rowMapper = new ColumnMapRowMapper();
+    private       boolean                                            opened;
+    private       boolean                                            closed;
+
+    SqlResultStream(Connection connection, boolean releaseConnection, PreparedStatement statement, ResultSet resultSet, //
+            Function<Map<String, Object>, Map<String, Object>> rowConvert) {
+        this.connection = connection;
+        this.releaseConnection = releaseConnection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowConvert = rowConvert;
+    }
+
+    @Override
+    public synchronized Iterator<Map<String, Object>> iterator() {
+        if (this.opened || this.closed) {
+            throw new IllegalStateException("the data stream has already been consumed.");
+        }
+        this.opened = true;
+        return new Iterator<Map<String, Object>>() {
+            private int     rowNum  = 0;
+            private boolean fetched = false; // 游标已经移动到下一行，但还没有被读取
+            private boolean hasNext = false;
+
+            @Override
+            public boolean hasNext() {
+                if (this.fetched) {
+                    return this.hasNext;
+                }
+                if (closed) {
+                    return false;
+                }
+                try {
+                    this.hasNext = resultSet.next();
+                    this.fetched = true;
+                    if (!this.hasNext) {
+                        close();
+                    }
+                    return this.hasNext;
+                } catch (SQLException e) {
+                    close();
+                    throw ExceptionUtils.toRuntimeException(e);
+                }
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.fetched = false;
+                try {
+                    return rowConvert.apply(rowMapper.mapRow(resultSet, this.rowNum++));
+                } catch (SQLException e) {
+                    close();
+                    throw ExceptionUtils.toRuntimeException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        closeQuietly(this.resultSet, this.statement, this.releaseConnection ? this.connection : null);
+    }
+
+    /** 依次关闭 ResultSet、Statement、Connection，忽略关闭时发生的异常 */
+    static void closeQuietly(ResultSet resultSet, PreparedStatement statement, Connection connection) {
+        for (AutoCloseable closeable : new AutoCloseable[] { resultSet, statement, connection }) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                /**/
+            }
+        }
+    }
+}
@@ -15,8 +15,10 @@
  */
 package net.hasor.dataql.fx.db.runsql.dialect;
 import net.hasor.dataql.fx.db.fxquery.FxQuery;
+import net.hasor.utils.StringUtils;
 
-import java.util.Map;
+import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * 数据库方言，针对不同数据库进行实现分页方言
@@ -30,6 +32,67 @@ public interface SqlPageDialect {
     /** 生成分页查询 SQL */
     public BoundSql getPageSql(FxQuery fxSql, Map<String, Object> paramMap, int start, int limit);
 
+    /**
+     * 生成 keyset（seek）分页查询 SQL，查询结果按照 seekKeys 排序。
+     *  - seekValues 不为空时，使用上一页最后一行的排序键定位（不再需要 OFFSET），此时 start 应当为 0。
+     *  - seekValues 为空时，退化为按照 seekKeys 排序后的 OFFSET 分页。
+     * 默认实现把原始查询包装为子查询后追加定位条件和排序，再交给 getPageSql 生成分页语句。
+     */
+    public default BoundSql getSeekPageSql(FxQuery fxSql, Map<String, Object> paramMap, List<SeekKey> seekKeys, Object[] seekValues, int start, int limit) {
+        String buildSqlString = fxSql.buildQueryString(paramMap);
+        List<Object> paramArrays = fxSql.buildParameterSource(paramMap);
+        //
+        // .(k1 > ?) OR (k1 = ? AND k2 > ?) OR ...
+        StringBuilder sqlBuilder = new StringBuilder();
+        sqlBuilder.append("SELECT * FROM (");
+        sqlBuilder.append(buildSqlString);
+        sqlBuilder.append(") SEEK_T");
+        if (seekValues != null) {
+            sqlBuilder.append(" WHERE ");
+            for (int i = 0; i < seekKeys.size(); i++) {
+                sqlBuilder.append(i == 0 ? "(" : " OR (");
+                for (int j = 0; j < i; j++) {
+                    sqlBuilder.append(seekKeys.get(j).getLabel()).append(" = ? AND ");
+                    paramArrays.add(seekValues[j]);
+                }
+                sqlBuilder.append(seekKeys.get(i).getLabel()).append(seekKeys.get(i).isDesc() ? " < ?)" : " > ?)");
+                paramArrays.add(seekValues[i]);
+            }
+        }
+        sqlBuilder.append(" ORDER BY ");
+        for (int i = 0; i < seekKeys.size(); i++) {
+            sqlBuilder.append(i == 0 ? "" : ", ").append(seekKeys.get(i).getLabel()).append(seekKeys.get(i).isDesc() ? " DESC" : " ASC");
+        }
+        //
+        final String seekSqlString = sqlBuilder.toString();
+        final Object[] seekParams = paramArrays.toArray();
+        FxQuery seekQuery = new FxQuery() {
+            private final Map<Class<?>, Object> attachMap = new HashMap<>();
+
+            public boolean isHavePlaceholder() {
+                return false;
+            }
+
+            public String buildQueryString(Object context) {
+                return seekSqlString;
+            }
+
+            public List<Object> buildParameterSource(Object context) {
+                return new ArrayList<>(Arrays.asList(seekParams));
+            }
+
+            public <T> T attach(Class<? extends T> attach, T attachValue) {
+                this.attachMap.put(attach, attachValue);
+                return attachValue;
+            }
+
+            public <T> T attach(Class<? extends T> attach) {
+                return (T) this.attachMap.get(attach);
+            }
+        };
+        return this.getPageSql(seekQuery, paramMap, start, limit);
+    }
+
     /** SQL */
     public static class BoundSql {
         private final String   sqlString;
@@ -48,4 +111,54 @@ public interface SqlPageDialect {
             return this.paramArray;
         }
     }
+
+    /** keyset 分页的排序键，格式为：<code>column [asc|desc]</code> */
+    public static class SeekKey {
+        private static final Pattern COLUMN_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)*");
+        private final        String  column;
+        private final        boolean desc;
+
+        public SeekKey(String column, boolean desc) {
+            if (!COLUMN_PATTERN.matcher(column).matches()) {
+                throw new IllegalArgumentException("seek key '" + column + "' is not a column name.");
+            }
+            this.column = column;
+            this.desc = desc;
+        }
+
+        /** 解析逗号分隔的排序键，例如：<code>create_time desc, id desc</code> */
+        public static List<SeekKey> parse(String seekKeys) {
+            List<SeekKey> keyList = new ArrayList<>();
+            if (StringUtils.isBlank(seekKeys)) {
+                return keyList;
+            }
+            for (String seekKey : seekKeys.split(",")) {
+                String[] items = seekKey.trim().split("\\s+");
+                if (items.length == 1 && StringUtils.isNotBlank(items[0])) {
+                    keyList.add(new SeekKey(items[0], false));
+                } else if (items.length == 2 && ("asc".equalsIgnoreCase(items[1]) || "desc".equalsIgnoreCase(items[1]))) {
+                    keyList.add(new SeekKey(items[0], "desc".equalsIgnoreCase(items[1])));
+                } else {
+                    throw new IllegalArgumentException("seek key '" + seekKey + "' format error.");
+                }
+            }
+            return keyList;
+        }
+
+        /** 排序列，例如：t.id */
+        public String getColumn() {
+            return this.column;
+        }
+
+        /** 去掉表别名之后的列名，在包装后的子查询和结果集中使用 */
+        public String getLabel() {
+            int index = this.column.lastIndexOf('.');
+            return (index < 0) ? this.column : this.column.substring(index + 1);
+        }
+
+        /** 是否降序 */
+        public boolean isDesc() {
+            return this.desc;
+        }
+    }
 }
\ No newline at end of file
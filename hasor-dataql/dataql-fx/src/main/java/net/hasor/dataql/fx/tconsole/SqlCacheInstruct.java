@@ -0,0 +1,75 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.fx.tconsole;
+import net.hasor.dataql.fx.db.runsql.SqlResultCache;
+import net.hasor.dataql.fx.db.runsql.SqlResultCache.FragmentCacheStats;
+import net.hasor.tconsole.TelCommand;
+import net.hasor.tconsole.TelExecutor;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.StringWriter;
+
+/**
+ * SqlFragment 查询结果缓存的查看和清除指令
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+@Singleton
+public class SqlCacheInstruct implements TelExecutor {
+    @Inject
+    private SqlResultCache resultCache;
+
+    @Override
+    public String helpInfo() {
+        return "show or clear the result cache of sql fragments.\r\n"//
+                + " - sqlcache                   (show help info.)\r\n"//
+                + " - sqlcache stats             (show hit/miss count of each cached fragment.)\r\n"//
+                + " - sqlcache clear             (clear all cached results.)\r\n"//
+                + " - sqlcache clear <dataSource> (clear cached results of the dataSource, default dataSource is '-'.)";
+    }
+
+    @Override
+    public String doCommand(TelCommand telCommand) throws Throwable {
+        StringWriter sw = new StringWriter();
+        String[] args = telCommand.getCommandArgs();
+        if (args != null && args.length > 0) {
+            String doArg = args[0];
+            if ("stats".equalsIgnoreCase(doArg)) {
+                sw.write("[SUCCEED] size = " + this.resultCache.size() + ", weight = " + this.resultCache.weight() + ", eviction = " + this.resultCache.getEvictionCount() + "\r\n");
+                for (FragmentCacheStats stats : this.resultCache.getFragmentStats()) {
+                    String fragment = stats.getFragmentString().trim().replaceAll("\\s+", " ");
+                    sw.write(" - hit = " + stats.getHitCount() + ", miss = " + stats.getMissCount() + " -> " + fragment + "\r\n");
+                }
+            } else if ("clear".equalsIgnoreCase(doArg)) {
+                if (args.length > 1) {
+                    String sourceName = "-".equals(args[1]) ? "" : args[1];
+                    this.resultCache.invalidate(sourceName);
+                    sw.write("[SUCCEED] cached results of dataSource '" + args[1] + "' cleared.");
+                } else {
+                    this.resultCache.invalidateAll();
+                    sw.write("[SUCCEED] all cached results cleared.");
+                }
+            } else {
+                sw.write("[ERROR] bad args '" + doArg + "' sqlcache command need 'stats' or 'clear'.");
+            }
+        } else {
+            sw.write(">>>>>>>>>>>>>>>>>>>>>>>>  sqlcache  <<<<<<<<<<<<<<<<<<<<<<<<\r\n");
+            sw.write(helpInfo());
+        }
+        return sw.toString();
+    }
+}
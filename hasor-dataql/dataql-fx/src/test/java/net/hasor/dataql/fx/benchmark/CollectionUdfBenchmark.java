@@ -0,0 +1,84 @@
+package net.hasor.dataql.fx.benchmark;
+import net.hasor.dataql.Hints;
+import net.hasor.dataql.fx.basic.CollectionUdfSource;
+import net.hasor.dataql.runtime.HintsSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集合函数在 10³ ~ 10⁶ 行数据上的耗时，行数据是 SQL 片段返回的 Map。
+ *  - 运行方式：直接执行 main 方法。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionUdfBenchmark {
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public  int                 rowCount;
+    private List<Object>        dataList;
+    private List<Object>        joinList;
+    private Map<String, String> joinFields;
+    private Hints               hints;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+        this.dataList = new ArrayList<>(this.rowCount);
+        this.joinList = new ArrayList<>(this.rowCount / 10);
+        for (int i = 0; i < this.rowCount; i++) {
+            Map<String, Object> rowData = new LinkedHashMap<>();
+            rowData.put("id", (long) i);
+            rowData.put("type", "type_" + (i % 100));
+            rowData.put("price", random.nextInt(100000));
+            this.dataList.add(rowData);
+            if (i % 10 == 0) {
+                Map<String, Object> joinData = new LinkedHashMap<>();
+                joinData.put("id", i);
+                joinData.put("name", "name_" + i);
+                this.joinList.add(joinData);
+            }
+        }
+        this.joinFields = Collections.singletonMap("id", "id");
+        this.hints = new HintsSet();
+    }
+
+    @Benchmark
+    public Object groupBy() throws Throwable {
+        return CollectionUdfSource.groupBy(this.dataList, "type", this.hints);
+    }
+
+    @Benchmark
+    public Object uniqueBy() throws Throwable {
+        return CollectionUdfSource.uniqueBy(this.dataList, "type", this.hints);
+    }
+
+    @Benchmark
+    public Object mapJoin() {
+        return CollectionUdfSource.mapJoin(this.dataList, this.joinList, this.joinFields);
+    }
+
+    @Benchmark
+    public Object sortBy() throws Throwable {
+        return CollectionUdfSource.sortBy(this.dataList, "price", "desc", this.hints);
+    }
+
+    @Benchmark
+    public Object topN() throws Throwable {
+        return CollectionUdfSource.topN(this.dataList, "price", 100, "desc", this.hints);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()//
+                .include(CollectionUdfBenchmark.class.getSimpleName())//
+                .build()).run();
+    }
+}
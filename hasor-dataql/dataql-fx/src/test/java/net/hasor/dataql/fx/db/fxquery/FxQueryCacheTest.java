@@ -0,0 +1,93 @@
+package net.hasor.dataql.fx.db.fxquery;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class FxQueryCacheTest {
+    private static final String SQL_STRING = "select * from ${tableName} where id = #{id} and name = #{name}";
+
+    @Test
+    public void analysis_copy_test() {
+        FxQuery fxQuery1 = DefaultFxQuery.analysisSQL(SQL_STRING);
+        FxQuery fxQuery2 = DefaultFxQuery.analysisSQL(SQL_STRING);
+        assert fxQuery1 != fxQuery2;
+        assert fxQuery1.isHavePlaceholder();
+        //
+        // .attach 的数据不会在多次分析结果之间共享
+        fxQuery1.attach(String.class, "abc");
+        assert "abc".equals(fxQuery1.attach(String.class));
+        assert fxQuery2.attach(String.class) == null;
+        //
+        Map<String, Object> context = new HashMap<>();
+        context.put("tableName", "user_info");
+        context.put("id", 1);
+        context.put("name", "$1\\a");
+        assert fxQuery1.buildQueryString(context).equals("select * from user_info where id = ? and name = ?");
+        assert fxQuery2.buildParameterSource(context).equals(Arrays.asList(1, "$1\\a"));
+        assert ((DefaultFxQuery) ((DefaultFxQuery) fxQuery1).clone()).getOriSqlString().toString().equals(SQL_STRING);
+    }
+
+    @Test
+    public void concurrent_build_test() throws Exception {
+        FxQuery fxQuery = DefaultFxQuery.analysisSQL(SQL_STRING);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                final String tableName = "t_" + i;
+                futures.add(executorService.submit(() -> {
+                    Map<String, Object> context = Collections.singletonMap("tableName", tableName);
+                    return fxQuery.buildQueryString(context).startsWith("select * from " + tableName + " where");
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assert future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void parse_cache_test() throws Exception {
+        ParseCache<String> parseCache = new ParseCache<>(2);
+        assert "A".equals(parseCache.get("a", String::toUpperCase));
+        assert "B".equals(parseCache.get("b", String::toUpperCase));
+        assert "A".equals(parseCache.get("a", text -> {
+            throw new IllegalStateException("should be cached.");
+        }));
+        //
+        // .超出容量时淘汰最久未被访问的 b
+        assert "C".equals(parseCache.get("c", String::toUpperCase));
+        assert parseCache.size() == 2;
+        assert "b".equals(parseCache.get("b", String::toLowerCase));
+    }
+
+    @Test
+    public void parse_cache_concurrent_test() throws Exception {
+        ParseCache<String> parseCache = new ParseCache<>(16);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                final String text = "k_" + (i % 64);
+                futures.add(executorService.submit(() -> {
+                    return text.toUpperCase().equals(parseCache.get(text, String::toUpperCase));
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assert future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assert parseCache.size() <= 16;
+        //
+        // .清空之后重新装载
+        parseCache.clear();
+        assert parseCache.size() == 0;
+        assert "K_1".equals(parseCache.get("k_1", String::toUpperCase));
+        assert parseCache.size() == 1;
+    }
+}
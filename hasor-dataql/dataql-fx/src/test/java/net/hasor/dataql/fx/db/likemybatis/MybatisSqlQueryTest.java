@@ -0,0 +1,57 @@
+package net.hasor.dataql.fx.db.likemybatis;
+import net.hasor.dataql.fx.db.fxquery.FxQuery;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MybatisSqlQueryTest {
+    private static FxQuery analysisSQL(String fragmentString) {
+        return new MybatisFragment() {
+            public FxQuery analysis(String fragmentString) {
+                return super.analysisSQL(null, fragmentString);
+            }
+        }.analysis(fragmentString);
+    }
+
+    @Test
+    public void static_sql_test() {
+        FxQuery fxQuery = analysisSQL("<insert>insert into user_info (id,name) values (#{id}, #{name})</insert>");
+        assert !fxQuery.isHavePlaceholder();
+        //
+        Map<String, Object> param1 = new HashMap<>();
+        param1.put("id", 1);
+        param1.put("name", "a$1");
+        Map<String, Object> param2 = new HashMap<>();
+        param2.put("id", 2);
+        param2.put("name", "b\\2");
+        assert fxQuery.buildQueryString(param1).equals("insert into user_info (id,name) values (?, ?)");
+        assert fxQuery.buildParameterSource(param1).equals(Arrays.asList(1, "a$1"));
+        assert fxQuery.buildParameterSource(param2).equals(Arrays.asList(2, "b\\2"));
+    }
+
+    @Test
+    public void dynamic_sql_test() {
+        String fragmentString = "<select>select * from ${tableName} <where><if test=\"id != null\">id = #{id}</if></where></select>";
+        FxQuery fxQuery1 = analysisSQL(fragmentString);
+        FxQuery fxQuery2 = analysisSQL(fragmentString);
+        assert fxQuery1 != fxQuery2;
+        assert fxQuery1.isHavePlaceholder();
+        //
+        Map<String, Object> param = new HashMap<>();
+        param.put("tableName", "user_$1");
+        param.put("id", 5);
+        assert fxQuery1.buildQueryString(param).replaceAll("\\s+", " ").trim().equalsIgnoreCase("select * from user_$1 where id = ?");
+        assert fxQuery1.buildParameterSource(param).equals(Arrays.asList(5));
+        param.remove("id");
+        assert fxQuery2.buildParameterSource(param).isEmpty();
+        //
+        // .同一个 context 在两次调用之间被修改，生成的 SQL 和参数要跟着变化
+        assert fxQuery1.buildParameterSource(param).isEmpty();
+        param.put("id", 6);
+        param.put("tableName", "user_2");
+        assert fxQuery1.buildQueryString(param).replaceAll("\\s+", " ").trim().equalsIgnoreCase("select * from user_2 where id = ?");
+        assert fxQuery1.buildParameterSource(param).equals(Arrays.asList(6));
+    }
+}
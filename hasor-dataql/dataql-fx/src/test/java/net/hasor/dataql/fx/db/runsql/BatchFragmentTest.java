@@ -0,0 +1,96 @@
+package net.hasor.dataql.fx.db.runsql;
+import net.hasor.dataql.Hints;
+import net.hasor.dataql.fx.db.fxquery.FxQuery;
+import net.hasor.dataql.runtime.HintsSet;
+import net.hasor.db.jdbc.BatchPreparedStatementSetter;
+import net.hasor.db.jdbc.core.JdbcTemplate;
+import net.hasor.db.transaction.TransactionCallback;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.*;
+
+import static net.hasor.dataql.fx.FxHintNames.FRAGMENT_SQL_BATCH_SIZE;
+
+public class BatchFragmentTest {
+    private static class RecordSqlFragment extends SqlFragment {
+        private final List<String> executeLog = new ArrayList<>();
+        private       int          tranCount;
+
+        @Override
+        protected <T> T executeInTransaction(String sourceName, TransactionCallback<T> callback) throws Throwable {
+            this.tranCount++;
+            return callback.doTransaction(null);
+        }
+
+        @Override
+        protected <T> T executeSQL(boolean batch, String sourceName, String sqlString, Object[] paramArrays, SqlQuery<T> sqlQuery) throws SQLException {
+            return sqlQuery.doQuery(sqlString, paramArrays, new JdbcTemplate() {
+                public int[] executeBatch(String sql, BatchPreparedStatementSetter pss) {
+                    executeLog.add(sql + " x " + pss.getBatchSize());
+                    int[] result = new int[pss.getBatchSize()];
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] = (Integer) ((Object[]) paramArrays[i])[0];
+                    }
+                    return result;
+                }
+            });
+        }
+
+        @Override
+        protected Object noPageFragment(FxQuery fxSql, Hints hint, Map<String, Object> paramMap) {
+            String queryString = fxSql.buildQueryString(paramMap);
+            this.executeLog.add(queryString);
+            return queryString;
+        }
+    }
+
+    private static List<Map<String, Object>> batchParams(int count) {
+        List<Map<String, Object>> params = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("table", "user_" + (i % 2));
+            params.add(row);
+        }
+        return params;
+    }
+
+    @Test
+    public void placeholder_batch_test() throws Throwable {
+        RecordSqlFragment sqlFragment = new RecordSqlFragment();
+        List<Object> result = sqlFragment.batchRunFragment(new HintsSet(), batchParams(5), "update ${table} set status = 1 where id = #{id}");
+        //
+        // .按照最终的 SQL 分成两组，每组一次 executeBatch，结果保持参数原有的顺序
+        assert sqlFragment.tranCount == 1;
+        assert sqlFragment.executeLog.size() == 2;
+        assert sqlFragment.executeLog.get(0).equals("update user_0 set status = 1 where id = ? x 3");
+        assert sqlFragment.executeLog.get(1).equals("update user_1 set status = 1 where id = ? x 2");
+        assert result.equals(Arrays.asList(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    public void batch_size_test() throws Throwable {
+        RecordSqlFragment sqlFragment = new RecordSqlFragment();
+        HintsSet hints = new HintsSet();
+        hints.setHint(FRAGMENT_SQL_BATCH_SIZE.name(), 2);
+        List<Object> result = sqlFragment.batchRunFragment(hints, batchParams(5), "delete from user_info where id = #{id}");
+        //
+        assert sqlFragment.executeLog.size() == 3;
+        assert sqlFragment.executeLog.get(0).equals("delete from user_info where id = ? x 2");
+        assert sqlFragment.executeLog.get(2).equals("delete from user_info where id = ? x 1");
+        assert result.equals(Arrays.asList(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    public void not_dml_test() throws Throwable {
+        RecordSqlFragment sqlFragment = new RecordSqlFragment();
+        List<Object> result = sqlFragment.batchRunFragment(new HintsSet(), batchParams(3), "select * from ${table} where id = #{id}");
+        //
+        // .查询语句逐条执行
+        assert sqlFragment.executeLog.size() == 3;
+        assert result.get(0).equals("select * from user_0 where id = ?");
+        assert result.get(1).equals("select * from user_1 where id = ?");
+        assert result.get(2).equals("select * from user_0 where id = ?");
+    }
+}
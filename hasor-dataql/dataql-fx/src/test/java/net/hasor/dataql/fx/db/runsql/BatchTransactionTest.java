@@ -0,0 +1,112 @@
+package net.hasor.dataql.fx.db.runsql;
+import net.hasor.core.AppContext;
+import net.hasor.core.Hasor;
+import net.hasor.core.Module;
+import net.hasor.dataql.runtime.HintsSet;
+import net.hasor.db.jdbc.core.JdbcTemplate;
+import net.hasor.db.transaction.TranManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.*;
+
+import static net.hasor.dataql.fx.FxHintNames.FRAGMENT_SQL_BATCH_SIZE;
+
+/**
+ * 批量的全部分组和分段在同一个事务中执行，中途失败时整体回滚
+ */
+public class BatchTransactionTest {
+    private DataSource   dataSource;
+    private AppContext   appContext;
+    private SqlFragment  sqlFragment;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void before() throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:batch_tran;DB_CLOSE_DELAY=-1");
+        this.dataSource = h2DataSource;
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.jdbcTemplate.execute("create table user_0 (id int primary key)");
+        this.jdbcTemplate.execute("create table user_1 (id int primary key)");
+        //
+        this.appContext = Hasor.create().build((Module) apiBinder -> {
+            apiBinder.bindType(DataSource.class).toInstance(this.dataSource);
+        });
+        this.sqlFragment = this.appContext.getInstance(SqlFragment.class);
+    }
+
+    @After
+    public void after() throws SQLException {
+        this.jdbcTemplate.execute("drop table user_0");
+        this.jdbcTemplate.execute("drop table user_1");
+        this.appContext.shutdown();
+    }
+
+    private static List<Map<String, Object>> batchParams(int... ids) {
+        List<Map<String, Object>> params = new ArrayList<>();
+        for (int id : ids) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("table", "user_" + (id % 2));
+            params.add(row);
+        }
+        return params;
+    }
+
+    private int count(String table) throws SQLException {
+        return this.jdbcTemplate.queryForInt("select count(*) from " + table);
+    }
+
+    @Test
+    public void batch_success_test() throws Throwable {
+        HintsSet hints = new HintsSet();
+        hints.setHint(FRAGMENT_SQL_BATCH_SIZE.name(), 2);
+        List<Object> result = this.sqlFragment.batchRunFragment(hints, batchParams(1, 2, 3, 4, 5), "insert into ${table} values (#{id})");
+        assert result.equals(Arrays.asList(1, 1, 1, 1, 1));
+        assert count("user_0") == 2;
+        assert count("user_1") == 3;
+    }
+
+    @Test
+    public void chunk_failure_test() throws Throwable {
+        HintsSet hints = new HintsSet();
+        hints.setHint(FRAGMENT_SQL_BATCH_SIZE.name(), 2);
+        try {
+            // .第二段主键冲突，第一段已经执行的插入也要回滚
+            this.sqlFragment.batchRunFragment(hints, batchParams(1, 3, 5, 1), "insert into user_1 values (#{id})");
+            assert false;
+        } catch (SQLException e) {
+            assert count("user_1") == 0;
+        }
+    }
+
+    @Test
+    public void group_failure_test() throws Throwable {
+        try {
+            // .按照表名分成两组，第二组主键冲突，第一组已经执行的插入也要回滚
+            this.sqlFragment.batchRunFragment(new HintsSet(), batchParams(1, 2, 3, 4, 4), "insert into ${table} values (#{id})");
+            assert false;
+        } catch (SQLException e) {
+            assert count("user_0") == 0;
+            assert count("user_1") == 0;
+        }
+    }
+
+    @Test
+    public void join_transaction_test() throws Throwable {
+        // .调用者已经开启了事务时加入调用者的事务，由调用者决定提交还是回滚
+        TranManager.getTemplate(this.dataSource).execute(tranStatus -> {
+            this.sqlFragment.batchRunFragment(new HintsSet(), batchParams(1, 2, 3), "insert into ${table} values (#{id})");
+            assert new JdbcTemplate(this.dataSource).queryForInt("select count(*) from user_1") == 2;
+            tranStatus.setRollbackOnly();
+            return null;
+        });
+        assert count("user_0") == 0;
+        assert count("user_1") == 0;
+    }
+}
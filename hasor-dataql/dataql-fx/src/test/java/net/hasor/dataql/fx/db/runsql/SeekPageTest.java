@@ -0,0 +1,80 @@
+package net.hasor.dataql.fx.db.runsql;
+import net.hasor.dataql.fx.db.fxquery.DefaultFxQuery;
+import net.hasor.dataql.fx.db.fxquery.FxQuery;
+import net.hasor.dataql.fx.db.runsql.dialect.MySqlDialect;
+import net.hasor.dataql.fx.db.runsql.dialect.PostgreSqlDialect;
+import net.hasor.dataql.fx.db.runsql.dialect.SqlPageDialect.BoundSql;
+import net.hasor.dataql.fx.db.runsql.dialect.SqlPageDialect.SeekKey;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class SeekPageTest {
+    private static final String     SQL_STRING = "select * from user_info where status = #{status}";
+    private static final DataSource DS1        = SqlResultCacheTest.dataSource();
+    private static final DataSource DS2        = SqlResultCacheTest.dataSource();
+
+    @Test
+    public void seek_key_parse_test() {
+        List<SeekKey> seekKeys = SeekKey.parse(" t.create_time desc , id");
+        assert seekKeys.size() == 2;
+        assert seekKeys.get(0).getColumn().equals("t.create_time");
+        assert seekKeys.get(0).getLabel().equals("create_time");
+        assert seekKeys.get(0).isDesc();
+        assert seekKeys.get(1).getLabel().equals("id");
+        assert !seekKeys.get(1).isDesc();
+        assert SeekKey.parse("").isEmpty();
+        //
+        try {
+            SeekKey.parse("id; drop table user_info");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("format error");
+        }
+        try {
+            SeekKey.parse("1=1");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("is not a column name");
+        }
+    }
+
+    @Test
+    public void seek_page_sql_test() {
+        FxQuery fxQuery = DefaultFxQuery.analysisSQL(SQL_STRING);
+        Map<String, Object> paramMap = Collections.singletonMap("status", 1);
+        List<SeekKey> seekKeys = SeekKey.parse("create_time desc, id desc");
+        //
+        // .没有上一页的排序键：按照排序键排序后使用 OFFSET
+        BoundSql firstPage = new PostgreSqlDialect().getSeekPageSql(fxQuery, paramMap, seekKeys, null, 20, 10);
+        assert firstPage.getSqlString().equals("SELECT * FROM (select * from user_info where status = ?) SEEK_T ORDER BY create_time DESC, id DESC LIMIT ?  OFFSET ? ");
+        assert Arrays.equals(firstPage.getParamMap(), new Object[] { 1, 10, 20 });
+        //
+        // .有上一页的排序键：直接定位
+        Object[] seekValues = new Object[] { "2020-10-17", 100 };
+        BoundSql seekPage = new MySqlDialect().getSeekPageSql(fxQuery, paramMap, seekKeys, seekValues, 0, 10);
+        assert seekPage.getSqlString().equals("SELECT * FROM (select * from user_info where status = ?) SEEK_T " + //
+                "WHERE (create_time < ?) OR (create_time = ? AND id < ?) ORDER BY create_time DESC, id DESC LIMIT ? ");
+        assert Arrays.equals(seekPage.getParamMap(), new Object[] { 1, "2020-10-17", "2020-10-17", 100, 10 });
+    }
+
+    @Test
+    public void count_cache_test() throws InterruptedException {
+        PageCountCache countCache = new PageCountCache(2);
+        countCache.put(DS1, "select count(*) from t where a = ?", new Object[] { 1 }, 100, 60000);
+        assert countCache.get(DS1, "select count(*) from t where a = ?", new Object[] { 1 }) == 100;
+        assert countCache.get(DS1, "select count(*) from t where a = ?", new Object[] { 2 }) == null;
+        assert countCache.get(DS2, "select count(*) from t where a = ?", new Object[] { 1 }) == null;
+        //
+        // .ttl 为 0 不缓存，过期之后失效
+        countCache.put(DS1, "select count(*) from t", new Object[0], 10, 0);
+        assert countCache.get(DS1, "select count(*) from t", new Object[0]) == null;
+        countCache.put(DS1, "select count(*) from t", new Object[0], 10, 1);
+        Thread.sleep(5);
+        assert countCache.get(DS1, "select count(*) from t", new Object[0]) == null;
+    }
+}
@@ -0,0 +1,273 @@
+package net.hasor.dataql.fx.db.runsql;
+import net.hasor.dataql.fx.db.runsql.SqlResultCache.FragmentCacheStats;
+import net.hasor.db.jdbc.core.JdbcTemplate;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SqlResultCacheTest {
+    private static final String     FRAGMENT = "select * from dict where type = #{type}";
+    private static final String     SQL      = "select * from dict where type = ?";
+    private static final DataSource DS1      = dataSource();
+    private static final DataSource DS2      = dataSource();
+
+    /** 只用作缓存 Key 的 DataSource */
+    static DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", "n" + i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    public void hit_and_miss_test() throws SQLException {
+        SqlResultCache resultCache = new SqlResultCache(100, 10000);
+        AtomicInteger loadCount = new AtomicInteger();
+        Object result1 = resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> {
+            loadCount.incrementAndGet();
+            return rows(2);
+        });
+        Object result2 = resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> {
+            loadCount.incrementAndGet();
+            return rows(2);
+        });
+        assert result1 == result2;
+        assert loadCount.get() == 1;
+        // .参数或者 DataSource 不同不会命中
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 2 }, 60000, () -> rows(1));
+        resultCache.get(FRAGMENT, "ds2", DS2, SQL, new Object[] { 1 }, 60000, () -> rows(1));
+        assert resultCache.size() == 3;
+        //
+        FragmentCacheStats stats = resultCache.getFragmentStats().get(0);
+        assert stats.getFragmentString().equals(FRAGMENT);
+        assert stats.getHitCount() == 1;
+        assert stats.getMissCount() == 3;
+        //
+        // .缓存的结果是只读的
+        try {
+            ((List<Map<String, Object>>) result1).get(0).put("id", 100);
+            assert false;
+        } catch (UnsupportedOperationException e) {
+            assert true;
+        }
+    }
+
+    @Test
+    public void ttl_and_invalidate_test() throws Exception {
+        SqlResultCache resultCache = new SqlResultCache(100, 10000);
+        AtomicInteger loadCount = new AtomicInteger();
+        SqlResultCache.ResultLoader loader = () -> {
+            loadCount.incrementAndGet();
+            return rows(1);
+        };
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 1, loader);
+        Thread.sleep(5);
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, loader);
+        assert loadCount.get() == 2;
+        //
+        resultCache.get(FRAGMENT, "ds2", DS2, SQL, new Object[] { 1 }, 60000, loader);
+        resultCache.invalidate("ds2");
+        assert resultCache.size() == 1;
+        resultCache.invalidateAll();
+        assert resultCache.size() == 0;
+        assert resultCache.weight() == 0;
+    }
+
+    @Test
+    public void eviction_test() throws SQLException {
+        // .每个结果的权重为：1 + 10 * (1 + 2) = 31
+        SqlResultCache resultCache = new SqlResultCache(100, 100);
+        for (int i = 0; i < 5; i++) {
+            resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { i }, 60000, () -> rows(10));
+        }
+        assert resultCache.size() == 3;
+        assert resultCache.weight() == 93;
+        assert resultCache.getEvictionCount() == 2;
+        //
+        // .超出总权重的结果不缓存
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { "big" }, 60000, () -> rows(100));
+        assert resultCache.size() == 3;
+        assert resultCache.weight() == 93;
+    }
+
+    @Test
+    public void clock_eviction_test() throws Exception {
+        SqlResultCache resultCache = new SqlResultCache(3, 10000);
+        AtomicInteger loadCount = new AtomicInteger();
+        SqlResultCache.ResultLoader loader = () -> {
+            loadCount.incrementAndGet();
+            return rows(1);
+        };
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 0 }, 60000, loader);
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, loader);
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 2 }, 60000, loader);
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 0 }, 60000, loader);
+        //
+        // .0 被访问过获得二次机会，淘汰 1
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 3 }, 60000, loader);
+        assert resultCache.size() == 3;
+        assert resultCache.getEvictionCount() == 1;
+        assert loadCount.get() == 4;
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 0 }, 60000, loader);
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 2 }, 60000, loader);
+        assert loadCount.get() == 4;
+        resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, loader);
+        assert loadCount.get() == 5;
+        //
+        // .已失效的条目先被清理，不计入淘汰次数
+        SqlResultCache expireCache = new SqlResultCache(2, 10000);
+        expireCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 0 }, 60000, loader);
+        expireCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 1, loader);
+        expireCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 0 }, 60000, loader);
+        Thread.sleep(5);
+        expireCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 2 }, 60000, loader);
+        assert expireCache.size() == 2;
+        assert expireCache.getEvictionCount() == 0;
+        int loaded = loadCount.get();
+        expireCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 0 }, 60000, loader);
+        expireCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 2 }, 60000, loader);
+        assert loadCount.get() == loaded;
+    }
+
+    @Test
+    public void eviction_scale_test() throws SQLException {
+        // .淘汰均摊 O(1)，大量写入时缓存保持在容量以内
+        SqlResultCache resultCache = new SqlResultCache(1000, 100000);
+        for (int i = 0; i < 100000; i++) {
+            resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { i }, 60000, () -> rows(1));
+            if (i % 3 == 0) {
+                resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { i / 2 }, 60000, () -> rows(1));
+            }
+        }
+        assert resultCache.size() <= 1000;
+        assert resultCache.weight() == resultCache.size() * 4L;
+    }
+
+    @Test
+    public void single_flight_test() throws Exception {
+        SqlResultCache resultCache = new SqlResultCache(100, 10000);
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    return resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> {
+                        loadCount.incrementAndGet();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            throw new SQLException(e);
+                        }
+                        return rows(3);
+                    });
+                }));
+            }
+            startLatch.countDown();
+            Set<Object> results = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<Object> future : futures) {
+                results.add(future.get());
+            }
+            assert loadCount.get() == 1;
+            assert results.size() == 1;
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void load_failed_test() throws SQLException {
+        SqlResultCache resultCache = new SqlResultCache(100, 10000);
+        try {
+            resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> {
+                throw new SQLException("table not found.");
+            });
+            assert false;
+        } catch (SQLException e) {
+            assert e.getMessage().equals("table not found.");
+        }
+        // .失败的结果不会被缓存
+        assert resultCache.size() == 0;
+        assert resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> rows(1)) != null;
+    }
+
+    @Test
+    public void load_error_test() throws Exception {
+        SqlResultCache resultCache = new SqlResultCache(100, 10000);
+        CountDownLatch loadingLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> owner = executorService.submit(() -> {
+                return resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> {
+                    loadingLatch.countDown();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    }
+                    throw new OutOfMemoryError("load failed.");
+                });
+            });
+            loadingLatch.await();
+            Future<Object> waiter = executorService.submit(() -> {
+                return resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> rows(1));
+            });
+            // .加载失败的 Error 会传递给等待的线程，而不是让它们永远阻塞
+            for (Future<Object> future : Arrays.asList(owner, waiter)) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    assert false;
+                } catch (ExecutionException e) {
+                    assert e.getCause() instanceof OutOfMemoryError;
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assert resultCache.size() == 0;
+        assert resultCache.get(FRAGMENT, "", DS1, SQL, new Object[] { 1 }, 60000, () -> rows(1)) != null;
+    }
+
+    @Test
+    public void cache_data_source_test() throws SQLException {
+        // .缓存以实际使用的 DataSource 为 Key，同名数据源被路由到不同的 DataSource 时互不影响
+        assert SqlFragment.cacheDataSource(new JdbcTemplate(DS1)) == DS1;
+        assert SqlFragment.cacheDataSource(new JdbcTemplate(DS2)) == DS2;
+        SqlResultCache resultCache = new SqlResultCache(100, 10000);
+        Object tenant1 = resultCache.get(FRAGMENT, "tenant", DS1, SQL, new Object[] { 1 }, 60000, () -> rows(1));
+        Object tenant2 = resultCache.get(FRAGMENT, "tenant", DS2, SQL, new Object[] { 1 }, 60000, () -> rows(2));
+        assert tenant1 != tenant2 && ((List<?>) tenant2).size() == 2;
+        resultCache.invalidate("tenant");
+        assert resultCache.size() == 0;
+        // .通过 LookupConnectionListener 提供的连接不缓存
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+        assert SqlFragment.cacheDataSource(new JdbcTemplate(connection)) == null;
+    }
+}
@@ -1,4 +1,5 @@
 package net.hasor.dataql.fx.foos;
+import com.alibaba.fastjson.JSON;
 import net.hasor.core.Hasor;
 import net.hasor.dataql.DataQL;
 import net.hasor.dataql.domain.DataModel;
@@ -6,12 +7,13 @@ import net.hasor.dataql.domain.ListModel;
 import net.hasor.dataql.domain.ObjectModel;
 import net.hasor.dataql.domain.ValueModel;
 import net.hasor.dataql.fx.AbstractTestResource;
+import net.hasor.dataql.fx.basic.CollectionUdfSource;
+import net.hasor.dataql.runtime.HintsSet;
 import net.hasor.dataql.runtime.InstructRuntimeException;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class CollectionTest extends AbstractTestResource {
     @Test
@@ -118,4 +120,112 @@ public class CollectionTest extends AbstractTestResource {
         //
         assert dataModel.asBoolean();
     }
+
+    private static final String ROWS = "var rows = [" //
+            + "{'id':1,'type':'a','price':30}, {'id':2,'type':'b','price':10}, {'id':3,'type':'a','price':20}," //
+            + "{'id':4,'type':'c','price':10}, {'id':5,'type':'b','price':50}, {'id':6,'type':'a','price':40} ];";
+
+    private static Object execute(String qlString) throws IOException, InstructRuntimeException {
+        DataQL dataQL = Hasor.create().build().getInstance(DataQL.class);
+        String imports = "import 'net.hasor.dataql.fx.basic.CollectionUdfSource' as collect; import 'net.hasor.test.dataql.beans.UserOrderUdfSource' as user;";
+        return dataQL.createQuery(imports + ROWS + qlString).execute().getData().unwrap();
+    }
+
+    @Test
+    public void groupBy() throws IOException, InstructRuntimeException {
+        Object data = execute("return collect.groupBy(rows, 'type') => { 'a' : a => [ #.id ], 'b' : b => [ #.id ], 'c' : c => [ #.id ] }");
+        assert JSON.toJSONString(data).equals("{\"a\":[1,3,6],\"b\":[2,5],\"c\":[4]}");
+        //
+        // .Key 的顺序和第一次出现的顺序相同，Key 不存在的行放入 errorData
+        Map<String, Object> groupData = (Map<String, Object>) execute("return collect.groupBy(collect.merge(rows, [{'id':7}]), 'type')");
+        assert new ArrayList<>(groupData.keySet()).toString().equals("[a, b, c, errorData]");
+        assert ((Map<String, Object>) groupData.get("errorData")).containsKey("idx_6");
+        //
+        // .Bean 数据
+        groupData = (Map<String, Object>) execute("return collect.groupBy(user.userList(), 'age')");
+        assert groupData.size() == 1 && ((List<?>) groupData.get("31")).size() == 4;
+        //
+        // .和 list2map 一样按照 Key 的字符串形式分组，数字 1 和字符串 '1' 是同一组
+        groupData = (Map<String, Object>) execute("return collect.groupBy([{'k':1,'id':1},{'k':'1','id':2},{'k':2,'id':3}], 'k')");
+        assert new ArrayList<>(groupData.keySet()).toString().equals("[1, 2]");
+        assert ((List<?>) groupData.get("1")).size() == 2 && ((List<?>) groupData.get("2")).size() == 1;
+    }
+
+    @Test
+    public void uniqueBy() throws IOException, InstructRuntimeException {
+        Object data = execute("return collect.uniqueBy(rows, 'type') => [ #.id ]");
+        assert JSON.toJSONString(data).equals("[1,2,4]");
+        data = execute("return collect.uniqueBy(rows, (idx, row) -> { return row.price; }) => [ #.id ]");
+        assert JSON.toJSONString(data).equals("[1,2,3,5,6]");
+        data = execute("return collect.uniqueBy([{'k':1,'id':1},{'k':'1','id':2},{'k':2,'id':3}], 'k') => [ #.id ]");
+        assert JSON.toJSONString(data).equals("[1,3]");
+    }
+
+    @Test
+    public void sortBy() throws IOException, InstructRuntimeException {
+        assert JSON.toJSONString(execute("return collect.sortBy(rows, 'price', 'asc') => [ #.id ]")).equals("[2,4,3,1,6,5]");
+        assert JSON.toJSONString(execute("return collect.sortBy(rows, 'price', 'desc') => [ #.id ]")).equals("[5,6,1,3,2,4]");
+        assert JSON.toJSONString(execute("return collect.sortBy(rows, (idx, row) -> { return row.type; }, null) => [ #.id ]")).equals("[1,3,6,2,5,4]");
+        // .字段不存在时排在最前面
+        assert JSON.toJSONString(execute("return collect.sortBy(collect.merge(rows, [{'id':7}]), 'price', 'asc') => [ #.id ]")).equals("[7,2,4,3,1,6,5]");
+    }
+
+    @Test
+    public void sortBy_mixedType() throws Throwable {
+        // .类型不同时按照 null < 数字 < 字符串 < 其它类型 排序，数量足够多时 TimSort 会检查比较是否可传递
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(i);
+            keys.add(String.valueOf(i * 7));
+            keys.add(i + 0.5d);
+            keys.add(i % 2 == 0);
+            keys.add(null);
+        }
+        List<Object> rows = new ArrayList<>();
+        for (Object key : keys) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("k", key);
+            rows.add(row);
+        }
+        Collections.shuffle(rows, new Random(1));
+        List<Object> sorted = CollectionUdfSource.sortBy(rows, "k", "asc", new HintsSet());
+        List<Object> sortedKeys = new ArrayList<>();
+        sorted.forEach(row -> sortedKeys.add(((Map<?, ?>) row).get("k")));
+        //
+        assert sortedKeys.subList(0, 100).stream().allMatch(Objects::isNull);
+        List<Object> numbers = sortedKeys.subList(100, 300);
+        for (int i = 0; i < numbers.size(); i++) {
+            assert ((Number) numbers.get(i)).doubleValue() == i / 2 + (i % 2 == 0 ? 0 : 0.5d);
+        }
+        List<Object> strings = sortedKeys.subList(300, 400);
+        assert strings.stream().allMatch(key -> key instanceof String);
+        for (int i = 1; i < strings.size(); i++) {
+            assert ((String) strings.get(i - 1)).compareTo((String) strings.get(i)) <= 0;
+        }
+        assert sortedKeys.subList(400, 450).stream().allMatch(Boolean.FALSE::equals);
+        assert sortedKeys.subList(450, 500).stream().allMatch(Boolean.TRUE::equals);
+        //
+        // .desc 为 asc 的逆序，topN 和 sortBy 之后 limit 相同
+        List<Object> sortedDesc = CollectionUdfSource.sortBy(rows, "k", "desc", new HintsSet());
+        assert ((Map<?, ?>) sortedDesc.get(0)).get("k") == Boolean.TRUE;
+        assert ((Map<?, ?>) sortedDesc.get(499)).get("k") == null;
+        assert CollectionUdfSource.topN(rows, "k", 150, "asc", new HintsSet()).equals(sorted.subList(0, 150));
+    }
+
+    @Test
+    public void topN() throws IOException, InstructRuntimeException {
+        assert JSON.toJSONString(execute("return collect.topN(rows, 'price', 3, 'asc') => [ #.id ]")).equals("[2,4,3]");
+        assert JSON.toJSONString(execute("return collect.topN(rows, 'price', 2, 'desc') => [ #.id ]")).equals("[5,6]");
+        assert JSON.toJSONString(execute("return collect.topN(rows, 'price', 10, 'desc') => [ #.id ]")).equals("[5,6,1,3,2,4]");
+        assert JSON.toJSONString(execute("return collect.topN(rows, 'price', 0, 'desc')")).equals("[]");
+    }
+
+    @Test
+    public void mapJoin() throws IOException, InstructRuntimeException {
+        String qlString = "var other = [{'t':'a','p':'30','v':'x'}, {'t':'b','p':10,'v':'y'}, {'t':'a','p':40,'v':'z'}];" //
+                + "return collect.mapJoin(rows, other, { 'type':'t', 'price':'p' }) => [ { 'id' : data1.id, 'v' : data2.v } ]";
+        Object data = execute(qlString);
+        assert JSON.toJSONString(data).equals("[{\"id\":1,\"v\":\"x\"},{\"id\":2,\"v\":\"y\"},{\"id\":3}," //
+                + "{\"id\":4},{\"id\":5},{\"id\":6,\"v\":\"z\"}]");
+    }
 }
@@ -14,9 +14,13 @@
  * limitations under the License.
  */
 package net.hasor.mojo.dataql;
+import net.hasor.dataql.Finder;
 import net.hasor.dataql.compiler.ast.inst.HintInst;
 import net.hasor.dataql.compiler.ast.inst.RootBlockSet;
 import net.hasor.dataql.compiler.ast.value.PrimitiveVariable;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.compiler.qil.QILCodec;
+import net.hasor.dataql.runtime.CompilerArguments;
 import net.hasor.dataql.runtime.QueryHelper;
 import net.hasor.utils.ResourcesUtils;
 import net.hasor.utils.StringUtils;
@@ -93,6 +97,9 @@ public class QueryMojo extends AbstractMojo {
     /** continue generate DataQL file , when parsing failed. */
     @Parameter(defaultValue = "false")
     private   boolean      ignoreError;
+    /** compile query files into binary QIL ({@code *.qil}), so that the generated class can be loaded without parsing. */
+    @Parameter(defaultValue = "true")
+    private   boolean      precompile;
 
     /**
      * The main entry point for this Mojo, it is responsible for converting
@@ -162,8 +169,9 @@ public class QueryMojo extends AbstractMojo {
                 // 进行一次解析操作，过滤掉语法有问题的查询文件
                 boolean javaxInject = false;
                 String javaxInjectName = "";
+                RootBlockSet queryModel = null;
                 try {
-                    RootBlockSet queryModel = (RootBlockSet) QueryHelper.queryParser(new AutoCloseInputStream(new FileInputStream(qlFile)));
+                    queryModel = (RootBlockSet) QueryHelper.queryParser(new AutoCloseInputStream(new FileInputStream(qlFile)));
                     List<HintInst> optionSet = queryModel.getOptionSet();
                     for (HintInst inst : optionSet) {
                         if ("javax_inject".equalsIgnoreCase(inst.getHint().getValue())) {
@@ -200,6 +208,20 @@ public class QueryMojo extends AbstractMojo {
                         targetQueryFile.flush();
                     }
                 }
+                // 预编译为 QIL，运行时直接加载（含有 import 的查询依赖运行时的 Finder，不做预编译）
+                String compiledPath = relPath.substring(0, relPath.length() - ".ql".length()) + ".qil";
+                if (this.precompile && queryModel != null && queryModel.getImportSet().isEmpty()) {
+                    try {
+                        QIL queryQil = QueryHelper.queryCompiler(queryModel, CompilerArguments.DEFAULT, Finder.DEFAULT);
+                        File outFile = new File(outputResourceDirectory, compiledPath);
+                        try (OutputStream targetQilFile = FileUtils.openOutputStream(outFile)) {
+                            QILCodec.encode(queryQil, targetQilFile);
+                            targetQilFile.flush();
+                        }
+                    } catch (Exception e) {
+                        log.warn("Query file '" + qlFile.getPath() + "' precompile failed, " + e.getMessage());
+                    }
+                }
                 // .build
                 String className = qlFile.getName().split("\\.")[0] + "Query";
                 String targetPackageName = "";
@@ -211,6 +233,7 @@ public class QueryMojo extends AbstractMojo {
                 String tempClass = new String(javaTemp.toCharArray().clone());
                 tempClass = tempClass.replace("%target_pacakge%", targetPackageName);
                 tempClass = tempClass.replace("%source_resource%", "/" + relPath.replace(File.separator, "/"));
+                tempClass = tempClass.replace("%compiled_resource%", "/" + compiledPath.replace(File.separator, "/"));
                 tempClass = tempClass.replace("%target_name%", className);
                 tempClass = tempClass.replace("%inject_name%", injectReplaceString);
                 File outFile = new File(new File(outputSourceDirectory, relPath).getParentFile(), className + ".java");
@@ -3,6 +3,7 @@ import net.hasor.dataql.*;
 import net.hasor.dataql.compiler.ParseException;
 import net.hasor.dataql.compiler.QueryModel;
 import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.compiler.qil.QILCodec;
 import net.hasor.dataql.runtime.*;
 import net.hasor.utils.ResourcesUtils;
 
@@ -20,7 +21,8 @@ import java.util.function.Supplier;
 // Generated from '%source_resource%'
 %inject_name%
 public class %target_name% extends HintsSet implements Query {
-    protected final String sourceCode = "%source_resource%";
+    protected final String sourceCode   = "%source_resource%";
+    protected final String compiledCode = "%compiled_resource%";
     protected       Query  dataQuery;
 
     private %target_name%(HintsSet hintsSet) {
@@ -37,9 +39,20 @@ public class %target_name% extends HintsSet implements Query {
 
     public %target_name%(Finder finder, Map<String, Supplier<?>> shareVarMap) throws IOException, ParseException {
         Set<String> keySet = shareVarMap.keySet();
-        InputStream inputStream = Objects.requireNonNull(ResourcesUtils.getResourceAsStream(sourceCode), sourceCode);
-        QueryModel queryModel = QueryHelper.queryParser(inputStream, Charset.forName("UTF-8"));
-        QIL queryQil = QueryHelper.queryCompiler(queryModel, new CompilerArguments(keySet), finder);
+        QIL queryQil = null;
+        InputStream compiledStream = keySet.isEmpty() ? ResourcesUtils.getResourceAsStream(compiledCode) : null;
+        if (compiledStream != null) {
+            try (InputStream inputStream = compiledStream) {
+                queryQil = QILCodec.decode(inputStream); // recompile when the compiled version does not match
+            } catch (IOException e) {
+                queryQil = null;
+            }
+        }
+        if (queryQil == null) {
+            InputStream inputStream = Objects.requireNonNull(ResourcesUtils.getResourceAsStream(sourceCode), sourceCode);
+            QueryModel queryModel = QueryHelper.queryParser(inputStream, Charset.forName("UTF-8"));
+            queryQil = QueryHelper.queryCompiler(queryModel, new CompilerArguments(keySet), finder);
+        }
         this.dataQuery = QueryHelper.createQuery(queryQil, finder);
         this.dataQuery.putShareVar(shareVarMap);
     }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步执行外部代码片段。片段总是通过函数调用执行，因此在执行片段的线程上等待结果（开启 PARALLEL_CALL 时为并行执行器的线程；通过 Query.executeAsync 在虚拟线程上执行的查询只会挂起虚拟线程）
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public interface AsyncFragmentProcess extends FragmentProcess {
+    /** 异步执行 */
+    public CompletionStage<?> runFragmentAsync(Hints hint, Map<String, Object> params, String fragmentString) throws Throwable;
+
+    @Override
+    public default Object runFragment(Hints hint, Map<String, Object> params, String fragmentString) throws Throwable {
+        return AsyncUdf.await(this.runFragmentAsync(hint, params, fragmentString));
+    }
+}
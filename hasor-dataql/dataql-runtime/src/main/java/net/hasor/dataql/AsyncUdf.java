@@ -0,0 +1,49 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 异步 UDF，适用于本身就是异步的 I/O 调用（例如：异步的 RPC、HTTP 客户端）。
+ *  - 开启 PARALLEL_CALL 时，调用不会占用执行器的线程，JOIN 时再等待结果。
+ *  - 其它情况下等同于同步调用，在当前线程等待结果（通过 Query.executeAsync 在虚拟线程上执行的查询只会挂起虚拟线程）。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@FunctionalInterface
+public interface AsyncUdf extends Udf {
+    /** 发起异步调用，结果的要求同 Udf */
+    public CompletionStage<?> callAsync(Hints readOnly, Object... params) throws Throwable;
+
+    @Override
+    public default Object call(Hints readOnly, Object... params) throws Throwable {
+        return await(this.callAsync(readOnly, params));
+    }
+
+    /** 等待异步调用的结果，调用中的异常原样抛出 */
+    public static Object await(CompletionStage<?> completionStage) throws Throwable {
+        try {
+            return completionStage.toCompletableFuture().get();
+        } catch (ExecutionException | CompletionException e) {
+            throw (e.getCause() != null) ? e.getCause() : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+}
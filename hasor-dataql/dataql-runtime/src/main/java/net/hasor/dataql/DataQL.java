@@ -38,6 +38,18 @@ public interface DataQL extends Hints {
     public enum ConfigOption {
         /** 代码行号的编译模式 */
         CODE_LOCATION("codeLocation"),
+        /** 指令执行引擎，取值参考 CompilerArguments.ExecuteEngineEnum */
+        EXECUTE_ENGINE("executeEngine"),
+        /** TIERED 执行引擎下，方法执行多少次之后编译为 JVM 字节码，默认：1000 */
+        TIERED_THRESHOLD("tieredThreshold"),
+        /** PARALLEL_CALL 开启时用于执行并行调用的 java.util.concurrent.Executor，不设置时使用内置的执行器 */
+        PARALLEL_EXECUTOR("parallelExecutor"),
+        /** 列表格式化遇到 DataStream 时是否逐条计算（结果仍然是数据流），默认：false */
+        STREAMING_FORMAT("streamingFormat"),
+        /** 是否把对象中可并行的函数调用编译成 CALL_A/JOIN（PARALLEL_CALL Hint 只对这样编译的查询生效），默认：false */
+        PARALLEL_CALL("parallelCall"),
+        /** 是否开启性能分析（等同于 PROFILER Hint），默认：false */
+        PROFILER("profiler"),
         ;
         //
         private final String configName;
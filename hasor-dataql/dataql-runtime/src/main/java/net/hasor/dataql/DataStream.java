@@ -0,0 +1,28 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql;
+import java.io.Closeable;
+
+/**
+ * 只能遍历一次的数据流（例如：基于数据库游标的查询结果），用于在不把全部数据装入内存的情况下逐条处理数据。
+ *  - UDF、代码片段返回 DataStream 时，DataQL 会把它当作集合处理，但只有在遍历时才逐条读取数据。
+ *  - 按下标访问或者获取集合大小会导致全部数据被读入内存，遍历过之后再这样做会引发 IllegalStateException。
+ *  - 数据读取完毕之后应当自动释放资源，未读完时由使用方调用 close 释放。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public interface DataStream<T> extends Iterable<T>, Closeable {
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataStream 的生命周期范围，绑定在当前线程上。
+ *  - 能够逐条消费数据流的一方（例如：边序列化边输出响应的 Dataway）在执行查询之前开启范围，输出完毕之后关闭，
+ *    范围内登记的数据流无论是否被遍历、查询是否成功，都会在关闭范围时被关闭。
+ *  - 产生数据流的一方（例如：SQL 片段的流模式）在当前线程没有开启范围时不应当返回数据流，而是直接读取全部数据，
+ *    因为此时结果不会被逐条消费（例如：被其它查询调用、经由 RSF 返回，或者在并行调用的线程中执行），没有人负责关闭它。
+ *  - 范围可以嵌套，数据流登记在最内层的范围中。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public final class DataStreamScope implements AutoCloseable {
+    private static final ThreadLocal<DataStreamScope> CURRENT = new ThreadLocal<>();
+    private final        DataStreamScope              parent;
+    private final        List<DataStream<?>>          streams = new ArrayList<>();
+
+    private DataStreamScope(DataStreamScope parent) {
+        this.parent = parent;
+    }
+
+    /** 在当前线程上开启一个范围 */
+    public static DataStreamScope open() {
+        DataStreamScope scope = new DataStreamScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** 当前线程是否开启了范围（即：返回的数据流会被逐条消费并由范围负责关闭） */
+    public static boolean isOpen() {
+        return CURRENT.get() != null;
+    }
+
+    /** 把数据流登记到当前线程的范围中，当前线程没有开启范围时抛出 IllegalStateException */
+    public static <T extends DataStream<?>> T register(T dataStream) {
+        DataStreamScope scope = CURRENT.get();
+        if (scope == null) {
+            throw new IllegalStateException("no DataStreamScope is open on the current thread.");
+        }
+        scope.streams.add(dataStream);
+        return dataStream;
+    }
+
+    /** 关闭范围内登记的全部数据流（忽略关闭时发生的异常），并恢复上一层范围 */
+    @Override
+    public void close() {
+        if (this.parent != null) {
+            CURRENT.set(this.parent);
+        } else {
+            CURRENT.remove();
+        }
+        for (DataStream<?> dataStream : this.streams) {
+            try {
+                dataStream.close();
+            } catch (Exception e) {
+                /**/
+            }
+        }
+        this.streams.clear();
+    }
+}
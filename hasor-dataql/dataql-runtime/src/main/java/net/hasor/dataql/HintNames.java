@@ -31,7 +31,11 @@ public enum HintNames {
     /** 浮点数计算使用的最小数值宽度，可选值有：float,double,big。默认为：double */
     MIN_DECIMAL_WIDTH(MIN_DECIMAL_WIDTH_DOUBLE),
     /** 整数计算使用的最小数值宽度，可选值有：byte,short,int,long,big。默认为：int */
-    MIN_INTEGER_WIDTH(MIN_INTEGER_WIDTH_INT);
+    MIN_INTEGER_WIDTH(MIN_INTEGER_WIDTH_INT),
+    /** 对象中参数简单的多个函数调用（例如多个 SQL 片段）是否并行执行，默认为：false。开启后需要确保这些调用之间没有依赖和副作用，并且不需要在当前线程的事务中执行（调用在其它线程中执行，不使用当前线程上绑定的数据库连接）。只对开启 parallelCall 编译选项的查询生效。 */
+    PARALLEL_CALL("false"),
+    /** 是否记录每行代码、UDF 和片段的耗时，默认为：false。结果通过 QueryResult.getProfile() 获取 */
+    PROFILER("false");
     //
     private String defaultVal;
 
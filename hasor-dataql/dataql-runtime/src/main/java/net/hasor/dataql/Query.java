@@ -14,11 +14,15 @@
  * limitations under the License.
  */
 package net.hasor.dataql;
+import net.hasor.dataql.runtime.InsetProcessContext;
 import net.hasor.dataql.runtime.InstructRuntimeException;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 /**
@@ -65,6 +69,38 @@ public interface Query extends Hints, Cloneable {
     /** 执行查询 */
     public QueryResult execute(CustomizeScope customizeScope) throws InstructRuntimeException;
 
+    /** 异步执行查询 */
+    public default CompletionStage<QueryResult> executeAsync() {
+        return this.executeAsync(symbol -> Collections.emptyMap());
+    }
+
+    /** 异步执行查询 */
+    public default CompletionStage<QueryResult> executeAsync(Map<String, ?> envData) {
+        return this.executeAsync(symbol -> envData);
+    }
+
+    /** 异步执行查询，查询在内置的异步执行器中执行：JVM 支持虚拟线程时每个查询一个虚拟线程，否则在排队执行的线程池中执行（不会拒绝执行） */
+    public default CompletionStage<QueryResult> executeAsync(CustomizeScope customizeScope) {
+        return this.executeAsync(customizeScope, InsetProcessContext.asyncExecutor());
+    }
+
+    /** 异步执行查询，查询在 executor 中执行。执行器拒绝执行时返回的结果以 RejectedExecutionException 结束 */
+    public default CompletionStage<QueryResult> executeAsync(CustomizeScope customizeScope, Executor executor) {
+        CompletableFuture<QueryResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(this.execute(customizeScope));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /** 复制一个Query */
     public Query clone();
 }
\ No newline at end of file
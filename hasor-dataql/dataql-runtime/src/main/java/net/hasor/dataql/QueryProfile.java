@@ -0,0 +1,33 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql;
+import java.util.Map;
+
+/**
+ * 查询的性能分析结果（开启 PROFILER 之后才会产生）。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public interface QueryProfile {
+    /** 整个查询的耗时（微秒） */
+    public long totalTime();
+
+    /** 火焰图工具（flamegraph.pl、speedscope 等）可以直接使用的 collapsed stack 格式，每行末尾的数值是该调用栈的自身耗时（微秒） */
+    public String toCollapsedStack();
+
+    /** 按代码行、UDF、片段汇总的耗时和调用次数（耗时单位为微秒），结果可以直接序列化为 JSON */
+    public Map<String, Object> toSummary();
+}
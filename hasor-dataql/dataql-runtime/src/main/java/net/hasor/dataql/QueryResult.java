@@ -33,4 +33,9 @@ public interface QueryResult {
 
     /** 获得本次执行耗时 */
     public long executionTime();
+
+    /** 性能分析结果，未开启 PROFILER 时为 null */
+    public default QueryProfile getProfile() {
+        return null;
+    }
 }
\ No newline at end of file
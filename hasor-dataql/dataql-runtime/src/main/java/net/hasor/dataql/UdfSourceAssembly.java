@@ -170,6 +170,11 @@ public interface UdfSourceAssembly extends UdfSource {
             public Object call(Hints readOnly, Object... values) throws Throwable {
                 return doInvoke(target, null, values, readOnly);
             }
+
+            @Override
+            public String toString() {
+                return this.target.getDeclaringClass().getSimpleName() + "." + this.target.getName();
+            }
         }
 
         private static class ObjectUdf implements Udf {
@@ -190,6 +195,11 @@ public interface UdfSourceAssembly extends UdfSource {
                 }
                 return doInvoke(target, targetObject, values, readOnly);
             }
+
+            @Override
+            public String toString() {
+                return this.target.getDeclaringClass().getSimpleName() + "." + this.target.getName();
+            }
         }
     }
 }
@@ -172,7 +172,7 @@ class InnerDataQLImpl extends HintsSet implements DataQL, Finder {
 
     @Override
     public Query createQuery(QIL compilerQIL) {
-        Query query = QueryHelper.createQuery(compilerQIL, this);
+        Query query = QueryHelper.createQuery(compilerQIL, this, this.useArguments);
         query.putShareVar(this.compilerVarMap);
         query.setHints(this);
         return query;
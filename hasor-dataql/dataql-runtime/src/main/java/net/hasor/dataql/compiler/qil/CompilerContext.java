@@ -14,10 +14,19 @@
  * limitations under the License.
  */
 package net.hasor.dataql.compiler.qil;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.compiler.CompilerException;
 import net.hasor.dataql.compiler.ast.Inst;
+import net.hasor.dataql.compiler.ast.inst.RootBlockSet;
+import net.hasor.dataql.runtime.QueryHelper;
+import net.hasor.utils.CommonCodeUtils;
+import net.hasor.utils.ExceptionUtils;
+import net.hasor.utils.io.IOUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 /**
@@ -27,6 +36,8 @@ import java.util.*;
  */
 public class CompilerContext {
     private       Map<String, Integer> loadedImport = new HashMap<>();
+    private       Map<String, int[]>   importRange  = new LinkedHashMap<>();
+    private       Map<String, String>  dependencies = new LinkedHashMap<>();
     private final CompilerEnvironment  compilerEnvironment;
     private final Stack<List<String>>  dataStack    = new Stack<List<String>>() {{
         push(new ArrayList<>());
@@ -40,6 +51,22 @@ public class CompilerContext {
         return this.compilerEnvironment.findResource(resourceName);
     }
 
+    /** 加载资源使用的 Finder，ImportModule 的缓存按它隔离 */
+    Finder getFinder() {
+        return this.compilerEnvironment.getFinder();
+    }
+
+    /** 读取资源的全部内容 */
+    public byte[] readResource(String resourceName) throws IOException {
+        try (InputStream inputStream = Objects.requireNonNull(this.findResource(resourceName), "import resource '" + resourceName + "' not found.")) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    static String contentHash(byte[] content) throws NoSuchAlgorithmException {
+        return CommonCodeUtils.MD5.getMD5(content);
+    }
+
     public <T extends Inst> InstCompilerExecutor findInstCompilerByInst(T instObject) {
         Class<T> instClass = (Class<T>) instObject.getClass();
         return findInstCompilerByInst(instObject, instClass);
@@ -59,6 +86,60 @@ public class CompilerContext {
         this.loadedImport.put(importResource, address);
     }
 
+    /** 导入资源，返回资源入口函数的地址。资源会先编译成 ImportModule（多次编译之间共享），然后复制到 queue 所在的指令集中 */
+    public int importResource(String importResource, InstQueue queue) {
+        ImportModule importModule = ImportModule.loadModule(importResource, queue.getCompilerArguments(), this);
+        if (importModule != null) {
+            this.dependencies.putAll(importModule.getDependencies());
+            return queue.importModule(importResource, importModule, this);
+        }
+        // .循环导入，直接编译到当前指令集中
+        byte[] content = this.readImport(importResource);
+        InstQueue newMethodInst = queue.newMethodInst();
+        this.putImport(importResource, newMethodInst.getName());
+        this.createSegregate().compileResource(importResource, content, newMethodInst);
+        this.putImportRange(importResource, newMethodInst.getName(), queue.methodSize());
+        return newMethodInst.getName();
+    }
+
+    /** 读取导入的资源，并把资源内容的 MD5 登记为编译依赖 */
+    byte[] readImport(String importResource) {
+        try {
+            byte[] content = this.readResource(importResource);
+            this.putDependency(importResource, contentHash(content));
+            return content;
+        } catch (Exception e) {
+            throw ExceptionUtils.toRuntimeException(e, throwable -> new CompilerException("import compiler failed -> parser failed.", throwable));
+        }
+    }
+
+    /** 解析资源内容，并编译到 queue 中 */
+    void compileResource(String importResource, byte[] content, InstQueue queue) {
+        RootBlockSet queryModel = null;
+        try {
+            queryModel = (RootBlockSet) QueryHelper.queryParser(new ByteArrayInputStream(content));
+        } catch (Exception e) {
+            throw ExceptionUtils.toRuntimeException(e, throwable -> new CompilerException("import compiler failed -> parser failed.", throwable));
+        }
+        this.findInstCompilerByInst(queryModel).doCompiler(queue);
+    }
+
+    void putImportRange(String importResource, int startAddress, int endAddress) {
+        this.importRange.put(importResource, new int[] { startAddress, endAddress });
+    }
+
+    Map<String, int[]> getImportRange() {
+        return this.importRange;
+    }
+
+    void putDependency(String resourceName, String contentHash) {
+        this.dependencies.put(resourceName, contentHash);
+    }
+
+    Map<String, String> getDependencies() {
+        return this.dependencies;
+    }
+
     public void newFrame() {
         this.dataStack.push(new ArrayList<>());
     }
@@ -104,6 +185,24 @@ public class CompilerContext {
         return nameStack.indexOf(target);
     }
 
+    /** 压入一个匿名变量（'#' 开头的名字不会和脚本中的变量重名），优先复用已经释放的位置，返回在栈中的位置 */
+    public int pushAnonymous() {
+        List<String> nameStack = this.dataStack.peek();
+        for (int i = 0; i < nameStack.size(); i++) {
+            if (("#released_" + i).equals(nameStack.get(i))) {
+                nameStack.set(i, "#anonymous_" + i);
+                return i;
+            }
+        }
+        nameStack.add("#anonymous_" + nameStack.size());
+        return nameStack.size() - 1;
+    }
+
+    /** 释放 pushAnonymous 得到的匿名变量，位置留给之后的匿名变量复用 */
+    public void releaseAnonymous(int index) {
+        this.dataStack.peek().set(index, "#released_" + index);
+    }
+
     /** 当前深度 */
     public int getDepth() {
         return this.dataStack.size() - 1;
@@ -112,9 +211,16 @@ public class CompilerContext {
     public CompilerContext createSegregate() {
         CompilerContext compilerContext = new CompilerContext(this.compilerEnvironment);
         compilerContext.loadedImport = this.loadedImport;
+        compilerContext.importRange = this.importRange;
+        compilerContext.dependencies = this.dependencies;
         return compilerContext;
     }
 
+    /** 用于编译 ImportModule 的上下文，导入的资源独立记录 */
+    CompilerContext createModule() {
+        return new CompilerContext(this.compilerEnvironment);
+    }
+
     public static class ContainsIndex {
         public int depth = -1;// <- 预先设置为无效值
         public int index = -1;// <- 预先设置为无效值
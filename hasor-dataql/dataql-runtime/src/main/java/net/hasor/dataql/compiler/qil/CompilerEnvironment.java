@@ -46,6 +46,11 @@ public class CompilerEnvironment implements Finder {
         return this.finder.findResource(resourceName);
     }
 
+    /** 被包装的 Finder */
+    public Finder getFinder() {
+        return this.finder;
+    }
+
     public <T extends Inst> InstCompiler<T> findInstCompilerByType(Class<T> instType) {
         return (InstCompiler<T>) Objects.requireNonNull(typeMappingToInstCompiler.get(instType), "not found " + instType.getName() + " InstCompiler.");
     }
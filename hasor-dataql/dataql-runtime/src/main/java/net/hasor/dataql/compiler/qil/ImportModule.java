@@ -0,0 +1,143 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.runtime.CompilerArguments;
+
+import java.util.*;
+
+/**
+ * import 资源编译之后的模块，模块是不可变的，在多次编译之间共享（以资源名和编译参数为 Key，资源内容变化之后失效）。
+ *  - 缓存按 Finder 隔离：不同的 Finder 对同一个资源名可能返回不同的内容，它们的模块互不共享。
+ *  - 资源内容是否变化不是每次编译都检查的：距离上次检查不足 revalidateInterval 毫秒时直接使用模块，不读取任何资源，
+ *    超过之后重新读取模块依赖的资源并对比 MD5。因此资源修改之后最多要经过 revalidateInterval 毫秒才会生效。
+ *  - 0 号函数是资源本身，其余的是资源中的 Lambda 和嵌套导入的资源。
+ *  - 使用时通过 InstQueue.importModule 把指令复制到目标指令集中，并重新分配 Label 和函数地址。
+ *  - 出现循环导入时（资源正在被编译），不使用模块，直接编译到目标指令集中。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public final class ImportModule {
+    private static final int                                    MAX_CACHE_SIZE     = 256;
+    private static final Map<Finder, Map<String, ImportModule>> MODULE_CACHE       = new WeakHashMap<>(); // Finder 不再使用之后它的模块随之回收
+    private static final ThreadLocal<Set<String>>               COMPILING          = ThreadLocal.withInitial(HashSet::new);
+    private static volatile long                                revalidateInterval = 2000;
+    private final        InstructionInfo[][]                    methodSet;
+    private final        Map<String, int[]>                     importRange;   // 嵌套导入的资源，以及它在 methodSet 中占用的函数区间 [start, end)
+    private final        Map<String, String>                    dependencies;  // 编译过程中读取的所有资源，以及资源内容的 MD5
+    private volatile     long                                   validateTime;  // 上一次确认依赖的资源没有变化的时间
+
+    private ImportModule(InstructionInfo[][] methodSet, Map<String, int[]> importRange, Map<String, String> dependencies) {
+        this.methodSet = methodSet;
+        this.importRange = Collections.unmodifiableMap(new LinkedHashMap<>(importRange));
+        this.dependencies = Collections.unmodifiableMap(new LinkedHashMap<>(dependencies));
+        this.validateTime = System.currentTimeMillis();
+    }
+
+    InstructionInfo[][] getMethodSet() {
+        return this.methodSet;
+    }
+
+    Map<String, int[]> getImportRange() {
+        return this.importRange;
+    }
+
+    Map<String, String> getDependencies() {
+        return this.dependencies;
+    }
+
+    /** 获取资源的模块，缓存中的模块失效时重新编译。资源正在被编译（循环导入）时返回 null */
+    static ImportModule loadModule(String resourceName, CompilerArguments arguments, CompilerContext compilerContext) {
+        Set<String> compiling = COMPILING.get();
+        if (compiling.contains(resourceName)) {
+            return null;
+        }
+        Finder finder = compilerContext.getFinder();
+        String cacheKey = resourceName + "|" + arguments.getCodeLocation() + "|" + arguments.isStreamingFormat() + "|" + arguments.isParallelCall();
+        ImportModule importModule = null;
+        synchronized (MODULE_CACHE) {
+            importModule = finderCache(finder).get(cacheKey);
+        }
+        if (importModule != null && importModule.isValid(compilerContext)) {
+            return importModule;
+        }
+        //
+        compiling.add(resourceName);
+        try {
+            InstQueue moduleQueue = new InstQueue(arguments);
+            CompilerContext moduleContext = compilerContext.createModule();
+            moduleContext.putImport(resourceName, moduleQueue.getName());
+            byte[] content = moduleContext.readImport(resourceName);
+            moduleContext.compileResource(resourceName, content, moduleQueue);
+            importModule = new ImportModule(moduleQueue.methodSnapshot(), moduleContext.getImportRange(), moduleContext.getDependencies());
+        } finally {
+            compiling.remove(resourceName);
+        }
+        synchronized (MODULE_CACHE) {
+            finderCache(finder).put(cacheKey, importModule);
+        }
+        return importModule;
+    }
+
+    /** Finder 自己的模块缓存（LRU），调用方需要持有 MODULE_CACHE 的锁 */
+    private static Map<String, ImportModule> finderCache(Finder finder) {
+        return MODULE_CACHE.computeIfAbsent(finder, key -> new LinkedHashMap<String, ImportModule>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ImportModule> eldest) {
+                return size() > MAX_CACHE_SIZE;
+            }
+        });
+    }
+
+    /** 模块依赖的资源内容都没有变化（距离上次检查不足 revalidateInterval 时不做检查） */
+    private boolean isValid(CompilerContext compilerContext) {
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - this.validateTime < revalidateInterval) {
+            return true;
+        }
+        for (Map.Entry<String, String> ent : this.dependencies.entrySet()) {
+            try {
+                String currentHash = CompilerContext.contentHash(compilerContext.readResource(ent.getKey()));
+                if (!ent.getValue().equals(currentHash)) {
+                    return false;
+                }
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        this.validateTime = currentTime;
+        return true;
+    }
+
+    /** 缓存的模块多久检查一次依赖的资源是否变化（毫秒），默认 2000。设置为 0 表示每次编译都检查 */
+    public static void setRevalidateInterval(long revalidateInterval) {
+        ImportModule.revalidateInterval = Math.max(0, revalidateInterval);
+    }
+
+    /** 清空所有缓存的模块 */
+    public static void clearCache() {
+        synchronized (MODULE_CACHE) {
+            MODULE_CACHE.clear();
+        }
+    }
+
+    /** 缓存的模块数量（全部 Finder 的总和） */
+    public static int cacheSize() {
+        synchronized (MODULE_CACHE) {
+            return MODULE_CACHE.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+}
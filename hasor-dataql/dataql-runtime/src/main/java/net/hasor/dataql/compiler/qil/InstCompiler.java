@@ -33,6 +33,16 @@ public interface InstCompiler<T extends Inst> extends Opcodes {
      */
     public abstract void doCompiler(T astInst, InstQueue queue, CompilerContext compilerContext);
 
+    /** 是否编译列表格式化的流式分支，参考 CompilerArguments.isStreamingFormat */
+    public default boolean streamingFormat(InstQueue queue) {
+        return queue.getCompilerArguments().isStreamingFormat();
+    }
+
+    /** 是否把对象中可并行的函数调用编译成 CALL_A/JOIN，参考 CompilerArguments.isParallelCall */
+    public default boolean parallelCall(InstQueue queue) {
+        return queue.getCompilerArguments().isParallelCall();
+    }
+
     public default void instLocationFocus(InstQueue queue, CodeLocation location) {
         this.instLocation(true, queue, location);
     }
@@ -15,13 +15,12 @@
  */
 package net.hasor.dataql.compiler.qil;
 import net.hasor.dataql.compiler.CompilerException;
+import net.hasor.dataql.compiler.qil.opt.InstOptimizer;
 import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.OptimizePassEnum;
 import net.hasor.utils.StringUtils;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static net.hasor.dataql.compiler.qil.Opcodes.LINE;
@@ -129,11 +128,94 @@ public class InstQueue {
         return new InstQueue(this.compilerArguments, name, this);
     }
 
+    /** 函数数量 */
+    int methodSize() {
+        return this.instSet.size();
+    }
+
+    /** 所有函数的指令 */
+    InstructionInfo[][] methodSnapshot() {
+        InstructionInfo[][] methodSet = new InstructionInfo[this.instSet.size()][];
+        for (int i = 0; i < this.instSet.size(); i++) {
+            methodSet[i] = this.instSet.get(i).toArray(new InstructionInfo[0]);
+        }
+        return methodSet;
+    }
+
+    /** 把 ImportModule 复制到指令集中（compilerContext 中已经导入过的资源不再复制），返回模块入口函数的地址 */
+    int importModule(String importResource, ImportModule importModule, CompilerContext compilerContext) {
+        InstructionInfo[][] methodSet = importModule.getMethodSet();
+        int[] addressMapping = new int[methodSet.length];
+        boolean[] skipMethod = new boolean[methodSet.length];
+        Arrays.fill(addressMapping, -1);
+        for (Map.Entry<String, int[]> ent : importModule.getImportRange().entrySet()) {
+            int loadedAddress = compilerContext.findImport(ent.getKey());
+            if (loadedAddress >= 0) {
+                int[] range = ent.getValue();
+                Arrays.fill(skipMethod, range[0], range[1], true);
+                addressMapping[range[0]] = loadedAddress;
+            }
+        }
+        // .分配函数地址
+        int[] keptCount = new int[methodSet.length + 1];
+        for (int i = 0; i < methodSet.length; i++) {
+            keptCount[i + 1] = keptCount[i];
+            if (!skipMethod[i]) {
+                addressMapping[i] = this.instSet.size();
+                this.instSet.add(new LinkedList<>());
+                keptCount[i + 1]++;
+            }
+        }
+        // .复制指令，Label 和函数地址重新分配
+        Map<Label, Label> labelMapping = new IdentityHashMap<>();
+        for (int i = 0; i < methodSet.length; i++) {
+            if (skipMethod[i]) {
+                continue;
+            }
+            LinkedList<InstructionInfo> instList = this.instSet.get(addressMapping[i]);
+            for (InstructionInfo inst : methodSet[i]) {
+                Object[] param = inst.getArrays().clone();
+                for (int j = 0; j < param.length; j++) {
+                    if (param[j] instanceof Label) {
+                        param[j] = labelMapping.computeIfAbsent((Label) param[j], label -> this.labelDef());
+                    }
+                }
+                if (inst.getInstCode() == Opcodes.M_REF) {
+                    int methodAddress = addressMapping[(Integer) param[0]];
+                    if (methodAddress < 0) {
+                        throw new CompilerException("compiler error -> import '" + importResource + "' method " + param[0] + " undefined.");
+                    }
+                    param[0] = methodAddress;
+                }
+                instList.addLast(new InstructionInfo(inst.getInstCode(), param));
+            }
+        }
+        // .登记复制进来的资源
+        compilerContext.putImport(importResource, addressMapping[0]);
+        compilerContext.putImportRange(importResource, addressMapping[0], addressMapping[0] + keptCount[methodSet.length]);
+        for (Map.Entry<String, int[]> ent : importModule.getImportRange().entrySet()) {
+            int[] range = ent.getValue();
+            if (!skipMethod[range[0]]) {
+                int startAddress = addressMapping[range[0]];
+                compilerContext.putImport(ent.getKey(), startAddress);
+                compilerContext.putImportRange(ent.getKey(), startAddress, startAddress + keptCount[range[1]] - keptCount[range[0]]);
+            }
+        }
+        return addressMapping[0];
+    }
+
     public Label labelDef() {
         return new Label(this.labelIndex.incrementAndGet());
     }
 
     public Instruction[][] buildArrays() throws CompilerException {
+        // .优化之后指令的位置发生了变化，重新计算 Label 的位置
+        InstOptimizer.optimize(this.compilerArguments, this.instSet);
+        boolean removeLabel = this.compilerArguments.getOptimizePass().contains(OptimizePassEnum.LINE_LABEL);
+        for (LinkedList<InstructionInfo> instList : this.instSet) {
+            updateLabelIndex(instList, removeLabel);
+        }
+        //
         for (LinkedList<InstructionInfo> instList : this.instSet) {
             for (InstructionInfo inst : instList) {
                 if (!inst.replaceLabel()) {
@@ -151,6 +233,35 @@ public class InstQueue {
         return buildData;
     }
 
+    /** 更新 Label 的位置，removeLabel 为 true 时删除 LABEL 指令，Label 指向其后的第一条指令 */
+    private static void updateLabelIndex(LinkedList<InstructionInfo> instList, boolean removeLabel) {
+        List<Label> pendingLabels = new ArrayList<>();
+        Iterator<InstructionInfo> instIterator = instList.iterator();
+        int index = 0;
+        while (instIterator.hasNext()) {
+            InstructionInfo inst = instIterator.next();
+            if (inst.getInstCode() == Opcodes.LABEL) {
+                for (Object obj : inst.getArrays()) {
+                    if (obj instanceof Label) {
+                        pendingLabels.add((Label) obj);
+                    }
+                }
+                if (removeLabel) {
+                    instIterator.remove();
+                    continue;
+                }
+            }
+            for (Label label : pendingLabels) {
+                label.updateIndex(index);
+            }
+            pendingLabels.clear();
+            index++;
+        }
+        for (Label label : pendingLabels) {
+            label.updateIndex(index);
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder strBuffer = new StringBuilder();
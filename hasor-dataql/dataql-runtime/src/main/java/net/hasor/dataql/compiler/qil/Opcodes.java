@@ -15,7 +15,7 @@
  */
 package net.hasor.dataql.compiler.qil;
 /**
- * QL 指令集，共计 35 条指令
+ * QL 指令集，共计 38 条指令
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2017-07-03
  */
@@ -60,6 +60,9 @@ public interface Opcodes {
     public static final byte M_TYP  = 64;   // 加载一个类型对象到栈顶，该类型是一个有效的 UDF。这相当于引用 java 类型UDF 函数
     public static final byte M_FRAG = 65;   // 引用外部片段执行器，并将其作为 UDF 形态存放到栈顶
     public static final byte LOCAL  = 66;   // 将入参存入堆，也用于标记变量名称
+    public static final byte CALL_A = 67;   // 发起可并行的服务调用，开启 PARALLEL_CALL 时异步执行并将调用句柄压入栈，否则等同于 CALL（例：CALL_A,2）
+    public static final byte JOIN   = 68;   // 等待栈顶的调用句柄执行完毕，并用调用结果替换它。栈顶不是调用句柄时什么也不做
+    public static final byte M_MAP  = 69;   // 将栈顶的数据流迭代器和格式化函数组合为延迟计算的数据流，并将结果存放到栈顶
     // -------------------------------------------------------------------------- 辅助指令
     public static final byte HINT   = 71;   // 设置 Hint，影响执行引擎的参数选项。
     public static final byte HINT_S = 72;   // 对当前的 Hint 执行快照，后续的 Hint 变更将在快照上进行
@@ -18,6 +18,10 @@ import net.hasor.utils.StringUtils;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static net.hasor.dataql.HintNames.PROFILER;
+import static net.hasor.dataql.compiler.qil.Opcodes.*;
 
 /**
  * Query intermediate language 中间查询语言
@@ -25,12 +29,87 @@ import java.util.Map;
  * @version : 2017-07-03
  */
 public class QIL {
-    private final Instruction[][]      queueSet;
-    private final Map<String, Integer> compilerVar;
+    private final Instruction[][]                queueSet;
+    private final byte[][]                       opcodeSet;      // 预解码的指令码，加载 QIL 时生成，执行时直接按照指令码分派
+    private final int[][]                        operandOffset;  // 每条指令的操作数在扁平化数组中的起始位置（末尾多一个元素作为结束位置）
+    private final int[][]                        operandInts;    // 扁平化的整数操作数，不是整数的位置上为 0
+    private final Object[][]                     operandValues;  // 扁平化的操作数
+    private final Map<String, Integer>           compilerVar;
+    private final AtomicReferenceArray<Object>[] inlineCache;    // 每条指令的调用点缓存（例如：运算符的查找结果），多个线程共享同一个 QIL 所以需要安全发布
+    private final boolean                        profilerHint;   // 脚本开头的 hint 语句是否开启了 PROFILER，加载 QIL 时确定
+    private final int[]                          executeCounter; // 每个方法的执行次数，仅用于分层执行的热点判断（允许并发下的计数误差）
+    private final AtomicReferenceArray<Object>   tieredCode;     // 每个方法分层编译的结果，和调用点缓存一样需要安全发布
 
     public QIL(Instruction[][] queueSet, Map<String, Integer> compilerVar) {
         this.queueSet = queueSet;
+        this.opcodeSet = new byte[queueSet.length][];
+        this.operandOffset = new int[queueSet.length][];
+        this.operandInts = new int[queueSet.length][];
+        this.operandValues = new Object[queueSet.length][];
+        this.inlineCache = newInlineCache(queueSet.length);
+        for (int i = 0; i < queueSet.length; i++) {
+            Instruction[] instList = queueSet[i];
+            this.opcodeSet[i] = new byte[instList.length];
+            this.operandOffset[i] = new int[instList.length + 1];
+            this.inlineCache[i] = new AtomicReferenceArray<>(instList.length);
+            int operandSize = 0;
+            for (int j = 0; j < instList.length; j++) {
+                this.opcodeSet[i][j] = instList[j].getInstCode();
+                this.operandOffset[i][j] = operandSize;
+                operandSize += instList[j].getArrays().length;
+            }
+            this.operandOffset[i][instList.length] = operandSize;
+            //
+            this.operandInts[i] = new int[operandSize];
+            this.operandValues[i] = new Object[operandSize];
+            for (int j = 0; j < instList.length; j++) {
+                Object[] operands = instList[j].getArrays();
+                int offset = this.operandOffset[i][j];
+                for (int k = 0; k < operands.length; k++) {
+                    this.operandValues[i][offset + k] = operands[k];
+                    this.operandInts[i][offset + k] = (operands[k] instanceof Integer) ? (Integer) operands[k] : 0;
+                }
+            }
+        }
         this.compilerVar = compilerVar;
+        this.profilerHint = findProfilerHint(queueSet);
+        this.executeCounter = new int[queueSet.length];
+        this.tieredCode = new AtomicReferenceArray<>(queueSet.length);
+    }
+
+    /** hint 语句只能出现在脚本开头，编译结果为：LDC_S name、LDC_x value、HINT（中间可能夹杂着 LINE） */
+    private static boolean findProfilerHint(Instruction[][] queueSet) {
+        if (queueSet.length == 0) {
+            return false;
+        }
+        Instruction[] instList = queueSet[0];
+        boolean enabled = false;
+        int nameIndex = skipLine(instList, 0);
+        while (nameIndex < instList.length && instList[nameIndex].getInstCode() == LDC_S) {
+            int valueIndex = skipLine(instList, nameIndex + 1);
+            int hintIndex = skipLine(instList, valueIndex + 1);
+            if (hintIndex >= instList.length || instList[hintIndex].getInstCode() != HINT) {
+                break;
+            }
+            if (PROFILER.name().equals(instList[nameIndex].getString(0))) {
+                Object[] valueArrays = instList[valueIndex].getArrays();
+                enabled = valueArrays.length > 0 && valueArrays[0] != null && Boolean.parseBoolean(valueArrays[0].toString());
+            }
+            nameIndex = skipLine(instList, hintIndex + 1);
+        }
+        return enabled;
+    }
+
+    private static int skipLine(Instruction[] instList, int index) {
+        while (index < instList.length && instList[index].getInstCode() == LINE) {
+            index++;
+        }
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Object>[] newInlineCache(int length) {
+        return (AtomicReferenceArray<Object>[]) new AtomicReferenceArray<?>[length];
     }
 
     public Map<String, Integer> getCompilerVar() {
@@ -78,6 +157,56 @@ public class QIL {
         return this.queueSet[address][index];
     }
 
+    /** 获取方法预解码之后的指令码序列（内部共享数组，调用者不可修改） */
+    public byte[] opcodeArrays(int address) {
+        return this.opcodeSet[address];
+    }
+
+    /** 获取方法中每条指令操作数的起始位置，长度比指令数多一（内部共享数组，调用者不可修改） */
+    public int[] operandOffsets(int address) {
+        return this.operandOffset[address];
+    }
+
+    /** 获取方法扁平化之后的整数操作数（内部共享数组，调用者不可修改） */
+    public int[] operandInts(int address) {
+        return this.operandInts[address];
+    }
+
+    /** 获取方法扁平化之后的操作数（内部共享数组，调用者不可修改） */
+    public Object[] operandValues(int address) {
+        return this.operandValues[address];
+    }
+
+    /** 方法执行次数加一，并返回增加之后的执行次数 */
+    public int increaseExecuteCount(int address) {
+        return ++this.executeCounter[address];
+    }
+
+    /** 获取方法分层编译的结果，尚未编译时返回 null */
+    public Object getTieredCode(int address) {
+        return this.tieredCode.get(address);
+    }
+
+    /** 保存方法分层编译的结果 */
+    public void setTieredCode(int address, Object tieredCode) {
+        this.tieredCode.set(address, tieredCode);
+    }
+
+    /** 获取指令调用点上的缓存，缓存对象必须是不可变的（多个线程会共享同一个 QIL） */
+    public Object getInlineCache(int address, int index) {
+        return this.inlineCache[address].get(index);
+    }
+
+    /** 更新指令调用点上的缓存 */
+    public void setInlineCache(int address, int index, Object cache) {
+        this.inlineCache[address].set(index, cache);
+    }
+
+    /** 脚本开头的 hint 语句是否开启了性能分析（PROFILER） */
+    public boolean isProfilerHint() {
+        return this.profilerHint;
+    }
+
     /** 获取方法指令序列的迭代器 */
     public Instruction[] iqlArrays(int address) {
         return this.queueSet[address].clone();
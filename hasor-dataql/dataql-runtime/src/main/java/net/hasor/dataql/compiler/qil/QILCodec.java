@@ -0,0 +1,286 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil;
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * QIL 的二进制编码，用于持久化编译结果，读取时不需要经过 ANTLR 解析和编译。
+ * <pre>
+ * 文件结构：
+ *   magic(int)、version(short)
+ *   常量池：count，[tag, value]...         （字符串以及 Integer 以外的数字）
+ *   编译变量：count，[name(常量池序号), localIdx]...
+ *   方法：count，[instCount，[opcode(byte), paramCount, [tag, value]...]...]...
+ * 所有的 count、序号、Integer 参数均使用变长整数编码。
+ * </pre>
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class QILCodec {
+    private static final int  MAGIC         = 0x44514C43; // DQLC
+    private static final int  VERSION       = 1;
+    // .指令参数
+    private static final byte PARAM_NULL    = 0;
+    private static final byte PARAM_TRUE    = 1;
+    private static final byte PARAM_FALSE   = 2;
+    private static final byte PARAM_INT     = 3;
+    private static final byte PARAM_CONST   = 4;
+    // .常量池
+    private static final byte CONST_STRING  = 1;
+    private static final byte CONST_BYTE    = 2;
+    private static final byte CONST_SHORT   = 3;
+    private static final byte CONST_LONG    = 4;
+    private static final byte CONST_FLOAT   = 5;
+    private static final byte CONST_DOUBLE  = 6;
+    private static final byte CONST_BIG_INT = 7;
+    private static final byte CONST_BIG_DEC = 8;
+
+    /** 编码 QIL */
+    public static byte[] encode(QIL qil) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        encode(qil, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /** 编码 QIL 并写入输出流 */
+    public static void encode(QIL qil, OutputStream outputStream) throws IOException {
+        Map<Object, Integer> constPool = new LinkedHashMap<>();
+        Map<String, Integer> compilerVar = new TreeMap<>(qil.getCompilerVar());
+        compilerVar.keySet().forEach(varName -> constIndex(constPool, varName));
+        //
+        // .方法部分先写到缓冲区，同时收集常量池
+        ByteArrayOutputStream methodBuffer = new ByteArrayOutputStream();
+        DataOutputStream methodOutput = new DataOutputStream(methodBuffer);
+        writeVarInt(methodOutput, qil.iqlPoolSize());
+        for (int address = 0; address < qil.iqlPoolSize(); address++) {
+            int instSize = qil.iqlSize(address);
+            writeVarInt(methodOutput, instSize);
+            for (int i = 0; i < instSize; i++) {
+                Instruction inst = qil.instOf(address, i);
+                Object[] params = inst.getArrays();
+                methodOutput.writeByte(inst.getInstCode());
+                writeVarInt(methodOutput, params.length);
+                for (Object param : params) {
+                    writeParam(methodOutput, constPool, param);
+                }
+            }
+        }
+        methodOutput.flush();
+        //
+        DataOutputStream dataOutput = new DataOutputStream(outputStream);
+        dataOutput.writeInt(MAGIC);
+        dataOutput.writeShort(VERSION);
+        writeVarInt(dataOutput, constPool.size());
+        for (Object constValue : constPool.keySet()) {
+            writeConst(dataOutput, constValue);
+        }
+        writeVarInt(dataOutput, compilerVar.size());
+        for (Map.Entry<String, Integer> ent : compilerVar.entrySet()) {
+            writeVarInt(dataOutput, constPool.get(ent.getKey()));
+            writeVarInt(dataOutput, ent.getValue());
+        }
+        methodBuffer.writeTo(dataOutput);
+        dataOutput.flush();
+    }
+
+    /** 解码 QIL */
+    public static QIL decode(byte[] qilBytes) throws IOException {
+        return decode(new ByteArrayInputStream(qilBytes));
+    }
+
+    /** 从输入流中解码 QIL */
+    public static QIL decode(InputStream inputStream) throws IOException {
+        DataInputStream dataInput = new DataInputStream(inputStream);
+        if (dataInput.readInt() != MAGIC) {
+            throw new IOException("not a compiled QIL data.");
+        }
+        int version = dataInput.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported QIL version " + version + ", current version is " + VERSION);
+        }
+        //
+        Object[] constPool = new Object[readVarInt(dataInput)];
+        for (int i = 0; i < constPool.length; i++) {
+            constPool[i] = readConst(dataInput);
+        }
+        int varSize = readVarInt(dataInput);
+        Map<String, Integer> compilerVar = new HashMap<>();
+        for (int i = 0; i < varSize; i++) {
+            String varName = (String) constPool[readVarInt(dataInput)];
+            compilerVar.put(varName, readVarInt(dataInput));
+        }
+        Instruction[][] queueSet = new Instruction[readVarInt(dataInput)][];
+        for (int address = 0; address < queueSet.length; address++) {
+            queueSet[address] = new Instruction[readVarInt(dataInput)];
+            for (int i = 0; i < queueSet[address].length; i++) {
+                byte instCode = dataInput.readByte();
+                Object[] params = new Object[readVarInt(dataInput)];
+                for (int j = 0; j < params.length; j++) {
+                    params[j] = readParam(dataInput, constPool);
+                }
+                queueSet[address][i] = new InstructionInfo(instCode, params);
+            }
+        }
+        return new QIL(queueSet, compilerVar);
+    }
+
+    private static int constIndex(Map<Object, Integer> constPool, Object constValue) {
+        return constPool.computeIfAbsent(constValue, key -> constPool.size());
+    }
+
+    private static void writeParam(DataOutputStream output, Map<Object, Integer> constPool, Object param) throws IOException {
+        if (param == null) {
+            output.writeByte(PARAM_NULL);
+        } else if (param instanceof Boolean) {
+            output.writeByte((Boolean) param ? PARAM_TRUE : PARAM_FALSE);
+        } else if (param instanceof Integer) {
+            output.writeByte(PARAM_INT);
+            writeVarInt(output, ((Integer) param << 1) ^ ((Integer) param >> 31)); // zigzag
+        } else if (param instanceof String || param instanceof Number) {
+            constTag(param); // 检查类型是否支持
+            output.writeByte(PARAM_CONST);
+            writeVarInt(output, constIndex(constPool, param));
+        } else {
+            throw new IOException("unsupported instruction param type " + param.getClass().getName());
+        }
+    }
+
+    private static Object readParam(DataInputStream input, Object[] constPool) throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case PARAM_NULL:
+                return null;
+            case PARAM_TRUE:
+                return Boolean.TRUE;
+            case PARAM_FALSE:
+                return Boolean.FALSE;
+            case PARAM_INT: {
+                int value = readVarInt(input);
+                return (value >>> 1) ^ -(value & 1);
+            }
+            case PARAM_CONST:
+                return constPool[readVarInt(input)];
+            default:
+                throw new IOException("bad instruction param tag " + tag);
+        }
+    }
+
+    private static byte constTag(Object constValue) throws IOException {
+        if (constValue instanceof String) {
+            return CONST_STRING;
+        } else if (constValue instanceof Byte) {
+            return CONST_BYTE;
+        } else if (constValue instanceof Short) {
+            return CONST_SHORT;
+        } else if (constValue instanceof Long) {
+            return CONST_LONG;
+        } else if (constValue instanceof Float) {
+            return CONST_FLOAT;
+        } else if (constValue instanceof Double) {
+            return CONST_DOUBLE;
+        } else if (constValue instanceof BigInteger) {
+            return CONST_BIG_INT;
+        } else if (constValue instanceof BigDecimal) {
+            return CONST_BIG_DEC;
+        }
+        throw new IOException("unsupported constant type " + constValue.getClass().getName());
+    }
+
+    private static void writeConst(DataOutputStream output, Object constValue) throws IOException {
+        byte tag = constTag(constValue);
+        output.writeByte(tag);
+        switch (tag) {
+            case CONST_BYTE:
+                output.writeByte((Byte) constValue);
+                break;
+            case CONST_SHORT:
+                output.writeShort((Short) constValue);
+                break;
+            case CONST_LONG:
+                output.writeLong((Long) constValue);
+                break;
+            case CONST_FLOAT:
+                output.writeFloat((Float) constValue);
+                break;
+            case CONST_DOUBLE:
+                output.writeDouble((Double) constValue);
+                break;
+            default:
+                writeString(output, constValue.toString()); // String、BigInteger、BigDecimal
+        }
+    }
+
+    private static Object readConst(DataInputStream input) throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case CONST_STRING:
+                return readString(input);
+            case CONST_BYTE:
+                return input.readByte();
+            case CONST_SHORT:
+                return input.readShort();
+            case CONST_LONG:
+                return input.readLong();
+            case CONST_FLOAT:
+                return input.readFloat();
+            case CONST_DOUBLE:
+                return input.readDouble();
+            case CONST_BIG_INT:
+                return new BigInteger(readString(input));
+            case CONST_BIG_DEC:
+                return new BigDecimal(readString(input));
+            default:
+                throw new IOException("bad constant tag " + tag);
+        }
+    }
+
+    /** DataOutputStream.writeUTF 有 64K 的长度限制，脚本中的 SQL 片段可能会超过这个长度 */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[readVarInt(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint.");
+    }
+}
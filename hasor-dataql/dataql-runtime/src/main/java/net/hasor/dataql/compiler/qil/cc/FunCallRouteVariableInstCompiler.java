@@ -31,6 +31,11 @@ import java.util.List;
 public class FunCallRouteVariableInstCompiler implements InstCompiler<FunCallRouteVariable> {
     @Override
     public void doCompiler(FunCallRouteVariable astInst, InstQueue queue, CompilerContext compilerContext) {
+        this.doCompiler(astInst, queue, compilerContext, CALL);
+    }
+
+    /** 使用指定的调用指令（CALL 或 CALL_A）编译函数调用 */
+    void doCompiler(FunCallRouteVariable astInst, InstQueue queue, CompilerContext compilerContext, byte callInst) {
         //
         RouteVariable enter = astInst.getParent();
         compilerContext.findInstCompilerByInst(enter).doCompiler(queue);
@@ -46,6 +51,6 @@ public class FunCallRouteVariableInstCompiler implements InstCompiler<FunCallRou
         }
         // .执行函数调用
         instLocation(queue, astInst);
-        queue.inst(CALL, paramList.size());
+        queue.inst(callInst, paramList.size());
     }
 }
\ No newline at end of file
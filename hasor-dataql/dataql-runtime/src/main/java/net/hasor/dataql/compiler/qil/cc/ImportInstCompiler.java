@@ -17,16 +17,10 @@ package net.hasor.dataql.compiler.qil.cc;
 import net.hasor.dataql.compiler.CompilerException;
 import net.hasor.dataql.compiler.ast.inst.ImportInst;
 import net.hasor.dataql.compiler.ast.inst.ImportInst.ImportType;
-import net.hasor.dataql.compiler.ast.inst.RootBlockSet;
 import net.hasor.dataql.compiler.ast.token.StringToken;
 import net.hasor.dataql.compiler.qil.CompilerContext;
 import net.hasor.dataql.compiler.qil.InstCompiler;
 import net.hasor.dataql.compiler.qil.InstQueue;
-import net.hasor.dataql.runtime.QueryHelper;
-import net.hasor.utils.ExceptionUtils;
-
-import java.io.InputStream;
-import java.util.Objects;
 
 /**
  * import 语法
@@ -46,10 +40,7 @@ public class ImportInstCompiler implements InstCompiler<ImportInst> {
         if (importType == ImportType.Resource) {
             int importAddress = compilerContext.findImport(importResource);
             if (importAddress < 0) {
-                InstQueue newMethodInst = queue.newMethodInst();
-                compilerContext.putImport(importResource, newMethodInst.getName());
-                this.loadResource(importResource, newMethodInst, compilerContext.createSegregate());
-                importAddress = newMethodInst.getName();
+                importAddress = compilerContext.importResource(importResource, queue);
             }
             instLocation(queue, importResourceToken);
             queue.inst(M_REF, importAddress);
@@ -69,17 +60,4 @@ public class ImportInstCompiler implements InstCompiler<ImportInst> {
         instLocation(queue, asNameToken);
         queue.inst(STORE, index);
     }
-
-    private void loadResource(String importName, InstQueue queue, CompilerContext compilerContext) {
-        // .parser资源
-        RootBlockSet queryModel = null;
-        try {
-            InputStream inputStream = Objects.requireNonNull(compilerContext.findResource(importName), "import resource '" + importName + "' not found.");
-            queryModel = (RootBlockSet) QueryHelper.queryParser(inputStream);
-        } catch (Exception e) {
-            throw ExceptionUtils.toRuntimeException(e, throwable -> new CompilerException("import compiler failed -> parser failed.", throwable));
-        }
-        // 编译资源
-        compilerContext.findInstCompilerByInst(queryModel).doCompiler(queue);
-    }
 }
\ No newline at end of file
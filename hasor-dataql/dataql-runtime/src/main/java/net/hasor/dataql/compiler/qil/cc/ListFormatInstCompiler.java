@@ -27,6 +27,7 @@ import static net.hasor.dataql.compiler.ast.value.EnterRouteVariable.SpecialType
 
 /**
  * 函数调用的返回值处理格式，List格式。
+ *  - 开启 streamingFormat 编译选项后，数据是 DataStream 时会跳过循环，把格式化表达式编译成函数交给 M_MAP 逐条计算。
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2017-03-23
  */
@@ -48,6 +49,21 @@ public class ListFormatInstCompiler implements InstCompiler<ListFormat> {
         compilerContext.findInstCompilerByInst(formVariable).doCompiler(queue);
         queue.inst(CAST_I); // 栈顶数据转换为迭代器
         queue.inst(E_PUSH); // 将栈顶数据压入环境栈
+        Label endFormat = null;
+        if (this.streamingFormat(queue)) {
+            Label loopFormat = queue.labelDef();
+            endFormat = queue.labelDef();
+            queue.inst(E_LOAD, Special_A.getCode());
+            queue.inst(GET, "stream");
+            queue.inst(IF, loopFormat);
+            // .数据流：构造逐条格式化的数据流
+            queue.inst(E_LOAD, Special_A.getCode());
+            instLocation(queue, astInst.getFormatTo());
+            queue.inst(M_REF, this.compilerRowFormat(astInst, queue, compilerContext));
+            queue.inst(M_MAP);
+            queue.inst(GOTO, endFormat);
+            queue.inst(LABEL, loopFormat);
+        }
         {
             instLocation(queue, astInst.getFormatTo());
             queue.inst(NEW_A);  // 构造集合
@@ -82,6 +98,33 @@ public class ListFormatInstCompiler implements InstCompiler<ListFormat> {
             }
             queue.inst(LABEL, breakLoop);
         }
+        if (endFormat != null) {
+            queue.inst(LABEL, endFormat);
+        }
         queue.inst(E_POP);// 丢弃环境栈顶元素
     }
+
+    /** 把一条数据的格式化编译为函数：入参是一条数据，返回值是格式化表达式的结果集合 */
+    private int compilerRowFormat(ListFormat astInst, InstQueue queue, CompilerContext compilerContext) {
+        InstQueue newMethodInst = queue.newMethodInst();
+        compilerContext.newFrame();
+        int rowIndex = compilerContext.push("#row");
+        newMethodInst.inst(LOCAL, 0, rowIndex, "#row");
+        newMethodInst.inst(NEW_A);
+        for (Variable variable : astInst.getFormatTo().getExpressionList()) {
+            instLocation(newMethodInst, variable);
+            if (!(variable instanceof PrimitiveVariable)) {
+                newMethodInst.inst(LOAD, 0, rowIndex);
+                newMethodInst.inst(E_PUSH);
+                compilerContext.findInstCompilerByInst(variable).doCompiler(newMethodInst);
+                newMethodInst.inst(E_POP);
+            } else {
+                compilerContext.findInstCompilerByInst(variable).doCompiler(newMethodInst);
+            }
+            newMethodInst.inst(PUSH);
+        }
+        newMethodInst.inst(RETURN, 0);
+        compilerContext.dropFrame();
+        return newMethodInst.getName();
+    }
 }
\ No newline at end of file
@@ -14,9 +14,11 @@
  * limitations under the License.
  */
 package net.hasor.dataql.compiler.qil.cc;
+import net.hasor.dataql.compiler.ast.RouteVariable;
 import net.hasor.dataql.compiler.ast.Variable;
+import net.hasor.dataql.compiler.ast.expr.AtomExpression;
 import net.hasor.dataql.compiler.ast.token.StringToken;
-import net.hasor.dataql.compiler.ast.value.ObjectVariable;
+import net.hasor.dataql.compiler.ast.value.*;
 import net.hasor.dataql.compiler.qil.CompilerContext;
 import net.hasor.dataql.compiler.qil.InstCompiler;
 import net.hasor.dataql.compiler.qil.InstQueue;
@@ -26,18 +28,26 @@ import java.util.Map;
 
 /**
  * 对象
+ *  - 开启 parallelCall 编译选项并且含有两个及以上的可并行调用（函数入口和参数都只是变量或常量的函数调用，例如 SQL 片段）时，
+ *    所有字段先按顺序求值并暂存，调用以 CALL_A 发起，最后统一 JOIN 和 PUT。开启 PARALLEL_CALL Hint 之后这些调用会并行执行，
+ *    否则和逐个字段 PUT 的结果一致。未开启编译选项时总是逐个字段 PUT。
+ *  - 暂存用的匿名变量在对象构造完之后清空并释放，之后的对象可以复用这些位置。
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2017-03-23
  */
 public class ObjectVariableInstCompiler implements InstCompiler<ObjectVariable> {
     @Override
     public void doCompiler(ObjectVariable astInst, InstQueue queue, CompilerContext compilerContext) {
-        instLocation(queue, astInst);
-        queue.inst(NEW_O);
         List<String> keyFields = astInst.getFieldSort();
         Map<String, StringToken> objectKeys = astInst.getObjectKeys();
         Map<String, Variable> objectData = astInst.getObjectValues();
+        if (this.parallelCall(queue) && keyFields.stream().filter(fieldKey -> findParallelCall(objectData.get(fieldKey)) != null).count() >= 2) {
+            this.doParallelCompiler(astInst, queue, compilerContext);
+            return;
+        }
         //
+        instLocation(queue, astInst);
+        queue.inst(NEW_O);
         for (String fieldKey : keyFields) {
             StringToken keyVal = objectKeys.get(fieldKey);
             Variable variable = objectData.get(fieldKey);
@@ -47,4 +57,77 @@ public class ObjectVariableInstCompiler implements InstCompiler<ObjectVariable>
             queue.inst(PUT, fieldKey);
         }
     }
-}
\ No newline at end of file
+
+    private void doParallelCompiler(ObjectVariable astInst, InstQueue queue, CompilerContext compilerContext) {
+        List<String> keyFields = astInst.getFieldSort();
+        Map<String, StringToken> objectKeys = astInst.getObjectKeys();
+        Map<String, Variable> objectData = astInst.getObjectValues();
+        //
+        // .按顺序求值，结果暂存到匿名变量中
+        int[] fieldIndex = new int[keyFields.size()];
+        boolean[] fieldAsync = new boolean[keyFields.size()];
+        for (int i = 0; i < keyFields.size(); i++) {
+            Variable variable = objectData.get(keyFields.get(i));
+            FunCallRouteVariable funCall = findParallelCall(variable);
+            if (funCall != null) {
+                new FunCallRouteVariableInstCompiler().doCompiler(funCall, queue, compilerContext, CALL_A);
+                fieldAsync[i] = true;
+            } else {
+                compilerContext.findInstCompilerByInst(variable).doCompiler(queue);
+            }
+            fieldIndex[i] = compilerContext.pushAnonymous();
+            queue.inst(STORE, fieldIndex[i]);
+        }
+        //
+        // .等待调用结果并构造对象
+        instLocation(queue, astInst);
+        queue.inst(NEW_O);
+        for (int i = 0; i < keyFields.size(); i++) {
+            String fieldKey = keyFields.get(i);
+            queue.inst(LOAD, 0, fieldIndex[i]);
+            if (fieldAsync[i]) {
+                queue.inst(JOIN);
+            }
+            instLocation(queue, objectKeys.get(fieldKey));
+            queue.inst(PUT, fieldKey);
+        }
+        //
+        // .清空暂存的结果（不再引用调用结果）并释放匿名变量
+        for (int index : fieldIndex) {
+            queue.inst(LDC_N);
+            queue.inst(STORE, index);
+            compilerContext.releaseAnonymous(index);
+        }
+    }
+
+    /** 函数入口和参数都只是变量或常量的函数调用可以并行执行，否则返回 null */
+    private static FunCallRouteVariable findParallelCall(Variable variable) {
+        if (variable instanceof AtomExpression) {
+            variable = ((AtomExpression) variable).getVariableExpression();
+        }
+        if (!(variable instanceof FunCallRouteVariable)) {
+            return null;
+        }
+        FunCallRouteVariable funCall = (FunCallRouteVariable) variable;
+        if (!isNameRoute(funCall.getParent())) {
+            return null;
+        }
+        for (Variable param : funCall.getParamList()) {
+            if (param instanceof AtomExpression) {
+                param = ((AtomExpression) param).getVariableExpression();
+            }
+            if (!(param instanceof PrimitiveVariable) && !(param instanceof RouteVariable && isNameRoute((RouteVariable) param))) {
+                return null;
+            }
+        }
+        return funCall;
+    }
+
+    /** 只由名字构成的路由（例：a.b.c、${a}、#.a），求值过程没有任何副作用 */
+    private static boolean isNameRoute(RouteVariable route) {
+        while (route instanceof NameRouteVariable) {
+            route = route.getParent();
+        }
+        return route instanceof EnterRouteVariable;
+    }
+}
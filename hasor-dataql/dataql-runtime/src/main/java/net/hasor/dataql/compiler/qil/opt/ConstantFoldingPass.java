@@ -0,0 +1,164 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+import net.hasor.dataql.runtime.HintsSet;
+import net.hasor.dataql.runtime.operator.OperatorManager;
+import net.hasor.dataql.runtime.operator.OperatorProcess;
+import net.hasor.dataql.runtime.operator.OperatorUtils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static net.hasor.dataql.HintNames.MIN_INTEGER_WIDTH;
+import static net.hasor.dataql.HintValue.*;
+
+/**
+ * 常量折叠：操作数都是常量的 DO、UO 在编译期计算，结果作为常量指令替换原有的指令。
+ *  - 计算使用的是运行时的 OperatorManager，运算符的行为和运行时完全一致。
+ *  - 数值运算仅限整数（小数受多个 Hint 影响）。MIN_INTEGER_WIDTH 可以在运行时设置，因此分别按照每一种宽度计算，结果都一致时才折叠。
+ *  - 除法 "/" 在 DO 指令中有额外的处理，不参与折叠。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class ConstantFoldingPass implements OptimizePass {
+    /** 未设置（null）以及从窄到宽的每一种宽度，折叠结果取未设置时的计算结果，LDC_D 会按照实际的宽度扩展 */
+    private static final String[] INTEGER_WIDTH = { null, MIN_INTEGER_WIDTH_BYTE, MIN_INTEGER_WIDTH_SHORT, MIN_INTEGER_WIDTH_INT, MIN_INTEGER_WIDTH_LONG, MIN_INTEGER_WIDTH_BIG };
+    private static final Object   NO_FOLDING    = new Object();
+
+    @Override
+    public boolean optimize(List<InstructionInfo> instList) {
+        boolean changed = false;
+        for (int i = 0; i < instList.size(); i++) {
+            InstructionInfo inst = instList.get(i);
+            int operandCount = (inst.getInstCode() == DO) ? 2 : (inst.getInstCode() == UO ? 1 : 0);
+            if (operandCount == 0) {
+                continue;
+            }
+            // .向前查找操作数，操作数之间只允许出现 LINE
+            List<Object> operands = new ArrayList<>();
+            InstructionInfo lastLine = null;
+            int startIndex = -1;
+            for (int j = i - 1; j >= 0 && operands.size() < operandCount; j--) {
+                InstructionInfo operandInst = instList.get(j);
+                if (operandInst.getInstCode() == LINE) {
+                    lastLine = (lastLine == null) ? operandInst : lastLine;
+                    continue;
+                }
+                if (!isConstInst(operandInst)) {
+                    break;
+                }
+                operands.add(0, constValue(operandInst));
+                startIndex = j;
+            }
+            if (operands.size() != operandCount) {
+                continue;
+            }
+            Object result = evaluate(inst.getString(0), operands.toArray());
+            if (result == NO_FOLDING) {
+                continue;
+            }
+            // .保留最后一个 LINE，它决定了后续指令的代码位置
+            List<InstructionInfo> replaceTo = instList.subList(startIndex, i + 1);
+            replaceTo.clear();
+            if (lastLine != null) {
+                replaceTo.add(lastLine);
+            }
+            replaceTo.add(constInst(result));
+            i = startIndex - 1;
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static Object evaluate(String symbol, Object[] operands) {
+        if ("/".equals(symbol)) {
+            return NO_FOLDING;
+        }
+        Object result = NO_FOLDING;
+        for (String integerWidth : INTEGER_WIDTH) {
+            HintsSet hints = new HintsSet();
+            if (integerWidth != null) {
+                hints.setHint(MIN_INTEGER_WIDTH.name(), integerWidth);
+            }
+            Object[] args = new Object[operands.length];
+            for (int i = 0; i < operands.length; i++) {
+                args[i] = ldcValue(operands[i], integerWidth);
+            }
+            Object widthResult = evaluate(symbol, args, hints);
+            if (result == NO_FOLDING) {
+                if (!isConstValue(widthResult)) {
+                    return NO_FOLDING;
+                }
+                result = widthResult;
+            }
+            // .折叠之后的常量在运行时经过 LDC 指令的处理，必须和原本的计算结果完全一致（包括数值类型）
+            if (!Objects.equals(ldcValue(result, integerWidth), widthResult)) {
+                return NO_FOLDING;
+            }
+        }
+        return result;
+    }
+
+    private static Object evaluate(String symbol, Object[] args, HintsSet hints) {
+        try {
+            OperatorProcess process;
+            if (args.length == 2) {
+                process = OperatorManager.defaultManager().findDyadicProcess(symbol, typeOf(args[0]), typeOf(args[1]));
+            } else {
+                process = OperatorManager.defaultManager().findUnaryProcess(symbol, typeOf(args[0]));
+            }
+            return (process == null) ? NO_FOLDING : process.doProcess(null, symbol, args, hints);
+        } catch (Exception e) {
+            return NO_FOLDING;
+        }
+    }
+
+    private static Class<?> typeOf(Object value) {
+        return (value == null) ? Void.class : value.getClass();
+    }
+
+    /** 和 LDC_D 指令相同，整数按照 MIN_INTEGER_WIDTH 调整宽度 */
+    private static Object ldcValue(Object value, String integerWidth) {
+        if (value instanceof Number) {
+            return OperatorUtils.fixNumberWidth((Number) value, null, integerWidth);
+        }
+        return value;
+    }
+
+    private static boolean isConstValue(Object value) {
+        return value == null || value instanceof Boolean || value instanceof String || isIntegerNumber(value);
+    }
+
+    static boolean isIntegerNumber(Object value) {
+        return value instanceof Byte || value instanceof Short || value instanceof Integer //
+                || value instanceof Long || value instanceof BigInteger;
+    }
+
+    private static InstructionInfo constInst(Object value) {
+        if (value == null) {
+            return new InstructionInfo(LDC_N, null);
+        } else if (value instanceof Boolean) {
+            return new InstructionInfo(LDC_B, new Object[] { value });
+        } else if (value instanceof String) {
+            return new InstructionInfo(LDC_S, new Object[] { value });
+        } else {
+            return new InstructionInfo(LDC_D, new Object[] { value });
+        }
+    }
+}
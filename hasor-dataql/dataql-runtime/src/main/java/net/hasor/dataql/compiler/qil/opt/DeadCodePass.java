@@ -0,0 +1,120 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+import net.hasor.dataql.compiler.qil.Label;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 死代码消除：条件是常量的 IF 替换为 GOTO 或直接删除，之后删除所有执行不到的指令。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class DeadCodePass implements OptimizePass {
+    @Override
+    public boolean optimize(List<InstructionInfo> instList) {
+        boolean changed = this.foldConstIf(instList);
+        return this.removeUnreachable(instList) || changed;
+    }
+
+    /** [常量][LINE*] IF -> 条件不成立时为 GOTO，否则删除 */
+    private boolean foldConstIf(List<InstructionInfo> instList) {
+        boolean changed = false;
+        for (int i = 0; i < instList.size(); i++) {
+            InstructionInfo inst = instList.get(i);
+            if (inst.getInstCode() != IF) {
+                continue;
+            }
+            InstructionInfo lastLine = null;
+            int constIndex = i - 1;
+            while (constIndex >= 0 && instList.get(constIndex).getInstCode() == LINE) {
+                lastLine = (lastLine == null) ? instList.get(constIndex) : lastLine;
+                constIndex--;
+            }
+            if (constIndex < 0 || !isConstInst(instList.get(constIndex))) {
+                continue;
+            }
+            boolean testFailed = testFailed(constValue(instList.get(constIndex)));
+            List<InstructionInfo> replaceTo = instList.subList(constIndex, i + 1);
+            replaceTo.clear();
+            if (lastLine != null) {
+                replaceTo.add(lastLine);
+            }
+            if (testFailed) {
+                replaceTo.add(new InstructionInfo(GOTO, new Object[] { jumpLabel(inst) }));
+            }
+            i = constIndex;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /** 和 IF 指令相同的判断逻辑 */
+    private static boolean testFailed(Object test) {
+        if (test == null || Boolean.FALSE.equals(test)) {
+            return true;
+        }
+        String testStr = test.toString();
+        return "false".equalsIgnoreCase(testStr) || "off".equalsIgnoreCase(testStr) || "0".equalsIgnoreCase(testStr);
+    }
+
+    /** 从第一条指令开始沿着所有可能的执行路径标记，删除没有被标记的指令 */
+    private boolean removeUnreachable(List<InstructionInfo> instList) {
+        Map<Label, Integer> labelIndex = labelIndex(instList);
+        boolean[] reachable = new boolean[instList.size()];
+        LinkedList<Integer> pending = new LinkedList<>();
+        pending.add(0);
+        while (!pending.isEmpty()) {
+            int index = pending.removeFirst();
+            while (index < instList.size() && !reachable[index]) {
+                reachable[index] = true;
+                InstructionInfo inst = instList.get(index);
+                byte instCode = inst.getInstCode();
+                if (instCode == IF || instCode == GOTO) {
+                    Integer jumpTo = labelIndex.get(jumpLabel(inst));
+                    if (jumpTo == null) {
+                        return false; // Label 未插入，交给 buildArrays 报错
+                    }
+                    pending.add(jumpTo);
+                    if (instCode == GOTO) {
+                        break;
+                    }
+                }
+                if (instCode == RETURN || instCode == EXIT || instCode == THROW) {
+                    break;
+                }
+                index++;
+            }
+        }
+        //
+        List<InstructionInfo> reachableList = new ArrayList<>(instList.size());
+        for (int i = 0; i < instList.size(); i++) {
+            if (reachable[i]) {
+                reachableList.add(instList.get(i));
+            }
+        }
+        if (reachableList.size() == instList.size()) {
+            return false;
+        }
+        instList.clear();
+        instList.addAll(reachableList);
+        return true;
+    }
+}
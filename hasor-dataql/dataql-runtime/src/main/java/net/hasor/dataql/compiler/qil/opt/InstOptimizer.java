@@ -0,0 +1,71 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.OptimizePassEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * QIL 优化的入口，按照 CompilerArguments 中启用的优化依次执行，直到指令序列不再变化。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class InstOptimizer {
+    private static final int MAX_ROUNDS = 8;
+
+    /** 对每个方法的指令序列执行优化 */
+    public static void optimize(CompilerArguments arguments, List<? extends List<InstructionInfo>> instSet) {
+        Set<OptimizePassEnum> passSet = arguments.getOptimizePass();
+        if (passSet.isEmpty()) {
+            return;
+        }
+        List<OptimizePass> passList = new ArrayList<>();
+        if (passSet.contains(OptimizePassEnum.CONSTANT_FOLDING)) {
+            passList.add(new ConstantFoldingPass());
+        }
+        if (passSet.contains(OptimizePassEnum.DEAD_CODE)) {
+            passList.add(new DeadCodePass());
+        }
+        if (passSet.contains(OptimizePassEnum.JUMP_THREADING)) {
+            passList.add(new JumpThreadingPass());
+        }
+        if (passSet.contains(OptimizePassEnum.PEEPHOLE)) {
+            passList.add(new PeepholePass());
+        }
+        if (passSet.contains(OptimizePassEnum.LINE_LABEL)) {
+            passList.add(new LinePrunePass());
+        }
+        //
+        for (List<InstructionInfo> methodInst : instSet) {
+            List<InstructionInfo> instList = new ArrayList<>(methodInst);
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                boolean changed = false;
+                for (OptimizePass pass : passList) {
+                    changed = pass.optimize(instList) | changed;
+                }
+                if (!changed) {
+                    break;
+                }
+            }
+            methodInst.clear();
+            methodInst.addAll(instList);
+        }
+    }
+}
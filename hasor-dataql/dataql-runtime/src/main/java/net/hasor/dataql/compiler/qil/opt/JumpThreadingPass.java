@@ -0,0 +1,72 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+import net.hasor.dataql.compiler.qil.Label;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跳转串联：跳转目标是 GOTO 时直接跳到最终的位置；跳转目标就是下一条指令时删除跳转（IF 替换为 POP）。
+ *  - 跳转目标之前的 LABEL 不参与判断，因为 LABEL 不改变执行结果。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class JumpThreadingPass implements OptimizePass {
+    @Override
+    public boolean optimize(List<InstructionInfo> instList) {
+        boolean changed = false;
+        Map<Label, Integer> labelIndex = labelIndex(instList);
+        for (int i = 0; i < instList.size(); i++) {
+            InstructionInfo inst = instList.get(i);
+            Label jumpLabel = jumpLabel(inst);
+            if (jumpLabel == null || !labelIndex.containsKey(jumpLabel)) {
+                continue;
+            }
+            // .GOTO -> GOTO -> X 串联为 GOTO -> X（跳转链路上出现循环时停止）
+            Label finalLabel = jumpLabel;
+            for (int hops = 0; hops < instList.size(); hops++) {
+                int targetIndex = skipLabel(instList, labelIndex.get(finalLabel));
+                if (targetIndex >= instList.size() || instList.get(targetIndex).getInstCode() != GOTO) {
+                    break;
+                }
+                Label nextLabel = jumpLabel(instList.get(targetIndex));
+                if (nextLabel == finalLabel || !labelIndex.containsKey(nextLabel)) {
+                    break;
+                }
+                finalLabel = nextLabel;
+            }
+            if (finalLabel != jumpLabel) {
+                inst = new InstructionInfo(inst.getInstCode(), new Object[] { finalLabel });
+                instList.set(i, inst);
+                changed = true;
+            }
+            // .跳转目标就是下一条执行的指令
+            if (skipLabel(instList, i + 1) == skipLabel(instList, labelIndex.get(finalLabel))) {
+                if (inst.getInstCode() == GOTO) {
+                    instList.remove(i);
+                    labelIndex = labelIndex(instList);
+                    i--;
+                } else {
+                    instList.set(i, new InstructionInfo(POP, null));
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 删除不影响代码位置信息的 LINE（LABEL 在 InstQueue.buildArrays 中删除）：
+ *  - 在下一个 LINE 之前只有不会出错、也不会读取代码位置的指令，那么这个 LINE 设置的代码位置不会被观察到。
+ *  - 和前一个 LINE 的位置相同（中间没有 LABEL），那么这个 LINE 不会改变代码位置。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class LinePrunePass implements OptimizePass {
+    @Override
+    public boolean optimize(List<InstructionInfo> instList) {
+        boolean changed = false;
+        for (int i = 0; i < instList.size(); i++) {
+            if (instList.get(i).getInstCode() != LINE) {
+                continue;
+            }
+            if (this.isOverwritten(instList, i) || this.isSameAsPrev(instList, i)) {
+                instList.remove(i);
+                i--;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean isOverwritten(List<InstructionInfo> instList, int lineIndex) {
+        for (int i = lineIndex + 1; i < instList.size(); i++) {
+            byte instCode = instList.get(i).getInstCode();
+            if (instCode == LINE) {
+                return true;
+            }
+            if (!isSilent(instCode)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSameAsPrev(List<InstructionInfo> instList, int lineIndex) {
+        for (int i = lineIndex - 1; i >= 0; i--) {
+            InstructionInfo inst = instList.get(i);
+            if (inst.getInstCode() == LABEL) {
+                return false;
+            }
+            if (inst.getInstCode() == LINE) {
+                return Arrays.equals(inst.getArrays(), instList.get(lineIndex).getArrays());
+            }
+        }
+        return false;
+    }
+
+    /** 不会出错也不会读取代码位置的指令（跳转、LABEL 会改变执行路径，LDC_D 在解析数值时可能出错，都不在其中） */
+    private static boolean isSilent(byte instCode) {
+        switch (instCode) {
+            case LDC_B:
+            case LDC_S:
+            case LDC_N:
+            case NEW_O:
+            case NEW_A:
+            case STORE:
+            case POP:
+            case COPY:
+            case LOCAL:
+            case HINT_S:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+import net.hasor.dataql.compiler.qil.Label;
+import net.hasor.dataql.compiler.qil.Opcodes;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * QIL 优化，在 InstQueue.buildArrays 之前对每个方法的指令序列执行（此时跳转目标仍然是 Label）。
+ *  - 优化必须保证执行结果不变，包括异常时报告的代码位置。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public interface OptimizePass extends Opcodes {
+    /**
+     * 优化一个方法的指令序列
+     * @param instList 方法的指令序列，优化直接在其上进行
+     * @return 指令序列是否发生了变化
+     */
+    public boolean optimize(List<InstructionInfo> instList);
+
+    /** 指令序列中每个 Label 所在的位置 */
+    public default Map<Label, Integer> labelIndex(List<InstructionInfo> instList) {
+        Map<Label, Integer> labelIndex = new IdentityHashMap<>();
+        for (int i = 0; i < instList.size(); i++) {
+            InstructionInfo inst = instList.get(i);
+            if (inst.getInstCode() == LABEL) {
+                for (Object param : inst.getArrays()) {
+                    if (param instanceof Label) {
+                        labelIndex.put((Label) param, i);
+                    }
+                }
+            }
+        }
+        return labelIndex;
+    }
+
+    /** IF、GOTO 的跳转目标，其它指令返回 null */
+    public default Label jumpLabel(InstructionInfo inst) {
+        if (inst.getInstCode() == IF || inst.getInstCode() == GOTO) {
+            return (Label) inst.getArrays()[0];
+        }
+        return null;
+    }
+
+    /** 从 index 开始跳过 LABEL，返回第一条不是 LABEL 的指令位置（可能等于序列长度） */
+    public default int skipLabel(List<InstructionInfo> instList, int index) {
+        while (index < instList.size() && instList.get(index).getInstCode() == LABEL) {
+            index++;
+        }
+        return index;
+    }
+
+    /** 常量指令：LDC_B、LDC_S、LDC_N 以及整数的 LDC_D */
+    public default boolean isConstInst(InstructionInfo inst) {
+        switch (inst.getInstCode()) {
+            case LDC_B:
+            case LDC_S:
+            case LDC_N:
+                return true;
+            case LDC_D:
+                return ConstantFoldingPass.isIntegerNumber(inst.getArrays()[0]);
+            default:
+                return false;
+        }
+    }
+
+    /** 常量指令压入栈的值 */
+    public default Object constValue(InstructionInfo inst) {
+        return (inst.getInstCode() == LDC_N) ? null : inst.getArrays()[0];
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler.qil.opt;
+import net.hasor.dataql.compiler.qil.InstructionInfo;
+
+import java.util.List;
+
+/**
+ * 窥孔优化，只处理中间没有 LABEL 的相邻指令（中间的 LINE 保持原有顺序）：
+ *  - STORE i; LOAD 0,i -> COPY; STORE i（LOAD 会展开 Supplier，因此只处理结果不会是 Supplier 的指令）
+ *  - 连续的两个 LOAD 不做合并，堆中的 Supplier 每次 LOAD 都会重新取值
+ *  - 常量、NEW_O、NEW_A、COPY 的结果紧接着被 POP 时删除这两条指令
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class PeepholePass implements OptimizePass {
+    @Override
+    public boolean optimize(List<InstructionInfo> instList) {
+        boolean changed = false;
+        for (int i = 0; i < instList.size(); i++) {
+            InstructionInfo inst = instList.get(i);
+            int prevIndex = prevInst(instList, i);
+            if (prevIndex < 0) {
+                continue;
+            }
+            InstructionInfo prevInst = instList.get(prevIndex);
+            //
+            // .[常量] POP
+            if (inst.getInstCode() == POP && isPurePush(prevInst)) {
+                instList.remove(i);
+                instList.remove(prevIndex);
+                i = prevIndex - 1;
+                changed = true;
+                continue;
+            }
+            // .[x] STORE i; LOAD 0,i
+            if (inst.getInstCode() == LOAD && inst.getInt(0) == 0 && prevInst.getInstCode() == STORE && prevInst.getInt(0) == inst.getInt(1)) {
+                int producerIndex = prevInst(instList, prevIndex);
+                if (producerIndex >= 0 && isPlainValue(instList.get(producerIndex))) {
+                    instList.remove(i);
+                    instList.add(prevIndex, new InstructionInfo(COPY, null));
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /** index 之前第一条不是 LINE 的指令，遇到 LABEL 或者到达序列开头时返回 -1 */
+    private static int prevInst(List<InstructionInfo> instList, int index) {
+        for (int i = index - 1; i >= 0; i--) {
+            byte instCode = instList.get(i).getInstCode();
+            if (instCode == LABEL) {
+                return -1;
+            }
+            if (instCode != LINE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** 只向栈中压入一个值并且没有其它作用的指令 */
+    private static boolean isPurePush(InstructionInfo inst) {
+        switch (inst.getInstCode()) {
+            case LDC_B:
+            case LDC_S:
+            case LDC_N:
+            case LDC_D:
+            case NEW_O:
+            case NEW_A:
+            case COPY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** 结果不会是 Supplier 的指令 */
+    private static boolean isPlainValue(InstructionInfo inst) {
+        switch (inst.getInstCode()) {
+            case DO:
+            case UO:
+            case TYPEOF:
+                return true;
+            default:
+                return isPurePush(inst);
+        }
+    }
+}
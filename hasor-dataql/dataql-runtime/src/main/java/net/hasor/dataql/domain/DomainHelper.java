@@ -14,10 +14,9 @@
  * limitations under the License.
  */
 package net.hasor.dataql.domain;
+import net.hasor.dataql.DataStream;
 import net.hasor.dataql.Udf;
 import net.hasor.dataql.runtime.operator.OperatorUtils;
-import net.hasor.utils.ArrayUtils;
-import net.hasor.utils.ref.BeanMap;
 
 import java.util.*;
 
@@ -59,8 +58,15 @@ public class DomainHelper {
         } else if (object.getClass().isEnum()) {
             // 外部类型：枚举 -> ValueModel（字符串）
             return new ValueModel(((Enum<?>) object).name());
+        } else if (object instanceof DataStream) {
+            // 外部类型：数据流 -> ListModel（遍历时逐条转换）
+            return new ListModel(new StreamItemList((DataStream<?>) object));
         } else if (object instanceof Map) {
-            // 外部类型：Map -> ObjectModel
+            // 外部类型：Map -> ObjectModel（延迟转换）
+            LazyFieldMap lazyFieldMap = LazyFieldMap.ofMap((Map<?, ?>) object);
+            if (lazyFieldMap != null) {
+                return new ObjectModel(lazyFieldMap);
+            }
             Map mapData = (Map) object;
             Set entrySet = mapData.entrySet();
             ObjectModel objectModel = new ObjectModel();
@@ -73,51 +79,85 @@ public class DomainHelper {
             }
             return objectModel;
         } else if (object.getClass().isArray()) {
-            // 外部类型：数组 -> ListModel
-            Class<?> componentType = object.getClass().getComponentType();
-            Object[] objectArrays = null;
-            if (componentType.isPrimitive()) {
-                /**  */if (Boolean.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((boolean[]) object);
-                } else if (Byte.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((byte[]) object);
-                } else if (Short.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((short[]) object);
-                } else if (Integer.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((int[]) object);
-                } else if (Long.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((long[]) object);
-                } else if (Character.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((char[]) object);
-                } else if (Float.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((float[]) object);
-                } else if (Double.TYPE == componentType) {
-                    objectArrays = ArrayUtils.toObject((double[]) object);
-                } else {
-                    objectArrays = (Object[]) object;
-                }
-            } else {
-                objectArrays = (Object[]) object;
-            }
-            return new ListModel(Arrays.asList(objectArrays));
+            // 外部类型：数组 -> ListModel（延迟转换）
+            return new ListModel(LazyItemList.ofArray(object));
         } else if (object instanceof Collection) {
-            // 外部类型：集合 -> ListModel
-            return new ListModel((Collection<?>) object);
+            // 外部类型：集合 -> ListModel（延迟转换）
+            return new ListModel(LazyItemList.ofCollection((Collection<?>) object));
         } else if (object instanceof Udf) {
             // 外部类型：UDF -> CallModel
             return new UdfModel((Udf) object);
         } else {
-            // 外部类型：Bean -> ObjectModel
-            BeanMap beanMap = new BeanMap(object);
-            ObjectModel objectModel = new ObjectModel();
-            for (String entryKey : beanMap.keySet()) {
-                if ("class".equals(entryKey)) {
-                    //objectModel.put(entryKey, convertTo(beanMap.getBean().getClass().getName()));
-                } else {
-                    objectModel.put(entryKey, convertTo(beanMap.get(entryKey)));
+            // 外部类型：Bean -> ObjectModel（延迟转换，属性读取表按类型缓存）
+            return new ObjectModel(LazyFieldMap.ofBean(object));
+        }
+    }
+
+    /** 延迟转换的 ObjectModel、ListModel 未发生过写操作并且无需转换时返回原始的 Map/List（不产生新对象，调用者只能读取），否则返回 null */
+    public static Object untouchedSource(DataModel dataModel) {
+        if (dataModel instanceof ObjectModel) {
+            return ((ObjectModel) dataModel).untouchedSource();
+        }
+        if (dataModel instanceof ListModel) {
+            return ((ListModel) dataModel).untouchedSource();
+        }
+        return null;
+    }
+
+    /** 判断数据是否无需转换，unwrap 之后和原数据相同：null、String、Boolean、Number 以及由它们构成的 Map（key 为 String）和 List */
+    static boolean isPlain(Object object) {
+        if (object == null || object instanceof String || object instanceof Boolean || object instanceof Number) {
+            return true;
+        }
+        if (object instanceof DataStream) {
+            return false; // 遍历会消耗数据流
+        }
+        if (object instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                if (!(entry.getKey() instanceof String) || !isPlain(entry.getValue())) {
+                    return false;
                 }
             }
-            return objectModel;
+            return true;
+        }
+        if (object instanceof List) {
+            for (Object item : (List<?>) object) {
+                if (!isPlain(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /** 复制 isPlain 的数据：Map、List 逐层复制为 LinkedHashMap、ArrayList，其它值原样返回 */
+    static Object plainCopy(Object object) {
+        if (object instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>(((Map<?, ?>) object).size());
+            ((Map<?, ?>) object).forEach((key, value) -> copy.put((String) key, plainCopy(value)));
+            return copy;
+        }
+        if (object instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) object).size());
+            for (Object item : (List<?>) object) {
+                copy.add(plainCopy(item));
+            }
+            return copy;
+        }
+        return object;
+    }
+
+    /** 判断延迟转换的数据是否都没有发生过写操作 */
+    static boolean isUntouched(Collection<DataModel> dataModels) {
+        for (DataModel dataModel : dataModels) {
+            if (dataModel instanceof ObjectModel && !((ObjectModel) dataModel).isUntouched()) {
+                return false;
+            }
+            if (dataModel instanceof ListModel && !((ListModel) dataModel).isUntouched()) {
+                return false;
+            }
         }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.domain;
+import net.hasor.utils.reflect.BeanAccessor;
+import net.hasor.utils.reflect.BeanAccessor.Property;
+
+import java.util.*;
+
+/**
+ * ObjectModel 的延迟视图，包裹原始的 Map（key 均为 String）或者 Bean，字段只有在被访问时才转换为 DataModel。
+ *  - 转换结果会被缓存，同一个字段多次访问得到的是同一个 DataModel。
+ *  - 发生写操作时全部字段转换到 LinkedHashMap 中，之后的读写都以它为准。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+final class LazyFieldMap extends AbstractMap<String, DataModel> {
+    private static final ClassValue<Map<String, Property>> BEAN_PROPERTIES = new ClassValue<Map<String, Property>>() {
+        @Override
+        protected Map<String, Property> computeValue(Class<?> beanType) {
+            // .属性的顺序和 BeanMap 保持一致，不含 class 属性
+            Map<String, Property> properties = new LinkedHashMap<>(BeanAccessor.of(beanType).getReadableDescriptorProperties());
+            properties.remove("class");
+            return Collections.unmodifiableMap(properties);
+        }
+    };
+    private final        Map<?, ?>                         sourceMap;     // Map 数据源
+    private final        Object                            sourceBean;    // Bean 数据源
+    private final        Map<String, Property>             properties;    // Bean 可读的属性
+    private              Boolean                           plainSource;   // 原始 Map 是否无需转换（只判断一次）
+    private              Map<String, DataModel>            converted;     // 已经转换过的字段
+    private              Map<String, DataModel>            materialized;  // 发生写操作之后的全部数据
+
+    private LazyFieldMap(Map<?, ?> sourceMap, Object sourceBean, Map<String, Property> properties) {
+        this.sourceMap = sourceMap;
+        this.sourceBean = sourceBean;
+        this.properties = properties;
+    }
+
+    /** 包裹 Map，Map 中含有非 String 类型的 key 时返回 null */
+    public static LazyFieldMap ofMap(Map<?, ?> sourceMap) {
+        for (Object key : sourceMap.keySet()) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+        }
+        return new LazyFieldMap(sourceMap, null, null);
+    }
+
+    /** 包裹 Bean */
+    public static LazyFieldMap ofBean(Object sourceBean) {
+        return new LazyFieldMap(null, sourceBean, BEAN_PROPERTIES.get(sourceBean.getClass()));
+    }
+
+    private Set<String> sourceKeys() {
+        if (this.properties != null) {
+            return this.properties.keySet();
+        }
+        return (Set<String>) this.sourceMap.keySet();
+    }
+
+    private boolean sourceContains(String key) {
+        if (this.properties != null) {
+            return this.properties.containsKey(key);
+        }
+        return this.sourceMap.containsKey(key);
+    }
+
+    private Object sourceValue(String key) {
+        if (this.properties == null) {
+            return this.sourceMap.get(key);
+        }
+        Property property = this.properties.get(key);
+        if (property == null) {
+            return null;
+        }
+        try {
+            return property.read(this.sourceBean);
+        } catch (Exception e) {
+            return null; // 读取失败时返回 null（和 BeanMap 的行为一致）
+        }
+    }
+
+    @Override
+    public DataModel get(Object key) {
+        if (this.materialized != null) {
+            return this.materialized.get(key);
+        }
+        if (!(key instanceof String)) {
+            return null;
+        }
+        DataModel dataModel = (this.converted == null) ? null : this.converted.get(key);
+        if (dataModel != null) {
+            return dataModel;
+        }
+        Object value = this.sourceValue((String) key);
+        if (value == null && !this.sourceContains((String) key)) {
+            return null;
+        }
+        dataModel = DomainHelper.convertTo(value);
+        if (this.converted == null) {
+            this.converted = new HashMap<>();
+        }
+        this.converted.put((String) key, dataModel);
+        return dataModel;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (this.materialized != null) {
+            return this.materialized.containsKey(key);
+        }
+        return key instanceof String && this.sourceContains((String) key);
+    }
+
+    @Override
+    public int size() {
+        if (this.materialized != null) {
+            return this.materialized.size();
+        }
+        return this.sourceKeys().size();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (this.materialized != null) {
+            return this.materialized.keySet();
+        }
+        return Collections.unmodifiableSet(this.sourceKeys());
+    }
+
+    @Override
+    public Set<Entry<String, DataModel>> entrySet() {
+        if (this.materialized != null) {
+            return this.materialized.entrySet();
+        }
+        return new AbstractSet<Entry<String, DataModel>>() {
+            @Override
+            public Iterator<Entry<String, DataModel>> iterator() {
+                Iterator<String> keyIterator = sourceKeys().iterator();
+                return new Iterator<Entry<String, DataModel>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return keyIterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, DataModel> next() {
+                        String key = keyIterator.next();
+                        return new SimpleImmutableEntry<>(key, get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyFieldMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public DataModel put(String key, DataModel value) {
+        return this.materialize().put(key, value);
+    }
+
+    @Override
+    public DataModel remove(Object key) {
+        return this.materialize().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        this.materialize().clear();
+    }
+
+    private Map<String, DataModel> materialize() {
+        if (this.materialized == null) {
+            Map<String, DataModel> dataMap = new LinkedHashMap<>();
+            for (String key : this.sourceKeys()) {
+                dataMap.put(key, this.get(key));
+            }
+            this.materialized = dataMap;
+            this.converted = null;
+        }
+        return this.materialized;
+    }
+
+    /** 没有发生过写操作，并且访问过的子元素也都没有发生过写操作 */
+    public boolean isUntouched() {
+        if (this.materialized != null) {
+            return false;
+        }
+        return this.converted == null || DomainHelper.isUntouched(this.converted.values());
+    }
+
+    /** 未发生写操作并且原始 Map 不需要转换（值只有 null、String、Boolean、Number 以及由它们构成的 Map/List）时返回原始 Map，否则返回 null */
+    public Map<String, Object> untouchedSource() {
+        if (this.sourceMap == null || !this.isUntouched()) {
+            return null;
+        }
+        if (this.plainSource == null) {
+            this.plainSource = DomainHelper.isPlain(this.sourceMap);
+        }
+        return this.plainSource ? (Map<String, Object>) this.sourceMap : null;
+    }
+}
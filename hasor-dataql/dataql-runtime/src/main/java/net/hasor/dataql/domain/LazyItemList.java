@@ -0,0 +1,130 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.domain;
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * ListModel 的延迟视图，包裹原始的 List 或者数组，元素只有在被访问时才转换为 DataModel。
+ *  - 非随机访问的集合（例如：Set、LinkedList）会先浅拷贝为数组。
+ *  - 发生写操作时全部元素转换到 ArrayList 中，之后的读写都以它为准。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+final class LazyItemList extends AbstractList<DataModel> implements RandomAccess {
+    private final List<?>         sourceList;   // List 数据源（RandomAccess）
+    private final Object          sourceArray;  // 数组数据源（可能是基本类型数组）
+    private final int             sourceSize;
+    private       Boolean         plainSource;  // 原始 List 是否无需转换（只判断一次）
+    private       DataModel[]     converted;    // 已经转换过的元素
+    private       List<DataModel> materialized; // 发生写操作之后的全部数据
+
+    private LazyItemList(List<?> sourceList, Object sourceArray) {
+        this.sourceList = sourceList;
+        this.sourceArray = sourceArray;
+        this.sourceSize = (sourceList != null) ? sourceList.size() : Array.getLength(sourceArray);
+    }
+
+    /** 包裹集合 */
+    public static LazyItemList ofCollection(Collection<?> collection) {
+        if (collection instanceof List && collection instanceof RandomAccess) {
+            return new LazyItemList((List<?>) collection, null);
+        }
+        return new LazyItemList(null, collection.toArray());
+    }
+
+    /** 包裹数组 */
+    public static LazyItemList ofArray(Object array) {
+        return new LazyItemList(null, array);
+    }
+
+    @Override
+    public DataModel get(int index) {
+        if (this.materialized != null) {
+            return this.materialized.get(index);
+        }
+        if (index < 0 || index >= this.sourceSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.sourceSize);
+        }
+        if (this.converted == null) {
+            this.converted = new DataModel[this.sourceSize];
+        }
+        DataModel dataModel = this.converted[index];
+        if (dataModel == null) {
+            Object value = (this.sourceList != null) ? this.sourceList.get(index) : Array.get(this.sourceArray, index);
+            dataModel = DomainHelper.convertTo(value);
+            this.converted[index] = dataModel;
+        }
+        return dataModel;
+    }
+
+    @Override
+    public int size() {
+        if (this.materialized != null) {
+            return this.materialized.size();
+        }
+        return this.sourceSize;
+    }
+
+    @Override
+    public DataModel set(int index, DataModel element) {
+        return this.materialize().set(index, element);
+    }
+
+    @Override
+    public void add(int index, DataModel element) {
+        this.materialize().add(index, element);
+        this.modCount++;
+    }
+
+    @Override
+    public DataModel remove(int index) {
+        DataModel removed = this.materialize().remove(index);
+        this.modCount++;
+        return removed;
+    }
+
+    private List<DataModel> materialize() {
+        if (this.materialized == null) {
+            List<DataModel> dataList = new ArrayList<>(this.sourceSize);
+            for (int i = 0; i < this.sourceSize; i++) {
+                dataList.add(this.get(i));
+            }
+            this.materialized = dataList;
+            this.converted = null;
+        }
+        return this.materialized;
+    }
+
+    /** 没有发生过写操作，并且访问过的子元素也都没有发生过写操作 */
+    public boolean isUntouched() {
+        if (this.materialized != null) {
+            return false;
+        }
+        return this.converted == null || DomainHelper.isUntouched(Arrays.asList(this.converted));
+    }
+
+    /** 未发生写操作并且原始 List 不需要转换（元素只有 null、String、Boolean、Number 以及由它们构成的 Map/List）时返回原始 List，否则返回 null */
+    public List<Object> untouchedSource() {
+        if (this.sourceList == null || !this.isUntouched()) {
+            return null;
+        }
+        if (this.plainSource == null) {
+            this.plainSource = DomainHelper.isPlain(this.sourceList);
+        }
+        return this.plainSource ? (List<Object>) this.sourceList : null;
+    }
+}
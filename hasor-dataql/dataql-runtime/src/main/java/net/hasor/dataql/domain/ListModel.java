@@ -24,12 +24,22 @@ import java.util.List;
  * @version : 2017-03-23
  */
 public class ListModel implements DataModel {
-    private List<DataModel> dataModel = new ArrayList<>();
+    private final List<DataModel> dataModel;
 
     public ListModel() {
+        this.dataModel = new ArrayList<>();
+    }
+
+    ListModel(LazyItemList dataModel) {
+        this.dataModel = dataModel;
+    }
+
+    ListModel(StreamItemList dataModel) {
+        this.dataModel = dataModel;
     }
 
     public ListModel(Collection<?> dataItem) {
+        this.dataModel = new ArrayList<>();
         if (dataItem != null) {
             for (Object object : dataItem) {
                 this.add(DomainHelper.convertTo(object));
@@ -42,6 +52,16 @@ public class ListModel implements DataModel {
         this.dataModel.add(DomainHelper.convertTo(object));
     }
 
+    /** 延迟转换的数据是否未发生过写操作（非延迟转换的数据总是返回 false） */
+    boolean isUntouched() {
+        return this.dataModel instanceof LazyItemList && ((LazyItemList) this.dataModel).isUntouched();
+    }
+
+    /** 数据来自 DataStream（只能遍历一次，获取大小或者按下标访问会把全部数据读入内存） */
+    public boolean isStream() {
+        return this.dataModel instanceof StreamItemList;
+    }
+
     /** 集合大小 */
     public int size() {
         return this.dataModel.size();
@@ -52,8 +72,20 @@ public class ListModel implements DataModel {
         return this.dataModel;
     }
 
+    /** 延迟转换的数据未发生过写操作并且无需转换时返回原始 List（调用者不可修改），否则返回 null */
+    List<Object> untouchedSource() {
+        return (this.dataModel instanceof LazyItemList) ? ((LazyItemList) this.dataModel).untouchedSource() : null;
+    }
+
     @Override
     public List<Object> unwrap() {
+        if (this.dataModel instanceof StreamItemList && ((StreamItemList) this.dataModel).isUntouched()) {
+            return ((StreamItemList) this.dataModel).unwrapView();
+        }
+        List<Object> untouchedSource = this.untouchedSource();
+        if (untouchedSource != null) {
+            return (List<Object>) DomainHelper.plainCopy(untouchedSource); // 无需逐个元素转换，但仍然返回副本以免调用者修改到原始数据
+        }
         List<Object> unwrap = new ArrayList<>(this.dataModel.size());
         this.dataModel.forEach(dataModel -> {
             unwrap.add(dataModel.unwrap());
@@ -25,9 +25,19 @@ import java.util.Map;
  * @version : 2017-03-23
  */
 public class ObjectModel implements DataModel {
-    private Map<String, DataModel> dataModel = new LinkedHashMap<>();
+    private final Map<String, DataModel> dataModel;
 
     public ObjectModel() {
+        this.dataModel = new LinkedHashMap<>();
+    }
+
+    ObjectModel(LazyFieldMap dataModel) {
+        this.dataModel = dataModel;
+    }
+
+    /** 延迟转换的数据是否未发生过写操作（非延迟转换的数据总是返回 false） */
+    boolean isUntouched() {
+        return this.dataModel instanceof LazyFieldMap && ((LazyFieldMap) this.dataModel).isUntouched();
     }
 
     public List<String> fieldNames() {
@@ -53,8 +63,17 @@ public class ObjectModel implements DataModel {
         return this.dataModel;
     }
 
+    /** 延迟转换的数据未发生过写操作并且无需转换时返回原始 Map（调用者不可修改），否则返回 null */
+    Map<String, Object> untouchedSource() {
+        return (this.dataModel instanceof LazyFieldMap) ? ((LazyFieldMap) this.dataModel).untouchedSource() : null;
+    }
+
     @Override
     public Map<String, Object> unwrap() {
+        Map<String, Object> untouchedSource = this.untouchedSource();
+        if (untouchedSource != null) {
+            return (Map<String, Object>) DomainHelper.plainCopy(untouchedSource); // 无需逐个字段转换，但仍然返回副本以免调用者修改到原始数据
+        }
         Map<String, Object> unwrap = new LinkedHashMap<>(this.dataModel.size());
         this.dataModel.forEach((key, dataModel) -> {
             unwrap.put(key, dataModel.unwrap());
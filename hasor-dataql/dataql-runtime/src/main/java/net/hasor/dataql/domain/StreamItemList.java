@@ -0,0 +1,149 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.domain;
+import net.hasor.dataql.DataStream;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * ListModel 对 DataStream 的包裹，遍历时逐条读取和转换数据，不保留读过的数据。
+ *  - 按下标访问、获取大小以及写操作会把全部数据读入 ArrayList，之后的读写都以它为准。
+ *  - 数据流只能遍历一次，遍历过之后不能再读取全部数据。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+final class StreamItemList extends AbstractList<DataModel> implements DataStream<DataModel> {
+    private final DataStream<?>   source;
+    private       boolean         iterated;     // 数据流已经被遍历过
+    private       List<DataModel> materialized; // 全部数据
+
+    StreamItemList(DataStream<?> source) {
+        this.source = source;
+    }
+
+    @Override
+    public Iterator<DataModel> iterator() {
+        if (this.materialized != null) {
+            return this.materialized.iterator();
+        }
+        Iterator<?> iterator = this.openSource();
+        return new Iterator<DataModel>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public DataModel next() {
+                return DomainHelper.convertTo(iterator.next());
+            }
+        };
+    }
+
+    private Iterator<?> openSource() {
+        if (this.iterated) {
+            throw new IllegalStateException("the data stream has already been consumed.");
+        }
+        this.iterated = true;
+        return this.source.iterator();
+    }
+
+    @Override
+    public DataModel get(int index) {
+        return this.materialize().get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.materialize().size();
+    }
+
+    @Override
+    public DataModel set(int index, DataModel element) {
+        return this.materialize().set(index, element);
+    }
+
+    @Override
+    public void add(int index, DataModel element) {
+        this.materialize().add(index, element);
+        this.modCount++;
+    }
+
+    @Override
+    public DataModel remove(int index) {
+        DataModel removed = this.materialize().remove(index);
+        this.modCount++;
+        return removed;
+    }
+
+    private List<DataModel> materialize() {
+        if (this.materialized == null) {
+            List<DataModel> dataList = new ArrayList<>();
+            this.openSource().forEachRemaining(item -> dataList.add(DomainHelper.convertTo(item)));
+            this.materialized = dataList;
+        }
+        return this.materialized;
+    }
+
+    /** 数据还没有被读取（既没有遍历过，也没有读入内存） */
+    public boolean isUntouched() {
+        return !this.iterated;
+    }
+
+    /** 逐条 unwrap 的视图，仍然是一个只能遍历一次的数据流 */
+    public List<Object> unwrapView() {
+        return new UnwrapView();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.source.close();
+    }
+
+    private class UnwrapView extends AbstractList<Object> implements DataStream<Object> {
+        @Override
+        public Iterator<Object> iterator() {
+            Iterator<DataModel> iterator = StreamItemList.this.iterator();
+            return new Iterator<Object>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return iterator.next().unwrap();
+                }
+            };
+        }
+
+        @Override
+        public Object get(int index) {
+            return StreamItemList.this.get(index).unwrap();
+        }
+
+        @Override
+        public int size() {
+            return StreamItemList.this.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            StreamItemList.this.close();
+        }
+    }
+}
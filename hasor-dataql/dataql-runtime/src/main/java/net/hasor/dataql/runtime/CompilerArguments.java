@@ -14,8 +14,10 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * DataQL 编译参数。
@@ -24,26 +26,43 @@ import java.util.Set;
  */
 public class CompilerArguments {
     /** 调试模式：编译的结果比较大，埋入的信息较多。*/
-    public static final CompilerArguments DEBUG        = new CompilerArguments() {{
+    public static final CompilerArguments     DEBUG           = new CompilerArguments() {{
         setCodeLocation(CodeLocationEnum.TERM);
+        getOptimizePass().clear();
     }};
     /** 默认模式：一般性编译优化，不贵追求极致编译性能*/
-    public static final CompilerArguments DEFAULT      = new CompilerArguments() {{
+    public static final CompilerArguments     DEFAULT         = new CompilerArguments() {{
         setCodeLocation(CodeLocationEnum.TERM);
     }};
-    /** 快速模式：最小化编译结果，极致的运行性能为目标 */
-    public static final CompilerArguments FAST         = new CompilerArguments() {{
+    /** 快速模式：最小化编译结果，极致的运行性能为目标（启用全部编译优化） */
+    public static final CompilerArguments     FAST            = new CompilerArguments() {{
         setCodeLocation(CodeLocationEnum.NONE);
+        getOptimizePass().addAll(EnumSet.allOf(OptimizePassEnum.class));
     }};
     //
     //
-    private final       Set<String>       compilerVar  = new HashSet<>();
-    private             CodeLocationEnum  codeLocation = CodeLocationEnum.LINE;
+    private final       Set<String>           compilerVar     = new HashSet<>();
+    private             CodeLocationEnum      codeLocation    = CodeLocationEnum.LINE;
+    private             ExecuteEngineEnum     executeEngine   = ExecuteEngineEnum.THREADED;
+    private             Executor              parallelExecutor;
+    private             boolean               streamingFormat = false;
+    private             boolean               parallelCall    = false;
+    private             boolean               profiler        = false;
+    private             int                   tieredThreshold = 1000;
+    private final       Set<OptimizePassEnum> optimizePass    = EnumSet.noneOf(OptimizePassEnum.class);
 
     public CompilerArguments copyAsNew() {
         CompilerArguments arguments = new CompilerArguments();
         arguments.compilerVar.addAll(this.compilerVar);
         arguments.codeLocation = this.codeLocation;
+        arguments.executeEngine = this.executeEngine;
+        arguments.parallelExecutor = this.parallelExecutor;
+        arguments.streamingFormat = this.streamingFormat;
+        arguments.parallelCall = this.parallelCall;
+        arguments.profiler = this.profiler;
+        arguments.tieredThreshold = this.tieredThreshold;
+        arguments.optimizePass.clear();
+        arguments.optimizePass.addAll(this.optimizePass);
         return arguments;
     }
 
@@ -56,6 +75,28 @@ public class CompilerArguments {
         TERM
     }
 
+    public static enum ExecuteEngineEnum {
+        /** 经典模式：逐条指令执行，每条指令执行前都会生成一次代码位置信息。 */
+        CLASSIC,
+        /** 直接分派：使用预解码的 opcode 数组直接分派指令，代码位置信息只在发生异常时才会生成。 */
+        THREADED,
+        /** 分层执行：先以 THREADED 方式解释执行，方法执行次数达到 tieredThreshold 之后编译为 JVM 字节码执行。 */
+        TIERED
+    }
+
+    public static enum OptimizePassEnum {
+        /** 常量折叠：编译期计算只有常量参与的运算（数值运算仅限整数，并且结果不受 MIN_INTEGER_WIDTH 影响）。 */
+        CONSTANT_FOLDING,
+        /** 死代码消除：条件为常量的 IF 直接确定分支，删除不可达的指令。 */
+        DEAD_CODE,
+        /** 跳转优化：跳转到 GOTO 的跳转直接指向最终目标，删除跳转到下一条指令的 GOTO。 */
+        JUMP_THREADING,
+        /** 窥孔优化：STORE 之后紧跟 LOAD 同一变量时改为 COPY，删除无用的入栈出栈。 */
+        PEEPHOLE,
+        /** 删除不影响代码位置信息的 LINE，以及全部的 LABEL（跳转目标改为 LABEL 之后的指令）。 */
+        LINE_LABEL
+    }
+
     public CompilerArguments() {
     }
 
@@ -74,4 +115,65 @@ public class CompilerArguments {
     public void setCodeLocation(CodeLocationEnum codeLocation) {
         this.codeLocation = codeLocation;
     }
+
+    public ExecuteEngineEnum getExecuteEngine() {
+        return this.executeEngine;
+    }
+
+    public void setExecuteEngine(ExecuteEngineEnum executeEngine) {
+        this.executeEngine = executeEngine;
+    }
+
+    /** PARALLEL_CALL 开启时用于执行并行调用的执行器，为空表示使用内置执行器 */
+    public Executor getParallelExecutor() {
+        return this.parallelExecutor;
+    }
+
+    public void setParallelExecutor(Executor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    /** 列表格式化是否编译流式分支：数据来自 DataStream 时，格式化结果也是逐条计算的数据流 */
+    public boolean isStreamingFormat() {
+        return this.streamingFormat;
+    }
+
+    public void setStreamingFormat(boolean streamingFormat) {
+        this.streamingFormat = streamingFormat;
+    }
+
+    /**
+     * 对象中含有两个及以上可并行调用的字段时，是否编译成 CALL_A/JOIN 的形式。只有这样编译的查询才能通过 PARALLEL_CALL Hint 并行执行，
+     * 不开启时编译结果和逐个字段 PUT 的形式相同。
+     */
+    public boolean isParallelCall() {
+        return this.parallelCall;
+    }
+
+    public void setParallelCall(boolean parallelCall) {
+        this.parallelCall = parallelCall;
+    }
+
+    /** 执行查询时是否开启性能分析（等同于 PROFILER Hint） */
+    public boolean isProfiler() {
+        return this.profiler;
+    }
+
+    public void setProfiler(boolean profiler) {
+        this.profiler = profiler;
+    }
+
+    /** TIERED 执行引擎下，方法执行多少次之后编译为 JVM 字节码 */
+    public int getTieredThreshold() {
+        return this.tieredThreshold;
+    }
+
+    public void setTieredThreshold(int tieredThreshold) {
+        this.tieredThreshold = tieredThreshold;
+    }
+
+    /** 编译时启用的优化，默认不启用任何优化需要时自行添加（FAST 模式启用全部优化） */
+    public Set<OptimizePassEnum> getOptimizePass() {
+        return this.optimizePass;
+    }
 }
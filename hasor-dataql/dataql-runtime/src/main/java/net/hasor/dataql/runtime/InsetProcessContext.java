@@ -14,12 +14,21 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime;
+import net.hasor.core.Provider;
 import net.hasor.dataql.*;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import net.hasor.dataql.runtime.operator.OperatorCache;
 import net.hasor.dataql.runtime.operator.OperatorManager;
 import net.hasor.dataql.runtime.operator.OperatorProcess;
+import net.hasor.utils.NameThreadFactory;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * 指令执行器接口
@@ -27,30 +36,59 @@ import java.util.Stack;
  * @version : 2017-07-14
  */
 public class InsetProcessContext implements CustomizeScope {
-    private final static OperatorManager opeManager = OperatorManager.defaultManager();
-    private final        long            startTime  = System.currentTimeMillis();
-    private final        CustomizeScope  customizeScope;
-    private final        Finder          finder;
-    private final        Stack<HintsSet> hintStack  = new Stack<>();
+    private final static OperatorManager    opeManager      = OperatorManager.defaultManager();
+    private final static Supplier<Executor> defaultExecutor = Provider.ofc(InsetProcessContext::initExecutor).asSingle();
+    private final static Supplier<Executor> asyncExecutor   = Provider.ofc(InsetProcessContext::initAsyncExecutor).asSingle();
+    private final        long               startTime       = System.currentTimeMillis();
+    private final        CustomizeScope     customizeScope;
+    private final        Finder             finder;
+    private final        Stack<HintsSet>    hintStack       = new Stack<>();
+    private final        ExecuteEngineEnum  executeEngine;
+    private final        int                tieredThreshold;
+    private final        Executor           parallelExecutor;
+    private              QueryProfiler      profiler;        // 未开启性能分析时为 null
+    private              List<Future<?>>    pendingCalls;    // 已经发起但还没有 JOIN 的并行调用
 
-    InsetProcessContext(CustomizeScope customizeScope, Finder finder) {
+    InsetProcessContext(CustomizeScope customizeScope, Finder finder, ExecuteEngineEnum executeEngine, int tieredThreshold, Executor parallelExecutor) {
         if (finder == null) {
             finder = new Finder() {
             };
         }
         this.customizeScope = customizeScope;
         this.finder = finder;
+        this.executeEngine = (executeEngine == null) ? ExecuteEngineEnum.THREADED : executeEngine;
+        this.tieredThreshold = tieredThreshold;
+        this.parallelExecutor = parallelExecutor;
         this.hintStack.push(new HintsSet());
     }
 
+    /** 为并行调用创建一个独立的执行环境，Hint 取自当前 Hint 的快照（Hint 栈不是线程安全的） */
+    public InsetProcessContext fork() {
+        InsetProcessContext context = new InsetProcessContext(this.customizeScope, this.finder, this.executeEngine, this.tieredThreshold, this.parallelExecutor);
+        context.currentHints().setHints(this.currentHints());
+        return context;
+    }
+
     public Hints currentHints() {
         return this.hintStack.peek();
     }
 
+    /** 可以写入的当前 Hint，新的 Hint 层在第一次写入时才从上一层复制（写时复制） */
+    public Hints writableHints() {
+        int size = this.hintStack.size();
+        HintsSet hintsSet = this.hintStack.peek();
+        if (size > 1 && this.hintStack.get(size - 2) == hintsSet) {
+            HintsSet newHintsSet = new HintsSet();
+            newHintsSet.setHints(hintsSet);
+            this.hintStack.set(size - 1, newHintsSet);
+            return newHintsSet;
+        }
+        return hintsSet;
+    }
+
+    /** 新的 Hint 层先和上一层共享同一个 HintsSet，直到发生写入（每次方法调用都会创建 Hint 层，大部分都不会写入） */
     public void createHintStack() {
-        HintsSet hintsSet = new HintsSet();
-        hintsSet.setHints(this.hintStack.peek());
-        this.hintStack.push(hintsSet);
+        this.hintStack.push(this.hintStack.peek());
     }
 
     public void dropHintStack() {
@@ -63,10 +101,109 @@ public class InsetProcessContext implements CustomizeScope {
         return System.currentTimeMillis() - this.startTime;
     }
 
+    /** 性能分析器，未开启性能分析时为 null（并行调用的执行环境中也为 null） */
+    public QueryProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    void setProfiler(QueryProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     public Finder getFinder() {
         return finder;
     }
 
+    /** 指令执行引擎 */
+    public ExecuteEngineEnum getExecuteEngine() {
+        return this.executeEngine;
+    }
+
+    /** TIERED 执行引擎下，方法执行多少次之后编译为 JVM 字节码 */
+    public int getTieredThreshold() {
+        return this.tieredThreshold;
+    }
+
+    /** 执行并行调用的执行器，未配置时使用内置执行器 */
+    public Executor getParallelExecutor() {
+        return (this.parallelExecutor != null) ? this.parallelExecutor : defaultExecutor.get();
+    }
+
+    /**
+     * 并行调用的内置执行器，只用于 CALL_A，最多 max(4, CPU 核数 * 2) 个守护线程，空闲 60 秒后回收。
+     *  - 不排队：线程全部繁忙时由发起调用的线程自己执行（CallerRunsPolicy），所以嵌套的并行调用不会因为等待排队中的任务而互相锁死，
+     *    并发的并行调用过多时只是退化为顺序执行，不会让查询失败。
+     *  - 并行调用通常是 SQL 片段，限制线程数也就限制了同时占用的数据库连接数。
+     */
+    private static Executor initExecutor() {
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ClassLoader classLoader = InsetProcessContext.class.getClassLoader();
+        return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), //
+                new NameThreadFactory("DataQL-Parallel-%s", classLoader), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Query.executeAsync 使用的内置执行器，和并行调用的执行器相互独立（异步查询不会占用并行调用的线程）。
+     *  - JVM 支持虚拟线程时（Thread.ofVirtual），每个查询运行在一个新的虚拟线程上。
+     *  - 否则使用最多 max(8, CPU 核数 * 4) 个守护线程的线程池，线程全部繁忙时排队等待，不会拒绝执行。
+     */
+    public static Executor asyncExecutor() {
+        return asyncExecutor.get();
+    }
+
+    private static Executor initAsyncExecutor() {
+        ThreadFactory virtualThreadFactory = virtualThreadFactory("DataQL-Async-");
+        if (virtualThreadFactory != null) {
+            return command -> virtualThreadFactory.newThread(command).start();
+        }
+        int maxThreads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+        ClassLoader classLoader = InsetProcessContext.class.getClassLoader();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), //
+                new NameThreadFactory("DataQL-Async-%s", classLoader));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** 通过反射调用 Thread.ofVirtual().name(namePrefix, 0).factory()，JVM 不支持虚拟线程时返回 null */
+    static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderType = ofVirtual.getReturnType();
+            Object builder = ofVirtual.invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // JDK 21 之前没有虚拟线程（JDK 19、20 未开启预览特性时 ofVirtual 抛出 UnsupportedOperationException）
+        }
+    }
+
+    /** 登记一个已经发起的并行调用，查询结束时还没有 JOIN 的调用会被取消 */
+    public void addPendingCall(Future<?> future) {
+        if (this.pendingCalls == null) {
+            this.pendingCalls = new ArrayList<>();
+        }
+        this.pendingCalls.add(future);
+    }
+
+    /** 并行调用已经 JOIN */
+    public void removePendingCall(Future<?> future) {
+        if (this.pendingCalls != null) {
+            this.pendingCalls.remove(future);
+        }
+    }
+
+    /** 取消全部还没有 JOIN 的并行调用（例如：前面的 JOIN 抛出了异常，后面的调用结果已经不需要了） */
+    public void cancelPendingCalls() {
+        if (this.pendingCalls == null || this.pendingCalls.isEmpty()) {
+            return;
+        }
+        List<Future<?>> pendingCalls = this.pendingCalls;
+        this.pendingCalls = null;
+        for (Future<?> future : pendingCalls) {
+            future.cancel(true);
+        }
+    }
+
     /** 查找一元运算执行器 */
     public OperatorProcess findUnaryOperator(String unarySymbol, Class<?> fstType) {
         return opeManager.findUnaryProcess(unarySymbol, fstType);
@@ -77,6 +214,40 @@ public class InsetProcessContext implements CustomizeScope {
         return opeManager.findDyadicProcess(dyadicSymbol, fstType, secType);
     }
 
+    /** 查找一元运算执行器，查找结果缓存在当前指令的调用点上 */
+    public OperatorProcess findUnaryOperator(InstSequence sequence, String unarySymbol, Class<?> fstType) {
+        if (fstType == null) {
+            return null;
+        }
+        return this.findOperator(sequence, unarySymbol, fstType, null);
+    }
+
+    /** 查找二元运算执行器，查找结果缓存在当前指令的调用点上 */
+    public OperatorProcess findDyadicOperator(InstSequence sequence, String dyadicSymbol, Class<?> fstType, Class<?> secType) {
+        if (fstType == null || secType == null) {
+            return null;
+        }
+        return this.findOperator(sequence, dyadicSymbol, fstType, secType);
+    }
+
+    private OperatorProcess findOperator(InstSequence sequence, String symbol, Class<?> fstType, Class<?> secType) {
+        Object cacheObject = sequence.currentInlineCache();
+        OperatorCache cache = (cacheObject instanceof OperatorCache) ? (OperatorCache) cacheObject : null;
+        if (cache != null) {
+            OperatorProcess process = cache.find(opeManager, fstType, secType);
+            if (process != null) {
+                return process;
+            }
+        }
+        OperatorProcess process = (secType == null) ?//
+                opeManager.findUnaryProcess(symbol, fstType) ://
+                opeManager.findDyadicProcess(symbol, fstType, secType);
+        if (process != null && (cache == null || !cache.isMegamorphic(opeManager))) {
+            sequence.updateInlineCache(OperatorCache.append(cache, opeManager, fstType, secType, process));
+        }
+        return process;
+    }
+
     /** 获取环境数据，symbol 可能的值有：@、#、$。其中 # 为默认 */
     public Map<String, ?> findCustomizeEnvironment(String symbol) {
         if (this.customizeScope == null) {
@@ -21,38 +21,42 @@ import net.hasor.dataql.compiler.qil.QIL;
 import net.hasor.dataql.runtime.Location.RuntimeLocation;
 import net.hasor.utils.StringUtils;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
  * 指令序列集
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2017-07-14
  */
 public class InstSequence {
-    private final int           address;        // 指令集中的序列地址
-    private final QIL           queueSet;       // 指令集
-    private final int           startPosition;  // 有效的起始位置
-    private final int           endPosition;    // 有效的终止位置
-    private final AtomicInteger sequenceIndex;  // 当前指令指针指向的序列位置
-    private       int[]         codeLocation;   // 长度为4的一个数组,分为两段(1-起始位置，2-终止位置)。每段的结构相同(行，列)。 -1 表示未知
-    private       boolean       jumpMark = false;
+    private static final int[]           UNKNOWN_LOCATION = new int[] { -1, -1, -1, -1 };
+    private final        int             address;          // 指令集中的序列地址
+    private final        QIL             queueSet;         // 指令集
+    private final        int             startPosition;    // 有效的起始位置
+    private final        int             endPosition;      // 有效的终止位置
+    private final        byte[]          opcodes;          // 预解码的指令码
+    private final        int[]           operandOffset;    // 每条指令操作数的起始位置
+    private final        int[]           operandInts;      // 扁平化的整数操作数
+    private final        Object[]        operandValues;    // 扁平化的操作数
+    private              int             sequenceIndex;    // 当前指令指针指向的序列位置（指令序列只会在一个线程中执行）
+    private              int[]           codeLocation;     // 长度为4的一个数组,分为两段(1-起始位置，2-终止位置)。每段的结构相同(行，列)。 -1 表示未知
+    private              boolean         jumpMark         = false;
+    private              RuntimeLocation lastLocation;     // 最近一次生成的运行位置（指令指针和代码位置都没有变化时直接复用）
+    private              int[]           lastCodeLocation;
 
     InstSequence(int address, QIL queueSet) {
-        this.address = address;
-        this.queueSet = queueSet;
-        this.startPosition = 0;
-        this.endPosition = this.queueSet.iqlSize(address);
-        this.sequenceIndex = new AtomicInteger(this.startPosition);
-        this.codeLocation = new int[] { -1, -1, -1, -1 };
+        this(address, queueSet, 0, queueSet.iqlSize(address));
     }
 
     InstSequence(int address, QIL queueSet, int startPosition, int endPosition) {
         this.address = address;
         this.queueSet = queueSet;
+        this.opcodes = queueSet.opcodeArrays(address);
+        this.operandOffset = queueSet.operandOffsets(address);
+        this.operandInts = queueSet.operandInts(address);
+        this.operandValues = queueSet.operandValues(address);
         this.startPosition = startPosition;
         this.endPosition = endPosition;
-        this.sequenceIndex = new AtomicInteger(this.startPosition);
-        this.codeLocation = new int[] { -1, -1, -1, -1 };
+        this.sequenceIndex = this.startPosition;
+        this.codeLocation = UNKNOWN_LOCATION;
     }
 
     /** 当前指令序列的地址 */
@@ -60,9 +64,49 @@ public class InstSequence {
         return this.address;
     }
 
+    /** 指令序列所属的指令集 */
+    public QIL queueSet() {
+        return this.queueSet;
+    }
+
     /** 获取当前程序指令指针位置 */
     public int programPointer() {
-        return this.sequenceIndex.get();
+        return this.sequenceIndex;
+    }
+
+    /** 直接设置程序指令指针（不设置跳转标记）。编译执行的指令序列不经过 doNext，用它让指令读取操作数、生成代码位置信息 */
+    public void setProgramPointer(int position) {
+        this.sequenceIndex = position;
+    }
+
+    /** 预解码之后的指令码序列，下标和程序指令指针一一对应 */
+    public byte[] opcodes() {
+        return this.opcodes;
+    }
+
+    /** 当前指令的操作数个数 */
+    public int operandCount() {
+        return this.operandOffset[this.sequenceIndex + 1] - this.operandOffset[this.sequenceIndex];
+    }
+
+    /** 当前指令的第 index 个操作数 */
+    public Object operand(int index) {
+        return this.operandValues[this.operandOffset[this.sequenceIndex] + index];
+    }
+
+    /** 当前指令的第 index 个整数操作数 */
+    public int intOperand(int index) {
+        return this.operandInts[this.operandOffset[this.sequenceIndex] + index];
+    }
+
+    /** 当前指令的第 index 个字符串操作数 */
+    public String stringOperand(int index) {
+        return (String) this.operandValues[this.operandOffset[this.sequenceIndex] + index];
+    }
+
+    /** 当前执行的代码行号，-1 表示未知 */
+    public int currentLine() {
+        return this.codeLocation[0];
     }
 
     public void updateCodeLocation(int[] ints) {
@@ -71,6 +115,10 @@ public class InstSequence {
 
     /** 获取当前程序指令指针位置以及运行的代码位置信息 */
     public RuntimeLocation programLocation() {
+        RuntimeLocation location = this.lastLocation;
+        if (location != null && this.lastCodeLocation == this.codeLocation && location.getProgramAddress() == this.sequenceIndex) {
+            return location;
+        }
         CodeLocationInfo codeLocation = new CodeLocationInfo();
         if (this.codeLocation.length == 4) {
             codeLocation.setStartPosition(new CodePosition(this.codeLocation[0], this.codeLocation[1]));
@@ -79,7 +127,20 @@ public class InstSequence {
             codeLocation.setStartPosition(new CodePosition(this.codeLocation[0], -1));
             codeLocation.setEndPosition(new CodePosition(-1, -1));
         }
-        return Location.atRuntime(codeLocation, this.address, this.programPointer());
+        location = Location.atRuntime(codeLocation, this.address, this.programPointer());
+        this.lastLocation = location;
+        this.lastCodeLocation = this.codeLocation;
+        return location;
+    }
+
+    /** 当前指令调用点上的缓存 */
+    public Object currentInlineCache() {
+        return this.queueSet.getInlineCache(this.address, this.sequenceIndex);
+    }
+
+    /** 更新当前指令调用点上的缓存 */
+    public void updateInlineCache(Object cache) {
+        this.queueSet.setInlineCache(this.address, this.sequenceIndex, cache);
     }
 
     /** 克隆一个 */
@@ -93,7 +154,7 @@ public class InstSequence {
             return null;
         }
         //
-        return this.queueSet.instOf(this.address, this.sequenceIndex.get());
+        return this.queueSet.instOf(this.address, this.sequenceIndex);
     }
 
     /** 另一个方法序列 */
@@ -107,7 +168,7 @@ public class InstSequence {
     /** 根据 filter，来决定圈定  form to 范围的指令集。 */
     public InstSequence findSubSequence(InstFilter instFilter) {
         Instruction[] curInstSet = this.queueSet.iqlArrays(this.address);
-        int startIndex = this.sequenceIndex.get();              // 从下一条指令作为开始
+        int startIndex = this.sequenceIndex;        // 从下一条指令作为开始
         int endIndex = curInstSet.length - 1;       // 结束位置，默认为最长
         for (int i = startIndex; i < endIndex; i++) {
             if (instFilter.isExit(curInstSet[i])) {
@@ -120,7 +181,7 @@ public class InstSequence {
 
     /** 是否还有更多指令等待执行。 */
     public boolean hasNext() {
-        return this.sequenceIndex.get() < this.endPosition;
+        return this.sequenceIndex < this.endPosition;
     }
 
     /** 移动指令序列指针，到下一个位置。 */
@@ -132,15 +193,15 @@ public class InstSequence {
         if (nextSkip < 0) {
             throw new InstructRuntimeException(programLocation(), "nextSkip must be > 0");
         }
-        int newPosition = this.sequenceIndex.get() + nextSkip;
+        int newPosition = this.sequenceIndex + nextSkip;
         if (newPosition > this.endPosition) {
             return false;
         }
         //
         if (nextSkip > 0) {
-            this.sequenceIndex.addAndGet(nextSkip);
+            this.sequenceIndex = newPosition;
         } else {
-            this.sequenceIndex.incrementAndGet();
+            this.sequenceIndex++;
         }
         return true;
     }
@@ -152,13 +213,23 @@ public class InstSequence {
 
     /**重置执行指针到序列指定位置*/
     public void jumpTo(int position) {
-        this.sequenceIndex.set(position);
+        this.sequenceIndex = position;
         this.jumpMark = true;
     }
 
-    /**重置执行指针到序列最开始*/
+    /**重置执行指针到序列最开始（同时清除跳转标记和代码位置，重置之后可以当作一个新的克隆使用）*/
     public void reset() {
-        this.sequenceIndex.set(this.startPosition);
+        this.sequenceIndex = this.startPosition;
+        this.jumpMark = false;
+        this.codeLocation = UNKNOWN_LOCATION;
+        this.lastLocation = null;
+        this.lastCodeLocation = null;
+    }
+
+    /** 是否和 other 是同一个指令序列的副本 */
+    public boolean isSameSequence(InstSequence other) {
+        return this.queueSet == other.queueSet && this.address == other.address //
+                && this.startPosition == other.startPosition && this.endPosition == other.endPosition;
     }
 
     @Override
@@ -171,7 +242,7 @@ public class InstSequence {
         Instruction[] instList = this.queueSet.iqlArrays(this.address);
         int length = String.valueOf(instList.length).length();
         for (int i = this.startPosition; i < this.endPosition; i++) {
-            if (i == this.sequenceIndex.get()) {
+            if (i == this.sequenceIndex) {
                 strBuffer.append("> #");
             } else {
                 strBuffer.append("  #");
@@ -176,11 +176,18 @@ public class QueryHelper {
 
     /** 创建查询实例 */
     public static Query createQuery(QueryModel queryModel, CompilerArguments compilerArguments, Finder finder) throws IOException {
-        return createQuery(queryCompiler(queryModel, compilerArguments, finder), finder);
+        compilerArguments = (compilerArguments == null) ? CompilerArguments.DEFAULT : compilerArguments;
+        return createQuery(queryCompiler(queryModel, compilerArguments, finder), finder, compilerArguments);
     }
 
     /** 创建查询实例 */
     public static Query createQuery(QIL qil, Finder finder) {
-        return new QueryImpl(qil, finder);
+        return createQuery(qil, finder, CompilerArguments.DEFAULT);
+    }
+
+    /** 创建查询实例，执行引擎等运行参数取自 compilerArguments */
+    public static Query createQuery(QIL qil, Finder finder, CompilerArguments compilerArguments) {
+        compilerArguments = (compilerArguments == null) ? CompilerArguments.DEFAULT : compilerArguments;
+        return new QueryImpl(qil, finder, compilerArguments.getExecuteEngine(), compilerArguments.getTieredThreshold(), compilerArguments.getParallelExecutor(), compilerArguments.isProfiler());
     }
 }
@@ -19,15 +19,18 @@ import net.hasor.dataql.Finder;
 import net.hasor.dataql.Query;
 import net.hasor.dataql.compiler.qil.QIL;
 import net.hasor.dataql.domain.DataModel;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
 import net.hasor.dataql.runtime.inset.OpcodesPool;
 import net.hasor.dataql.runtime.mem.DataHeap;
 import net.hasor.dataql.runtime.mem.DataStack;
 import net.hasor.dataql.runtime.mem.EnvStack;
+import net.hasor.dataql.runtime.mem.ExecuteFrame;
 import net.hasor.dataql.runtime.mem.ExitType;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * 用于封装和引发 QL 查询执行。
@@ -37,17 +40,25 @@ import java.util.Map;
 class QueryImpl extends HintsSet implements Query {
     private final QIL                 qil;
     private final Finder              finder;
+    private final ExecuteEngineEnum   executeEngine;
+    private final int                 tieredThreshold;
+    private final Executor            parallelExecutor;
+    private final boolean             profiler;
     private final Map<String, Object> shareVarMap;
 
-    QueryImpl(QIL qil, Finder finder) {
+    QueryImpl(QIL qil, Finder finder, ExecuteEngineEnum executeEngine, int tieredThreshold, Executor parallelExecutor, boolean profiler) {
         this.qil = qil;
         this.finder = finder;
+        this.executeEngine = executeEngine;
+        this.tieredThreshold = tieredThreshold;
+        this.parallelExecutor = parallelExecutor;
+        this.profiler = profiler;
         this.shareVarMap = new HashMap<>();
     }
 
     @Override
     public Query clone() {
-        QueryImpl query = new QueryImpl(this.qil, this.finder);
+        QueryImpl query = new QueryImpl(this.qil, this.finder, this.executeEngine, this.tieredThreshold, this.parallelExecutor, this.profiler);
         query.shareVarMap.putAll(this.shareVarMap);
         return query;
     }
@@ -65,35 +76,47 @@ class QueryImpl extends HintsSet implements Query {
         if (customize == null) {
             customize = symbol -> Collections.emptyMap();
         }
-        InsetProcessContext processContext = new InsetProcessContext(customize, this.finder);
+        InsetProcessContext processContext = new InsetProcessContext(customize, this.finder, this.executeEngine, this.tieredThreshold, this.parallelExecutor);
         // .汇总Option
         processContext.currentHints().setHints(this);
-        // .创建堆栈
-        DataStack dataStack = new DataStack();  // 指令执行 - 栈
-        DataHeap dataHeap = new DataHeap();     // 指令执行 - 堆
-        EnvStack envStack = new EnvStack();     // 环境数据 - 栈
-        this.qil.getCompilerVar().forEach((varName, varLocalIdx) -> {
-            Object varVal = shareVarMap.get(varName);
-            dataHeap.saveData(varLocalIdx, varVal);
-        });
-        //
-        // .执行指令序列
-        OpcodesPool opcodesPool = OpcodesPool.defaultOpcodesPool();
-        while (instSequence.hasNext()) {
-            opcodesPool.doWork(instSequence, dataHeap, dataStack, envStack, processContext);
-            instSequence.doNext(1);
-        }
-        // .结果处理
-        ExitType exitType = dataStack.getExitType();
-        long executionTime = processContext.executionTime();
-        int resultCode = dataStack.getResultCode();
-        DataModel result = dataStack.getResult();
-        if (ExitType.Exit == exitType) {
-            return new QueryResultImpl(true, resultCode, result, executionTime);
-        } else if (ExitType.Return == exitType) {
-            return new QueryResultImpl(false, resultCode, result, executionTime);
-        } else {
-            throw new InstructRuntimeException(Location.unknownLocation(), exitType + " ExitType undefined.");
+        // .创建堆栈（栈和堆从当前线程的执行帧中借出）
+        ExecuteFrame frame = ExecuteFrame.acquire();
+        try {
+            DataStack dataStack = frame.dataStack();  // 指令执行 - 栈
+            DataHeap dataHeap = frame.dataHeap(null); // 指令执行 - 堆
+            EnvStack envStack = new EnvStack();       // 环境数据 - 栈
+            this.qil.getCompilerVar().forEach((varName, varLocalIdx) -> {
+                Object varVal = shareVarMap.get(varName);
+                dataHeap.saveData(varLocalIdx, varVal);
+            });
+            //
+            // .执行指令序列
+            OpcodesPool opcodesPool = OpcodesPool.defaultOpcodesPool();
+            boolean useProfiler = this.profiler || QueryProfiler.isEnabled(this.qil, processContext.currentHints());
+            QueryProfiler profiler = useProfiler ? new QueryProfiler() : null;
+            processContext.setProfiler(profiler);
+            try {
+                opcodesPool.execute(instSequence, dataHeap, dataStack, envStack, processContext);
+            } finally {
+                processContext.cancelPendingCalls();
+                if (profiler != null) {
+                    profiler.finish();
+                }
+            }
+            // .结果处理
+            ExitType exitType = dataStack.getExitType();
+            long executionTime = processContext.executionTime();
+            int resultCode = dataStack.getResultCode();
+            DataModel result = dataStack.getResult();
+            if (ExitType.Exit == exitType) {
+                return new QueryResultImpl(true, resultCode, result, executionTime, profiler);
+            } else if (ExitType.Return == exitType) {
+                return new QueryResultImpl(false, resultCode, result, executionTime, profiler);
+            } else {
+                throw new InstructRuntimeException(Location.unknownLocation(), exitType + " ExitType undefined.");
+            }
+        } finally {
+            frame.release();
         }
     }
 }
\ No newline at end of file
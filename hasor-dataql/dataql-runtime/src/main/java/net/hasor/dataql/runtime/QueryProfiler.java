@@ -0,0 +1,423 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime;
+import net.hasor.dataql.Hints;
+import net.hasor.dataql.QueryProfile;
+import net.hasor.dataql.Udf;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.domain.DataModel;
+import net.hasor.dataql.runtime.mem.RefCall;
+import net.hasor.dataql.runtime.mem.RefFragmentCall;
+import net.hasor.dataql.runtime.mem.RefLambdaCall;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static net.hasor.dataql.HintNames.PROFILER;
+
+/**
+ * 查询的性能分析器，按照调用栈记录每个函数中每行代码、每次 UDF 和片段调用的耗时和次数。
+ *  - 只在行号变化（LINE 指令）以及 UDF 和片段调用的进入、退出，函数的退出时计时，两次计时之间的耗时记在当时所在的位置上。
+ *  - 计时读取 System.nanoTime()。前 EXACT_MARKS 次计时逐次读取时钟；之后改为采样：平均每 SAMPLE_INTERVAL 次计时（间隔随机，避免和循环的周期重合）
+ *    测量一段，测得的耗时乘以 SAMPLE_INTERVAL 记在这一段所在的位置上。因此执行时间较长的查询中各个位置的耗时是估算值，
+ *    调用次数和总耗时始终是精确的。
+ *  - 只在执行查询的线程中使用，并行调用（PARALLEL_CALL）的耗时记在等待调用结果的那一行上。
+ *  - 开启之后指令按照直接分派的方式执行（TIERED 引擎不再编译字节码），未开启时只有 LINE 指令多一次判断。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class QueryProfiler implements QueryProfile {
+    private static final int     MAX_FRAGMENT_LENGTH = 200;
+    private static final int     INDEX_THRESHOLD     = 8;
+    private static final int     EXACT_MARKS         = 1024;
+    private static final int     SAMPLE_INTERVAL     = 64;
+    private final        Node    root                = new Node(null, NodeType.QUERY, 0, null);
+    private final        long    startTime           = System.nanoTime();
+    private              long    endTime;
+    private              boolean finished;
+    private              long    lastMark;
+    private              int     exactMarks          = EXACT_MARKS;
+    private              int     markCountdown       = 1;     // 减到 0 时才需要读取时钟
+    private              boolean sampling;
+    private              int     random              = System.identityHashCode(this) | 1;
+    private              Node    current             = this.root;
+
+    private enum NodeType {
+        QUERY, METHOD, LINE, UDF, FRAGMENT
+    }
+
+    private static class Node {
+        private final Node               parent;
+        private final NodeType           type;
+        private final int                intKey;   // METHOD 为函数地址，LINE 为行号
+        private final Object             key;      // UDF 为 Udf 对象，FRAGMENT 为片段的原始文本
+        private final List<Node>         children = new ArrayList<>();
+        private       Map<Integer, Node> childIndex;
+        private       Node               lastChild;
+        private       Node               nextLine; // LINE 节点上一次之后执行的那一行（同一个函数中行号的变化大多是重复的）
+        private       String             name;
+        private       String             fragmentType;
+        private       String             fragmentText;
+        private       long               count;
+        private       long               selfTime;
+
+        public Node(Node parent, NodeType type, int intKey, Object key) {
+            this.parent = parent;
+            this.type = type;
+            this.intKey = intKey;
+            this.key = key;
+        }
+
+        private boolean matches(NodeType type, int intKey, Object key, String fragmentType) {
+            return this.type == type && this.intKey == intKey && (this.key == key || Objects.equals(this.key, key)) //
+                    && (this.fragmentType == fragmentType || Objects.equals(this.fragmentType, fragmentType));
+        }
+
+        private Node findChild(NodeType type, int intKey, Object key, String fragmentType) {
+            if (this.childIndex != null && key == null) {
+                Node node = this.childIndex.get(intKey);
+                return (node != null && node.type == type) ? node : null;
+            }
+            for (Node node : this.children) {
+                if (node.matches(type, intKey, key, fragmentType)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        private Node addChild(NodeType type, int intKey, Object key) {
+            Node node = new Node(this, type, intKey, key);
+            this.children.add(node);
+            // .子节点较多时（例如很长的脚本）按照行号建立索引，UDF 和片段节点只会出现在行节点下
+            if (this.childIndex == null && this.children.size() > INDEX_THRESHOLD && this.children.stream().allMatch(n -> n.key == null)) {
+                this.childIndex = new HashMap<>();
+                this.children.forEach(n -> this.childIndex.put(n.intKey, n));
+            } else if (this.childIndex != null) {
+                if (key == null) {
+                    this.childIndex.put(intKey, node);
+                } else {
+                    this.childIndex = null;
+                }
+            }
+            return node;
+        }
+    }
+
+    QueryProfiler() {
+        this.lastMark = this.startTime;
+    }
+
+    /** 查询是否开启了性能分析：查询的 Hint 或者查询脚本开头的 hint 语句（后者在加载 QIL 时就已经确定） */
+    static boolean isEnabled(QIL qil, Hints hints) {
+        if (qil.isProfilerHint()) {
+            return true;
+        }
+        return hints.getOrMap(PROFILER.name(), val -> {
+            return val != null && Boolean.parseBoolean(val.toString());
+        });
+    }
+
+    /** 把上一次计时到现在的耗时记在 current 上，随后 current 才会发生变化（不读取时钟的情况保持足够短，以便被内联） */
+    private void mark() {
+        if (--this.markCountdown <= 0) {
+            this.readClock();
+        }
+    }
+
+    private void readClock() {
+        long now = System.nanoTime();
+        if (this.exactMarks > 0) {
+            this.exactMarks--;
+            this.current.selfTime += now - this.lastMark;
+            this.lastMark = now;
+            this.markCountdown = 1;
+        } else if (this.sampling) {
+            // .结束采样：这一段的耗时代表了 SAMPLE_INTERVAL 段
+            this.current.selfTime += (now - this.lastMark) * SAMPLE_INTERVAL;
+            this.sampling = false;
+            this.markCountdown = this.nextSampleInterval();
+        } else {
+            // .开始采样：测量从现在到下一次计时的这一段
+            this.lastMark = now;
+            this.sampling = true;
+            this.markCountdown = 1;
+        }
+    }
+
+    /** 1 ~ 2 * SAMPLE_INTERVAL - 1 之间的随机数（xorshift），平均值为 SAMPLE_INTERVAL */
+    private int nextSampleInterval() {
+        int x = this.random;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        this.random = x;
+        return 1 + (x >>> 1) % (2 * SAMPLE_INTERVAL - 1);
+    }
+
+    private Node child(NodeType type, int intKey, Object key, String fragmentType) {
+        Node parent = this.current;
+        Node node = parent.lastChild;
+        if (node == null || !node.matches(type, intKey, key, fragmentType)) {
+            node = parent.findChild(type, intKey, key, fragmentType);
+            if (node == null) {
+                node = parent.addChild(type, intKey, key);
+                node.fragmentType = fragmentType;
+            }
+            parent.lastChild = node;
+        }
+        node.count++;
+        return node;
+    }
+
+    /** 开始执行一个函数（指令序列），address 为函数地址。不计时：进入函数之前的调用开销记在调用所在的行上 */
+    public void enterMethod(int address) {
+        if (this.finished) {
+            return;
+        }
+        Node node = this.current.lastChild;
+        if (node != null && node.type == NodeType.METHOD && node.intKey == address) {
+            node.count++;
+        } else {
+            node = this.methodNode(address);
+        }
+        this.current = node;
+    }
+
+    private Node methodNode(int address) {
+        Node node = this.child(NodeType.METHOD, address, null, null);
+        if (node.name == null) {
+            node.name = (address == 0) ? "main" : ("lambda#" + address);
+        }
+        return node;
+    }
+
+    /** 函数执行结束 */
+    public void exitMethod() {
+        if (this.finished) {
+            return;
+        }
+        this.mark();
+        Node node = this.current;
+        while (node.parent != null && node.type != NodeType.METHOD) {
+            node = node.parent;
+        }
+        this.current = (node.parent != null) ? node.parent : node;
+    }
+
+    /** 执行到了新的一行 */
+    public void line(int lineNumber) {
+        if (this.finished || lineNumber < 0) {
+            return;
+        }
+        Node node = this.current;
+        if (node.type == NodeType.LINE) {
+            if (node.intKey == lineNumber) {
+                return;
+            }
+            this.mark();
+            Node nextLine = node.nextLine;
+            if (nextLine != null && nextLine.intKey == lineNumber) {
+                nextLine.count++;
+                this.current = nextLine;
+            } else {
+                this.current = node.parent;
+                node.nextLine = this.lineNode(lineNumber);
+                this.current = node.nextLine;
+            }
+        } else {
+            this.mark();
+            this.current = this.lineNode(lineNumber);
+        }
+    }
+
+    private Node lineNode(int lineNumber) {
+        Node node = this.child(NodeType.LINE, lineNumber, null, null);
+        if (node.name == null) {
+            node.name = "line:" + lineNumber;
+        }
+        return node;
+    }
+
+    /** 开始调用 UDF 或片段，Lambda 调用返回 false（Lambda 的执行由 enterMethod 记录） */
+    public boolean enterCall(RefCall refCall, Object[] paramArrays) {
+        if (this.finished) {
+            return false;
+        }
+        Udf target = refCall.getTarget();
+        if (target instanceof RefLambdaCall) {
+            return false;
+        }
+        this.mark();
+        if (target instanceof RefFragmentCall) {
+            String fragmentType = ((RefFragmentCall) target).getFragmentType();
+            Object fragmentText = (paramArrays.length > 1) ? paramArrays[1] : null;
+            if (fragmentText instanceof DataModel) {
+                fragmentText = ((DataModel) fragmentText).unwrap();
+            }
+            this.current = this.child(NodeType.FRAGMENT, 0, String.valueOf(fragmentText), fragmentType);
+            if (this.current.name == null) {
+                this.current.fragmentText = normalizeFragment(String.valueOf(fragmentText));
+                this.current.name = "@@" + fragmentType + ":" + this.current.fragmentText;
+            }
+        } else {
+            this.current = this.child(NodeType.UDF, 0, target, null);
+            if (this.current.name == null) {
+                this.current.name = "udf:" + udfName(target);
+            }
+        }
+        return true;
+    }
+
+    /** UDF 或片段调用结束 */
+    public void exitCall() {
+        if (this.finished) {
+            return;
+        }
+        this.mark();
+        Node node = this.current;
+        while (node.parent != null && node.type != NodeType.UDF && node.type != NodeType.FRAGMENT) {
+            node = node.parent;
+        }
+        this.current = (node.parent != null) ? node.parent : node;
+    }
+
+    /** 查询结束，之后（例如消费 DataStream 时）发生的调用不再记录 */
+    void finish() {
+        if (!this.finished) {
+            this.mark();
+            this.endTime = System.nanoTime();
+            this.finished = true;
+        }
+    }
+
+    private static String udfName(Udf udf) {
+        String className = udf.getClass().getName();
+        String udfName = udf.toString();
+        return (udfName == null || udfName.startsWith(className + "@")) ? className : udfName;
+    }
+
+    private static String normalizeFragment(String fragmentString) {
+        String normalize = fragmentString.trim().replaceAll("\\s+", " ");
+        if (normalize.length() > MAX_FRAGMENT_LENGTH) {
+            normalize = normalize.substring(0, MAX_FRAGMENT_LENGTH) + "...";
+        }
+        return normalize;
+    }
+
+    @Override
+    public long totalTime() {
+        long endTime = this.finished ? this.endTime : System.nanoTime();
+        return (endTime - this.startTime) / 1000;
+    }
+
+    @Override
+    public String toCollapsedStack() {
+        // .同名的 UDF 可能对应不同的 Udf 对象，相同的调用栈需要合并
+        Map<String, Long> stackTimes = new LinkedHashMap<>();
+        for (Node node : this.root.children) {
+            this.collapsedStack(node, "", stackTimes);
+        }
+        StringBuilder strBuilder = new StringBuilder();
+        stackTimes.forEach((stack, selfTime) -> {
+            if (selfTime > 0) {
+                strBuilder.append(stack).append(' ').append(selfTime).append('\n');
+            }
+        });
+        return strBuilder.toString();
+    }
+
+    private void collapsedStack(Node node, String parentStack, Map<String, Long> stackTimes) {
+        // .; 是调用栈的分隔符，最后一个空格之后是数值
+        String frameName = node.name.replace(';', ',');
+        String stack = parentStack.isEmpty() ? frameName : (parentStack + ";" + frameName);
+        stackTimes.merge(stack, node.selfTime / 1000, Long::sum);
+        for (Node child : node.children) {
+            this.collapsedStack(child, stack, stackTimes);
+        }
+    }
+
+    @Override
+    public Map<String, Object> toSummary() {
+        Map<String, Map<String, Object>> lineStats = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> udfStats = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> fragmentStats = new LinkedHashMap<>();
+        for (Node node : this.root.children) {
+            this.summary(node, "", new HashSet<>(), lineStats, udfStats, fragmentStats);
+        }
+        //
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalTime", this.totalTime());
+        summary.put("lines", sortByTotalTime(lineStats));
+        summary.put("udfs", sortByTotalTime(udfStats));
+        summary.put("fragments", sortByTotalTime(fragmentStats));
+        return summary;
+    }
+
+    /** 汇总 node 及其子节点，返回 node 的总耗时（纳秒）。递归调用时只有最外层的调用计入总耗时 */
+    private long summary(Node node, String methodName, Set<String> activeKeys, Map<String, Map<String, Object>> lineStats, //
+            Map<String, Map<String, Object>> udfStats, Map<String, Map<String, Object>> fragmentStats) {
+        if (node.type == NodeType.METHOD) {
+            methodName = node.name;
+        }
+        long totalTime = node.selfTime;
+        String statKey = null;
+        Map<String, Object> stat = null;
+        if (node.type == NodeType.LINE) {
+            statKey = methodName + ":" + node.intKey;
+            stat = lineStats.computeIfAbsent(statKey, newStat("method", methodName, "line", node.intKey));
+        } else if (node.type == NodeType.UDF) {
+            statKey = node.name;
+            stat = udfStats.computeIfAbsent(statKey, newStat("name", node.name.substring("udf:".length()), null, null));
+        } else if (node.type == NodeType.FRAGMENT) {
+            statKey = node.name;
+            stat = fragmentStats.computeIfAbsent(statKey, newStat("type", node.fragmentType, "fragment", node.fragmentText));
+        }
+        boolean outermost = statKey != null && activeKeys.add(statKey);
+        for (Node child : node.children) {
+            totalTime += this.summary(child, methodName, activeKeys, lineStats, udfStats, fragmentStats);
+        }
+        if (stat != null) {
+            stat.put("count", (long) stat.get("count") + node.count);
+            stat.put("selfTime", (long) stat.get("selfTime") + node.selfTime / 1000);
+            if (outermost) {
+                stat.put("totalTime", (long) stat.get("totalTime") + totalTime / 1000);
+                activeKeys.remove(statKey);
+            }
+        }
+        return totalTime;
+    }
+
+    private static Function<String, Map<String, Object>> newStat(String name1, Object value1, String name2, Object value2) {
+        return statKey -> {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put(name1, value1);
+            if (name2 != null) {
+                stat.put(name2, value2);
+            }
+            stat.put("count", 0L);
+            stat.put("totalTime", 0L);
+            stat.put("selfTime", 0L);
+            return stat;
+        };
+    }
+
+    private static List<Map<String, Object>> sortByTotalTime(Map<String, Map<String, Object>> stats) {
+        List<Map<String, Object>> statList = new ArrayList<>(stats.values());
+        statList.sort((o1, o2) -> Long.compare((long) o2.get("totalTime"), (long) o1.get("totalTime")));
+        return statList;
+    }
+}
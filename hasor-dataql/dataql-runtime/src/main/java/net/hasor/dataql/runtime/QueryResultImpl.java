@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime;
+import net.hasor.dataql.QueryProfile;
 import net.hasor.dataql.QueryResult;
 import net.hasor.dataql.domain.DataModel;
 
@@ -23,16 +24,22 @@ import net.hasor.dataql.domain.DataModel;
  * @version : 2017-03-23
  */
 class QueryResultImpl implements QueryResult {
-    private boolean   isExit;
-    private int       exitCode;
-    private DataModel dataModel;
-    private long      executionTime;
+    private boolean      isExit;
+    private int          exitCode;
+    private DataModel    dataModel;
+    private long         executionTime;
+    private QueryProfile profile;
 
     QueryResultImpl(boolean isExit, int exitCode, DataModel dataModel, long executionTime) {
+        this(isExit, exitCode, dataModel, executionTime, null);
+    }
+
+    QueryResultImpl(boolean isExit, int exitCode, DataModel dataModel, long executionTime, QueryProfile profile) {
         this.isExit = isExit;
         this.exitCode = exitCode;
         this.dataModel = dataModel;
         this.executionTime = executionTime;
+        this.profile = profile;
     }
 
     public boolean isExit() {
@@ -53,4 +60,9 @@ class QueryResultImpl implements QueryResult {
     public long executionTime() {
         return this.executionTime;
     }
+
+    @Override
+    public QueryProfile getProfile() {
+        return this.profile;
+    }
 }
\ No newline at end of file
@@ -14,7 +14,6 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime.inset;
-import net.hasor.dataql.compiler.qil.Instruction;
 import net.hasor.dataql.runtime.*;
 import net.hasor.dataql.runtime.mem.DataHeap;
 import net.hasor.dataql.runtime.mem.DataStack;
@@ -38,8 +37,7 @@ class CALL implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
-        Instruction instruction = sequence.currentInst();
-        int paramCount = instruction.getInt(0);
+        int paramCount = sequence.intOperand(0);
         //
         Object[] paramArrays = new Object[paramCount];
         for (int i = 0; i < paramCount; i++) {
@@ -49,12 +47,24 @@ class CALL implements InsetProcess {
         }
         //
         Object refCallObj = dataStack.pop();
+        dataStack.push(invoke(sequence, context, refCallObj, paramArrays));
+    }
+
+    /** 发起调用并返回调用结果 */
+    static Object invoke(InstSequence sequence, InsetProcessContext context, Object refCallObj, Object[] paramArrays) throws InstructRuntimeException {
         if (!(refCallObj instanceof RefCall)) {
             throw new InstructRuntimeException(sequence.programLocation(), "target is not RefCall.");
         }
         //
         RefCall refCall = (RefCall) refCallObj;
-        Object result = refCall.invokeMethod(paramArrays, new HintsReadOnly(context.currentHints()), context.getFinder());
-        dataStack.push(result);
+        QueryProfiler profiler = context.getProfiler();
+        if (profiler != null && profiler.enterCall(refCall, paramArrays)) {
+            try {
+                return refCall.invokeMethod(paramArrays, new HintsReadOnly(context.currentHints()), context.getFinder());
+            } finally {
+                profiler.exitCall();
+            }
+        }
+        return refCall.invokeMethod(paramArrays, new HintsReadOnly(context.currentHints()), context.getFinder());
     }
 }
\ No newline at end of file
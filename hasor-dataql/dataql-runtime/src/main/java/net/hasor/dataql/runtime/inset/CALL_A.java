@@ -0,0 +1,141 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.Hints;
+import net.hasor.dataql.runtime.*;
+import net.hasor.dataql.runtime.Location.RuntimeLocation;
+import net.hasor.dataql.runtime.mem.DataHeap;
+import net.hasor.dataql.runtime.mem.DataStack;
+import net.hasor.dataql.runtime.mem.EnvStack;
+import net.hasor.dataql.runtime.mem.RefCall;
+
+import java.util.concurrent.*;
+
+import static net.hasor.dataql.HintNames.PARALLEL_CALL;
+
+/**
+ * CALL_A  // 发起可并行的服务调用（例：CALL_A,2）
+ *         - 参数说明：共1参数；参数1：发起调用时需要用到的调用参数个数 n
+ *         - 栈行为：消费：n + 1（n是参数，1是函数入口），产出1
+ *         - 堆行为：无
+ *         - 开启 PARALLEL_CALL 时调用交给并行执行器执行，产出的是调用句柄（需要经过 JOIN 指令取得结果），否则等同于 CALL
+ *         - AsyncUdf 在开启 PARALLEL_CALL 时直接发起异步调用，不占用并行执行器的线程
+ *         - 调用在其它线程中执行，不会参与当前线程上绑定的事务和数据库连接（例如：hasor-db 的事务），需要在同一个事务中执行的调用不能并行
+ *         - 发起的调用登记在执行环境中，查询结束时（包括因为异常结束）还没有 JOIN 的调用会被取消
+ *
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+class CALL_A implements InsetProcess {
+    @Override
+    public int getOpcode() {
+        return CALL_A;
+    }
+
+    @Override
+    public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
+        int paramCount = sequence.intOperand(0);
+        //
+        Object[] paramArrays = new Object[paramCount];
+        for (int i = 0; i < paramCount; i++) {
+            int paramIndex = paramCount - 1 - i;
+            Object paramObj = dataStack.pop();
+            paramArrays[paramIndex] = paramObj;
+        }
+        //
+        Object refCallObj = dataStack.pop();
+        if (!(refCallObj instanceof RefCall)) {
+            throw new InstructRuntimeException(sequence.programLocation(), "target is not RefCall.");
+        }
+        //
+        RefCall refCall = (RefCall) refCallObj;
+        boolean parallel = context.currentHints().getOrMap(PARALLEL_CALL.name(), val -> {
+            return val != null && Boolean.parseBoolean(val.toString());
+        });
+        if (!parallel) {
+            QueryProfiler profiler = context.getProfiler();
+            if (profiler != null && profiler.enterCall(refCall, paramArrays)) {
+                try {
+                    dataStack.push(refCall.invokeMethod(paramArrays, new HintsReadOnly(context.currentHints()), context.getFinder()));
+                } finally {
+                    profiler.exitCall();
+                }
+                return;
+            }
+            Object result = refCall.invokeMethod(paramArrays, new HintsReadOnly(context.currentHints()), context.getFinder());
+            dataStack.push(result);
+            return;
+        }
+        //
+        // .AsyncUdf 直接发起调用，Hint 使用当前 Hint 的快照（调用结束之前当前 Hint 可能会被修改）
+        CompletionStage<Object> asyncStage = refCall.invokeMethodAsync(paramArrays, new HintsReadOnly(new HintsSet(context.currentHints())), context.getFinder());
+        if (asyncStage != null) {
+            dataStack.push(new CallHandle(asyncStage.toCompletableFuture(), context));
+            return;
+        }
+        //
+        // .Lambda 在独立的执行环境中运行，避免和当前线程共用 Hint 栈、环境栈
+        InsetProcessContext asyncContext = context.fork();
+        RefCall asyncCall = refCall.fork(asyncContext);
+        Hints hints = new HintsReadOnly(asyncContext.currentHints());
+        Finder finder = context.getFinder();
+        FutureTask<Object> task = new FutureTask<>(() -> {
+            try {
+                return asyncCall.invokeMethod(paramArrays, hints, finder);
+            } finally {
+                asyncContext.cancelPendingCalls(); // Lambda 中发起的并行调用
+            }
+        });
+        CallHandle callHandle = new CallHandle(task, context);
+        try {
+            context.getParallelExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run(); // PARALLEL_EXECUTOR 配置的执行器拒绝时在当前线程执行（内置执行器本身就是 CallerRunsPolicy）
+        }
+        dataStack.push(callHandle);
+    }
+
+    /** 并行调用的句柄 */
+    static final class CallHandle {
+        private final Future<Object>      task;
+        private final InsetProcessContext context;
+
+        private CallHandle(Future<Object> task, InsetProcessContext context) {
+            this.task = task;
+            this.context = context;
+            context.addPendingCall(task);
+        }
+
+        /** 等待调用结束并返回调用结果，调用中的异常原样抛出 */
+        public Object join(RuntimeLocation location) throws InstructRuntimeException {
+            try {
+                this.context.removePendingCall(this.task);
+                return this.task.get();
+            } catch (InterruptedException e) {
+                this.task.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InstructRuntimeException(location, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof InstructRuntimeException) {
+                    throw (InstructRuntimeException) cause;
+                }
+                throw new InstructRuntimeException(location, cause);
+            }
+        }
+    }
+}
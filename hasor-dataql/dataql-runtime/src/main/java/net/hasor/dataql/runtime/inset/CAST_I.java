@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.DataStream;
 import net.hasor.dataql.domain.ListModel;
 import net.hasor.dataql.domain.ValueModel;
 import net.hasor.dataql.runtime.InsetProcess;
@@ -56,6 +57,9 @@ class CAST_I implements InsetProcess {
         } else if (data instanceof ListModel) {
             oriData = ((ListModel) data).asOri();
             iterator = ((ListModel) data).asOri().iterator();
+        } else if (data instanceof DataStream) {
+            oriData = data;
+            iterator = ((DataStream) data).iterator();
         } else if (data instanceof Collection) {
             oriData = data;
             iterator = ((Collection) data).iterator();
@@ -43,10 +43,14 @@ class DO implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
-        String dyadicSymbol = sequence.currentInst().getString(0);
+        String dyadicSymbol = sequence.stringOperand(0);
         Object secExpData = dataStack.pop();
         Object fstExpData = dataStack.pop();
-        //
+        dataStack.push(doDyadic(sequence, context, dyadicSymbol, fstExpData, secExpData));
+    }
+
+    /** 计算二元运算的结果 */
+    static Object doDyadic(InstSequence sequence, InsetProcessContext context, String dyadicSymbol, Object fstExpData, Object secExpData) throws InstructRuntimeException {
         if (fstExpData instanceof DataModel) {
             fstExpData = ((DataModel) fstExpData).asOri();
         }
@@ -72,24 +76,22 @@ class DO implements InsetProcess {
             if (OperatorUtils.isNumber(secExpData)) {
                 if (OperatorUtils.eq((Number) secExpData, 0)) {
                     if (isPositive) {
-                        dataStack.push(Double.POSITIVE_INFINITY); // 除数为整数数，被除数为0 -> 正无穷大
+                        return Double.POSITIVE_INFINITY; // 除数为整数数，被除数为0 -> 正无穷大
                     } else {
-                        dataStack.push(Double.NEGATIVE_INFINITY); // 除数为负数，被除数为0 -> 负无穷大
+                        return Double.NEGATIVE_INFINITY; // 除数为负数，被除数为0 -> 负无穷大
                     }
-                    return;
                 }
             }
         }
         //
         Class<?> fstType = (fstExpData == null) ? Void.class : fstExpData.getClass();
         Class<?> secType = (secExpData == null) ? Void.class : secExpData.getClass();
-        OperatorProcess process = context.findDyadicOperator(dyadicSymbol, fstType, secType);
+        OperatorProcess process = context.findDyadicOperator(sequence, dyadicSymbol, fstType, secType);
         //
         if (process == null) {
             throw new InstructRuntimeException(sequence.programLocation(), "DO -> '" + fstType.getName() + "' and '" + secType.getName() + "' operation '" + dyadicSymbol + "' not support.");
         }
         //
-        Object result = process.doProcess(sequence.programLocation(), dyadicSymbol, new Object[] { fstExpData, secExpData }, context.currentHints());
-        dataStack.push(result);
+        return process.doProcess(sequence.programLocation(), dyadicSymbol, new Object[] { fstExpData, secExpData }, context.currentHints());
     }
 }
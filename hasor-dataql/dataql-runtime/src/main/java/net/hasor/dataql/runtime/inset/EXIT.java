@@ -43,7 +43,7 @@ class EXIT implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int resultCode = sequence.currentInst().getInt(0);
+        int resultCode = sequence.intOperand(0);
         Object result = dataStack.pop();
         dataStack.setResultCode(resultCode);
         dataStack.setResult(DomainHelper.convertTo(result));
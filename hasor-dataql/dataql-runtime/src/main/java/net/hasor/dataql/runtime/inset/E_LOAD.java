@@ -41,7 +41,7 @@ class E_LOAD implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
-        String symbol = sequence.currentInst().getString(0);
+        String symbol = sequence.stringOperand(0);
         if (envStack.isEmpty()) {
             dataStack.push(null);
             return;
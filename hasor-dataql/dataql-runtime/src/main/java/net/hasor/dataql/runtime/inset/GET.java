@@ -20,6 +20,7 @@ import net.hasor.dataql.runtime.InsetProcess;
 import net.hasor.dataql.runtime.InsetProcessContext;
 import net.hasor.dataql.runtime.InstSequence;
 import net.hasor.dataql.runtime.mem.DataHeap;
+import net.hasor.dataql.runtime.mem.DataIterator;
 import net.hasor.dataql.runtime.mem.DataStack;
 import net.hasor.dataql.runtime.mem.EnvStack;
 import net.hasor.utils.BeanUtils;
@@ -44,22 +45,26 @@ class GET implements InsetProcess {
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
         String nodeName = null;
-        if (sequence.currentInst().getArrays().length > 0) {
-            nodeName = sequence.currentInst().getString(0);
+        if (sequence.operandCount() > 0) {
+            nodeName = sequence.stringOperand(0);
         } else {
-            Object nodeNameData = dataStack.pop();
-            if (nodeNameData instanceof ValueModel) {
-                nodeName = ((ValueModel) nodeNameData).asString();
-            } else {
-                nodeName = (String) nodeNameData;
-            }
+            nodeName = nodeName(dataStack.pop());
         }
         Object useData = dataStack.pop();
         useData = readProperty(useData, nodeName);
         dataStack.push(useData);
     }
 
-    private static Object readProperty(Object object, String fieldName) {
+    /** 没有操作数时，属性名称来自栈顶 */
+    static String nodeName(Object nodeNameData) {
+        if (nodeNameData instanceof ValueModel) {
+            return ((ValueModel) nodeNameData).asString();
+        } else {
+            return (String) nodeNameData;
+        }
+    }
+
+    static Object readProperty(Object object, String fieldName) {
         if (object == null) {
             return null;
         }
@@ -69,6 +74,22 @@ class GET implements InsetProcess {
         if (object instanceof Map) {
             return ((Map) object).get(fieldName);
         }
+        if (object instanceof DataIterator) {
+            // .列表格式化时每个元素都要读取 next、data，不走反射
+            DataIterator dataIterator = (DataIterator) object;
+            switch (fieldName) {
+                case "next":
+                    return dataIterator.isNext();
+                case "data":
+                    return dataIterator.getData();
+                case "stream":
+                    return dataIterator.isStream();
+                case "oriData":
+                    return dataIterator.getOriData();
+                default:
+                    break;
+            }
+        }
         //
         return BeanUtils.readPropertyOrField(object, fieldName);
     }
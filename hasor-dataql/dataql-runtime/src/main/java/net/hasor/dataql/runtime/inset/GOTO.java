@@ -38,7 +38,7 @@ class GOTO implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int jumpTo = sequence.currentInst().getInt(0);
+        int jumpTo = sequence.intOperand(0);
         sequence.jumpTo(jumpTo);
     }
 }
\ No newline at end of file
@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.Hints;
 import net.hasor.dataql.runtime.InsetProcess;
 import net.hasor.dataql.runtime.InsetProcessContext;
 import net.hasor.dataql.runtime.InstSequence;
@@ -41,14 +42,15 @@ class HINT implements InsetProcess {
         Object value = dataStack.pop();
         String key = (String) dataStack.pop();
         //
+        Hints hints = context.writableHints();
         if (value == null) {
-            context.currentHints().removeHint(key);
+            hints.removeHint(key);
         } else if (value instanceof Boolean) {
-            context.currentHints().setHint(key, (Boolean) value);
+            hints.setHint(key, (Boolean) value);
         } else if (value instanceof Number) {
-            context.currentHints().setHint(key, (Number) value);
+            hints.setHint(key, (Number) value);
         } else {
-            context.currentHints().setHint(key, value.toString());
+            hints.setHint(key, value.toString());
         }
     }
 }
\ No newline at end of file
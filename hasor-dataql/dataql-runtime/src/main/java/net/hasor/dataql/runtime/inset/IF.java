@@ -40,20 +40,22 @@ class IF implements InsetProcess {
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
         Object test = dataStack.pop();
+        int jumpLabel = sequence.intOperand(0);
+        if (testFailed(test)) {
+            sequence.jumpTo(jumpLabel);
+        }
+    }
+
+    /** 条件判断是否失败 */
+    static boolean testFailed(Object test) {
         if (test instanceof ValueModel) {
             test = ((ValueModel) test).asOri();
         }
-        //
-        int jumpLabel = sequence.currentInst().getInt(0);
-        //
         boolean testFailed = (test == null || Boolean.FALSE.equals(test));
         if (!testFailed) {
             String testStr = test.toString();
             testFailed = ("false".equalsIgnoreCase(testStr) || "off".equalsIgnoreCase(testStr) || "0".equalsIgnoreCase(testStr));
         }
-        //
-        if (testFailed) {
-            sequence.jumpTo(jumpLabel);
-        }
+        return testFailed;
     }
 }
\ No newline at end of file
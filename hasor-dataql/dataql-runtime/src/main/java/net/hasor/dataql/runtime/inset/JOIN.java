@@ -0,0 +1,49 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.runtime.InsetProcess;
+import net.hasor.dataql.runtime.InsetProcessContext;
+import net.hasor.dataql.runtime.InstSequence;
+import net.hasor.dataql.runtime.InstructRuntimeException;
+import net.hasor.dataql.runtime.inset.CALL_A.CallHandle;
+import net.hasor.dataql.runtime.mem.DataHeap;
+import net.hasor.dataql.runtime.mem.DataStack;
+import net.hasor.dataql.runtime.mem.EnvStack;
+
+/**
+ * JOIN    // 等待栈顶的并行调用句柄执行完毕，并用调用结果替换它。栈顶不是调用句柄时什么也不做
+ *         - 参数说明：共0参数
+ *         - 栈行为：消费1，产出1
+ *         - 堆行为：无
+ *
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+class JOIN implements InsetProcess {
+    @Override
+    public int getOpcode() {
+        return JOIN;
+    }
+
+    @Override
+    public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
+        Object data = dataStack.peek();
+        if (data instanceof CallHandle) {
+            dataStack.pop();
+            dataStack.push(((CallHandle) data).join(sequence.programLocation()));
+        }
+    }
+}
@@ -38,7 +38,7 @@ class LDC_B implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        Boolean value = sequence.currentInst().getBoolean(0);
+        Boolean value = (Boolean) sequence.operand(0);
         dataStack.push(value);
     }
 }
\ No newline at end of file
@@ -42,9 +42,14 @@ class LDC_D implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        Number number = sequence.currentInst().getNumber(0);
+        Number number = (Number) sequence.operand(0);
+        dataStack.push(fixNumber(context, number));
+    }
+
+    /** 按照当前 Hint 中的数字宽度修正数字常量 */
+    static Number fixNumber(InsetProcessContext context, Number number) {
         String decimalWidth = (String) context.currentHints().getHint(MIN_DECIMAL_WIDTH);
         String integerWidth = (String) context.currentHints().getHint(MIN_INTEGER_WIDTH);
-        dataStack.push(OperatorUtils.fixNumberWidth(number, decimalWidth, integerWidth));
+        return OperatorUtils.fixNumberWidth(number, decimalWidth, integerWidth);
     }
 }
\ No newline at end of file
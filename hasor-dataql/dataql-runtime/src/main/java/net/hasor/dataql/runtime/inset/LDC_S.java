@@ -38,7 +38,7 @@ class LDC_S implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        String value = sequence.currentInst().getString(0);
+        String value = sequence.stringOperand(0);
         dataStack.push(value);
     }
 }
\ No newline at end of file
@@ -18,12 +18,13 @@ import net.hasor.dataql.compiler.qil.Instruction;
 import net.hasor.dataql.runtime.InsetProcess;
 import net.hasor.dataql.runtime.InsetProcessContext;
 import net.hasor.dataql.runtime.InstSequence;
+import net.hasor.dataql.runtime.QueryProfiler;
 import net.hasor.dataql.runtime.mem.DataHeap;
 import net.hasor.dataql.runtime.mem.DataStack;
 import net.hasor.dataql.runtime.mem.EnvStack;
 
 /**
- * LINE    // 行号，无实际作用
+ * LINE    // 行号，开启性能分析时行号的变化会通知性能分析器
  *
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2017-07-19
@@ -36,19 +37,36 @@ class LINE implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
+        // .行号信息是常量，第一次执行之后缓存在调用点上避免每次都创建数组
+        Object inlineCache = sequence.currentInlineCache();
+        if (inlineCache instanceof int[]) {
+            updateCodeLocation(sequence, context, (int[]) inlineCache);
+            return;
+        }
         Instruction inst = sequence.currentInst();
         Object[] arrays = inst.getArrays();
+        int[] codeLocation;
         if (arrays.length == 4) {
-            sequence.updateCodeLocation(new int[] { //
+            codeLocation = new int[] { //
                     inst.getInt(0), // startPosition - lineNumber
                     inst.getInt(1), // startPosition - columnNumber
                     inst.getInt(2), // endPosition - lineNumber
                     inst.getInt(3), // endPosition - columnNumber
-            });
+            };
         } else {
-            sequence.updateCodeLocation(new int[] { //
+            codeLocation = new int[] { //
                     inst.getInt(0) // startPosition - lineNumber
-            });
+            };
+        }
+        sequence.updateInlineCache(codeLocation);
+        updateCodeLocation(sequence, context, codeLocation);
+    }
+
+    private static void updateCodeLocation(InstSequence sequence, InsetProcessContext context, int[] codeLocation) {
+        QueryProfiler profiler = context.getProfiler();
+        if (profiler != null && sequence.currentLine() != codeLocation[0]) {
+            profiler.line(codeLocation[0]);
         }
+        sequence.updateCodeLocation(codeLocation);
     }
 }
\ No newline at end of file
@@ -41,8 +41,8 @@ class LOAD implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int depth = sequence.currentInst().getInt(0);
-        int index = sequence.currentInst().getInt(1);
+        int depth = sequence.intOperand(0);
+        int index = sequence.intOperand(1);
         Object data = dataHeap.loadData(depth, index);
         if (data instanceof Supplier) {
             data = ((Supplier) data).get();
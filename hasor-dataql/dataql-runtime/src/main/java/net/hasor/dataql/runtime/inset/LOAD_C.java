@@ -41,7 +41,7 @@ class LOAD_C implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        String symbol = sequence.currentInst().getString(0);
+        String symbol = sequence.stringOperand(0);
         Map<String, ?> envMap = context.findCustomizeEnvironment(symbol);
         if (envMap == null) {
             envMap = Collections.emptyMap();
@@ -39,9 +39,14 @@ class LOCAL implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int localArgsIdx = sequence.currentInst().getInt(0);
-        int localPosition = sequence.currentInst().getInt(1);
-        String name = sequence.currentInst().getString(2);
+        int localArgsIdx = sequence.intOperand(0);
+        int localPosition = sequence.intOperand(1);
+        String name = sequence.stringOperand(2);
+        storeParam(dataHeap, dataStack, localArgsIdx, localPosition, name);
+    }
+
+    /** 将入参存入堆，并返回入参的值 */
+    static Object storeParam(DataHeap dataHeap, DataStack dataStack, int localArgsIdx, int localPosition, String name) {
         RefLambdaCallStruts lambdaCall = (RefLambdaCallStruts) dataStack.peek();
         Object[] callParams = lambdaCall.getParams();
         //
@@ -51,5 +56,6 @@ class LOCAL implements InsetProcess {
         }
         dataHeap.saveData(localPosition, paramValue);
         dataHeap.defineName(localPosition, name);
+        return paramValue;
     }
 }
\ No newline at end of file
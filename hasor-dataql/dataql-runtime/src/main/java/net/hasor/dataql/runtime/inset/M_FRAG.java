@@ -40,14 +40,14 @@ class M_FRAG implements InsetProcess {
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
         RuntimeLocation location = sequence.programLocation();
-        boolean isBach = sequence.currentInst().getBoolean(0);
-        String fragmentType = sequence.currentInst().getString(1);
+        boolean isBach = (Boolean) sequence.operand(0);
+        String fragmentType = sequence.stringOperand(1);
         FragmentProcess loadObject = context.findFragmentProcess(fragmentType);
         if (loadObject == null) {
             throw new InstructRuntimeException(location, fragmentType + " fragment undefine.");
         }
         //
-        RefFragmentCall fragmentCall = new RefFragmentCall(location, isBach, loadObject);
+        RefFragmentCall fragmentCall = new RefFragmentCall(location, isBach, fragmentType, loadObject);
         dataStack.push(new RefCall(location, true, fragmentCall));
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.domain.DomainHelper;
+import net.hasor.dataql.runtime.*;
+import net.hasor.dataql.runtime.mem.*;
+
+/**
+ * M_MAP   // 将数据流迭代器和格式化函数组合为延迟计算的数据流（用于数据流上的列表格式化）
+ *         - 参数说明：共0参数
+ *         - 栈行为：消费2（迭代器，格式化函数），产出1
+ *         - 堆行为：无
+ *         - 格式化函数在数据流被遍历时才逐条执行，使用的 Hint、环境栈是 M_MAP 执行时的快照
+ *
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+class M_MAP implements InsetProcess {
+    @Override
+    public int getOpcode() {
+        return M_MAP;
+    }
+
+    @Override
+    public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
+        Object formatUdf = dataStack.pop();
+        Object iterator = dataStack.pop();
+        if (!(formatUdf instanceof RefLambdaCall)) {
+            throw new InstructRuntimeException(sequence.programLocation(), "format target is not RefLambdaCall.");
+        }
+        if (!(iterator instanceof DataIterator)) {
+            throw new InstructRuntimeException(sequence.programLocation(), "format data is not DataIterator.");
+        }
+        //
+        InsetProcessContext streamContext = context.fork();
+        RefLambdaCall streamUdf = ((RefLambdaCall) formatUdf).fork(streamContext);
+        HintsReadOnly hints = new HintsReadOnly(streamContext.currentHints());
+        dataStack.push(DomainHelper.convertTo(new FormatDataStream((DataIterator) iterator, streamUdf, hints)));
+    }
+}
@@ -39,7 +39,7 @@ class M_REF implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int callAddress = sequence.currentInst().getInt(0);
+        int callAddress = sequence.intOperand(0);
         InstSequence methodSeq = sequence.methodSet(callAddress);
         RefLambdaCall refLambdaCall = new RefLambdaCall(//
                 methodSeq,  //
@@ -40,7 +40,7 @@ class M_TYP implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
-        String udfType = sequence.currentInst().getString(0);
+        String udfType = sequence.stringOperand(0);
         Object loadObject = null;
         try {
             loadObject = context.loadObject(udfType);
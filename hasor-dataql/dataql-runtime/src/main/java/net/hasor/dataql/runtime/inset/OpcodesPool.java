@@ -15,11 +15,10 @@
  */
 package net.hasor.dataql.runtime.inset;
 import net.hasor.core.Provider;
-import net.hasor.dataql.runtime.InsetProcess;
-import net.hasor.dataql.runtime.InsetProcessContext;
-import net.hasor.dataql.runtime.InstSequence;
-import net.hasor.dataql.runtime.InstructRuntimeException;
+import net.hasor.dataql.runtime.*;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
 import net.hasor.dataql.runtime.Location.RuntimeLocation;
+import net.hasor.dataql.runtime.inset.TieredCompiler.CompiledSequence;
 import net.hasor.dataql.runtime.mem.DataHeap;
 import net.hasor.dataql.runtime.mem.DataStack;
 import net.hasor.dataql.runtime.mem.EnvStack;
@@ -32,7 +31,8 @@ import java.util.function.Supplier;
  * @version : 2017-07-19
  */
 public class OpcodesPool {
-    private final InsetProcess[] processes = new InsetProcess[255];
+    private final InsetProcess[]  processes      = new InsetProcess[255];
+    private final TieredCompiler  tieredCompiler = new TieredCompiler(this.processes);
 
     private void addInsetProcess(InsetProcess inst) {
         this.processes[inst.getOpcode()] = inst;
@@ -41,7 +41,7 @@ public class OpcodesPool {
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
         RuntimeLocation location = sequence.programLocation();
         try {
-            InsetProcess process = this.processes[sequence.currentInst().getInstCode()];
+            InsetProcess process = this.processes[sequence.opcodes()[sequence.programPointer()]];
             process.doWork(sequence, dataHeap, dataStack, envStack, context);
         } catch (Exception e) {
             InstructRuntimeException ire = null;
@@ -54,6 +54,61 @@ public class OpcodesPool {
         }
     }
 
+    /**
+     * 执行整个指令序列直至结束，执行方式由 context 中的执行引擎决定（开启性能分析时总是直接分派，行号的变化由 LINE 指令通知性能分析器）。
+     * TIERED 引擎只编译完整的方法序列，执行次数未达到阈值或者不能编译的方法仍然直接分派执行。
+     */
+    public void execute(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
+        QueryProfiler profiler = context.getProfiler();
+        if (profiler != null) {
+            profiler.enterMethod(sequence.getAddress());
+            try {
+                this.executeThreaded(sequence, dataHeap, dataStack, envStack, context);
+            } finally {
+                profiler.exitMethod();
+            }
+            return;
+        }
+        if (context.getExecuteEngine() == ExecuteEngineEnum.CLASSIC) {
+            while (sequence.hasNext()) {
+                this.doWork(sequence, dataHeap, dataStack, envStack, context);
+                sequence.doNext(1);
+            }
+            return;
+        }
+        if (context.getExecuteEngine() == ExecuteEngineEnum.TIERED && sequence.programPointer() == 0 && sequence.exitPosition() == sequence.opcodes().length) {
+            CompiledSequence compiled = this.tieredCompiler.findCompiled(sequence.queueSet(), sequence.getAddress(), context.getTieredThreshold());
+            if (compiled != null) {
+                try {
+                    compiled.execute(sequence, dataHeap, dataStack, envStack, context);
+                } catch (InstructRuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new InstructRuntimeException(sequence.programLocation(), e);
+                }
+                return;
+            }
+        }
+        this.executeThreaded(sequence, dataHeap, dataStack, envStack, context);
+    }
+
+    /** 直接分派：按照预解码的 opcode 分派指令，代码位置信息只在发生异常时生成。 */
+    private void executeThreaded(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
+        InsetProcess[] processes = this.processes;
+        byte[] opcodes = sequence.opcodes();
+        while (sequence.hasNext()) {
+            InsetProcess process = processes[opcodes[sequence.programPointer()]];
+            try {
+                process.doWork(sequence, dataHeap, dataStack, envStack, context);
+            } catch (InstructRuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new InstructRuntimeException(sequence.programLocation(), e);
+            }
+            sequence.doNext(1);
+        }
+    }
+
     private static final Supplier<OpcodesPool> operatorManager = Provider.ofc(OpcodesPool::initPool).asSingle();
 
     public static OpcodesPool defaultOpcodesPool() {
@@ -105,6 +160,9 @@ public class OpcodesPool {
         pool.addInsetProcess(new M_TYP());
         pool.addInsetProcess(new M_FRAG());
         pool.addInsetProcess(new LOCAL());
+        pool.addInsetProcess(new CALL_A());
+        pool.addInsetProcess(new JOIN());
+        pool.addInsetProcess(new M_MAP());
         //
         pool.addInsetProcess(new LABEL());
         pool.addInsetProcess(new LINE());
@@ -50,8 +50,8 @@ class PULL implements InsetProcess {
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
         int point = 0;
-        if (sequence.currentInst().getArrays().length > 0) {
-            point = sequence.currentInst().getInt(0);
+        if (sequence.operandCount() > 0) {
+            point = sequence.intOperand(0);
         } else {
             Object pointData = dataStack.pop();
             if (pointData instanceof ValueModel) {
@@ -42,7 +42,11 @@ class PUSH implements InsetProcess {
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
         Object data = dataStack.pop();
         Object ors = dataStack.peek();
-        //
+        pushItem(sequence, ors, data);
+    }
+
+    /** 向集合中追加数据 */
+    static void pushItem(InstSequence sequence, Object ors, Object data) throws InstructRuntimeException {
         if (ors instanceof ListModel) {
             ((ListModel) ors).add(data);
             return;
@@ -40,10 +40,14 @@ class PUT implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
-        String fieldName = sequence.currentInst().getString(0);
+        String fieldName = sequence.stringOperand(0);
         Object useData = dataStack.pop();
         Object containerData = dataStack.peek();
-        //
+        putField(sequence, containerData, fieldName, useData);
+    }
+
+    /** 设置对象的属性 */
+    static void putField(InstSequence sequence, Object containerData, String fieldName, Object useData) throws InstructRuntimeException {
         if (containerData instanceof ObjectModel) {
             ((ObjectModel) containerData).put(fieldName, useData);
             return;
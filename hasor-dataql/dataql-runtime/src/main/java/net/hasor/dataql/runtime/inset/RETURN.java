@@ -42,11 +42,16 @@ class RETURN implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int resultCode = sequence.currentInst().getInt(0);
+        int resultCode = sequence.intOperand(0);
         Object result = dataStack.pop();
+        exitSequence(sequence, dataStack, resultCode, result, ExitType.Return);
+    }
+
+    /** 保存返回数据和状态，并结束指令序列的执行（EXIT 的分层编译也通过它结束） */
+    static void exitSequence(InstSequence sequence, DataStack dataStack, int resultCode, Object result, ExitType exitType) {
         dataStack.setResultCode(resultCode);
         dataStack.setResult(DomainHelper.convertTo(result));
-        dataStack.setExitType(ExitType.Return);
+        dataStack.setExitType(exitType);
         sequence.jumpTo(sequence.exitPosition());
     }
 }
\ No newline at end of file
@@ -39,7 +39,7 @@ class STORE implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int index = sequence.currentInst().getInt(0);
+        int index = sequence.intOperand(0);
         Object data = dataStack.pop();
         dataHeap.saveData(index, data);
     }
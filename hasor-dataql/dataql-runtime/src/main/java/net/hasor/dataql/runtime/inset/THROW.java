@@ -45,7 +45,7 @@ class THROW implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) {
-        int resultCode = sequence.currentInst().getInt(0);
+        int resultCode = sequence.intOperand(0);
         Object result = dataStack.pop();
         DataModel dataModel = DomainHelper.convertTo(result);
         dataStack.setResultCode(resultCode);
@@ -0,0 +1,732 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.compiler.qil.Instruction;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.InsetProcess;
+import net.hasor.dataql.runtime.InsetProcessContext;
+import net.hasor.dataql.runtime.InstSequence;
+import net.hasor.dataql.runtime.InstructRuntimeException;
+import net.hasor.dataql.runtime.mem.DataHeap;
+import net.hasor.dataql.runtime.mem.DataStack;
+import net.hasor.dataql.runtime.mem.EnvStack;
+import net.hasor.dataql.runtime.mem.ExitType;
+import net.hasor.utils.asm.ClassWriter;
+import net.hasor.utils.asm.Label;
+import net.hasor.utils.asm.MethodVisitor;
+import net.hasor.utils.asm.Type;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static net.hasor.utils.asm.Opcodes.*;
+
+/**
+ * 分层执行的字节码编译器，将热点方法的指令序列编译为一个 JVM 类。
+ *  - 编译前先做栈深度分析，每条指令执行前的栈深度是确定的，于是数据栈的每个位置都对应一个 JVM 局部变量，当前堆中的变量也都对应一个 JVM 局部变量。
+ *  - LDC_*、NEW_O、NEW_A、LOAD、STORE、LOCAL、GET、PUT、PUSH、COPY、POP、DO、UO、IF、GOTO、CALL、RETURN、EXIT、E_PUSH、E_POP、LINE、LABEL
+ *    直接编译为字节码，操作数读写 JVM 局部变量；IF 和 GOTO 编译为字节码跳转。指令的语义通过 TieredRuntime 和解释执行共用同一份实现。
+ *  - 其它指令回退到解释执行：先把 JVM 局部变量中的栈数据写回 DataStack，执行指令之后再读回来。
+ *  - 方法中含有 M_REF 时，闭包会在之后读取当前堆，此时 STORE 同时写入 DataHeap。
+ *  - 栈深度不确定、或者生成的字节码超过 HotSpot 的 JIT 编译上限时不编译，该方法一直以解释方式执行。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class TieredCompiler {
+    private static final int            MAX_CODE_SIZE    = 8000; // HotSpot 默认不编译超过 8000 字节的方法（DontCompileHugeMethods）
+    private static final Object         UNCOMPILABLE     = new Object();
+    private static final AtomicLong     classIndex       = new AtomicLong();
+    private static final String         SEQUENCE_NAME    = Type.getInternalName(CompiledSequence.class);
+    private static final String         RUNTIME_NAME     = Type.getInternalName(TieredRuntime.class);
+    private static final String         PROCESS_NAME     = Type.getInternalName(InsetProcess.class);
+    private static final String         INST_SEQUENCE    = Type.getInternalName(InstSequence.class);
+    private static final String         DATA_HEAP        = Type.getInternalName(DataHeap.class);
+    private static final String         DATA_STACK       = Type.getInternalName(DataStack.class);
+    private static final String         ENV_STACK        = Type.getInternalName(EnvStack.class);
+    private static final String         EXIT_TYPE        = Type.getInternalName(ExitType.class);
+    private static final String         SUPPLIER_NAME    = Type.getInternalName(Supplier.class);
+    private static final String         PROCESS_ARRAY    = "[" + Type.getDescriptor(InsetProcess.class);
+    private static final String         EXECUTE_DESC     = "(" + Type.getDescriptor(InstSequence.class) + Type.getDescriptor(DataHeap.class) + //
+            Type.getDescriptor(DataStack.class) + Type.getDescriptor(EnvStack.class) + Type.getDescriptor(InsetProcessContext.class) + ")V";
+    private static final String         CONSTRUCTOR_DESC = "(" + PROCESS_ARRAY + "[Ljava/lang/Object;)V";
+    // .execute 方法的局部变量：0 this、1 sequence、2 dataHeap、3 dataStack、4 envStack、5 context，之后是栈和堆
+    private static final int            SEQUENCE_VAR     = 1;
+    private static final int            HEAP_VAR         = 2;
+    private static final int            STACK_VAR        = 3;
+    private static final int            ENV_VAR          = 4;
+    private static final int            CONTEXT_VAR      = 5;
+    private static final int            FIRST_SLOT_VAR   = 6;
+    private final        InsetProcess[] processes;
+
+    /** 编译之后的指令序列 */
+    public static interface CompiledSequence {
+        /** 执行整个指令序列直至结束 */
+        public void execute(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException;
+    }
+
+    TieredCompiler(InsetProcess[] processes) {
+        this.processes = processes;
+    }
+
+    /** 累计方法的执行次数，执行次数达到阈值时编译该方法。返回 null 表示该方法需要继续解释执行。 */
+    public CompiledSequence findCompiled(QIL qil, int address, int threshold) {
+        Object tieredCode = qil.getTieredCode(address);
+        if (tieredCode == null) {
+            if (qil.increaseExecuteCount(address) < threshold) {
+                return null;
+            }
+            synchronized (qil) {
+                tieredCode = qil.getTieredCode(address);
+                if (tieredCode == null) {
+                    tieredCode = this.compile(qil, address);
+                    if (tieredCode == null) {
+                        tieredCode = UNCOMPILABLE; // 以后该方法一直以解释方式执行
+                    }
+                    qil.setTieredCode(address, tieredCode);
+                }
+            }
+        }
+        return (tieredCode == UNCOMPILABLE) ? null : (CompiledSequence) tieredCode;
+    }
+
+    /** 将方法编译为 CompiledSequence，不能编译时返回 null */
+    CompiledSequence compile(QIL qil, int address) {
+        int instSize = qil.iqlSize(address);
+        Instruction[] instList = new Instruction[instSize];
+        for (int i = 0; i < instSize; i++) {
+            instList[i] = qil.instOf(address, i);
+            if (this.processes[instList[i].getInstCode()] == null) {
+                return null;
+            }
+        }
+        int[] stackDepth = analyzeStackDepth(instList);
+        if (stackDepth == null) {
+            return null;
+        }
+        //
+        InsetProcess[] instProcess = new InsetProcess[instSize];
+        Object[] constants = new Object[instSize];
+        for (int i = 0; i < instSize; i++) {
+            Instruction inst = instList[i];
+            instProcess[i] = this.processes[inst.getInstCode()];
+            if (inst.getInstCode() == InsetProcess.LDC_D) {
+                constants[i] = inst.getArrays()[0];
+            } else if (inst.getInstCode() == InsetProcess.LINE) {
+                if (inst.getArrays().length == 4) {
+                    constants[i] = new int[] { inst.getInt(0), inst.getInt(1), inst.getInt(2), inst.getInt(3) };
+                } else {
+                    constants[i] = new int[] { inst.getInt(0) };
+                }
+            }
+        }
+        String className = Type.getInternalName(TieredCompiler.class) + "$Sequence" + classIndex.incrementAndGet();
+        byte[] classBytes = new MethodBuilder(className, instList, stackDepth).buildClass();
+        if (classBytes == null) {
+            return null;
+        }
+        try {
+            Class<?> sequenceClass = new TieredClassLoader(TieredCompiler.class.getClassLoader()).defineClass(className.replace('/', '.'), classBytes);
+            return (CompiledSequence) sequenceClass.getConstructor(InsetProcess[].class, Object[].class).newInstance(instProcess, constants);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 栈深度分析，返回每条指令执行前的栈深度（不可达的指令为 -1）。
+     * 同一条指令从不同的路径到达时栈深度不同、指令消费的数据超过了栈深度、或者遇到未知的指令时返回 null。
+     */
+    static int[] analyzeStackDepth(Instruction[] instList) {
+        int[] stackDepth = new int[instList.length];
+        Arrays.fill(stackDepth, -1);
+        if (instList.length == 0) {
+            return stackDepth;
+        }
+        Deque<Integer> pending = new ArrayDeque<>();
+        stackDepth[0] = 0;
+        pending.push(0);
+        while (!pending.isEmpty()) {
+            int index = pending.pop();
+            Instruction inst = instList[index];
+            int[] effect = stackEffect(inst);
+            if (effect == null || stackDepth[index] < effect[0]) {
+                return null;
+            }
+            int nextDepth = stackDepth[index] - effect[0] + effect[1];
+            int[] successors;
+            switch (inst.getInstCode()) {
+                case InsetProcess.GOTO:
+                    successors = new int[] { inst.getInt(0) };
+                    break;
+                case InsetProcess.IF:
+                    successors = new int[] { index + 1, inst.getInt(0) };
+                    break;
+                case InsetProcess.RETURN:
+                case InsetProcess.EXIT:
+                case InsetProcess.THROW:
+                    successors = new int[0];
+                    break;
+                default:
+                    successors = new int[] { index + 1 };
+                    break;
+            }
+            for (int successor : successors) {
+                if (successor < 0) {
+                    return null;
+                }
+                if (successor >= instList.length) {
+                    continue; // 跳转到序列结束位置
+                }
+                if (stackDepth[successor] == -1) {
+                    stackDepth[successor] = nextDepth;
+                    pending.push(successor);
+                } else if (stackDepth[successor] != nextDepth) {
+                    return null;
+                }
+            }
+        }
+        return stackDepth;
+    }
+
+    /** 指令的栈行为：{ 消费, 产出 }，未知的指令返回 null */
+    private static int[] stackEffect(Instruction inst) {
+        switch (inst.getInstCode()) {
+            case InsetProcess.LDC_D:
+            case InsetProcess.LDC_B:
+            case InsetProcess.LDC_S:
+            case InsetProcess.LDC_N:
+            case InsetProcess.NEW_O:
+            case InsetProcess.NEW_A:
+            case InsetProcess.LOAD:
+            case InsetProcess.E_LOAD:
+            case InsetProcess.LOAD_C:
+            case InsetProcess.M_REF:
+            case InsetProcess.M_TYP:
+            case InsetProcess.M_FRAG:
+                return new int[] { 0, 1 };
+            case InsetProcess.STORE:
+            case InsetProcess.IF:
+            case InsetProcess.E_PUSH:
+            case InsetProcess.POP:
+            case InsetProcess.EXIT:
+            case InsetProcess.RETURN:
+            case InsetProcess.THROW:
+                return new int[] { 1, 0 };
+            case InsetProcess.GET:
+            case InsetProcess.PULL:
+                return (inst.getArrays().length > 0) ? new int[] { 1, 1 } : new int[] { 2, 1 };
+            case InsetProcess.PUT:
+            case InsetProcess.PUSH:
+            case InsetProcess.DO:
+            case InsetProcess.M_MAP:
+                return new int[] { 2, 1 };
+            case InsetProcess.COPY:
+                return new int[] { 1, 2 };
+            case InsetProcess.UO:
+            case InsetProcess.TYPEOF:
+            case InsetProcess.CAST_I:
+            case InsetProcess.CAST_O:
+            case InsetProcess.M_DEF:
+            case InsetProcess.JOIN:
+                return new int[] { 1, 1 };
+            case InsetProcess.HINT:
+                return new int[] { 2, 0 };
+            case InsetProcess.CALL:
+            case InsetProcess.CALL_A:
+                return new int[] { inst.getInt(0) + 1, 1 };
+            case InsetProcess.GOTO:
+            case InsetProcess.E_POP:
+            case InsetProcess.LOCAL:
+            case InsetProcess.HINT_S:
+            case InsetProcess.HINT_D:
+            case InsetProcess.LABEL:
+            case InsetProcess.LINE:
+                return new int[] { 0, 0 };
+            default:
+                return null;
+        }
+    }
+
+    /** 生成一个方法序列的类：构造方法保存 processes 和 constants，execute 方法执行整个指令序列 */
+    private static class MethodBuilder {
+        private final String        className;
+        private final Instruction[] instList;
+        private final int[]         stackDepth;
+        private final int           firstHeapVar; // 栈之后的第一个局部变量
+        private final int[]         heapVar;      // 堆中位置对应的局部变量，-1 表示方法中没有用到
+        private final boolean       writeThrough;
+        private       MethodVisitor mv;
+
+        MethodBuilder(String className, Instruction[] instList, int[] stackDepth) {
+            this.className = className;
+            this.instList = instList;
+            this.stackDepth = stackDepth;
+            //
+            int maxDepth = 0;
+            int maxHeap = -1;
+            boolean writeThrough = false;
+            for (int i = 0; i < instList.length; i++) {
+                maxDepth = Math.max(maxDepth, stackDepth[i] + 1); // COPY 之类的指令会比执行前多一个
+                switch (instList[i].getInstCode()) {
+                    case InsetProcess.LOAD:
+                        if (instList[i].getInt(0) == 0) {
+                            maxHeap = Math.max(maxHeap, instList[i].getInt(1));
+                        }
+                        break;
+                    case InsetProcess.STORE:
+                        maxHeap = Math.max(maxHeap, instList[i].getInt(0));
+                        break;
+                    case InsetProcess.LOCAL:
+                        maxHeap = Math.max(maxHeap, instList[i].getInt(1));
+                        break;
+                    case InsetProcess.M_REF:
+                        writeThrough = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.heapVar = new int[maxHeap + 1];
+            Arrays.fill(this.heapVar, -1);
+            this.firstHeapVar = FIRST_SLOT_VAR + maxDepth;
+            int nextVar = this.firstHeapVar;
+            for (int i = 0; i < instList.length; i++) {
+                int heapIndex = heapIndex(instList[i]);
+                if (heapIndex >= 0 && this.heapVar[heapIndex] == -1) {
+                    this.heapVar[heapIndex] = nextVar++;
+                }
+            }
+            this.writeThrough = writeThrough;
+        }
+
+        /** 指令访问的当前堆位置，不访问当前堆时返回 -1 */
+        private static int heapIndex(Instruction inst) {
+            switch (inst.getInstCode()) {
+                case InsetProcess.LOAD:
+                    return (inst.getInt(0) == 0) ? inst.getInt(1) : -1;
+                case InsetProcess.STORE:
+                    return inst.getInt(0);
+                case InsetProcess.LOCAL:
+                    return inst.getInt(1);
+                default:
+                    return -1;
+            }
+        }
+
+        /** 生成的字节码超过 MAX_CODE_SIZE 时返回 null */
+        byte[] buildClass() {
+            ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+                @Override
+                protected String getCommonSuperClass(String type1, String type2) {
+                    return "java/lang/Object"; // 栈和堆的局部变量都只作为 Object 使用
+                }
+            };
+            classWriter.visit(V1_8, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, this.className, null, "java/lang/Object", new String[] { SEQUENCE_NAME });
+            classWriter.visitField(ACC_PRIVATE + ACC_FINAL, "processes", PROCESS_ARRAY, null, null).visitEnd();
+            classWriter.visitField(ACC_PRIVATE + ACC_FINAL, "constants", "[Ljava/lang/Object;", null, null).visitEnd();
+            //
+            // .构造方法
+            MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitFieldInsn(PUTFIELD, this.className, "processes", PROCESS_ARRAY);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitFieldInsn(PUTFIELD, this.className, "constants", "[Ljava/lang/Object;");
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+            //
+            // .execute 方法
+            this.mv = classWriter.visitMethod(ACC_PUBLIC, "execute", EXECUTE_DESC, null, null);
+            this.mv.visitCode();
+            int codeSize = this.buildExecute();
+            this.mv.visitMaxs(0, 0);
+            this.mv.visitEnd();
+            if (codeSize > MAX_CODE_SIZE) {
+                return null;
+            }
+            classWriter.visitEnd();
+            return classWriter.toByteArray();
+        }
+
+        /** 生成 execute 方法的指令，返回字节码的长度 */
+        private int buildExecute() {
+            Label[] instLabels = new Label[this.instList.length];
+            for (int i = 0; i < instLabels.length; i++) {
+                instLabels[i] = new Label();
+            }
+            Label exitLabel = new Label();
+            //
+            // .入口：栈的局部变量置为 null，堆的局部变量从当前堆中读取
+            for (int var = FIRST_SLOT_VAR; var < this.firstHeapVar; var++) {
+                this.mv.visitInsn(ACONST_NULL);
+                this.mv.visitVarInsn(ASTORE, var);
+            }
+            for (int heapIndex = 0; heapIndex < this.heapVar.length; heapIndex++) {
+                if (this.heapVar[heapIndex] != -1) {
+                    this.mv.visitVarInsn(ALOAD, HEAP_VAR);
+                    this.pushInt(0);
+                    this.pushInt(heapIndex);
+                    this.mv.visitMethodInsn(INVOKEVIRTUAL, DATA_HEAP, "loadData", "(II)Ljava/lang/Object;", false);
+                    this.mv.visitVarInsn(ASTORE, this.heapVar[heapIndex]);
+                }
+            }
+            //
+            for (int index = 0; index < this.instList.length; index++) {
+                if (this.stackDepth[index] == -1) {
+                    continue; // 不可达的指令
+                }
+                this.mv.visitLabel(instLabels[index]);
+                this.buildInst(index, this.stackDepth[index], instLabels, exitLabel);
+            }
+            this.mv.visitLabel(exitLabel);
+            this.setProgramPointer(this.instList.length); // 和解释执行一样，结束时指针停在出口位置
+            this.mv.visitInsn(RETURN);
+            Label endLabel = new Label();
+            this.mv.visitLabel(endLabel);
+            return endLabel.getOffset();
+        }
+
+        private void buildInst(int index, int depth, Label[] instLabels, Label exitLabel) {
+            Instruction inst = this.instList[index];
+            switch (inst.getInstCode()) {
+                case InsetProcess.LABEL: {
+                    break;
+                }
+                case InsetProcess.LINE: {
+                    // .sequence.updateCodeLocation((int[]) constants[index])
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.loadConstant(index, "[I");
+                    this.mv.visitMethodInsn(INVOKEVIRTUAL, INST_SEQUENCE, "updateCodeLocation", "([I)V", false);
+                    break;
+                }
+                case InsetProcess.LDC_S:
+                case InsetProcess.LDC_B:
+                case InsetProcess.LDC_N: {
+                    // .常量直接编译为字节码常量
+                    Object value = (inst.getInstCode() == InsetProcess.LDC_N) ? null : inst.getArrays()[0];
+                    if (value == null) {
+                        this.mv.visitInsn(ACONST_NULL);
+                    } else if (value instanceof Boolean) {
+                        this.mv.visitFieldInsn(GETSTATIC, "java/lang/Boolean", (Boolean) value ? "TRUE" : "FALSE", "Ljava/lang/Boolean;");
+                    } else {
+                        this.mv.visitLdcInsn(value.toString());
+                    }
+                    this.storeSlot(depth);
+                    break;
+                }
+                case InsetProcess.LDC_D: {
+                    // .数字的宽度取决于执行时的 Hint
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, CONTEXT_VAR);
+                    this.loadConstant(index, "java/lang/Number");
+                    this.invokeRuntime("fixNumber", "(Lnet/hasor/dataql/runtime/InsetProcessContext;Ljava/lang/Number;)Ljava/lang/Object;");
+                    this.storeSlot(depth);
+                    break;
+                }
+                case InsetProcess.NEW_O:
+                case InsetProcess.NEW_A: {
+                    this.invokeRuntime((inst.getInstCode() == InsetProcess.NEW_O) ? "newObject" : "newList", "()Ljava/lang/Object;");
+                    this.storeSlot(depth);
+                    break;
+                }
+                case InsetProcess.LOAD: {
+                    // .Object data = 当前堆的局部变量或者 dataHeap.loadData(depth, index); 如果是 Supplier 那么取其值
+                    int heapDepth = inst.getInt(0);
+                    int heapIndex = inst.getInt(1);
+                    if (heapDepth == 0) {
+                        this.mv.visitVarInsn(ALOAD, this.heapVar[heapIndex]);
+                    } else {
+                        this.mv.visitVarInsn(ALOAD, HEAP_VAR);
+                        this.pushInt(heapDepth);
+                        this.pushInt(heapIndex);
+                        this.mv.visitMethodInsn(INVOKEVIRTUAL, DATA_HEAP, "loadData", "(II)Ljava/lang/Object;", false);
+                    }
+                    Label pushLabel = new Label();
+                    this.mv.visitInsn(DUP);
+                    this.mv.visitTypeInsn(INSTANCEOF, SUPPLIER_NAME);
+                    this.mv.visitJumpInsn(IFEQ, pushLabel);
+                    this.mv.visitTypeInsn(CHECKCAST, SUPPLIER_NAME);
+                    this.mv.visitMethodInsn(INVOKEINTERFACE, SUPPLIER_NAME, "get", "()Ljava/lang/Object;", true);
+                    this.mv.visitLabel(pushLabel);
+                    this.storeSlot(depth);
+                    break;
+                }
+                case InsetProcess.STORE: {
+                    int heapIndex = inst.getInt(0);
+                    if (this.writeThrough) {
+                        this.mv.visitVarInsn(ALOAD, HEAP_VAR);
+                        this.pushInt(heapIndex);
+                        this.loadSlot(depth - 1);
+                        this.mv.visitMethodInsn(INVOKEVIRTUAL, DATA_HEAP, "saveData", "(ILjava/lang/Object;)V", false);
+                    }
+                    this.loadSlot(depth - 1);
+                    this.mv.visitVarInsn(ASTORE, this.heapVar[heapIndex]);
+                    break;
+                }
+                case InsetProcess.LOCAL: {
+                    if (depth != 0) {
+                        this.buildFallback(index, depth); // 入参在 DataStack 的栈顶
+                        break;
+                    }
+                    this.mv.visitVarInsn(ALOAD, HEAP_VAR);
+                    this.mv.visitVarInsn(ALOAD, STACK_VAR);
+                    this.pushInt(inst.getInt(0));
+                    this.pushInt(inst.getInt(1));
+                    this.loadString(inst.getString(2));
+                    this.invokeRuntime("local", "(Lnet/hasor/dataql/runtime/mem/DataHeap;Lnet/hasor/dataql/runtime/mem/DataStack;IILjava/lang/String;)Ljava/lang/Object;");
+                    this.mv.visitVarInsn(ASTORE, this.heapVar[inst.getInt(1)]);
+                    break;
+                }
+                case InsetProcess.GET: {
+                    this.setProgramPointer(index);
+                    if (inst.getArrays().length > 0) {
+                        this.loadSlot(depth - 1);
+                        this.loadString(inst.getString(0));
+                        this.invokeRuntime("get", "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;");
+                        this.storeSlot(depth - 1);
+                    } else {
+                        this.loadSlot(depth - 2);
+                        this.loadSlot(depth - 1);
+                        this.invokeRuntime("nodeName", "(Ljava/lang/Object;)Ljava/lang/String;");
+                        this.invokeRuntime("get", "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;");
+                        this.storeSlot(depth - 2);
+                    }
+                    break;
+                }
+                case InsetProcess.PUT: {
+                    // .容器仍然留在栈上
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.loadSlot(depth - 2);
+                    this.loadString(inst.getString(0));
+                    this.loadSlot(depth - 1);
+                    this.invokeRuntime("put", "(Lnet/hasor/dataql/runtime/InstSequence;Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;)V");
+                    break;
+                }
+                case InsetProcess.PUSH: {
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.loadSlot(depth - 2);
+                    this.loadSlot(depth - 1);
+                    this.invokeRuntime("push", "(Lnet/hasor/dataql/runtime/InstSequence;Ljava/lang/Object;Ljava/lang/Object;)V");
+                    break;
+                }
+                case InsetProcess.COPY: {
+                    this.loadSlot(depth - 1);
+                    this.storeSlot(depth);
+                    break;
+                }
+                case InsetProcess.POP: {
+                    this.mv.visitInsn(ACONST_NULL);
+                    this.storeSlot(depth - 1);
+                    break;
+                }
+                case InsetProcess.DO: {
+                    // .运算符的查找结果缓存在当前指令的调用点上，所以要先设置程序指针
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.mv.visitVarInsn(ALOAD, CONTEXT_VAR);
+                    this.loadString(inst.getString(0));
+                    this.loadSlot(depth - 2);
+                    this.loadSlot(depth - 1);
+                    this.invokeRuntime("dyadic", "(Lnet/hasor/dataql/runtime/InstSequence;Lnet/hasor/dataql/runtime/InsetProcessContext;Ljava/lang/String;Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+                    this.storeSlot(depth - 2);
+                    break;
+                }
+                case InsetProcess.UO: {
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.mv.visitVarInsn(ALOAD, CONTEXT_VAR);
+                    this.loadString(inst.getString(0));
+                    this.loadSlot(depth - 1);
+                    this.invokeRuntime("unary", "(Lnet/hasor/dataql/runtime/InstSequence;Lnet/hasor/dataql/runtime/InsetProcessContext;Ljava/lang/String;Ljava/lang/Object;)Ljava/lang/Object;");
+                    this.storeSlot(depth - 1);
+                    break;
+                }
+                case InsetProcess.IF: {
+                    // .条件不成立时跳转到 jumpTo，否则执行下一条指令
+                    this.setProgramPointer(index);
+                    this.loadSlot(depth - 1);
+                    this.invokeRuntime("test", "(Ljava/lang/Object;)Z");
+                    this.mv.visitJumpInsn(IFEQ, jumpLabel(inst.getInt(0), instLabels, exitLabel));
+                    break;
+                }
+                case InsetProcess.GOTO: {
+                    this.mv.visitJumpInsn(GOTO, jumpLabel(inst.getInt(0), instLabels, exitLabel));
+                    break;
+                }
+                case InsetProcess.E_PUSH: {
+                    this.mv.visitVarInsn(ALOAD, ENV_VAR);
+                    this.loadSlot(depth - 1);
+                    this.mv.visitMethodInsn(INVOKEVIRTUAL, ENV_STACK, "push", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+                    this.mv.visitInsn(POP);
+                    break;
+                }
+                case InsetProcess.E_POP: {
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, ENV_VAR);
+                    this.mv.visitMethodInsn(INVOKEVIRTUAL, ENV_STACK, "pop", "()Ljava/lang/Object;", false);
+                    this.mv.visitInsn(POP);
+                    break;
+                }
+                case InsetProcess.CALL: {
+                    // .TieredRuntime.call(sequence, context, 函数入口, new Object[] { 参数... })
+                    int paramCount = inst.getInt(0);
+                    int entryDepth = depth - paramCount - 1;
+                    this.setProgramPointer(index);
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.mv.visitVarInsn(ALOAD, CONTEXT_VAR);
+                    this.loadSlot(entryDepth);
+                    this.pushInt(paramCount);
+                    this.mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+                    for (int i = 0; i < paramCount; i++) {
+                        this.mv.visitInsn(DUP);
+                        this.pushInt(i);
+                        this.loadSlot(entryDepth + 1 + i);
+                        this.mv.visitInsn(AASTORE);
+                    }
+                    this.invokeRuntime("call", "(Lnet/hasor/dataql/runtime/InstSequence;Lnet/hasor/dataql/runtime/InsetProcessContext;Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;");
+                    this.storeSlot(entryDepth);
+                    break;
+                }
+                case InsetProcess.RETURN:
+                case InsetProcess.EXIT: {
+                    this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+                    this.mv.visitVarInsn(ALOAD, STACK_VAR);
+                    this.pushInt(inst.getInt(0));
+                    this.loadSlot(depth - 1);
+                    String exitType = (inst.getInstCode() == InsetProcess.RETURN) ? ExitType.Return.name() : ExitType.Exit.name();
+                    this.mv.visitFieldInsn(GETSTATIC, EXIT_TYPE, exitType, "L" + EXIT_TYPE + ";");
+                    this.invokeRuntime("exit", "(Lnet/hasor/dataql/runtime/InstSequence;Lnet/hasor/dataql/runtime/mem/DataStack;ILjava/lang/Object;Lnet/hasor/dataql/runtime/mem/ExitType;)V");
+                    this.mv.visitInsn(RETURN);
+                    break;
+                }
+                default: {
+                    this.buildFallback(index, depth);
+                    break;
+                }
+            }
+        }
+
+        /** 回退到解释执行：栈数据写回 DataStack，执行 processes[index].doWork，再把栈数据读回局部变量 */
+        private void buildFallback(int index, int depth) {
+            Instruction inst = this.instList[index];
+            for (int slot = 0; slot < depth; slot++) {
+                this.mv.visitVarInsn(ALOAD, STACK_VAR);
+                this.loadSlot(slot);
+                this.mv.visitMethodInsn(INVOKEVIRTUAL, DATA_STACK, "push", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+                this.mv.visitInsn(POP);
+            }
+            this.setProgramPointer(index);
+            this.mv.visitVarInsn(ALOAD, 0);
+            this.mv.visitFieldInsn(GETFIELD, this.className, "processes", PROCESS_ARRAY);
+            this.pushInt(index);
+            this.mv.visitInsn(AALOAD);
+            for (int var = SEQUENCE_VAR; var <= CONTEXT_VAR; var++) {
+                this.mv.visitVarInsn(ALOAD, var);
+            }
+            this.mv.visitMethodInsn(INVOKEINTERFACE, PROCESS_NAME, "doWork", EXECUTE_DESC, true);
+            if (inst.getInstCode() == InsetProcess.THROW) {
+                this.mv.visitInsn(RETURN); // THROW 总是抛出异常
+                return;
+            }
+            int[] effect = stackEffect(inst);
+            int nextDepth = depth - effect[0] + effect[1];
+            for (int slot = nextDepth - 1; slot >= 0; slot--) {
+                this.mv.visitVarInsn(ALOAD, STACK_VAR);
+                this.mv.visitMethodInsn(INVOKEVIRTUAL, DATA_STACK, "pop", "()Ljava/lang/Object;", false);
+                this.storeSlot(slot);
+            }
+            if (inst.getInstCode() == InsetProcess.LOCAL) {
+                this.mv.visitVarInsn(ALOAD, HEAP_VAR);
+                this.pushInt(0);
+                this.pushInt(inst.getInt(1));
+                this.mv.visitMethodInsn(INVOKEVIRTUAL, DATA_HEAP, "loadData", "(II)Ljava/lang/Object;", false);
+                this.mv.visitVarInsn(ASTORE, this.heapVar[inst.getInt(1)]);
+            }
+        }
+
+        private static Label jumpLabel(int jumpTo, Label[] instLabels, Label exitLabel) {
+            return (jumpTo < instLabels.length) ? instLabels[jumpTo] : exitLabel;
+        }
+
+        /** sequence.setProgramPointer(index)，指令读取代码位置信息和调用点缓存之前需要设置 */
+        private void setProgramPointer(int index) {
+            this.mv.visitVarInsn(ALOAD, SEQUENCE_VAR);
+            this.pushInt(index);
+            this.mv.visitMethodInsn(INVOKEVIRTUAL, INST_SEQUENCE, "setProgramPointer", "(I)V", false);
+        }
+
+        private void loadConstant(int index, String castType) {
+            this.mv.visitVarInsn(ALOAD, 0);
+            this.mv.visitFieldInsn(GETFIELD, this.className, "constants", "[Ljava/lang/Object;");
+            this.pushInt(index);
+            this.mv.visitInsn(AALOAD);
+            this.mv.visitTypeInsn(CHECKCAST, castType);
+        }
+
+        private void loadString(String value) {
+            if (value == null) {
+                this.mv.visitInsn(ACONST_NULL);
+            } else {
+                this.mv.visitLdcInsn(value);
+            }
+        }
+
+        private void loadSlot(int slot) {
+            this.mv.visitVarInsn(ALOAD, FIRST_SLOT_VAR + slot);
+        }
+
+        private void storeSlot(int slot) {
+            this.mv.visitVarInsn(ASTORE, FIRST_SLOT_VAR + slot);
+        }
+
+        private void invokeRuntime(String methodName, String methodDesc) {
+            this.mv.visitMethodInsn(INVOKESTATIC, RUNTIME_NAME, methodName, methodDesc, false);
+        }
+
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                this.mv.visitInsn(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                this.mv.visitIntInsn(BIPUSH, value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                this.mv.visitIntInsn(SIPUSH, value);
+            } else {
+                this.mv.visitLdcInsn(value);
+            }
+        }
+    }
+
+    /** 每个编译结果使用独立的 ClassLoader，QIL 被回收之后生成的类也可以随之卸载 */
+    private static class TieredClassLoader extends ClassLoader {
+        public TieredClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        public Class<?> defineClass(String className, byte[] classBytes) {
+            return super.defineClass(className, classBytes, 0, classBytes.length);
+        }
+    }
+}
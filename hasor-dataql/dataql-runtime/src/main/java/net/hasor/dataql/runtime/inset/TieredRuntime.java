@@ -0,0 +1,100 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.inset;
+import net.hasor.dataql.domain.DomainHelper;
+import net.hasor.dataql.runtime.InsetProcessContext;
+import net.hasor.dataql.runtime.InstSequence;
+import net.hasor.dataql.runtime.InstructRuntimeException;
+import net.hasor.dataql.runtime.mem.DataHeap;
+import net.hasor.dataql.runtime.mem.DataStack;
+import net.hasor.dataql.runtime.mem.ExitType;
+
+/**
+ * TieredCompiler 生成的字节码通过这些方法执行指令，指令的语义和解释执行共用同一份实现。
+ *  - 生成的类由独立的 ClassLoader 加载，不能访问包内可见的方法，所以这里的方法都是 public 的，不作为 API 使用。
+ *  - 操作数从 JVM 局部变量中直接传入，结果通过返回值写回局部变量，不经过 DataStack。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public final class TieredRuntime {
+    private TieredRuntime() {
+    }
+
+    /** LDC_D */
+    public static Object fixNumber(InsetProcessContext context, Number number) {
+        return LDC_D.fixNumber(context, number);
+    }
+
+    /** NEW_O */
+    public static Object newObject() {
+        return DomainHelper.newObject();
+    }
+
+    /** NEW_A */
+    public static Object newList() {
+        return DomainHelper.newList();
+    }
+
+    /** GET（属性名称来自栈顶时，先通过 nodeName 转换） */
+    public static Object get(Object data, String nodeName) {
+        return GET.readProperty(data, nodeName);
+    }
+
+    /** GET 没有操作数时的属性名称 */
+    public static String nodeName(Object nodeNameData) {
+        return GET.nodeName(nodeNameData);
+    }
+
+    /** PUT */
+    public static void put(InstSequence sequence, Object containerData, String fieldName, Object useData) throws InstructRuntimeException {
+        PUT.putField(sequence, containerData, fieldName, useData);
+    }
+
+    /** PUSH */
+    public static void push(InstSequence sequence, Object ors, Object data) throws InstructRuntimeException {
+        PUSH.pushItem(sequence, ors, data);
+    }
+
+    /** DO */
+    public static Object dyadic(InstSequence sequence, InsetProcessContext context, String dyadicSymbol, Object fstExpData, Object secExpData) throws InstructRuntimeException {
+        return DO.doDyadic(sequence, context, dyadicSymbol, fstExpData, secExpData);
+    }
+
+    /** UO */
+    public static Object unary(InstSequence sequence, InsetProcessContext context, String dyadicSymbol, Object expData) throws InstructRuntimeException {
+        return UO.doUnary(sequence, context, dyadicSymbol, expData);
+    }
+
+    /** IF，返回 true 表示条件成立（继续执行下一条指令） */
+    public static boolean test(Object test) {
+        return !IF.testFailed(test);
+    }
+
+    /** CALL */
+    public static Object call(InstSequence sequence, InsetProcessContext context, Object refCallObj, Object[] paramArrays) throws InstructRuntimeException {
+        return CALL.invoke(sequence, context, refCallObj, paramArrays);
+    }
+
+    /** LOCAL，入参同时存入堆中（闭包和其它指令可能从堆中读取） */
+    public static Object local(DataHeap dataHeap, DataStack dataStack, int localArgsIdx, int localPosition, String name) {
+        return LOCAL.storeParam(dataHeap, dataStack, localArgsIdx, localPosition, name);
+    }
+
+    /** RETURN、EXIT */
+    public static void exit(InstSequence sequence, DataStack dataStack, int resultCode, Object result, ExitType exitType) {
+        RETURN.exitSequence(sequence, dataStack, resultCode, result, exitType);
+    }
+}
@@ -42,21 +42,24 @@ class UO implements InsetProcess {
 
     @Override
     public void doWork(InstSequence sequence, DataHeap dataHeap, DataStack dataStack, EnvStack envStack, InsetProcessContext context) throws InstructRuntimeException {
-        String dyadicSymbol = sequence.currentInst().getString(0);
+        String dyadicSymbol = sequence.stringOperand(0);
         Object expData = dataStack.pop();
-        //
+        dataStack.push(doUnary(sequence, context, dyadicSymbol, expData));
+    }
+
+    /** 计算一元运算的结果 */
+    static Object doUnary(InstSequence sequence, InsetProcessContext context, String dyadicSymbol, Object expData) throws InstructRuntimeException {
         if (expData instanceof DataModel) {
             expData = ((DataModel) expData).asOri();
         }
         //
         Class<?> expType = (expData == null) ? Void.class : expData.getClass();
-        OperatorProcess process = context.findUnaryOperator(dyadicSymbol, expType);
+        OperatorProcess process = context.findUnaryOperator(sequence, dyadicSymbol, expType);
         //
         if (process == null) {
             throw new InstructRuntimeException(sequence.programLocation(), "UO -> " + dyadicSymbol + " OperatorProcess is Undefined");
         }
         //
-        Object result = process.doProcess(sequence.programLocation(), dyadicSymbol, new Object[] { expData }, context.currentHints());
-        dataStack.push(result);
+        return process.doProcess(sequence.programLocation(), dyadicSymbol, new Object[] { expData }, context.currentHints());
     }
 }
\ No newline at end of file
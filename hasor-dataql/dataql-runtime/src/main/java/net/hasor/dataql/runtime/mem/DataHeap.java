@@ -14,8 +14,10 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime.mem;
+import java.util.Arrays;
+
 /**
- * 堆数据
+ * 堆数据（执行帧结束之后，未被闭包引用的堆可以通过 reset 重置之后复用）
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2019-11-22
  */
@@ -24,6 +26,8 @@ public class DataHeap implements Cloneable {
     private int      depth         = 0;
     private Object[] heapDataPool  = new Object[10];
     private String[] heapDataNames = new String[10];
+    private int      usedLength    = 0;     // 写入过数据的最大位置 + 1
+    private boolean  captured      = false; // 是否被 Lambda 闭包引用
 
     public DataHeap() {
         this(null);
@@ -52,13 +56,36 @@ public class DataHeap implements Cloneable {
             this.heapDataPool = newHeapDataPool;
         }
         this.heapDataPool[position] = data;
+        if (position >= this.usedLength) {
+            this.usedLength = position + 1;
+        }
+    }
+
+    /** 堆被 Lambda 闭包引用，执行帧结束之后不能再复用 */
+    public void markCaptured() {
+        this.captured = true;
+    }
+
+    public boolean isCaptured() {
+        return this.captured;
+    }
+
+    /** 清空数据，并重新设置父堆 */
+    public void reset(DataHeap parent) {
+        Arrays.fill(this.heapDataPool, 0, this.usedLength, null);
+        this.usedLength = 0;
+        this.parent = parent;
+        this.depth = (parent == null) ? 0 : parent.depth + 1;
+        this.captured = false;
     }
 
     public Object loadData(int depth, int position) {
         DataHeap heapData = this;
         for (int i = 0; i <= depth; i++) {
             if (i == depth) {
-                return heapData.heapDataPool[position];
+                // .没有写入过的位置都是 null（TieredCompiler 在方法入口会读取全部用到的位置）
+                Object[] dataPool = heapData.heapDataPool;
+                return (position < dataPool.length) ? dataPool[position] : null;
             }
             heapData = heapData.parent;
             if (heapData == null) {
@@ -77,6 +104,7 @@ public class DataHeap implements Cloneable {
         DataHeap dataHeap = new DataHeap(parent);
         dataHeap.depth = this.depth;
         dataHeap.heapDataPool = this.heapDataPool.clone();
+        dataHeap.usedLength = this.usedLength;
         return dataHeap;
     }
 }
\ No newline at end of file
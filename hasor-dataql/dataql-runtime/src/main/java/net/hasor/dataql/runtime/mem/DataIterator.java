@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime.mem;
+import net.hasor.dataql.DataStream;
 import net.hasor.dataql.domain.DomainHelper;
 
 import java.util.Iterator;
@@ -48,4 +49,9 @@ public class DataIterator {
     public Object getOriData() {
         return this.oriData;
     }
+
+    /** 被迭代的数据是否为 DataStream（只能遍历一次） */
+    public boolean isStream() {
+        return this.oriData instanceof DataStream;
+    }
 }
\ No newline at end of file
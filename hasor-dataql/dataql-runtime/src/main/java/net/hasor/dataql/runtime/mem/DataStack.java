@@ -16,17 +16,60 @@
 package net.hasor.dataql.runtime.mem;
 import net.hasor.dataql.domain.DataModel;
 
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.EmptyStackException;
 
 /**
- * 栈数据
+ * 栈数据（基于数组，非线程安全。执行帧只会在一个线程中使用，可以通过 reset 重置之后复用）
  * @author 赵永春 (zyc@hasor.net)
  * @version : 2019-11-22
  */
-public class DataStack extends Stack<Object> {
-    private int       resultCode = 0;
-    private DataModel result     = null;
-    private ExitType  exitType   = null;
+public class DataStack {
+    private Object[]  elementData = new Object[16];
+    private int       elementCount;
+    private int       resultCode  = 0;
+    private DataModel result      = null;
+    private ExitType  exitType    = null;
+
+    public Object push(Object item) {
+        if (this.elementCount == this.elementData.length) {
+            this.elementData = Arrays.copyOf(this.elementData, this.elementData.length << 1);
+        }
+        this.elementData[this.elementCount++] = item;
+        return item;
+    }
+
+    public Object pop() {
+        if (this.elementCount == 0) {
+            throw new EmptyStackException();
+        }
+        Object item = this.elementData[--this.elementCount];
+        this.elementData[this.elementCount] = null;
+        return item;
+    }
+
+    public Object peek() {
+        if (this.elementCount == 0) {
+            throw new EmptyStackException();
+        }
+        return this.elementData[this.elementCount - 1];
+    }
+
+    /** 按照从栈底到栈顶的顺序获取数据 */
+    public Object get(int index) {
+        if (index < 0 || index >= this.elementCount) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return this.elementData[index];
+    }
+
+    public int size() {
+        return this.elementCount;
+    }
+
+    public boolean isEmpty() {
+        return this.elementCount == 0;
+    }
 
     public int getResultCode() {
         return resultCode;
@@ -52,10 +95,20 @@ public class DataStack extends Stack<Object> {
         this.exitType = exitType;
     }
 
+    /** 清空栈数据以及执行结果 */
+    public void reset() {
+        Arrays.fill(this.elementData, 0, this.elementCount, null);
+        this.elementCount = 0;
+        this.resultCode = 0;
+        this.result = null;
+        this.exitType = null;
+    }
+
     @Override
     public DataStack clone() {
         DataStack dataStack = new DataStack();
-        dataStack.addAll(this);
+        dataStack.elementData = Arrays.copyOf(this.elementData, this.elementData.length);
+        dataStack.elementCount = this.elementCount;
         dataStack.resultCode = this.resultCode;
         dataStack.result = this.result;
         dataStack.exitType = this.exitType;
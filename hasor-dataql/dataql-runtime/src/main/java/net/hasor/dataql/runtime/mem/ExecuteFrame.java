@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.mem;
+import net.hasor.dataql.runtime.InstSequence;
+
+/**
+ * 执行帧（栈、堆、指令序列），每个线程持有一组按调用深度排列的执行帧，查询和 Lambda 调用从中借出，调用结束之后归还。
+ *  - 借出和归还是后进先出的，嵌套的 Lambda 调用按照调用深度依次使用下一个执行帧。
+ *  - 被 Lambda 闭包引用过的堆不会再复用。
+ *  - 调用深度超过 MAX_POOL_DEPTH 之后，执行帧不再复用。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public final class ExecuteFrame {
+    private static final int                    MAX_POOL_DEPTH = 64;
+    private static final ThreadLocal<FramePool> FRAME_POOL     = ThreadLocal.withInitial(FramePool::new);
+    private final        FramePool              pool;       // 所属的帧池，不复用的执行帧为 null
+    private final        DataStack              dataStack  = new DataStack();
+    private              DataHeap               dataHeap;
+    private              InstSequence           instSequence;
+
+    private static class FramePool {
+        private final ExecuteFrame[] frames = new ExecuteFrame[MAX_POOL_DEPTH];
+        private       int            depth  = 0;
+    }
+
+    private ExecuteFrame(FramePool pool) {
+        this.pool = pool;
+    }
+
+    /** 从当前线程借出一个执行帧，使用完毕之后必须调用 release 归还 */
+    public static ExecuteFrame acquire() {
+        FramePool pool = FRAME_POOL.get();
+        if (pool.depth >= MAX_POOL_DEPTH) {
+            return new ExecuteFrame(null);
+        }
+        ExecuteFrame frame = pool.frames[pool.depth];
+        if (frame == null) {
+            frame = new ExecuteFrame(pool);
+            pool.frames[pool.depth] = frame;
+        }
+        pool.depth++;
+        return frame;
+    }
+
+    /** 执行帧中的栈 */
+    public DataStack dataStack() {
+        return this.dataStack;
+    }
+
+    /** 执行帧中的堆，parent 为父堆 */
+    public DataHeap dataHeap(DataHeap parent) {
+        if (this.dataHeap == null || this.dataHeap.isCaptured()) {
+            this.dataHeap = new DataHeap(parent);
+        } else {
+            this.dataHeap.reset(parent);
+        }
+        return this.dataHeap;
+    }
+
+    /** 执行帧中 template 的一个副本 */
+    public InstSequence instSequence(InstSequence template) {
+        if (this.instSequence == null || !this.instSequence.isSameSequence(template)) {
+            this.instSequence = template.clone();
+        } else {
+            this.instSequence.reset();
+        }
+        return this.instSequence;
+    }
+
+    /** 归还执行帧，栈和未被闭包引用的堆会被清空 */
+    public void release() {
+        this.dataStack.reset();
+        if (this.dataHeap != null) {
+            if (this.dataHeap.isCaptured()) {
+                this.dataHeap = null;
+            } else {
+                this.dataHeap.reset(null);
+            }
+        }
+        if (this.pool != null) {
+            this.pool.depth--;
+        }
+    }
+}
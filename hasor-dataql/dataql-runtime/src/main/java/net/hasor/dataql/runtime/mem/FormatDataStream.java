@@ -0,0 +1,93 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.mem;
+import net.hasor.dataql.DataStream;
+import net.hasor.dataql.Hints;
+import net.hasor.dataql.Udf;
+import net.hasor.utils.ExceptionUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 对数据流执行列表格式化的结果，每读取一条源数据执行一次格式化函数，格式化函数返回的集合会被展开。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class FormatDataStream implements DataStream<Object> {
+    private final DataIterator dataIterator;
+    private final Udf          formatUdf;
+    private final Hints        hints;
+    private       boolean      iterated;
+
+    public FormatDataStream(DataIterator dataIterator, Udf formatUdf, Hints hints) {
+        this.dataIterator = dataIterator;
+        this.formatUdf = formatUdf;
+        this.hints = hints;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        if (this.iterated) {
+            throw new IllegalStateException("the data stream has already been consumed.");
+        }
+        this.iterated = true;
+        return new Iterator<Object>() {
+            private final LinkedList<Object> buffer = new LinkedList<>(); // 可能含有 null
+
+            @Override
+            public boolean hasNext() {
+                while (this.buffer.isEmpty()) {
+                    if (!dataIterator.isNext()) {
+                        return false;
+                    }
+                    Object result = format(dataIterator.getData());
+                    if (result instanceof Collection) {
+                        this.buffer.addAll((Collection<?>) result);
+                    } else {
+                        this.buffer.add(result);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Object next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.buffer.removeFirst();
+            }
+        };
+    }
+
+    private Object format(Object rowData) {
+        try {
+            return this.formatUdf.call(this.hints, rowData);
+        } catch (Throwable e) {
+            throw ExceptionUtils.toRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Object oriData = this.dataIterator.getOriData();
+        if (oriData instanceof Closeable) {
+            ((Closeable) oriData).close();
+        }
+    }
+}
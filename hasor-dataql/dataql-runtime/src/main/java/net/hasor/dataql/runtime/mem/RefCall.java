@@ -14,16 +14,22 @@
  * limitations under the License.
  */
 package net.hasor.dataql.runtime.mem;
+import net.hasor.dataql.AsyncUdf;
 import net.hasor.dataql.Finder;
 import net.hasor.dataql.Hints;
 import net.hasor.dataql.Udf;
 import net.hasor.dataql.UdfSource;
 import net.hasor.dataql.domain.DataModel;
 import net.hasor.dataql.domain.DomainHelper;
+import net.hasor.dataql.runtime.InsetProcessContext;
 import net.hasor.dataql.runtime.InstructRuntimeException;
 import net.hasor.dataql.runtime.Location.RuntimeLocation;
 import net.hasor.utils.ExceptionUtils;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 /**
  * 栈数据
  * @author 赵永春 (zyc@hasor.net)
@@ -40,28 +46,82 @@ public class RefCall {
         this.refCall = refCall;
     }
 
+    /** 创建一个在 context 中执行的副本，Lambda 以外的函数不受执行环境影响返回自身（用于并行调用） */
+    public RefCall fork(InsetProcessContext context) {
+        if (this.refCall instanceof RefLambdaCall) {
+            return new RefCall(this.location, this.autoUnwrap, ((RefLambdaCall) this.refCall).fork(context));
+        }
+        return this;
+    }
+
+    /** 被调用的函数 */
+    public Udf getTarget() {
+        return this.refCall;
+    }
+
     public Object invokeMethod(Object[] paramArrays, Hints optionSet, Finder finder) throws InstructRuntimeException {
         try {
-            Object[] objects = paramArrays.clone();
-            if (this.autoUnwrap) {
-                for (int i = 0; i < objects.length; i++) {
-                    if (objects[i] instanceof DataModel) {
-                        objects[i] = ((DataModel) objects[i]).unwrap();
-                    }
-                }
-            }
-            Object result = this.refCall.call(optionSet, objects);
-            if (result instanceof UdfSource) {
-                result = ((UdfSource) result).getUdfResource(finder).get();
+            Object result = this.refCall.call(optionSet, this.unwrapParams(paramArrays));
+            return this.convertResult(result, finder);
+        } catch (Throwable e) {
+            throw this.toRuntimeException(e);
+        }
+    }
+
+    /** 函数是 AsyncUdf 时发起异步调用，结果同 invokeMethod；其它函数返回 null */
+    public CompletionStage<Object> invokeMethodAsync(Object[] paramArrays, Hints optionSet, Finder finder) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletionStage<?> callStage;
+        try {
+            if (!(this.refCall instanceof AsyncUdf)) {
+                return null;
             }
-            return DomainHelper.convertTo(result);
+            callStage = ((AsyncUdf) this.refCall).callAsync(optionSet, this.unwrapParams(paramArrays));
         } catch (Throwable e) {
-            if (e instanceof InstructRuntimeException) {
-                throw (InstructRuntimeException) e;
+            future.completeExceptionally(this.toRuntimeException(e));
+            return future;
+        }
+        callStage.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable;
+                future.completeExceptionally(this.toRuntimeException(cause));
+                return;
+            }
+            try {
+                future.complete(this.convertResult(result, finder));
+            } catch (Throwable e) {
+                future.completeExceptionally(this.toRuntimeException(e));
+            }
+        });
+        return future;
+    }
+
+    private Object[] unwrapParams(Object[] paramArrays) {
+        if (!this.autoUnwrap) {
+            return paramArrays;
+        }
+        Object[] objects = paramArrays.clone();
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] instanceof DataModel) {
+                objects[i] = ((DataModel) objects[i]).unwrap();
             }
-            throw ExceptionUtils.toRuntimeException(e, throwable -> {
-                return new InstructRuntimeException(location, throwable.getMessage(), throwable);
-            });
         }
+        return objects;
+    }
+
+    private Object convertResult(Object result, Finder finder) throws Throwable {
+        if (result instanceof UdfSource) {
+            result = ((UdfSource) result).getUdfResource(finder).get();
+        }
+        return DomainHelper.convertTo(result);
+    }
+
+    private RuntimeException toRuntimeException(Throwable e) {
+        if (e instanceof InstructRuntimeException) {
+            return (InstructRuntimeException) e;
+        }
+        return ExceptionUtils.toRuntimeException(e, throwable -> {
+            return new InstructRuntimeException(location, throwable.getMessage(), throwable);
+        });
     }
-}
\ No newline at end of file
+}
@@ -30,14 +30,25 @@ import java.util.*;
 public class RefFragmentCall implements Udf {
     private final RuntimeLocation location;
     private final boolean         isBach;
+    private final String          fragmentType;
     private final FragmentProcess fragmentProcess;
 
     public RefFragmentCall(RuntimeLocation location, boolean isBach, FragmentProcess fragmentProcess) {
+        this(location, isBach, null, fragmentProcess);
+    }
+
+    public RefFragmentCall(RuntimeLocation location, boolean isBach, String fragmentType, FragmentProcess fragmentProcess) {
         this.location = location;
         this.isBach = isBach;
+        this.fragmentType = fragmentType;
         this.fragmentProcess = fragmentProcess;
     }
 
+    /** 片段类型，例如：sql */
+    public String getFragmentType() {
+        return this.fragmentType;
+    }
+
     @Override
     public Object call(Hints readOnly, Object... params) throws Throwable {
         String fragmentString = params[1].toString();
@@ -37,37 +37,43 @@ public class RefLambdaCall implements Udf {
         this.dataHeap = dataHeap;
         this.envStack = envStack;
         this.context = context;
+        this.dataHeap.markCaptured();
+    }
+
+    /** 创建一个在 context 中执行的副本，副本使用独立的环境栈（用于并行调用） */
+    public RefLambdaCall fork(InsetProcessContext context) {
+        return new RefLambdaCall(this.instSequence, this.dataHeap, this.envStack.clone(), context);
     }
 
     @Override
     public Object call(Hints readOnly, Object... params) throws Throwable {
-        //
-        DataStack cloneStack = new DataStack() {{
-            push(new RefLambdaCallStruts(params));
-        }};
-        //
-        InstSequence instSequence = this.instSequence.clone();
-        OpcodesPool opcodesPool = OpcodesPool.defaultOpcodesPool();
-        DataHeap dataHeap = new DataHeap(this.dataHeap);
-        while (instSequence.hasNext()) {
-            opcodesPool.doWork(     //
+        // .从当前线程借出执行帧，调用结束之后归还
+        ExecuteFrame frame = ExecuteFrame.acquire();
+        try {
+            DataStack dataStack = frame.dataStack();
+            dataStack.push(new RefLambdaCallStruts(params));
+            InstSequence instSequence = frame.instSequence(this.instSequence);
+            DataHeap dataHeap = frame.dataHeap(this.dataHeap);
+            OpcodesPool opcodesPool = OpcodesPool.defaultOpcodesPool();
+            opcodesPool.execute(    //
                     instSequence,   //
                     dataHeap,       //
-                    cloneStack,     //
+                    dataStack,      //
                     this.envStack,  //
                     this.context    //
             );
-            instSequence.doNext(1);
-        }
-        DataModel result = cloneStack.getResult();
-        if (cloneStack.getExitType() != ExitType.Throw) {
-            return result.unwrap();
-        } else {
-            throw new RefLambdaCallException(       //
-                    instSequence.programLocation(), //
-                    cloneStack.getResultCode(),     //
-                    cloneStack.getResult()          //
-            );
+            DataModel result = dataStack.getResult();
+            if (dataStack.getExitType() != ExitType.Throw) {
+                return result.unwrap();
+            } else {
+                throw new RefLambdaCallException(       //
+                        instSequence.programLocation(), //
+                        dataStack.getResultCode(),      //
+                        dataStack.getResult()           //
+                );
+            }
+        } finally {
+            frame.release();
         }
     }
 }
\ No newline at end of file
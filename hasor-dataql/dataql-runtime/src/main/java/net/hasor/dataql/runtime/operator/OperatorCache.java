@@ -0,0 +1,79 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.runtime.operator;
+import java.util.Arrays;
+
+/**
+ * 运算符调用点上的内联缓存，以（第一操作数类型，第二操作数类型）为 Key 缓存 OperatorManager 的查找结果。
+ *  - 缓存对象不可变，新增类型组合时生成一个新的缓存对象替换旧的。
+ *  - 一个调用点上出现的类型组合超过 MAX_ENTRIES 个之后（多态过多），不再新增缓存条目。
+ *  - OperatorManager 注册了新的运算符之后，已有的缓存全部失效。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public final class OperatorCache {
+    private static final int               MAX_ENTRIES = 4;
+    private final        OperatorManager   manager;
+    private final        int               version;
+    private final        Class<?>[]        fstTypes;
+    private final        Class<?>[]        secTypes;
+    private final        OperatorProcess[] processes;
+
+    private OperatorCache(OperatorManager manager, int version, Class<?>[] fstTypes, Class<?>[] secTypes, OperatorProcess[] processes) {
+        this.manager = manager;
+        this.version = version;
+        this.fstTypes = fstTypes;
+        this.secTypes = secTypes;
+        this.processes = processes;
+    }
+
+    /** 查找缓存的运算执行器，未命中或者缓存已经失效时返回 null（一元运算 secType 为 null） */
+    public OperatorProcess find(OperatorManager manager, Class<?> fstType, Class<?> secType) {
+        if (this.manager != manager || this.version != manager.version()) {
+            return null;
+        }
+        for (int i = 0; i < this.fstTypes.length; i++) {
+            if (this.fstTypes[i] == fstType && this.secTypes[i] == secType) {
+                return this.processes[i];
+            }
+        }
+        return null;
+    }
+
+    /** 调用点上的类型组合过多，不再值得缓存 */
+    public boolean isMegamorphic(OperatorManager manager) {
+        return this.manager == manager && this.version == manager.version() && this.fstTypes.length >= MAX_ENTRIES;
+    }
+
+    /** 在 cache 的基础上增加一个缓存条目，返回新的缓存对象（cache 为空或者已经失效时创建新的缓存） */
+    public static OperatorCache append(OperatorCache cache, OperatorManager manager, Class<?> fstType, Class<?> secType, OperatorProcess process) {
+        int version = manager.version();
+        if (cache == null || cache.manager != manager || cache.version != version) {
+            return new OperatorCache(manager, version, new Class<?>[] { fstType }, new Class<?>[] { secType }, new OperatorProcess[] { process });
+        }
+        if (cache.fstTypes.length >= MAX_ENTRIES) {
+            return cache;
+        }
+        int length = cache.fstTypes.length;
+        Class<?>[] fstTypes = Arrays.copyOf(cache.fstTypes, length + 1);
+        Class<?>[] secTypes = Arrays.copyOf(cache.secTypes, length + 1);
+        OperatorProcess[] processes = Arrays.copyOf(cache.processes, length + 1);
+        fstTypes[length] = fstType;
+        secTypes[length] = secType;
+        processes[length] = process;
+        return new OperatorCache(manager, version, fstTypes, secTypes, processes);
+    }
+}
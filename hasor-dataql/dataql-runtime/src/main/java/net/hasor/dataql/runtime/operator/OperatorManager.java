@@ -31,6 +31,12 @@ import java.util.function.Supplier;
 public class OperatorManager implements DyadicOperatorRegistry, UnaryOperatorRegistry {
     private final Map<String, List<OperatorMatch>> unaryProcessMap  = new HashMap<>();
     private final Map<String, List<OperatorMatch>> dyadicProcessMap = new HashMap<>();
+    private volatile int                           version          = 0; // 每次注册运算符都会增加，用于判断 OperatorCache 是否失效
+
+    /** 注册信息的版本号 */
+    int version() {
+        return this.version;
+    }
 
     @Override
     public void registryOperator(String symbolName, Class<?> opeType, OperatorProcess process) {
@@ -38,6 +44,7 @@ public class OperatorManager implements DyadicOperatorRegistry, UnaryOperatorReg
             return new ArrayList<>();
         });
         matchList.add(0, new UnaryProxyOperatorProcess(opeType, process));
+        this.version++;
     }
 
     @Override
@@ -46,6 +53,7 @@ public class OperatorManager implements DyadicOperatorRegistry, UnaryOperatorReg
             return new ArrayList<>();
         });
         matchList.add(0, new DyadicProxyOperatorProcess(fstType, secType, process));
+        this.version++;
     }
 
     public OperatorProcess findUnaryProcess(String symbolName, Class<?> fstType) {
@@ -30,6 +30,11 @@ public class CompareDOP extends AbstractDOP {
 
     @Override
     public Object doDyadicProcess(RuntimeLocation location, String operator, Object fstObject, Object secObject, Hints option) throws InstructRuntimeException {
+        // .Integer、Long、Double 的快速路径（结果和通用路径完全一致）
+        Boolean fastResult = fastCompare(operator, fstObject, secObject);
+        if (fastResult != null) {
+            return fastResult;
+        }
         //
         // .Boolean 和 Number 混杂模式下，先统一成为 number 在做判断
         if (OperatorUtils.isBoolean(fstObject) && OperatorUtils.isBoolean(secObject)) {
@@ -92,4 +97,51 @@ public class CompareDOP extends AbstractDOP {
         }
         throw throwError(location, operator, fstObject, secObject, "this operator nonsupport.");
     }
-}
\ No newline at end of file
+
+    /**
+     * 操作数均为 Integer、Long、Double 时直接使用原生类型比较：含有 Double 时按照 double 比较，否则按照 long 比较。
+     * 不支持的运算符或者类型返回 null，由通用路径处理。
+     */
+    private static Boolean fastCompare(String operator, Object fstObject, Object secObject) {
+        int fstKind = primitiveKind(fstObject);
+        int secKind = primitiveKind(secObject);
+        if (fstKind == 0 || secKind == 0) {
+            return null;
+        }
+        int compare;
+        if (fstKind == 2 || secKind == 2) {
+            double fstValue = ((Number) fstObject).doubleValue();
+            double secValue = ((Number) secObject).doubleValue();
+            if (Double.isNaN(fstValue) || Double.isNaN(secValue)) {
+                return null;
+            }
+            compare = (fstValue < secValue) ? -1 : ((fstValue == secValue) ? 0 : 1);
+        } else {
+            compare = Long.compare(((Number) fstObject).longValue(), ((Number) secObject).longValue());
+        }
+        switch (operator) {
+        case ">":
+            return compare > 0;
+        case ">=":
+            return compare >= 0;
+        case "<":
+            return compare < 0;
+        case "<=":
+            return compare <= 0;
+        case "==":
+            return compare == 0;
+        case "!=":
+            return compare != 0;
+        default:
+            return null;
+        }
+    }
+
+    /** 0：其它类型，1：Integer 或 Long，2：Double */
+    private static int primitiveKind(Object object) {
+        if (object instanceof Integer || object instanceof Long) {
+            return 1;
+        }
+        return (object instanceof Double) ? 2 : 0;
+    }
+}
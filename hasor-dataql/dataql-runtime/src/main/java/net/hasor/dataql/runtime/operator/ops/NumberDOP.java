@@ -21,8 +21,7 @@ import net.hasor.dataql.runtime.operator.OperatorUtils;
 
 import java.math.BigDecimal;
 
-import static net.hasor.dataql.Hints.MIN_DECIMAL_WIDTH;
-import static net.hasor.dataql.Hints.MIN_INTEGER_WIDTH;
+import static net.hasor.dataql.Hints.*;
 
 /**
  * 二元数值运算，负责处理数值的："+"、"-"、"*"、"/"、"\"、"%"
@@ -35,6 +34,11 @@ public class NumberDOP extends AbstractDOP {
         if (!(fstObject instanceof Number) || !(secObject instanceof Number)) {
             throw throwError(location, operator, fstObject, secObject, "requirements must be numerical.");
         }
+        // .Integer、Long、Double 的快速路径（结果和通用路径完全一致）
+        Number fastResult = fastProcess(operator, fstObject, secObject, option);
+        if (fastResult != null) {
+            return fastResult;
+        }
         // .数值计算的选项参数
         RoundingEnum roundingMode = RoundingEnum.find((String) option.getHint(Hints.NUMBER_ROUNDING));   // 舍入模式
         int maxDecimal = option.getOrMap(Hints.MAX_DECIMAL_DIGITS, val -> {                              // 小数位数(默认20位)
@@ -116,4 +120,81 @@ public class NumberDOP extends AbstractDOP {
         //
         return result;
     }
+
+    /**
+     * 同为 Integer、同为 Long（或 Integer 与 Long 混合）、同为 Double 时直接使用原生类型计算，省去类型判断和 Hint 的处理。
+     * 当 Hint 会改变计算结果（例如：数值宽度提升、小数位数小于 16）或者除数为 0 时返回 null，由通用路径处理。
+     */
+    private static Number fastProcess(String operator, Object fstObject, Object secObject, Hints option) {
+        Class<?> fstType = fstObject.getClass();
+        Class<?> secType = secObject.getClass();
+        if (fstType == Double.class && secType == Double.class) {
+            Object decimalWidth = option.getHint(MIN_DECIMAL_WIDTH);
+            Object maxDecimal = option.getHint(Hints.MAX_DECIMAL_DIGITS);
+            if (maxDecimal != null || MIN_DECIMAL_WIDTH_BIG.equalsIgnoreCase((String) decimalWidth)) {
+                return null;
+            }
+            double fstValue = (Double) fstObject;
+            double secValue = (Double) secObject;
+            switch (operator.charAt(0)) {
+            case '+':
+                return fstValue + secValue;
+            case '-':
+                return fstValue - secValue;
+            case '*':
+                return fstValue * secValue;
+            case '/':
+                return fstValue / secValue;
+            case '%':
+                return fstValue % secValue;
+            default:
+                return null;
+            }
+        }
+        boolean fstInteger = fstType == Integer.class;
+        boolean secInteger = secType == Integer.class;
+        if (!(fstInteger || fstType == Long.class) || !(secInteger || secType == Long.class)) {
+            return null;
+        }
+        String integerWidth = (String) option.getHint(MIN_INTEGER_WIDTH);
+        if (MIN_INTEGER_WIDTH_BIG.equalsIgnoreCase(integerWidth)) {
+            return null;
+        }
+        if (fstInteger && secInteger && !MIN_INTEGER_WIDTH_LONG.equalsIgnoreCase(integerWidth)) {
+            int fstValue = (Integer) fstObject;
+            int secValue = (Integer) secObject;
+            switch (operator.charAt(0)) {
+            case '+':
+                return fstValue + secValue;
+            case '-':
+                return fstValue - secValue;
+            case '*':
+                return fstValue * secValue;
+            case '/':
+            case '\\':
+                return (secValue == 0) ? null : fstValue / secValue;
+            case '%':
+                return (secValue == 0) ? null : fstValue % secValue;
+            default:
+                return null;
+            }
+        }
+        long fstValue = ((Number) fstObject).longValue();
+        long secValue = ((Number) secObject).longValue();
+        switch (operator.charAt(0)) {
+        case '+':
+            return fstValue + secValue;
+        case '-':
+            return fstValue - secValue;
+        case '*':
+            return fstValue * secValue;
+        case '/':
+        case '\\':
+            return (secValue == 0) ? null : fstValue / secValue;
+        case '%':
+            return (secValue == 0) ? null : fstValue % secValue;
+        default:
+            return null;
+        }
+    }
 }
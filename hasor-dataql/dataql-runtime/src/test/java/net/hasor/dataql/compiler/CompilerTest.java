@@ -33,7 +33,7 @@ import java.util.List;
  */
 public class CompilerTest extends AbstractTestResource {
     private static CompilerArguments arguments(CodeLocationEnum codeLocation) {
-        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        CompilerArguments arguments = CompilerArguments.DEBUG.copyAsNew();
         arguments.setCodeLocation(codeLocation);
         return arguments;
     }
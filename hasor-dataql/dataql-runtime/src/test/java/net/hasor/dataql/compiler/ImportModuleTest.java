@@ -0,0 +1,119 @@
+package net.hasor.dataql.compiler;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.compiler.qil.ImportModule;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.QueryHelper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ImportModuleTest {
+    private static class MapFinder implements Finder {
+        private final Map<String, String> resources = new HashMap<>();
+        private       int                 readCount = 0;
+
+        @Override
+        public InputStream findResource(String resourceName) {
+            this.readCount++;
+            String content = this.resources.get(resourceName);
+            return content == null ? null : new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static QIL compiler(String queryString, Finder finder) throws IOException {
+        return QueryHelper.queryCompiler(QueryHelper.queryParser(queryString), CompilerArguments.DEFAULT.copyAsNew(), finder);
+    }
+
+    private static Object execute(String queryString, Finder finder) throws Throwable {
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(queryString), arguments, finder);
+        return QueryHelper.createQuery(qil, finder, arguments).execute().getData().unwrap();
+    }
+
+    @Test
+    public void shared_module_test() throws Throwable {
+        ImportModule.clearCache();
+        ImportModule.setRevalidateInterval(0);
+        MapFinder finder = new MapFinder();
+        finder.resources.put("lib_a.ql", "import @'lib_b.ql' as b; var value = b()['value']; return { 'add' : (x) -> { return value + x; } };");
+        finder.resources.put("lib_b.ql", "var value = 10; return { 'value' : value };");
+        //
+        // .同一个资源只编译一次，后续的编译结果和第一次相同
+        String queryString = "import @'lib_a.ql' as a; var add = a()['add']; return add(5);";
+        QIL qil1 = compiler(queryString, finder);
+        assert ImportModule.cacheSize() == 2;
+        QIL qil2 = compiler(queryString, finder);
+        assert qil1.toString().equals(qil2.toString());
+        assert ImportModule.cacheSize() == 2;
+        assert execute(queryString, finder).toString().equals("15");
+        //
+        // .不同的脚本共享同一个模块，已经导入过的资源不会重复复制
+        queryString = "import @'lib_b.ql' as b; import @'lib_a.ql' as a; var add = a()['add']; return add(b()['value']);";
+        assert compiler(queryString, finder).iqlPoolSize() == 4;
+        assert execute(queryString, finder).toString().equals("20");
+        //
+        // .依赖的资源内容变化之后模块失效
+        finder.resources.put("lib_b.ql", "var value = 100; return { 'value' : value };");
+        assert execute("import @'lib_a.ql' as a; var add = a()['add']; return add(5);", finder).toString().equals("105");
+        ImportModule.setRevalidateInterval(2000);
+    }
+
+    @Test
+    public void revalidate_interval_test() throws Throwable {
+        ImportModule.clearCache();
+        ImportModule.setRevalidateInterval(60000);
+        MapFinder finder = new MapFinder();
+        finder.resources.put("lib_a.ql", "import @'lib_b.ql' as b; var value = b()['value']; return { 'add' : (x) -> { return value + x; } };");
+        finder.resources.put("lib_b.ql", "var value = 10; return { 'value' : value };");
+        String queryString = "import @'lib_a.ql' as a; var add = a()['add']; return add(5);";
+        //
+        // .检查间隔之内使用缓存的模块，不读取任何资源
+        assert execute(queryString, finder).toString().equals("15");
+        int readCount = finder.readCount;
+        finder.resources.put("lib_b.ql", "var value = 100; return { 'value' : value };");
+        assert execute(queryString, finder).toString().equals("15");
+        assert finder.readCount == readCount;
+        //
+        // .超过检查间隔之后重新检查
+        ImportModule.setRevalidateInterval(0);
+        assert execute(queryString, finder).toString().equals("105");
+        assert finder.readCount > readCount;
+        ImportModule.setRevalidateInterval(2000);
+    }
+
+    @Test
+    public void cycle_import_test() throws Throwable {
+        ImportModule.clearCache();
+        MapFinder finder = new MapFinder();
+        finder.resources.put("cycle_a.ql", "import @'cycle_b.ql' as b; return { 'name' : 'a', 'next' : () -> { return b()['name']; } };");
+        finder.resources.put("cycle_b.ql", "import @'cycle_a.ql' as a; return { 'name' : 'b', 'next' : () -> { return a()['name']; } };");
+        //
+        assert execute("import @'cycle_a.ql' as a; var next = a()['next']; return next();", finder).equals("b");
+        assert execute("import @'cycle_b.ql' as b; var next = b()['next']; return next();", finder).equals("a");
+        assert execute("import @'cycle_a.ql' as a; import @'cycle_b.ql' as b; var nextA = a()['next']; var nextB = b()['next']; return nextA() + nextB();", finder).equals("ba");
+    }
+
+    @Test
+    public void finder_isolation_test() throws Throwable {
+        ImportModule.clearCache();
+        ImportModule.setRevalidateInterval(60000);
+        MapFinder finder1 = new MapFinder();
+        MapFinder finder2 = new MapFinder();
+        finder1.resources.put("lib_b.ql", "return { 'value' : 10 };");
+        finder2.resources.put("lib_b.ql", "return { 'value' : 20 };");
+        String queryString = "import @'lib_b.ql' as b; return b()['value'];";
+        //
+        // .不同的 Finder 对同一个资源名返回不同的内容，模块互不共享（即使在检查间隔之内）
+        assert execute(queryString, finder1).toString().equals("10");
+        assert execute(queryString, finder2).toString().equals("20");
+        assert execute(queryString, finder1).toString().equals("10");
+        assert ImportModule.cacheSize() == 2;
+        ImportModule.setRevalidateInterval(2000);
+    }
+}
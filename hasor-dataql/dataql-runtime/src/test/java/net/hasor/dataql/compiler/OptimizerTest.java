@@ -0,0 +1,167 @@
+package net.hasor.dataql.compiler;
+import com.alibaba.fastjson.JSON;
+import net.hasor.dataql.AbstractTestResource;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.Query;
+import net.hasor.dataql.compiler.qil.Instruction;
+import net.hasor.dataql.compiler.qil.Opcodes;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.CodeLocationEnum;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import net.hasor.dataql.runtime.CompilerArguments.OptimizePassEnum;
+import net.hasor.dataql.runtime.InstructRuntimeException;
+import net.hasor.dataql.runtime.QueryHelper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static net.hasor.dataql.HintValue.*;
+
+public class OptimizerTest extends AbstractTestResource {
+    private static CompilerArguments arguments(ExecuteEngineEnum engineEnum, Set<OptimizePassEnum> passSet) {
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setCodeLocation(CodeLocationEnum.TERM);
+        arguments.setExecuteEngine(engineEnum);
+        arguments.setTieredThreshold(1);
+        arguments.getOptimizePass().clear();
+        arguments.getOptimizePass().addAll(passSet);
+        return arguments;
+    }
+
+    private static QIL compiler(String queryString, CompilerArguments arguments) throws IOException {
+        return QueryHelper.queryCompiler(QueryHelper.queryParser(queryString), arguments, Finder.DEFAULT);
+    }
+
+    private static Object execute(String queryString, CompilerArguments arguments) throws Throwable {
+        Query query = QueryHelper.createQuery(compiler(queryString, arguments), Finder.DEFAULT, arguments);
+        return query.execute().getData().unwrap();
+    }
+
+    private static int instCount(QIL qil) {
+        int count = 0;
+        for (int i = 0; i < qil.iqlPoolSize(); i++) {
+            count = count + qil.iqlSize(i);
+        }
+        return count;
+    }
+
+    private static int opcodeCount(QIL qil, byte opcode) {
+        int count = 0;
+        for (int i = 0; i < qil.iqlPoolSize(); i++) {
+            for (int j = 0; j < qil.iqlSize(i); j++) {
+                count = count + (qil.instOf(i, j).getInstCode() == opcode ? 1 : 0);
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void same_result_test() throws Throwable {
+        String[] testCases = new String[] { "basic_fmt", "multi_dimensional", "hints", "special_a", "special_b", "special_c", "special_tree" };
+        Set<OptimizePassEnum> allPass = EnumSet.allOf(OptimizePassEnum.class);
+        Set<OptimizePassEnum> nonePass = EnumSet.noneOf(OptimizePassEnum.class);
+        for (String testCase : testCases) {
+            String queryString = getScript("/net_hasor_dataql_adv/" + testCase + ".ql");
+            String queryResult = getScript("/net_hasor_dataql_adv/" + testCase + ".result");
+            //
+            // .优化之后的指令更少，执行结果完全相同
+            assert instCount(compiler(queryString, arguments(ExecuteEngineEnum.THREADED, allPass))) < //
+                    instCount(compiler(queryString, arguments(ExecuteEngineEnum.THREADED, nonePass)));
+            for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+                Object optimized = execute(queryString, arguments(engineEnum, allPass));
+                Object original = execute(queryString, arguments(engineEnum, nonePass));
+                assert JSON.toJSONString(optimized, true).trim().equals(queryResult.trim());
+                assert JSON.toJSONString(original, true).trim().equals(queryResult.trim());
+            }
+            // .每个优化单独开启
+            for (OptimizePassEnum passEnum : OptimizePassEnum.values()) {
+                Object data = execute(queryString, arguments(ExecuteEngineEnum.THREADED, EnumSet.of(passEnum)));
+                assert JSON.toJSONString(data, true).trim().equals(queryResult.trim());
+            }
+        }
+    }
+
+    @Test
+    public void constant_folding_test() throws Throwable {
+        String queryString = "return [2 + 3 * 4, 'a' + 1, !true, -5, 1 == 1]";
+        QIL qil = compiler(queryString, arguments(ExecuteEngineEnum.THREADED, EnumSet.of(OptimizePassEnum.CONSTANT_FOLDING)));
+        assert opcodeCount(qil, Opcodes.DO) == 0;
+        assert opcodeCount(qil, Opcodes.UO) == 0;
+        assert JSON.toJSONString(execute(queryString, arguments(ExecuteEngineEnum.THREADED, EnumSet.allOf(OptimizePassEnum.class)))).equals("[14,\"a1\",false,-5,true]");
+        //
+        // .在某些整数宽度下会溢出的运算不折叠，运行时设置的 MIN_INTEGER_WIDTH 依然生效
+        queryString = "return 1000 * 60";
+        qil = compiler(queryString, arguments(ExecuteEngineEnum.THREADED, EnumSet.allOf(OptimizePassEnum.class)));
+        assert opcodeCount(qil, Opcodes.DO) == 1;
+        for (String integerWidth : new String[] { MIN_INTEGER_WIDTH_BYTE, MIN_INTEGER_WIDTH_SHORT, MIN_INTEGER_WIDTH_INT }) {
+            Object[] dataSet = new Object[2];
+            for (int i = 0; i < 2; i++) {
+                Set<OptimizePassEnum> passSet = (i == 0) ? EnumSet.allOf(OptimizePassEnum.class) : EnumSet.noneOf(OptimizePassEnum.class);
+                CompilerArguments arguments = arguments(ExecuteEngineEnum.THREADED, passSet);
+                Query query = QueryHelper.createQuery(compiler("return 2 + 3 * 4 + (1000 * 60)", arguments), Finder.DEFAULT, arguments);
+                query.setHint(MIN_INTEGER_WIDTH, integerWidth);
+                dataSet[i] = query.execute().getData().unwrap();
+            }
+            assert dataSet[0].equals(dataSet[1]);
+        }
+    }
+
+    @Test
+    public void default_pass_test() {
+        // .编译优化需要主动开启，只有 FAST 模式默认启用全部优化
+        assert new CompilerArguments().getOptimizePass().isEmpty();
+        assert CompilerArguments.DEFAULT.getOptimizePass().isEmpty();
+        assert CompilerArguments.DEBUG.getOptimizePass().isEmpty();
+        assert CompilerArguments.FAST.getOptimizePass().equals(EnumSet.allOf(OptimizePassEnum.class));
+    }
+
+    @Test
+    public void line_prune_ldc_d_test() throws Throwable {
+        // .LDC_D 在解析数值时可能出错，它之前的 LINE 不能删除
+        String queryString = "var a = 1;\nvar b = 2;\nreturn a";
+        QIL qil = compiler(queryString, arguments(ExecuteEngineEnum.THREADED, EnumSet.of(OptimizePassEnum.LINE_LABEL)));
+        assert qil.instOf(0, 0).getInstCode() == Opcodes.LINE;
+        assert qil.instOf(0, 1).getInstCode() == Opcodes.LDC_D;
+    }
+
+    @Test
+    public void dead_code_test() throws Throwable {
+        String queryString = "if (1 == 1) { return 'a'; } else { return 'b'; }";
+        QIL qil = compiler(queryString, arguments(ExecuteEngineEnum.THREADED, EnumSet.allOf(OptimizePassEnum.class)));
+        assert opcodeCount(qil, Opcodes.IF) == 0;
+        assert opcodeCount(qil, Opcodes.LABEL) == 0;
+        for (int i = 0; i < qil.iqlSize(0); i++) {
+            Instruction inst = qil.instOf(0, i);
+            assert !(inst.getInstCode() == Opcodes.LDC_S && "b".equals(inst.getString(0)));
+        }
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            assert "a".equals(execute(queryString, arguments(engineEnum, EnumSet.allOf(OptimizePassEnum.class))));
+        }
+    }
+
+    @Test
+    public void error_location_test() throws Throwable {
+        String[] queryStrings = new String[] { //
+                "var dat1 = 1;\nreturn null / dat1",               //
+                "var a = 1 + 2;\nvar b = null;\nreturn [a, a - b]",  //
+                "var err = () -> throw 123, 'abc';\nvar abc = err(); return 12345" };
+        for (String queryString : queryStrings) {
+            for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+                String[] errors = new String[2];
+                for (int i = 0; i < 2; i++) {
+                    Set<OptimizePassEnum> passSet = (i == 0) ? EnumSet.allOf(OptimizePassEnum.class) : EnumSet.noneOf(OptimizePassEnum.class);
+                    try {
+                        execute(queryString, arguments(engineEnum, passSet));
+                        assert false;
+                    } catch (InstructRuntimeException e) {
+                        errors[i] = e.getLocation().toString() + " " + e.getClass().getName();
+                    }
+                }
+                assert errors[0].equals(errors[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.dataql.compiler;
+import com.alibaba.fastjson.JSON;
+import net.hasor.dataql.AbstractTestResource;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.compiler.qil.Instruction;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.compiler.qil.QILCodec;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.QueryHelper;
+import net.hasor.utils.ResourcesUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * QIL 二进制编码测试
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+public class QILCodecTest extends AbstractTestResource {
+    private static void assertSameQIL(QIL qil1, QIL qil2) {
+        assert qil1.toString().equals(qil2.toString());
+        assert qil1.getCompilerVar().equals(qil2.getCompilerVar());
+        assert qil1.iqlPoolSize() == qil2.iqlPoolSize();
+        for (int address = 0; address < qil1.iqlPoolSize(); address++) {
+            assert qil1.iqlSize(address) == qil2.iqlSize(address);
+            for (int i = 0; i < qil1.iqlSize(address); i++) {
+                Instruction inst1 = qil1.instOf(address, i);
+                Instruction inst2 = qil2.instOf(address, i);
+                assert inst1.getInstCode() == inst2.getInstCode();
+                assert Arrays.equals(inst1.getArrays(), inst2.getArrays());
+                for (int j = 0; j < inst1.getArrays().length; j++) {
+                    Object param1 = inst1.getArrays()[j];
+                    Object param2 = inst2.getArrays()[j];
+                    assert param1 == null || param1.getClass() == param2.getClass();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ast_codec_test() throws Exception {
+        File astDir = new File(Objects.requireNonNull(ResourcesUtils.getResource("/net_hasor_dataql_ast/")).toURI());
+        CompilerArguments arguments = CompilerArguments.DEBUG.copyAsNew();
+        arguments.getCompilerVar().add("abc");
+        int testCount = 0;
+        for (File caseDir : Objects.requireNonNull(astDir.listFiles(File::isDirectory))) {
+            String queryString = getScript("/net_hasor_dataql_ast/" + caseDir.getName() + "/ast.ql");
+            QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(queryString), arguments, Finder.DEFAULT);
+            byte[] qilBytes = QILCodec.encode(qil);
+            assertSameQIL(qil, QILCodec.decode(qilBytes));
+            testCount++;
+        }
+        assert testCount > 0;
+    }
+
+    @Test
+    public void execute_codec_test() throws IOException {
+        for (String testCase : new String[] { "basic_fmt", "multi_dimensional", "hints", "special_a", "special_b", "special_c", "special_tree" }) {
+            String queryString = getScript("/net_hasor_dataql_adv/" + testCase + ".ql");
+            String queryResult = getScript("/net_hasor_dataql_adv/" + testCase + ".result");
+            QIL qil = QueryHelper.queryCompiler(queryString, Finder.DEFAULT);
+            QIL decodeQil = QILCodec.decode(QILCodec.encode(qil));
+            Object resultData = QueryHelper.createQuery(decodeQil, Finder.DEFAULT).execute().getData().unwrap();
+            assert JSON.toJSONString(resultData, true).trim().equals(queryResult.trim());
+        }
+    }
+
+    @Test
+    public void number_codec_test() throws IOException {
+        String queryString = "return [1, -1, 128, 2147483647, 4294967296, 1.5, 3.14159265358979, 123456789012345678901234567890, 1.23456789012345678901234567890, 'abc', '中文', true, false, null]";
+        QIL qil = QueryHelper.queryCompiler(queryString, Finder.DEFAULT);
+        QIL decodeQil = QILCodec.decode(QILCodec.encode(qil));
+        assertSameQIL(qil, decodeQil);
+        Object data1 = QueryHelper.createQuery(qil, Finder.DEFAULT).execute().getData().unwrap();
+        Object data2 = QueryHelper.createQuery(decodeQil, Finder.DEFAULT).execute().getData().unwrap();
+        assert JSON.toJSONString(data1).equals(JSON.toJSONString(data2));
+    }
+
+    @Test
+    public void bad_data_test() {
+        try {
+            QILCodec.decode(new byte[] { 1, 2, 3, 4, 5, 6 });
+            assert false;
+        } catch (IOException e) {
+            assert e.getMessage().contains("not a compiled QIL");
+        }
+    }
+}
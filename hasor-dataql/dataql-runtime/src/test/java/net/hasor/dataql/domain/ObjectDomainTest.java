@@ -2,13 +2,13 @@ package net.hasor.dataql.domain;
 import net.hasor.dataql.AbstractTestResource;
 import net.hasor.dataql.Udf;
 import net.hasor.test.dataql.udfs.DataBean;
+import net.hasor.utils.ref.BeanMap;
 import org.junit.Test;
 import org.powermock.api.mockito.PowerMockito;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public class ObjectDomainTest extends AbstractTestResource {
     private HashMap hashMap = new HashMap() {{
@@ -139,4 +139,52 @@ public class ObjectDomainTest extends AbstractTestResource {
             assert e.getMessage().endsWith(" not Cast to UdfModel.");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void lazy_test() {
+        Map<String, Object> rowData = new LinkedHashMap<>();
+        rowData.put("id", 1);
+        rowData.put("name", "abc");
+        rowData.put("tags", new ArrayList<>(Arrays.asList("a", "b")));
+        //
+        // .未发生写操作时 unwrap 直接复制原始数据，修改 unwrap 的结果不影响原始数据
+        ObjectModel objectModel = (ObjectModel) DomainHelper.convertTo(rowData);
+        assert objectModel.fieldNames().equals(Arrays.asList("id", "name", "tags"));
+        assert objectModel.getValue("id").asInt() == 1;
+        assert objectModel.get("name") == objectModel.get("name");
+        assert DomainHelper.untouchedSource(objectModel) == rowData;
+        assert objectModel.unwrap() != rowData && objectModel.unwrap().equals(rowData);
+        ((List<Object>) objectModel.unwrap().get("tags")).add("x");
+        objectModel.unwrap().put("id", 2);
+        assert rowData.get("id").equals(1) && ((List<?>) rowData.get("tags")).size() == 2;
+        ListModel listModel = (ListModel) DomainHelper.convertTo(Collections.singletonList(rowData));
+        assert listModel.unwrap().get(0) != rowData && listModel.unwrap().get(0).equals(rowData);
+        //
+        // .子元素发生写操作之后 unwrap 生成新的数据
+        objectModel.getList("tags").add("c");
+        assert DomainHelper.untouchedSource(objectModel) == null;
+        assert objectModel.unwrap().get("tags").equals(Arrays.asList("a", "b", "c"));
+        assert ((List<?>) rowData.get("tags")).size() == 2;
+        //
+        // .写操作
+        objectModel = (ObjectModel) DomainHelper.convertTo(rowData);
+        objectModel.put("age", 12);
+        assert objectModel.fieldNames().equals(Arrays.asList("id", "name", "tags", "age"));
+        assert objectModel.unwrap() != rowData;
+        assert !rowData.containsKey("age");
+        //
+        // .需要转换的数据（Date -> Long、Bean -> Map）总是生成新的数据
+        ObjectModel beanModel = (ObjectModel) DomainHelper.convertTo(new DataBean());
+        assert beanModel.fieldNames().equals(new ObjectModel() {{
+            putAll(new BeanMap(new DataBean()));
+        }}.fieldNames().stream().filter(s -> !s.equals("class")).collect(Collectors.toList()));
+        assert beanModel.unwrap().get("time") instanceof Long;
+        assert beanModel.getValue("state").asString().equals("TIMED_WAITING");
+        //
+        // .数组
+        ListModel arrayModel = (ListModel) DomainHelper.convertTo(new int[] { 1, 2, 3 });
+        assert arrayModel.size() == 3;
+        assert arrayModel.getValue(2).asInt() == 3;
+        assert arrayModel.unwrap().equals(Arrays.asList(1, 2, 3));
+    }
+}
@@ -0,0 +1,140 @@
+package net.hasor.dataql.runtime.ads;
+import com.alibaba.fastjson.JSON;
+import net.hasor.core.Hasor;
+import net.hasor.dataql.AbstractTestResource;
+import net.hasor.dataql.DataQL;
+import net.hasor.dataql.DataStream;
+import net.hasor.dataql.DataStreamScope;
+import net.hasor.dataql.domain.DataModel;
+import net.hasor.dataql.domain.ListModel;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import org.junit.Test;
+
+import java.util.*;
+
+public class DataStreamTest extends AbstractTestResource {
+    private static final String QL_STRING = "return src => [ { 'v' : #.v, 'x' : #.v * 10 } ]";
+    private static final String EXPECT    = "[{\"v\":1,\"x\":10},{\"v\":2,\"x\":20},{\"v\":3,\"x\":30}]";
+
+    private static class CountStream implements DataStream<Map<String, Object>> {
+        private final int     size;
+        private       int     pulled;
+        private       boolean closed;
+
+        public CountStream(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Iterator<Map<String, Object>> iterator() {
+            return new Iterator<Map<String, Object>>() {
+                @Override
+                public boolean hasNext() {
+                    if (pulled >= size) {
+                        closed = true;
+                    }
+                    return pulled < size;
+                }
+
+                @Override
+                public Map<String, Object> next() {
+                    pulled++;
+                    return Collections.singletonMap("v", pulled);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    private DataQL createDataQL(ExecuteEngineEnum engineEnum, boolean streamingFormat) {
+        DataQL dataQL = Hasor.create().build().getInstance(DataQL.class);
+        dataQL.configOption(DataQL.ConfigOption.EXECUTE_ENGINE, engineEnum);
+        dataQL.configOption(DataQL.ConfigOption.TIERED_THRESHOLD, 1);
+        dataQL.configOption(DataQL.ConfigOption.STREAMING_FORMAT, streamingFormat);
+        return dataQL;
+    }
+
+    @Test
+    public void streaming_format_test() throws Throwable {
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            CountStream stream = new CountStream(3);
+            DataQL dataQL = createDataQL(engineEnum, true);
+            dataQL.addShareVarInstance("src", stream);
+            DataModel dataModel = dataQL.createQuery(QL_STRING).execute().getData();
+            //
+            // .查询结束时还没有读取任何数据，遍历时逐条读取
+            assert dataModel instanceof ListModel && ((ListModel) dataModel).isStream();
+            assert stream.pulled == 0;
+            Object unwrap = dataModel.unwrap();
+            assert unwrap instanceof DataStream;
+            Iterator<?> iterator = ((DataStream<?>) unwrap).iterator();
+            assert iterator.hasNext() && stream.pulled == 1;
+            List<Object> resultList = new ArrayList<>();
+            resultList.add(iterator.next());
+            iterator.forEachRemaining(resultList::add);
+            assert JSON.toJSONString(resultList).equals(EXPECT);
+            assert stream.pulled == 3 && stream.closed;
+            //
+            // .数据流只能遍历一次
+            try {
+                ((List<?>) unwrap).size();
+                assert false;
+            } catch (IllegalStateException e) {
+                assert e.getMessage().contains("already been consumed");
+            }
+        }
+    }
+
+    @Test
+    public void streaming_format_list_test() throws Throwable {
+        // .数据不是 DataStream 时，流式分支不生效
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            DataQL dataQL = createDataQL(engineEnum, true);
+            dataQL.addShareVarInstance("src", Arrays.asList(//
+                    Collections.singletonMap("v", 1), Collections.singletonMap("v", 2), Collections.singletonMap("v", 3)));
+            DataModel dataModel = dataQL.createQuery(QL_STRING).execute().getData();
+            assert !((ListModel) dataModel).isStream();
+            assert JSON.toJSONString(dataModel.unwrap()).equals(EXPECT);
+        }
+    }
+
+    @Test
+    public void no_streaming_format_test() throws Throwable {
+        // .未开启 streamingFormat 时，数据流在格式化时被全部读取
+        CountStream stream = new CountStream(3);
+        DataQL dataQL = createDataQL(ExecuteEngineEnum.THREADED, false);
+        dataQL.addShareVarInstance("src", stream);
+        DataModel dataModel = dataQL.createQuery(QL_STRING).execute().getData();
+        assert stream.pulled == 3;
+        assert !((ListModel) dataModel).isStream();
+        assert JSON.toJSONString(dataModel.unwrap()).equals(EXPECT);
+    }
+
+    @Test
+    public void stream_scope_test() throws Throwable {
+        assert !DataStreamScope.isOpen();
+        CountStream outerStream = new CountStream(3);
+        CountStream innerStream = new CountStream(3);
+        try (DataStreamScope outer = DataStreamScope.open()) {
+            DataStreamScope.register(outerStream);
+            try (DataStreamScope inner = DataStreamScope.open()) {
+                DataStreamScope.register(innerStream);
+            }
+            // .内层范围关闭时只关闭内层登记的数据流（即使没有被遍历过）
+            assert innerStream.closed && !outerStream.closed;
+            assert DataStreamScope.isOpen();
+        }
+        assert outerStream.closed && !DataStreamScope.isOpen();
+        //
+        try {
+            DataStreamScope.register(new CountStream(1));
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().startsWith("no DataStreamScope");
+        }
+    }
+}
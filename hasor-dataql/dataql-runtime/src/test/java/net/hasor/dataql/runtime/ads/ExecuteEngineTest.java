@@ -0,0 +1,512 @@
+package net.hasor.dataql.runtime.ads;
+import com.alibaba.fastjson.JSON;
+import net.hasor.core.Hasor;
+import net.hasor.dataql.AbstractTestResource;
+import net.hasor.dataql.AsyncFragmentProcess;
+import net.hasor.dataql.AsyncUdf;
+import net.hasor.dataql.DataQL;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.Query;
+import net.hasor.dataql.QueryModule;
+import net.hasor.dataql.QueryResult;
+import net.hasor.dataql.Udf;
+import net.hasor.dataql.compiler.qil.Instruction;
+import net.hasor.dataql.compiler.qil.Opcodes;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import net.hasor.dataql.runtime.InstructRuntimeException;
+import net.hasor.dataql.runtime.QueryHelper;
+import net.hasor.dataql.runtime.ThrowRuntimeException;
+import net.hasor.dataql.runtime.inset.TieredCompiler;
+import net.hasor.utils.NameThreadFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class ExecuteEngineTest extends AbstractTestResource {
+    private DataQL createDataQL(ExecuteEngineEnum engineEnum) {
+        DataQL dataQL = Hasor.create().build().getInstance(DataQL.class);
+        dataQL.configOption(DataQL.ConfigOption.CODE_LOCATION, CompilerArguments.CodeLocationEnum.TERM);
+        dataQL.configOption(DataQL.ConfigOption.EXECUTE_ENGINE, engineEnum);
+        dataQL.configOption(DataQL.ConfigOption.TIERED_THRESHOLD, 1);
+        return dataQL;
+    }
+
+    private void sameResultTest(String testCase) throws IOException {
+        String queryString = getScript("/net_hasor_dataql_adv/" + testCase + ".ql");
+        String queryResult = getScript("/net_hasor_dataql_adv/" + testCase + ".result");
+        //
+        Object classicData = createDataQL(ExecuteEngineEnum.CLASSIC).createQuery(queryString).execute().getData().unwrap();
+        Object threadedData = createDataQL(ExecuteEngineEnum.THREADED).createQuery(queryString).execute().getData().unwrap();
+        Object tieredData = createDataQL(ExecuteEngineEnum.TIERED).createQuery(queryString).execute().getData().unwrap();
+        assert JSON.toJSONString(classicData, true).trim().equals(queryResult.trim());
+        assert JSON.toJSONString(threadedData, true).trim().equals(queryResult.trim());
+        assert JSON.toJSONString(tieredData, true).trim().equals(queryResult.trim());
+    }
+
+    @Test
+    public void same_result_test() throws IOException {
+        sameResultTest("basic_fmt");
+        sameResultTest("multi_dimensional");
+        sameResultTest("hints");
+        sameResultTest("special_a");
+        sameResultTest("special_b");
+        sameResultTest("special_c");
+        sameResultTest("special_tree");
+    }
+
+    @Test
+    public void operand_flatten_test() throws Throwable {
+        String qlString = "var a = 1; var b = { 'name': 'abc', 'value': a + 2 }; return b.name";
+        QIL qil = QueryHelper.queryCompiler(qlString, Finder.DEFAULT);
+        for (int address = 0; address < qil.iqlPoolSize(); address++) {
+            int[] offsets = qil.operandOffsets(address);
+            for (int i = 0; i < qil.iqlSize(address); i++) {
+                Object[] operands = qil.instOf(address, i).getArrays();
+                assert offsets[i + 1] - offsets[i] == operands.length;
+                for (int j = 0; j < operands.length; j++) {
+                    assert qil.operandValues(address)[offsets[i] + j] == operands[j];
+                    if (operands[j] instanceof Integer) {
+                        assert qil.operandInts(address)[offsets[i] + j] == (Integer) operands[j];
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void eval_error_location_test() throws Throwable {
+        String qlString = "var dat1 = 1;\nreturn null / dat1";
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            try {
+                createDataQL(engineEnum).createQuery(qlString).execute();
+                assert false;
+            } catch (InstructRuntimeException e) {
+                assert e.getLocation().toString().equalsIgnoreCase("2:12~2:13");
+                assert e.getMessage().endsWith(" DO -> first data is null.");
+            }
+        }
+    }
+
+    @Test
+    public void lambda_error_location_test() throws Throwable {
+        String qlString = "var err = () -> throw 123, 'abc';\nvar abc = err(); return 12345";
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            try {
+                createDataQL(engineEnum).createQuery(qlString).execute();
+                assert false;
+            } catch (ThrowRuntimeException e) {
+                assert e.getLocation().toString().equalsIgnoreCase("1:16~1:32");
+                assert e.getThrowCode() == 123;
+            }
+        }
+    }
+
+    @Test
+    public void tiered_branch_test() throws Throwable {
+        String qlString = "" //
+                + "var fib = (n) -> { if (n < 2) { return n; } else { return fib(n - 1) + fib(n - 2); } };\n" //
+                + "var check = (n) -> { if (n % 3 == 0) { return 'a'; } else if (n % 3 == 1) { return 'b'; } else { return 'c'; } };\n" //
+                + "return { 'fib' : fib(15), 'check' : [check(3), check(4), check(5)] }";
+        Object threadedData = createDataQL(ExecuteEngineEnum.THREADED).createQuery(qlString).execute().getData().unwrap();
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setExecuteEngine(ExecuteEngineEnum.TIERED);
+        arguments.setTieredThreshold(2);
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(qlString), arguments, Finder.DEFAULT);
+        Query query = QueryHelper.createQuery(qil, Finder.DEFAULT, arguments);
+        for (int i = 0; i < 3; i++) {
+            assert (qil.getTieredCode(0) instanceof TieredCompiler.CompiledSequence) == (i >= 2);
+            Object tieredData = query.execute().getData().unwrap();
+            assert JSON.toJSONString(tieredData).equals(JSON.toJSONString(threadedData));
+            assert ((Map<?, ?>) tieredData).get("check").toString().equals("[a, b, c]");
+        }
+    }
+
+    @Test
+    public void tiered_fallback_test() throws Throwable {
+        // .闭包读取外层变量、=> 转换和 # 回退到解释执行，编译之后结果不变
+        String qlString = "" //
+                + "var base = 10;\n" //
+                + "var add = (a, b) -> { var sum = a + b + base; return sum; };\n" //
+                + "var list = [1, 2, 3, 4];\n" //
+                + "var mapped = list => [ add(#, 1) ];\n" //
+                + "var obj = { 'name' : 'abc', 'items' : mapped, 'flag' : !(base > 5), 'neg' : -base };\n" //
+                + "var pick = (o, i) -> { return o.items[i]; };\n" //
+                + "return { 'obj' : obj, 'pick' : pick(obj, 1), 'str' : obj.name + '_' + pick(obj, 2), 'sub' : { 'a' : base, 'b' : mapped[0] } }";
+        Object threadedData = createDataQL(ExecuteEngineEnum.THREADED).createQuery(qlString).execute().getData().unwrap();
+        assert JSON.toJSONString(threadedData).equals("" //
+                + "{\"obj\":{\"name\":\"abc\",\"items\":[12,13,14,15],\"flag\":false,\"neg\":-10},\"pick\":13,\"str\":\"abc_14\",\"sub\":{\"a\":10,\"b\":12}}");
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setExecuteEngine(ExecuteEngineEnum.TIERED);
+        arguments.setTieredThreshold(1);
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(qlString), arguments, Finder.DEFAULT);
+        Query query = QueryHelper.createQuery(qil, Finder.DEFAULT, arguments);
+        for (int i = 0; i < 3; i++) {
+            Object tieredData = query.execute().getData().unwrap();
+            assert JSON.toJSONString(tieredData).equals(JSON.toJSONString(threadedData));
+        }
+        for (int address = 0; address < qil.iqlPoolSize(); address++) {
+            assert qil.getTieredCode(address) instanceof TieredCompiler.CompiledSequence;
+        }
+        //
+        // .变量的个数超过堆的初始容量
+        StringBuilder manyVars = new StringBuilder();
+        for (int i = 0; i < 15; i++) {
+            manyVars.append("var v").append(i).append(" = ").append(i).append(";\n");
+        }
+        manyVars.append("return v14 + v1;");
+        assert createDataQL(ExecuteEngineEnum.TIERED).createQuery(manyVars.toString()).execute().getData().unwrap().toString().equals("15");
+        //
+        // .编译之后的方法抛出异常时，异常位置和解释执行一致
+        qlString = "var err = (n) -> { if (n > 1) { throw 123, 'abc'; } return n; };\nvar abc = err(1); var def = err(2); return 12345";
+        qil = QueryHelper.queryCompiler(QueryHelper.queryParser(qlString), arguments, Finder.DEFAULT);
+        query = QueryHelper.createQuery(qil, Finder.DEFAULT, arguments);
+        for (int i = 0; i < 2; i++) {
+            try {
+                query.execute();
+                assert false;
+            } catch (ThrowRuntimeException e) {
+                assert e.getLocation().toString().equalsIgnoreCase("1:32~1:48");
+                assert e.getThrowCode() == 123;
+            }
+        }
+        assert qil.getTieredCode(1) instanceof TieredCompiler.CompiledSequence;
+    }
+
+    @Test
+    public void parallel_call_test() throws Throwable {
+        String qlString = "" //
+                + "var slow = @@slow(id)<%r_%>;\n" //
+                + "var base = 10;\n" //
+                + "return { 'a' : slow(1), 'b' : base + 1, 'c' : slow(base), 'd' : slow(base) }";
+        String expect = "{\"a\":\"r_1\",\"b\":11,\"c\":\"r_10\",\"d\":\"r_10\"}";
+        ExecutorService executor = Executors.newCachedThreadPool(new NameThreadFactory("test-parallel-%s", getClass().getClassLoader()));
+        try {
+            for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+                Set<String> threadNames = ConcurrentHashMap.newKeySet();
+                Set<Boolean> allArrived = ConcurrentHashMap.newKeySet();
+                CountDownLatch latch = new CountDownLatch(3);
+                DataQL dataQL = Hasor.create().build((QueryModule) apiBinder -> {
+                    apiBinder.bindFragment("slow", (hint, params, fragmentString) -> {
+                        threadNames.add(Thread.currentThread().getName());
+                        if (Boolean.parseBoolean(String.valueOf(hint.getHint("PARALLEL_CALL")))) {
+                            latch.countDown();
+                            allArrived.add(latch.await(5, TimeUnit.SECONDS)); // 三个片段同时在执行才能全部通过
+                        }
+                        return fragmentString + params.get("id");
+                    });
+                }).getInstance(DataQL.class);
+                dataQL.configOption(DataQL.ConfigOption.EXECUTE_ENGINE, engineEnum);
+                dataQL.configOption(DataQL.ConfigOption.TIERED_THRESHOLD, 1);
+                dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+                dataQL.configOption(DataQL.ConfigOption.PARALLEL_EXECUTOR, executor);
+                //
+                // .未开启 PARALLEL_CALL 时在当前线程顺序执行
+                Object sequentialData = dataQL.createQuery(qlString).execute().getData().unwrap();
+                assert JSON.toJSONString(sequentialData).equals(expect);
+                assert threadNames.size() == 1 && threadNames.contains(Thread.currentThread().getName());
+                //
+                threadNames.clear();
+                Object parallelData = dataQL.createQuery("hint PARALLEL_CALL = true;\n" + qlString).execute().getData().unwrap();
+                assert JSON.toJSONString(parallelData).equals(expect);
+                assert allArrived.size() == 1 && allArrived.contains(true);
+                assert threadNames.size() == 3 && threadNames.stream().allMatch(name -> name.startsWith("test-parallel-"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_call_error_test() throws Throwable {
+        String qlString = "" //
+                + "hint PARALLEL_CALL = true;\n" //
+                + "var err = (n) -> throw 123, 'abc';\n" //
+                + "var ok = (n) -> { return n + 1; };\n" //
+                + "return { 'a' : ok(1), 'b' : err(2) }";
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            try {
+                DataQL dataQL = createDataQL(engineEnum);
+                dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+                dataQL.createQuery(qlString).execute();
+                assert false;
+            } catch (ThrowRuntimeException e) {
+                assert e.getThrowCode() == 123;
+            }
+        }
+    }
+
+    @Test
+    public void parallel_call_cancel_test() throws Throwable {
+        String qlString = "" //
+                + "hint PARALLEL_CALL = true;\n" //
+                + "var err = @@err(id)<%e_%>;\n" //
+                + "var slow = @@slow(id)<%r_%>;\n" //
+                + "return { 'a' : err(1), 'b' : slow(2) }";
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            DataQL dataQL = Hasor.create().build((QueryModule) apiBinder -> {
+                apiBinder.bindFragment("err", (hint, params, fragmentString) -> {
+                    started.await(5, TimeUnit.SECONDS);
+                    throw new IllegalStateException("err");
+                });
+                apiBinder.bindFragment("slow", (hint, params, fragmentString) -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return fragmentString + params.get("id");
+                });
+            }).getInstance(DataQL.class);
+            dataQL.configOption(DataQL.ConfigOption.EXECUTE_ENGINE, engineEnum);
+            dataQL.configOption(DataQL.ConfigOption.TIERED_THRESHOLD, 1);
+            dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+            try {
+                dataQL.createQuery(qlString).execute();
+                assert false;
+            } catch (InstructRuntimeException e) {
+                // .a 的调用失败之后，还没有 JOIN 的 b 会被取消
+                assert interrupted.await(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Test
+    public void parallel_local_reuse_test() throws Throwable {
+        String qlString = "" //
+                + "var f = (n) -> { return n + 1; };\n" //
+                + "var a = { 'x' : f(1), 'y' : f(2) };\n" //
+                + "var b = { 'x' : f(3), 'y' : f(4) };\n" //
+                + "return [a, b]";
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setParallelCall(true);
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(qlString), arguments, Finder.DEFAULT);
+        Set<Object> storeIndex = new HashSet<>();
+        for (Instruction inst : qil.iqlArrays(0)) {
+            if (inst.getInstCode() == Opcodes.STORE) {
+                storeIndex.add(inst.getArrays()[0]);
+            }
+        }
+        // .f、a、b 以及两个对象共用的两个匿名变量
+        assert storeIndex.size() == 5;
+        Object data = createDataQL(ExecuteEngineEnum.THREADED).createQuery(qlString).execute().getData().unwrap();
+        assert JSON.toJSONString(data).equals("[{\"x\":2,\"y\":3},{\"x\":4,\"y\":5}]");
+    }
+
+    @Test
+    public void parallel_compile_option_test() throws Throwable {
+        String qlString = "" //
+                + "hint PARALLEL_CALL = true;\n" //
+                + "var f = (n) -> { return n + 1; };\n" //
+                + "return { 'x' : f(1), 'y' : f(2) }";
+        // .默认不开启 parallelCall 编译选项：逐个字段 PUT，不产生 CALL_A/JOIN 和匿名变量
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        QIL defaultQil = QueryHelper.queryCompiler(QueryHelper.queryParser(qlString), arguments, Finder.DEFAULT);
+        arguments.setParallelCall(true);
+        QIL parallelQil = QueryHelper.queryCompiler(QueryHelper.queryParser(qlString), arguments, Finder.DEFAULT);
+        Set<Byte> defaultCodes = new HashSet<>();
+        Set<Byte> parallelCodes = new HashSet<>();
+        for (Instruction inst : defaultQil.iqlArrays(0)) {
+            defaultCodes.add(inst.getInstCode());
+        }
+        for (Instruction inst : parallelQil.iqlArrays(0)) {
+            parallelCodes.add(inst.getInstCode());
+        }
+        assert !defaultCodes.contains(Opcodes.CALL_A) && !defaultCodes.contains(Opcodes.JOIN);
+        assert parallelCodes.contains(Opcodes.CALL_A) && parallelCodes.contains(Opcodes.JOIN);
+        assert defaultQil.iqlArrays(0).length < parallelQil.iqlArrays(0).length;
+        //
+        // .两种编译结果的执行结果相同
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            DataQL dataQL = createDataQL(engineEnum);
+            Object defaultData = dataQL.createQuery(qlString).execute().getData().unwrap();
+            dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+            Object parallelData = dataQL.createQuery(qlString).execute().getData().unwrap();
+            assert JSON.toJSONString(defaultData).equals("{\"x\":2,\"y\":3}");
+            assert JSON.toJSONString(parallelData).equals(JSON.toJSONString(defaultData));
+        }
+    }
+
+    @Test
+    public void async_udf_test() throws Throwable {
+        String qlString = "" //
+                + "hint PARALLEL_CALL = true;\n" //
+                + "return { 'a' : slow(1), 'b' : slow(2), 'c' : frag(3) }";
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            Set<String> threadNames = ConcurrentHashMap.newKeySet();
+            List<CompletableFuture<Object>> pending = new CopyOnWriteArrayList<>();
+            DataQL dataQL = Hasor.create().build((QueryModule) apiBinder -> {
+                apiBinder.addShareVarInstance("slow", (AsyncUdf) (readOnly, params) -> {
+                    threadNames.add(Thread.currentThread().getName());
+                    CompletableFuture<Object> future = new CompletableFuture<>();
+                    pending.add(future);
+                    if (pending.size() == 2) {
+                        // .两个调用都已经发起之后才返回结果
+                        pending.forEach(f -> f.complete(null));
+                    }
+                    return future.thenApply(o -> "r_" + params[0]);
+                });
+                apiBinder.addShareVarInstance("frag", (Udf) (readOnly, params) -> {
+                    return ((AsyncFragmentProcess) (hint, fragParams, fragmentString) -> {
+                        return CompletableFuture.completedFuture(fragmentString + fragParams.get("id"));
+                    }).runFragment(readOnly, Collections.singletonMap("id", params[0]), "f_");
+                });
+            }).getInstance(DataQL.class);
+            dataQL.configOption(DataQL.ConfigOption.EXECUTE_ENGINE, engineEnum);
+            dataQL.configOption(DataQL.ConfigOption.TIERED_THRESHOLD, 1);
+            dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+            //
+            // .异步函数在开启 PARALLEL_CALL 时直接在查询线程上发起，不占用并行执行器的线程
+            Object data = dataQL.createQuery(qlString).execute().getData().unwrap();
+            assert JSON.toJSONString(data).equals("{\"a\":\"r_1\",\"b\":\"r_2\",\"c\":\"f_3\"}");
+            assert threadNames.size() == 1 && threadNames.contains(Thread.currentThread().getName());
+        }
+    }
+
+    @Test
+    public void execute_async_test() throws Throwable {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new NameThreadFactory("test-async-%s", getClass().getClassLoader()));
+        try {
+            DataQL dataQL = createDataQL(ExecuteEngineEnum.THREADED);
+            Query query = dataQL.createQuery("return ${a} + 1");
+            //
+            QueryResult result = query.executeAsync(symbol -> Collections.singletonMap("a", 10)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            assert result.getData().unwrap().equals(11);
+            //
+            CompletableFuture<String> threadName = new CompletableFuture<>();
+            query.executeAsync(symbol -> {
+                threadName.complete(Thread.currentThread().getName());
+                return Collections.singletonMap("a", 1);
+            }, executor).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            assert threadName.get().startsWith("test-async-");
+            //
+            // .执行中的异常通过 CompletionStage 返回
+            try {
+                dataQL.createQuery("throw 123, 'abc'").executeAsync().toCompletableFuture().get(5, TimeUnit.SECONDS);
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause() instanceof ThrowRuntimeException;
+                assert ((ThrowRuntimeException) e.getCause()).getThrowCode() == 123;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_call_saturation_test() throws Throwable {
+        // .内置执行器的线程全部繁忙时，并行调用改为在发起调用的线程上执行，查询不会失败
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        CountDownLatch meet = new CountDownLatch(maxThreads);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        DataQL dataQL = Hasor.create().build((QueryModule) apiBinder -> {
+            apiBinder.bindFragment("meet", (hint, params, fragmentString) -> {
+                threadNames.add(Thread.currentThread().getName());
+                meet.countDown();
+                return meet.await(5, TimeUnit.SECONDS); // 占满内置执行器的全部线程才能通过
+            });
+            apiBinder.bindFragment("slow", (hint, params, fragmentString) -> {
+                Thread.sleep(10);
+                return fragmentString + params.get("id");
+            });
+        }).getInstance(DataQL.class);
+        dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+        StringBuilder qlString = new StringBuilder("hint PARALLEL_CALL = true;\nvar meet = @@meet(id)<%m_%>;\nreturn {");
+        for (int i = 0; i < maxThreads + 2; i++) {
+            qlString.append((i == 0) ? "" : ",").append("'f").append(i).append("' : meet(").append(i).append(")");
+        }
+        Map<?, ?> data = (Map<?, ?>) dataQL.createQuery(qlString.append("}").toString()).execute().getData().unwrap();
+        assert data.size() == maxThreads + 2 && data.values().stream().allMatch(Boolean.TRUE::equals);
+        assert threadNames.contains(Thread.currentThread().getName());
+        assert threadNames.stream().filter(name -> name.startsWith("DataQL-Parallel-")).count() <= maxThreads;
+        //
+        // .多个查询同时发起大量并行调用
+        qlString = new StringBuilder("hint PARALLEL_CALL = true;\nvar slow = @@slow(id)<%r_%>;\nreturn {");
+        for (int i = 0; i < maxThreads * 2; i++) {
+            qlString.append((i == 0) ? "" : ",").append("'f").append(i).append("' : slow(").append(i).append(")");
+        }
+        Query query = dataQL.createQuery(qlString.append("}").toString());
+        ExecutorService executor = Executors.newFixedThreadPool(4, new NameThreadFactory("test-burst-%s", getClass().getClassLoader()));
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> query.clone().execute().getData().unwrap()));
+            }
+            for (Future<Object> future : futures) {
+                Map<?, ?> burstData = (Map<?, ?>) future.get(10, TimeUnit.SECONDS);
+                assert burstData.size() == maxThreads * 2 && burstData.get("f3").equals("r_3");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void execute_async_saturation_test() throws Throwable {
+        // .异步查询占满内置的异步执行器时继续排队，并且不占用并行调用的线程
+        int queryCount = Math.max(8, Runtime.getRuntime().availableProcessors() * 4) * 2;
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch meet = new CountDownLatch(3);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        DataQL dataQL = Hasor.create().build((QueryModule) apiBinder -> {
+            apiBinder.bindFragment("block", (hint, params, fragmentString) -> {
+                threadNames.add(Thread.currentThread().getName());
+                release.await(10, TimeUnit.SECONDS);
+                return fragmentString + params.get("id");
+            });
+            apiBinder.bindFragment("meet", (hint, params, fragmentString) -> {
+                meet.countDown();
+                return meet.await(5, TimeUnit.SECONDS); // 三个片段同时在执行才能全部通过
+            });
+        }).getInstance(DataQL.class);
+        dataQL.configOption(DataQL.ConfigOption.PARALLEL_CALL, true);
+        try {
+            Query query = dataQL.createQuery("var block = @@block(id)<%r_%>;\nreturn block(${id})");
+            List<CompletableFuture<QueryResult>> futures = new ArrayList<>();
+            for (int i = 0; i < queryCount; i++) {
+                futures.add(query.executeAsync(Collections.singletonMap("id", i)).toCompletableFuture());
+            }
+            //
+            String qlString = "hint PARALLEL_CALL = true;\nvar meet = @@meet(id)<%m_%>;\nreturn { 'a' : meet(1), 'b' : meet(2), 'c' : meet(3) }";
+            Object data = dataQL.createQuery(qlString).execute().getData().unwrap();
+            assert JSON.toJSONString(data).equals("{\"a\":true,\"b\":true,\"c\":true}");
+            //
+            release.countDown();
+            for (int i = 0; i < queryCount; i++) {
+                assert futures.get(i).get(10, TimeUnit.SECONDS).getData().unwrap().equals("r_" + i);
+            }
+            assert threadNames.stream().allMatch(name -> name.startsWith("DataQL-Async-"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void frame_reuse_test() throws Throwable {
+        // .执行帧复用之后，闭包引用的堆依然保持独立
+        String qlString = "" //
+                + "var adder = (n) -> { var f = (x) -> { return x + n; }; return f; };\n" //
+                + "var inc = (n) -> { var m = n + 100; return m; };\n" //
+                + "var a1 = adder(1);\n" //
+                + "var a2 = adder(2);\n" //
+                + "return [ a1(10), inc(0), a2(10), a1(20) ]";
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            for (int i = 0; i < 3; i++) {
+                Object data = createDataQL(engineEnum).createQuery(qlString).execute().getData().unwrap();
+                assert JSON.toJSONString(data).equals("[11,100,12,21]");
+            }
+        }
+    }
+}
\ No newline at end of file
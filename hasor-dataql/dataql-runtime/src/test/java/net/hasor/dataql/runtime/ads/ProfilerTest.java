@@ -0,0 +1,111 @@
+package net.hasor.dataql.runtime.ads;
+import com.alibaba.fastjson.JSON;
+import net.hasor.core.Hasor;
+import net.hasor.dataql.*;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import net.hasor.test.dataql.udfs.SqlFragmentUdf;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProfilerTest extends AbstractTestResource {
+    private static final String QUERY = "" //
+            + "import 'net.hasor.test.dataql.udfs.UserOrderUdfSource' as source;\n" //
+            + "var dataSet = @@sql(itemCode,status) <% select * from category where co_code like '%:itemCode%' and status = :status %>\n" //
+            + "var fun = (user) -> { return user.name; };\n" //
+            + "var users = source.userList();\n" //
+            + "return { 'names' : users => [ fun(#) ], 'count' : dataSet('abc', true) => [ # ] };";
+
+    private static DataQL createDataQL(ExecuteEngineEnum engineEnum, boolean profiler) {
+        DataQL dataQL = Hasor.create().build((QueryModule) apiBinder -> {
+            apiBinder.bindFragment("sql", new SqlFragmentUdf(1));
+        }).getInstance(DataQL.class);
+        dataQL.configOption(DataQL.ConfigOption.CODE_LOCATION, CompilerArguments.CodeLocationEnum.TERM);
+        dataQL.configOption(DataQL.ConfigOption.EXECUTE_ENGINE, engineEnum);
+        dataQL.configOption(DataQL.ConfigOption.TIERED_THRESHOLD, 1);
+        dataQL.configOption(DataQL.ConfigOption.PROFILER, profiler);
+        return dataQL;
+    }
+
+    private static Map<String, Object> findStat(Object statList, String key, Object value) {
+        for (Map<String, Object> stat : (List<Map<String, Object>>) statList) {
+            if (value.equals(stat.get(key))) {
+                return stat;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void disabled_test() throws IOException {
+        QueryResult queryResult = createDataQL(ExecuteEngineEnum.THREADED, false).createQuery(QUERY).execute();
+        assert queryResult.getProfile() == null;
+    }
+
+    @Test
+    public void summary_test() throws IOException {
+        for (ExecuteEngineEnum engineEnum : ExecuteEngineEnum.values()) {
+            QueryResult original = createDataQL(engineEnum, false).createQuery(QUERY).execute();
+            QueryResult profiled = createDataQL(engineEnum, true).createQuery(QUERY).execute();
+            assert JSON.toJSONString(original.getData().unwrap()).equals(JSON.toJSONString(profiled.getData().unwrap()));
+            //
+            QueryProfile profile = profiled.getProfile();
+            Map<String, Object> summary = profile.toSummary();
+            assert (long) summary.get("totalTime") == profile.totalTime();
+            //
+            // .每行代码（lambda 每次调用都是一次进入）、UDF、片段
+            assert findStat(summary.get("lines"), "line", 4) != null;
+            List<Map<String, Object>> lambdaLines = (List<Map<String, Object>>) summary.get("lines");
+            assert lambdaLines.stream().anyMatch(stat -> !stat.get("method").equals("main") && (long) stat.get("count") == 4);
+            Map<String, Object> udfStat = findStat(summary.get("udfs"), "name", "UserOrderUdfSource.userList");
+            assert udfStat != null && (long) udfStat.get("count") == 1;
+            Map<String, Object> fragmentStat = findStat(summary.get("fragments"), "type", "sql");
+            assert fragmentStat != null && (long) fragmentStat.get("count") == 1;
+            assert fragmentStat.get("fragment").toString().startsWith("select * from category where");
+        }
+    }
+
+    @Test
+    public void hint_test() throws IOException {
+        // .Query 上的 Hint，以及脚本开头的 hint 语句
+        Query query = createDataQL(ExecuteEngineEnum.THREADED, false).createQuery(QUERY);
+        query.setHint(HintNames.PROFILER.name(), true);
+        assert query.execute().getProfile() != null;
+        //
+        query = createDataQL(ExecuteEngineEnum.THREADED, false).createQuery("hint PROFILER = true\n" + QUERY);
+        assert query.execute().getProfile() != null;
+        query = createDataQL(ExecuteEngineEnum.THREADED, false).createQuery("hint PROFILER = false\n" + QUERY);
+        assert query.execute().getProfile() == null;
+    }
+
+    @Test
+    public void collapsed_stack_test() throws IOException {
+        String queryString = "" //
+                + "var fun = (n) -> { var src = [1,2,3,4,5,6,7,8,9,10]; return src => [ # * n ]; };\n" //
+                + "return ${src} => [ fun(#) ];";
+        // .耗时来自粗粒度时钟，执行的次数要足够多
+        List<Integer> dataList = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            dataList.add(i);
+        }
+        Map<String, Object> envData = new HashMap<>();
+        envData.put("src", dataList);
+        QueryProfile profile = createDataQL(ExecuteEngineEnum.THREADED, true).createQuery(queryString).execute(envData).getProfile();
+        String collapsedStack = profile.toCollapsedStack();
+        assert collapsedStack.contains("main;line:2;lambda#1;line:1 ");
+        for (String stackLine : collapsedStack.split("\n")) {
+            if (stackLine.isEmpty()) {
+                continue;
+            }
+            // .格式：frame;frame;frame 数值
+            int lastSpace = stackLine.lastIndexOf(' ');
+            assert stackLine.startsWith("main");
+            assert Long.parseLong(stackLine.substring(lastSpace + 1)) > 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.hasor.dataql.runtime.benchmark;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.Query;
+import net.hasor.dataql.QueryResult;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import net.hasor.dataql.runtime.QueryHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 CLASSIC、THREADED、TIERED 三种执行引擎每秒执行的指令数。
+ *  - 测试脚本是一段没有分支的直线代码，每次执行都会把 QIL 中的全部指令执行一遍，所以 instructions 指标就是每秒执行的指令数。
+ *  - TIERED 在方法编译为字节码之后还需要等待 JIT 完成编译，所以预热时间较长。
+ *  - 脚本的长度控制在 TIERED 能够编译的范围内，生成的字节码超过 HotSpot 的 JIT 上限时 TIERED 不编译该方法。
+ *  - 运行方式：直接执行 main 方法。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 15, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecuteEngineBenchmark {
+    @Param({ "CLASSIC", "THREADED", "TIERED" })
+    public ExecuteEngineEnum executeEngine;
+    private Query            query;
+    private int              instPerExecute;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class InstCounter {
+        public long instructions;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder queryString = new StringBuilder("var v0 = 1;\n");
+        for (int i = 1; i < 20; i++) {
+            queryString.append("var v").append(i).append(" = { 'a' : v").append(i - 1).append(" + ").append(i);
+            queryString.append(", 'b' : 'str_").append(i).append("' };\n");
+            queryString.append("var v").append(i).append(" = v").append(i).append(".a * 2;\n");
+        }
+        queryString.append("return v19;");
+        //
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setExecuteEngine(this.executeEngine);
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(queryString.toString()), arguments, Finder.DEFAULT);
+        this.query = QueryHelper.createQuery(qil, Finder.DEFAULT, arguments);
+        this.instPerExecute = qil.iqlSize(0);
+    }
+
+    @Benchmark
+    public QueryResult execute(InstCounter counter) throws Exception {
+        QueryResult result = this.query.execute();
+        counter.instructions += this.instPerExecute;
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ExecuteEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
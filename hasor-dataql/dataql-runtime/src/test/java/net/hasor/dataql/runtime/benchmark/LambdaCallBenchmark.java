@@ -0,0 +1,66 @@
+package net.hasor.dataql.runtime.benchmark;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.Query;
+import net.hasor.dataql.QueryResult;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.CompilerArguments.ExecuteEngineEnum;
+import net.hasor.dataql.runtime.QueryHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在一个大列表上逐个调用 Lambda，观察每次 Lambda 调用分配的内存。
+ *  - 开启了 GC Profiler，结果中的 gc.alloc.rate.norm 是每次查询分配的字节数，除以列表长度就是每次 Lambda 调用的分配量。
+ *  - 运行方式：直接执行 main 方法。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LambdaCallBenchmark {
+    @Param({ "CLASSIC", "THREADED", "TIERED" })
+    public ExecuteEngineEnum executeEngine;
+    @Param({ "10000" })
+    public int               listSize;
+    private Query            query;
+
+    @Setup
+    public void setup() throws Exception {
+        String queryString = "" //
+                + "var fun = (x) -> { return x + 1; };\n" //
+                + "return src => [ fun(#) ];";
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setExecuteEngine(this.executeEngine);
+        arguments.getCompilerVar().add("src");
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(queryString), arguments, Finder.DEFAULT);
+        this.query = QueryHelper.createQuery(qil, Finder.DEFAULT, arguments);
+        List<Integer> dataList = new ArrayList<>(this.listSize);
+        for (int i = 0; i < this.listSize; i++) {
+            dataList.add(i);
+        }
+        this.query.addShareVar("src", dataList);
+    }
+
+    @Benchmark
+    public QueryResult execute() throws Exception {
+        return this.query.execute();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()//
+                .include(LambdaCallBenchmark.class.getSimpleName())//
+                .addProfiler(GCProfiler.class)//
+                .build()).run();
+    }
+}
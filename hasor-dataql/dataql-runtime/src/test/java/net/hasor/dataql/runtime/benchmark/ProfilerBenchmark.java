@@ -0,0 +1,65 @@
+package net.hasor.dataql.runtime.benchmark;
+import net.hasor.dataql.Finder;
+import net.hasor.dataql.Query;
+import net.hasor.dataql.QueryResult;
+import net.hasor.dataql.compiler.qil.QIL;
+import net.hasor.dataql.runtime.CompilerArguments;
+import net.hasor.dataql.runtime.QueryHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比开启和关闭 PROFILER 时执行同一个查询的耗时，两者的差值就是性能分析的开销。
+ *  - 测试脚本在一个列表上逐行调用多行的 Lambda，每次调用都会经过多次行号变化。
+ *  - 运行方式：直接执行 main 方法。
+ * @author 赵永春 (zyc@hasor.net)
+ * @version : 2020-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfilerBenchmark {
+    @Param({ "false", "true" })
+    public boolean profiler;
+    @Param({ "10000" })
+    public int     listSize;
+    private Query  query;
+
+    @Setup
+    public void setup() throws Exception {
+        String queryString = "" //
+                + "var fun = (x) -> {\n" //
+                + "    var a = x * 2;\n" //
+                + "    var b = { 'value' : a + 1, 'name' : 'item_' + x };\n" //
+                + "    return b;\n" //
+                + "};\n" //
+                + "return src => [ fun(#) ];";
+        CompilerArguments arguments = CompilerArguments.DEFAULT.copyAsNew();
+        arguments.setProfiler(this.profiler);
+        arguments.getCompilerVar().add("src");
+        QIL qil = QueryHelper.queryCompiler(QueryHelper.queryParser(queryString), arguments, Finder.DEFAULT);
+        this.query = QueryHelper.createQuery(qil, Finder.DEFAULT, arguments);
+        List<Integer> dataList = new ArrayList<>(this.listSize);
+        for (int i = 0; i < this.listSize; i++) {
+            dataList.add(i);
+        }
+        this.query.addShareVar("src", dataList);
+    }
+
+    @Benchmark
+    public QueryResult execute() throws Exception {
+        return this.query.execute();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ProfilerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -3,6 +3,7 @@ import net.hasor.dataql.AbstractTestResource;
 import net.hasor.dataql.Hints;
 import net.hasor.dataql.runtime.HintsSet;
 import net.hasor.dataql.runtime.Location;
+import net.hasor.dataql.runtime.operator.ops.RoundingEnum;
 import org.junit.Test;
 
 import java.math.BigDecimal;
@@ -594,4 +595,76 @@ public class BasicSymbolTest extends AbstractTestResource {
         assert process.doProcess(Location.unknownLocation(), ">>>", bigInts1, optionSet).equals(new BigInteger("-8"));
         assert process.doProcess(Location.unknownLocation(), ">>>", bigInts2, optionSet).equals(new BigInteger("7"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void number_fast_path_test() throws Exception {
+        Object[] numbers = new Object[] { 0, 7, -3, Integer.MAX_VALUE, 0L, 5L, -9L, Long.MIN_VALUE, 0.0d, 2.5d, -1.25d, Double.NaN };
+        for (Object fst : numbers) {
+            for (Object sec : numbers) {
+                Number fstNum = (Number) fst;
+                Number secNum = (Number) sec;
+                // .数值计算（整数除 0 由通用路径抛出异常）
+                boolean divZero = !OperatorUtils.isDecimal(fstNum) && !OperatorUtils.isDecimal(secNum) && secNum.longValue() == 0;
+                assert opResult("+", fst, sec).equals(OperatorUtils.add(fstNum, secNum));
+                assert opResult("-", fst, sec).equals(OperatorUtils.subtract(fstNum, secNum));
+                assert opResult("*", fst, sec).equals(OperatorUtils.multiply(fstNum, secNum));
+                if (!divZero) {
+                    assert opResult("/", fst, sec).equals(OperatorUtils.divide(fstNum, secNum, 20, RoundingEnum.HALF_UP));
+                    assert opResult("%", fst, sec).equals(OperatorUtils.mod(fstNum, secNum));
+                }
+                // .比较运算
+                assert opResult(">", fst, sec).equals(OperatorUtils.gt(fstNum, secNum));
+                assert opResult(">=", fst, sec).equals(OperatorUtils.gteq(fstNum, secNum));
+                assert opResult("<", fst, sec).equals(OperatorUtils.lt(fstNum, secNum));
+                assert opResult("<=", fst, sec).equals(OperatorUtils.lteq(fstNum, secNum));
+                assert opResult("==", fst, sec).equals(OperatorUtils.eq(fstNum, secNum));
+                assert opResult("!=", fst, sec).equals(!OperatorUtils.eq(fstNum, secNum));
+            }
+        }
+        // .会改变结果的 Hint 不走快速路径
+        Hints longWidth = new HintsSet() {{
+            setHint(Hints.MIN_INTEGER_WIDTH, "long");
+        }};
+        OperatorProcess process = om.findDyadicProcess("+", Integer.class, Integer.class);
+        assert process.doProcess(Location.unknownLocation(), "+", new Object[] { 1, 2 }, longWidth).equals(3L);
+        Hints maxDecimal = new HintsSet() {{
+            setHint(Hints.MAX_DECIMAL_DIGITS, 2);
+        }};
+        process = om.findDyadicProcess("/", Double.class, Double.class);
+        assert process.doProcess(Location.unknownLocation(), "/", new Object[] { 1.0d, 3.0d }, maxDecimal).equals(0.33d);
+    }
+
+    private Object opResult(String symbol, Object fst, Object sec) throws Exception {
+        OperatorProcess process = om.findDyadicProcess(symbol, fst.getClass(), sec.getClass());
+        return process.doProcess(Location.unknownLocation(), symbol, new Object[] { fst, sec }, optionSet);
+    }
+
+    @Test
+    public void operator_cache_test() throws Exception {
+        OperatorManager manager = new OperatorManager();
+        OperatorProcess numberProcess = (location, operator, args, option) -> "number";
+        manager.registryOperator("+", Number.class, Number.class, numberProcess);
+        //
+        OperatorCache cache = OperatorCache.append(null, manager, Integer.class, Integer.class, numberProcess);
+        assert cache.find(manager, Integer.class, Integer.class) == numberProcess;
+        assert cache.find(manager, Integer.class, Long.class) == null;
+        assert cache.find(om, Integer.class, Integer.class) == null;
+        //
+        // .多态，超过上限之后不再增加
+        cache = OperatorCache.append(cache, manager, Integer.class, Long.class, numberProcess);
+        cache = OperatorCache.append(cache, manager, Long.class, Long.class, numberProcess);
+        assert !cache.isMegamorphic(manager);
+        cache = OperatorCache.append(cache, manager, Double.class, Long.class, numberProcess);
+        assert cache.isMegamorphic(manager);
+        assert OperatorCache.append(cache, manager, Float.class, Long.class, numberProcess) == cache;
+        assert cache.find(manager, Integer.class, Long.class) == numberProcess;
+        assert cache.find(manager, Double.class, Long.class) == numberProcess;
+        //
+        // .注册新的运算符之后缓存失效
+        OperatorProcess intProcess = (location, operator, args, option) -> "int";
+        manager.registryOperator("+", Integer.class, Integer.class, intProcess);
+        assert cache.find(manager, Integer.class, Integer.class) == null;
+        assert !cache.isMegamorphic(manager);
+        assert manager.findDyadicProcess("+", Integer.class, Integer.class).doProcess(null, "+", null, null).equals("int");
+    }
+}
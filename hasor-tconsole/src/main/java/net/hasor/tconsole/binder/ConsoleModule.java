@@ -18,8 +18,10 @@ import net.hasor.core.ApiBinder;
 import net.hasor.core.AppContext;
 import net.hasor.core.EventContext;
 import net.hasor.core.Module;
+import net.hasor.core.spi.BeanStartupListener;
 import net.hasor.core.spi.ContextStartListener;
 import net.hasor.tconsole.ConsoleApiBinder;
+import net.hasor.tconsole.commands.StartupExecutor;
 
 /**
  * tConsole Hasor 插件入口。
@@ -31,8 +33,16 @@ public class ConsoleModule implements Module, ContextStartListener {
 
     @Override
     public void loadModule(ApiBinder apiBinder) {
-        this.enable = apiBinder.tryCast(ConsoleApiBinder.class) != null;
+        ConsoleApiBinder consoleApiBinder = apiBinder.tryCast(ConsoleApiBinder.class);
+        this.enable = consoleApiBinder != null;
         apiBinder.bindSpiListener(ContextStartListener.class, this);
+        boolean startupTimeline = apiBinder.getEnvironment().getSettings().getBoolean("hasor.tConsole.startupTimeline", false);
+        if (this.enable && startupTimeline) {
+            // 单例 Bean 的启动时间线需要在容器启动之前开始收集（默认关闭，避免改变已有的命令列表）
+            StartupExecutor startupExecutor = new StartupExecutor();
+            apiBinder.bindSpiListener(BeanStartupListener.class, startupExecutor);
+            consoleApiBinder.asHostWithEnv().addExecutor("startup").toInstance(startupExecutor);
+        }
     }
 
     @Override
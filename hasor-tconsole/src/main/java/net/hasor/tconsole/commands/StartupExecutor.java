@@ -0,0 +1,87 @@
+/*
+ * Copyright 2008-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.hasor.tconsole.commands;
+import net.hasor.core.BindInfo;
+import net.hasor.core.container.BeanTimeline;
+import net.hasor.core.spi.BeanStartupListener;
+import net.hasor.tconsole.TelCommand;
+import net.hasor.tconsole.TelExecutor;
+
+import javax.inject.Singleton;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static net.hasor.core.container.BeanTimeline.toMillis;
+
+/**
+ * 查看容器启动时各个单例 Bean 的启动时间线（创建、依赖注入、init 方法的耗时），数据通过 BeanStartupListener 收集。
+ * 需要设置 hasor.tConsole.startupTimeline=true 才会注册该命令。
+ * @version : 2020-10-17
+ * @author 赵永春 (zyc@hasor.net)
+ */
+@Singleton
+public class StartupExecutor implements TelExecutor, BeanStartupListener {
+    private final List<BeanTimeline> timelineList = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void beanStarted(BindInfo<?> bindInfo, BeanTimeline timeline) {
+        this.timelineList.add(timeline);
+    }
+
+    @Override
+    public String helpInfo() {
+        return "show startup timeline of singleton beans.\r\n"//
+                + " - startup          (list beans in the order they started.)\r\n"//
+                + " - startup slow <n> (list n beans that took the longest time, default n is 10.)";
+    }
+
+    @Override
+    public String doCommand(TelCommand telCommand) throws Throwable {
+        String[] args = telCommand.getCommandArgs();
+        List<BeanTimeline> timelines = new ArrayList<>(this.timelineList);
+        int limit = timelines.size();
+        if (args != null && args.length > 0) {
+            if (!"slow".equalsIgnoreCase(args[0])) {
+                return "[ERROR] bad args '" + args[0] + "' startup command only support 'slow'.";
+            }
+            limit = (args.length > 1) ? Integer.parseInt(args[1].trim()) : 10;
+            timelines.sort(Comparator.comparingLong(BeanTimeline::getTotalTime).reversed());
+        } else {
+            timelines.sort(Comparator.comparingLong(BeanTimeline::getStartOffset));
+        }
+        //
+        long finishTime = timelines.stream().mapToLong(timeline -> timeline.getStartOffset() + timeline.getTotalTime()).max().orElse(0);
+        StringWriter sw = new StringWriter();
+        sw.write(String.format("[SUCCEED] %d singletons started in %.3fms\r\n", timelines.size(), toMillis(finishTime)));
+        timelines.stream().limit(Math.max(0, limit)).forEach(timeline -> {
+            BindInfo<?> bindInfo = timeline.getBindInfo();
+            if (timeline.isCreated()) {
+                sw.write(String.format(" - start=%.3fms, total=%.3fms (create=%.3fms, inject=%.3fms, init=%.3fms), thread=%s -> %s (%s)\r\n",//
+                        toMillis(timeline.getStartOffset()), toMillis(timeline.getTotalTime()), toMillis(timeline.getCreateTime()),//
+                        toMillis(timeline.getInjectTime()), toMillis(timeline.getInitTime()), timeline.getThreadName(),//
+                        bindInfo.getBindID(), bindInfo.getBindType().getName()));
+            } else {
+                sw.write(String.format(" - start=%.3fms, total=%.3fms (created before startup), thread=%s -> %s (%s)\r\n",//
+                        toMillis(timeline.getStartOffset()), toMillis(timeline.getTotalTime()), timeline.getThreadName(),//
+                        bindInfo.getBindID(), bindInfo.getBindType().getName()));
+            }
+        });
+        return sw.toString();
+    }
+}
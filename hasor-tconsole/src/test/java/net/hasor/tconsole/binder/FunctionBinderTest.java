@@ -162,4 +162,28 @@ public class FunctionBinderTest extends HostServerTest {
         //
         appContext.shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void hasor_host_startup_test() {
+        // .输入输出流通道
+        StringWriter stringWriter = new StringWriter();
+        PipedWriter inDataWriter = new PipedWriter();
+        //
+        // .开启 startup 命令，启动 tConsole 服务
+        AppContext appContext = Hasor.create().addSettings("http://www.hasor.net/sechma/hasor-tconsole", "hasor.tConsole.startupTimeline", true).build(apiBinder -> {
+            apiBinder.tryCast(ConsoleApiBinder.class)//
+                    .asHost(new PipedReader(inDataWriter), stringWriter)//
+                    .preCommand("exit -next", "startup")// 执行两个命令后自动结束
+                    .answerExit();
+        });
+        while (appContext.isStart()) {
+            try {
+                Thread.sleep(100); //等待结束
+            } catch (Exception e) {/**/}
+        }
+        //
+        String string = stringWriter.toString();
+        assert string.contains("singletons started in");                        // startup 命令
+        assert string.contains("bye.");                                         // exit 命令
+    }
+}